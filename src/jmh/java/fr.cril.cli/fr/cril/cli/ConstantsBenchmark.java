@@ -0,0 +1,135 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.ShortName;
+
+/**
+ * Compares a solver-like loop reading its options from the fields of an option object, and from constants built by
+ * {@link CliArgsParser#constants(ParsedArgs, Object, Class)}.
+ * 
+ * Run with <code>mvn -P jmh test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=ConstantsBenchmark</code>.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstantsBenchmark {
+	
+	private static final String[] ARGS = {"--restart-inc", "3"};
+	
+	private static final int LOOP_SIZE = 100_000;
+	
+	private static final SolverOptions OPTIONS = new SolverOptions();
+	
+	private static final SolverFlags FLAGS;
+	
+	static {
+		final CliArgsParser<SolverOptions> parser = new CliArgsParser<>(new ClassParser<>(SolverOptions.class));
+		try {
+			parser.parse(OPTIONS, ARGS);
+			FLAGS = parser.constants(parser.parse(ARGS), new SolverOptions(), SolverFlags.class);
+		} catch(CliUsageException | CliOptionDefinitionException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	/**
+	 * The options of the benchmarked loop.
+	 */
+	public static class SolverOptions {
+		
+		@ShortName("luby")
+		private boolean luby = false;
+		
+		@LongName("restart-inc")
+		@Args(1)
+		private int restartInc = 2;
+	}
+	
+	/**
+	 * The accessor interface of the options of the benchmarked loop.
+	 */
+	public interface SolverFlags {
+		
+		boolean luby();
+		
+		int restartInc();
+	}
+	
+	private static long step(final long acc, final int i, final boolean luby, final int restartInc) {
+		if(luby) {
+			return acc + Integer.bitCount(i) * restartInc;
+		}
+		return acc + (i % restartInc);
+	}
+	
+	/**
+	 * Reads the options from the fields of the option object.
+	 * 
+	 * @return the result of the loop
+	 */
+	@Benchmark
+	public long fields() {
+		long acc = 0;
+		for(int i=0; i<LOOP_SIZE; ++i) {
+			acc = step(acc, i, OPTIONS.luby, OPTIONS.restartInc);
+		}
+		return acc;
+	}
+	
+	/**
+	 * Reads the options from the constants.
+	 * 
+	 * @return the result of the loop
+	 */
+	@Benchmark
+	public long constants() {
+		long acc = 0;
+		for(int i=0; i<LOOP_SIZE; ++i) {
+			acc = step(acc, i, FLAGS.luby(), FLAGS.restartInc());
+		}
+		return acc;
+	}
+
+}
@@ -0,0 +1,87 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.cril.cli.utils.DecimalParser;
+
+/**
+ * Compares the conversion of typical real-valued option arguments by {@link DecimalParser} and by {@link Double#parseDouble(String)}.
+ * 
+ * Run with <code>mvn -P jmh test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args=DecimalParserBenchmark</code>.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecimalParserBenchmark {
+	
+	private static final String[] VALUES = {"0.95", "0.999", "1.5", "100", "1e-3", "2.5E4", "0.8", "1.1"};
+	
+	/**
+	 * Converts the values with {@link DecimalParser#parseDouble(String, int, int)}.
+	 * 
+	 * @return the sum of the values
+	 * @throws CliUsageException if a value is malformed
+	 */
+	@Benchmark
+	public double decimalParser() throws CliUsageException {
+		double sum = 0;
+		for(final String value : VALUES) {
+			sum += DecimalParser.parseDouble(value, 0, value.length());
+		}
+		return sum;
+	}
+	
+	/**
+	 * Converts the values with {@link Double#parseDouble(String)}.
+	 * 
+	 * @return the sum of the values
+	 */
+	@Benchmark
+	public double parseDouble() {
+		double sum = 0;
+		for(final String value : VALUES) {
+			sum += Double.parseDouble(value);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,165 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of string literals seen as Boolean constants by the options which take a Boolean argument.
+ * 
+ * The literals are stored in an open addressing hash table, so that looking up a token costs a hash computation and (most of the time) a single comparison,
+ * without any allocation. If the vocabulary ignores case, the hash and the comparison fold the case of each character
+ * as {@link String#equalsIgnoreCase(String)} does.
+ * 
+ * A vocabulary is given to a parser by {@link CliArgsParser#setBooleanVocabulary(BooleanVocabulary)}, and becomes part of its compiled options;
+ * since it cannot be modified, parsers running concurrently never observe a partially updated vocabulary.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class BooleanVocabulary {
+	
+	/** the default vocabulary, which only recognizes "true" and "false" */
+	public static final BooleanVocabulary DEFAULT = of(new String[] {"false"}, new String[] {"true"}, false);
+	
+	private final String[] falseValues;
+	
+	private final String[] trueValues;
+	
+	private final boolean ignoreCase;
+	
+	private final String[] keys;
+	
+	private final boolean[] values;
+	
+	private final int mask;
+	
+	private BooleanVocabulary(final String[] falseValues, final String[] trueValues, final boolean ignoreCase) {
+		this.falseValues = falseValues;
+		this.trueValues = trueValues;
+		this.ignoreCase = ignoreCase;
+		final int n = falseValues.length + trueValues.length;
+		final int capacity = Integer.highestOneBit(Math.max(2, n) * 2 - 1) << 1;
+		this.keys = new String[capacity];
+		this.values = new boolean[capacity];
+		this.mask = capacity - 1;
+		insert(falseValues, false);
+		insert(trueValues, true);
+	}
+	
+	private void insert(final String[] literals, final boolean value) {
+		for(final String literal : literals) {
+			int i = hash(literal) & this.mask;
+			while(this.keys[i] != null) {
+				if(matches(this.keys[i], literal)) {
+					if(this.values[i] != value) {
+						throw new IllegalArgumentException("\""+literal+"\" is given both as a false and a true value");
+					}
+					break;
+				}
+				i = (i + 1) & this.mask;
+			}
+			this.keys[i] = literal;
+			this.values[i] = value;
+		}
+	}
+	
+	/**
+	 * Builds a vocabulary.
+	 * 
+	 * Both arrays must be non null, contain at least one string, and strings must be non-null and nonempty.
+	 * No string can be shared by the two arrays (ignoring case, if the vocabulary ignores case).
+	 * The first string of each array is the one used to format the Boolean values (e.g. when options are unparsed).
+	 * 
+	 * @param falseValues the literals which stand for <code>false</code>
+	 * @param trueValues the literals which stand for <code>true</code>
+	 * @param ignoreCase <code>true</code> iff the case of the tokens must be ignored
+	 * @return the vocabulary
+	 */
+	public static BooleanVocabulary of(final String[] falseValues, final String[] trueValues, final boolean ignoreCase) {
+		if(
+			falseValues == null || trueValues == null || falseValues.length == 0 || trueValues.length == 0 ||
+			Arrays.stream(falseValues).anyMatch(s -> s == null || s.isEmpty()) || Arrays.stream(trueValues).anyMatch(s -> s == null || s.isEmpty())
+		) {
+			throw new IllegalArgumentException("unexpected values provided as Boolean constants (got \""+Arrays.toString(falseValues)+"\" and \""+Arrays.toString(trueValues)+"\")");
+		}
+		return new BooleanVocabulary(falseValues.clone(), trueValues.clone(), ignoreCase);
+	}
+	
+	/**
+	 * Returns the Boolean value associated to a token.
+	 * 
+	 * @param token the token
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the token belongs to the vocabulary, <code>null</code> otherwise
+	 */
+	public Boolean lookup(final String token) {
+		for(int i = hash(token) & this.mask; this.keys[i] != null; i = (i + 1) & this.mask) {
+			if(matches(this.keys[i], token)) {
+				return this.values[i] ? Boolean.TRUE : Boolean.FALSE;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the literal used to format a Boolean value, i.e. the first one given for this value.
+	 * 
+	 * @param value the value
+	 * @return the literal
+	 */
+	public String format(final boolean value) {
+		return value ? this.trueValues[0] : this.falseValues[0];
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the case of the tokens is ignored.
+	 * 
+	 * @return <code>true</code> iff the case of the tokens is ignored
+	 */
+	public boolean isIgnoreCase() {
+		return this.ignoreCase;
+	}
+	
+	private int hash(final String str) {
+		int h = 0;
+		for(int i=0; i<str.length(); ++i) {
+			h = 31 * h + (this.ignoreCase ? fold(str.charAt(i)) : str.charAt(i));
+		}
+		return h ^ (h >>> 16);
+	}
+	
+	private static char fold(final char c) {
+		return Character.toLowerCase(Character.toUpperCase(c));
+	}
+	
+	private boolean matches(final String key, final String token) {
+		return this.ignoreCase ? key.equalsIgnoreCase(token) : key.equals(token);
+	}
+	
+	@Override
+	public String toString() {
+		return "false="+Arrays.toString(this.falseValues)+", true="+Arrays.toString(this.trueValues)+(this.ignoreCase ? " (ignoring case)" : "");
+	}
+
+}
@@ -0,0 +1,639 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer of class files, used to spin the classes specialized for a set of options (see {@link ConstantSpinner} and {@link ParserSpinner}).
+ * 
+ * The writer handles the constant pool, the methods and their code; the code may contain branches, provided that the operand stack is empty
+ * and that the local variables are the parameters of the method at each branch target, so that all the frames of the <code>StackMapTable</code>
+ * attribute are equal to the initial one. The classes have no field, and are written in the Java 11 class file format.
+ * 
+ * Classes are defined through <code>Lookup.defineHiddenClass</code> when the runtime provides it (Java 15 and later), so that they can be unloaded
+ * when they are no longer reachable; on the Java 11 baseline, they are defined through {@link Lookup#defineClass(byte[])},
+ * and live as long as the class loader of the lookup class.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class ClassFileWriter {
+	
+	/** the <code>ACC_SUPER</code> flag of the classes */
+	static final int ACC_SUPER = 0x0020;
+	
+	/** the <code>aconst_null</code> opcode */
+	static final int ACONST_NULL = 0x01;
+	
+	/** the <code>iconst_m1</code> opcode */
+	static final int ICONST_M1 = 0x02;
+	
+	/** the <code>iconst_0</code> opcode */
+	static final int ICONST_0 = 0x03;
+	
+	/** the <code>lconst_0</code> opcode */
+	static final int LCONST_0 = 0x09;
+	
+	/** the <code>bipush</code> opcode */
+	static final int BIPUSH = 0x10;
+	
+	/** the <code>sipush</code> opcode */
+	static final int SIPUSH = 0x11;
+	
+	/** the <code>ldc_w</code> opcode */
+	static final int LDC_W = 0x13;
+	
+	/** the <code>ldc2_w</code> opcode */
+	static final int LDC2_W = 0x14;
+	
+	/** the <code>iload_0</code> opcode */
+	static final int ILOAD_0 = 0x1a;
+	
+	/** the <code>iload_1</code> opcode */
+	static final int ILOAD_1 = 0x1b;
+	
+	/** the <code>iload_2</code> opcode */
+	static final int ILOAD_2 = 0x1c;
+	
+	/** the <code>iload_3</code> opcode */
+	static final int ILOAD_3 = 0x1d;
+	
+	/** the <code>aload_0</code> opcode */
+	static final int ALOAD_0 = 0x2a;
+	
+	/** the <code>aload_1</code> opcode */
+	static final int ALOAD_1 = 0x2b;
+	
+	/** the <code>aload_2</code> opcode */
+	static final int ALOAD_2 = 0x2c;
+	
+	/** the <code>aload_3</code> opcode */
+	static final int ALOAD_3 = 0x2d;
+	
+	/** the <code>laload</code> opcode */
+	static final int LALOAD = 0x2f;
+	
+	/** the <code>aaload</code> opcode */
+	static final int AALOAD = 0x32;
+	
+	/** the <code>isub</code> opcode */
+	static final int ISUB = 0x64;
+	
+	/** the <code>l2i</code> opcode */
+	static final int L2I = 0x88;
+	
+	/** the <code>d2f</code> opcode */
+	static final int D2F = 0x90;
+	
+	/** the <code>ifeq</code> opcode */
+	static final int IFEQ = 0x99;
+	
+	/** the <code>if_icmpne</code> opcode */
+	static final int IF_ICMPNE = 0xa0;
+	
+	/** the <code>tableswitch</code> opcode */
+	static final int TABLESWITCH = 0xaa;
+	
+	/** the <code>lookupswitch</code> opcode */
+	static final int LOOKUPSWITCH = 0xab;
+	
+	/** the <code>ireturn</code> opcode */
+	static final int IRETURN = 0xac;
+	
+	/** the <code>lreturn</code> opcode */
+	static final int LRETURN = 0xad;
+	
+	/** the <code>areturn</code> opcode */
+	static final int ARETURN = 0xb0;
+	
+	/** the <code>return</code> opcode */
+	static final int RETURN = 0xb1;
+	
+	/** the <code>putfield</code> opcode */
+	static final int PUTFIELD = 0xb5;
+	
+	/** the <code>invokevirtual</code> opcode */
+	static final int INVOKEVIRTUAL = 0xb6;
+	
+	/** the <code>invokespecial</code> opcode */
+	static final int INVOKESPECIAL = 0xb7;
+	
+	/** the <code>invokestatic</code> opcode */
+	static final int INVOKESTATIC = 0xb8;
+	
+	/** the <code>checkcast</code> opcode */
+	static final int CHECKCAST = 0xc0;
+	
+	private static final int CLASS_FILE_VERSION = 55;
+	
+	private static final Method DEFINE_HIDDEN_CLASS = defineHiddenClassMethod();
+	
+	private static final Object NO_CLASS_OPTION = DEFINE_HIDDEN_CLASS == null ? null : Array.newInstance(DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType(), 0);
+	
+	private static final Object NESTMATE_CLASS_OPTION = DEFINE_HIDDEN_CLASS == null ? null : classOptions("NESTMATE");
+	
+	private final ConstantPool pool = new ConstantPool();
+	
+	private final int access;
+	
+	private final int thisClass;
+	
+	private final int superClass;
+	
+	private final int[] interfaces;
+	
+	private final int codeAttr;
+	
+	private int stackMapAttr = 0;
+	
+	private int nMethods = 0;
+	
+	private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+	
+	/**
+	 * Starts writing a class.
+	 * 
+	 * @param access the access flags of the class
+	 * @param className the internal name of the class
+	 * @param superClass the internal name of the super class
+	 * @param interfaces the internal names of the implemented interfaces
+	 */
+	ClassFileWriter(final int access, final String className, final String superClass, final String... interfaces) {
+		this.access = access;
+		this.thisClass = this.pool.classRef(className);
+		this.superClass = this.pool.classRef(superClass);
+		this.interfaces = Arrays.stream(interfaces).mapToInt(this.pool::classRef).toArray();
+		this.codeAttr = this.pool.utf8("Code");
+	}
+	
+	private static Method defineHiddenClassMethod() {
+		try {
+			final Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			return Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, Array.newInstance(classOption, 0).getClass());
+		} catch(ClassNotFoundException | NoSuchMethodException e) {
+			return null;
+		}
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object classOptions(final String name) {
+		final Class classOption = DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType();
+		final Object options = Array.newInstance(classOption, 1);
+		Array.set(options, 0, Enum.valueOf(classOption, name));
+		return options;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the runtime is able to define hidden classes.
+	 * 
+	 * @return <code>true</code> iff hidden classes are available
+	 */
+	static boolean hasHiddenClasses() {
+		return DEFINE_HIDDEN_CLASS != null;
+	}
+	
+	/**
+	 * Defines a class in the package of a lookup class, as a hidden class if the runtime provides them.
+	 * 
+	 * @param lookup the lookup, which must have the full privilege access
+	 * @param bytes the class file
+	 * @param nestmate <code>true</code> if the hidden class must be a member of the nest of the lookup class (ignored when hidden classes are not available)
+	 * @return a lookup on the new class, with full privilege access
+	 * @throws IllegalAccessException if the lookup has not the required access
+	 * @throws InvocationTargetException if the definition of the hidden class fails
+	 */
+	static Lookup define(final Lookup lookup, final byte[] bytes, final boolean nestmate) throws IllegalAccessException, InvocationTargetException {
+		if(DEFINE_HIDDEN_CLASS != null) {
+			return (Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytes, Boolean.TRUE, nestmate ? NESTMATE_CLASS_OPTION : NO_CLASS_OPTION);
+		}
+		return lookup.in(lookup.defineClass(bytes));
+	}
+	
+	/**
+	 * Returns the constant pool of the class.
+	 * 
+	 * @return the constant pool
+	 */
+	ConstantPool constants() {
+		return this.pool;
+	}
+	
+	/**
+	 * Adds a method to the class.
+	 * 
+	 * @param access the access flags of the method
+	 * @param name the name of the method
+	 * @param descriptor the descriptor of the method
+	 * @param maxStack the maximal depth of the operand stack
+	 * @param maxLocals the number of local variables (i.e. the number of slots taken by the parameters, including <code>this</code>)
+	 * @param code the code of the method
+	 */
+	void method(final int access, final String name, final String descriptor, final int maxStack, final int maxLocals, final Code code) {
+		final byte[] bytes = code.toByteArray();
+		final byte[] frames = code.stackMapFrames();
+		if(frames.length > 0 && this.stackMapAttr == 0) {
+			this.stackMapAttr = this.pool.utf8("StackMapTable");
+		}
+		final int nameIndex = this.pool.utf8(name);
+		final int descriptorIndex = this.pool.utf8(descriptor);
+		try(final DataOutputStream out = new DataOutputStream(this.methods)) {
+			out.writeShort(access);
+			out.writeShort(nameIndex);
+			out.writeShort(descriptorIndex);
+			out.writeShort(1);
+			out.writeShort(this.codeAttr);
+			out.writeInt(12 + bytes.length + (frames.length == 0 ? 0 : 6 + frames.length));
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+			out.writeShort(0);
+			if(frames.length == 0) {
+				out.writeShort(0);
+			} else {
+				out.writeShort(1);
+				out.writeShort(this.stackMapAttr);
+				out.writeInt(frames.length);
+				out.write(frames);
+			}
+		} catch(IOException e) {
+			throw new IllegalArgumentException("cannot write method "+name+" ("+e.getMessage()+")", e);
+		}
+		++this.nMethods;
+	}
+	
+	/**
+	 * Returns the class file.
+	 * 
+	 * @return the class file
+	 */
+	byte[] toByteArray() {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(final DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(CLASS_FILE_VERSION);
+			this.pool.write(out);
+			out.writeShort(this.access);
+			out.writeShort(this.thisClass);
+			out.writeShort(this.superClass);
+			out.writeShort(this.interfaces.length);
+			for(final int itf : this.interfaces) {
+				out.writeShort(itf);
+			}
+			out.writeShort(0);
+			out.writeShort(this.nMethods);
+			out.write(this.methods.toByteArray());
+			out.writeShort(0);
+		} catch(IOException e) {
+			throw new IllegalArgumentException("cannot write the class ("+e.getMessage()+")", e);
+		}
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * The code of a method being written.
+	 * 
+	 * Branch targets are given by {@link Label} instances; each bound label gets a frame equal to the initial one of the method.
+	 */
+	static final class Code {
+		
+		private byte[] bytes = new byte[64];
+		
+		private int size = 0;
+		
+		private final List<Integer> framePositions = new ArrayList<>();
+		
+		/**
+		 * Appends a byte (an opcode or an operand).
+		 * 
+		 * @param b the byte
+		 * @return this code
+		 */
+		Code op(final int b) {
+			if(this.size == this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, this.size * 2);
+			}
+			this.bytes[this.size++] = (byte) b;
+			return this;
+		}
+		
+		/**
+		 * Appends an instruction which operand is a two-byte index (in the constant pool, or a short value).
+		 * 
+		 * @param opcode the opcode
+		 * @param index the index
+		 * @return this code
+		 */
+		Code indexed(final int opcode, final int index) {
+			return op(opcode).op(index >> 8).op(index);
+		}
+		
+		/**
+		 * Appends the instruction which pushes an integer constant.
+		 * 
+		 * @param pool the constant pool
+		 * @param n the constant
+		 * @return this code
+		 */
+		Code pushInt(final ConstantPool pool, final int n) {
+			if(n >= -1 && n <= 5) {
+				return op(ICONST_0 + n);
+			}
+			if(n >= Byte.MIN_VALUE && n <= Byte.MAX_VALUE) {
+				return op(BIPUSH).op(n);
+			}
+			if(n >= Short.MIN_VALUE && n <= Short.MAX_VALUE) {
+				return indexed(SIPUSH, n);
+			}
+			return indexed(LDC_W, pool.intConstant(n));
+		}
+		
+		/**
+		 * Appends a branch instruction with a two-byte offset.
+		 * 
+		 * @param opcode the opcode
+		 * @param target the branch target
+		 * @return this code
+		 */
+		Code jump(final int opcode, final Label target) {
+			final int start = this.size;
+			op(opcode);
+			target.refer(this, start, this.size, 2);
+			return op(0).op(0);
+		}
+		
+		/**
+		 * Appends a <code>tableswitch</code> instruction.
+		 * 
+		 * @param low the lowest key
+		 * @param dflt the default target
+		 * @param targets the targets of the keys <code>low</code>, <code>low+1</code>, ...
+		 * @return this code
+		 */
+		Code tableSwitch(final int low, final Label dflt, final Label[] targets) {
+			final int start = this.size;
+			op(TABLESWITCH);
+			pad();
+			dflt.refer(this, start, this.size, 4);
+			writeInt(0);
+			writeInt(low);
+			writeInt(low + targets.length - 1);
+			for(final Label target : targets) {
+				target.refer(this, start, this.size, 4);
+				writeInt(0);
+			}
+			return this;
+		}
+		
+		/**
+		 * Appends a <code>lookupswitch</code> instruction.
+		 * 
+		 * @param keys the keys, in increasing order
+		 * @param dflt the default target
+		 * @param targets the targets of the keys
+		 * @return this code
+		 */
+		Code lookupSwitch(final int[] keys, final Label dflt, final Label[] targets) {
+			final int start = this.size;
+			op(LOOKUPSWITCH);
+			pad();
+			dflt.refer(this, start, this.size, 4);
+			writeInt(0);
+			writeInt(keys.length);
+			for(int i=0; i<keys.length; ++i) {
+				writeInt(keys[i]);
+				targets[i].refer(this, start, this.size, 4);
+				writeInt(0);
+			}
+			return this;
+		}
+		
+		private void pad() {
+			while((this.size & 3) != 0) {
+				op(0);
+			}
+		}
+		
+		private void writeInt(final int value) {
+			op(value >> 24).op(value >> 16).op(value >> 8).op(value);
+		}
+		
+		private void patch(final int at, final int width, final int value) {
+			for(int i=0; i<width; ++i) {
+				this.bytes[at + i] = (byte) (value >> (8 * (width - 1 - i)));
+			}
+		}
+		
+		/**
+		 * Binds a label to the current position.
+		 * 
+		 * @param label the label
+		 * @return this code
+		 */
+		Code bind(final Label label) {
+			label.bind(this, this.size);
+			if(this.framePositions.isEmpty() || this.framePositions.get(this.framePositions.size() - 1) != this.size) {
+				this.framePositions.add(this.size);
+			}
+			return this;
+		}
+		
+		private byte[] toByteArray() {
+			return Arrays.copyOf(this.bytes, this.size);
+		}
+		
+		private byte[] stackMapFrames() {
+			if(this.framePositions.isEmpty()) {
+				return new byte[0];
+			}
+			final ByteArrayOutputStream frames = new ByteArrayOutputStream();
+			try(final DataOutputStream out = new DataOutputStream(frames)) {
+				out.writeShort(this.framePositions.size());
+				int previous = -1;
+				for(final int position : this.framePositions) {
+					final int delta = position - previous - 1;
+					if(delta < 64) {
+						out.writeByte(delta);
+					} else {
+						out.writeByte(251);
+						out.writeShort(delta);
+					}
+					previous = position;
+				}
+			} catch(IOException e) {
+				throw new IllegalArgumentException("cannot write the frames ("+e.getMessage()+")", e);
+			}
+			return frames.toByteArray();
+		}
+	}
+	
+	/**
+	 * A branch target in the code of a method.
+	 */
+	static final class Label {
+		
+		private int position = -1;
+		
+		private final List<int[]> references = new ArrayList<>();
+		
+		private void refer(final Code code, final int instruction, final int at, final int width) {
+			if(this.position >= 0) {
+				code.patch(at, width, this.position - instruction);
+			} else {
+				this.references.add(new int[] {instruction, at, width});
+			}
+		}
+		
+		private void bind(final Code code, final int position) {
+			if(this.position >= 0) {
+				throw new IllegalStateException("label bound twice");
+			}
+			this.position = position;
+			for(final int[] ref : this.references) {
+				code.patch(ref[1], ref[2], position - ref[0]);
+			}
+			this.references.clear();
+		}
+	}
+	
+	/**
+	 * The constant pool of a class being written; entries are shared when they are equal.
+	 */
+	static final class ConstantPool {
+		
+		private static final int UTF8 = 1;
+		
+		private static final int INTEGER = 3;
+		
+		private static final int LONG = 5;
+		
+		private static final int CLASS = 7;
+		
+		private static final int STRING = 8;
+		
+		private static final int FIELD_REF = 9;
+		
+		private static final int METHOD_REF = 10;
+		
+		private static final int NAME_AND_TYPE = 12;
+		
+		private final Map<List<Object>, Integer> indexes = new HashMap<>();
+		
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+		
+		private int next = 1;
+		
+		int utf8(final String value) {
+			return entry(Arrays.asList(UTF8, value), 1, o -> o.writeUTF(value));
+		}
+		
+		int classRef(final String internalName) {
+			final int name = utf8(internalName);
+			return entry(Arrays.asList(CLASS, internalName), 1, o -> o.writeShort(name));
+		}
+		
+		int string(final String value) {
+			final int utf8 = utf8(value);
+			return entry(Arrays.asList(STRING, value), 1, o -> o.writeShort(utf8));
+		}
+		
+		int intConstant(final int value) {
+			return entry(Arrays.asList(INTEGER, value), 1, o -> o.writeInt(value));
+		}
+		
+		int longConstant(final long value) {
+			return entry(Arrays.asList(LONG, value), 2, o -> o.writeLong(value));
+		}
+		
+		int methodRef(final String owner, final String name, final String descriptor) {
+			return memberRef(METHOD_REF, owner, name, descriptor);
+		}
+		
+		int fieldRef(final String owner, final String name, final String descriptor) {
+			return memberRef(FIELD_REF, owner, name, descriptor);
+		}
+		
+		private int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+			final int ownerClass = classRef(owner);
+			final int nameIndex = utf8(name);
+			final int descriptorIndex = utf8(descriptor);
+			final int nameAndType = entry(Arrays.asList(NAME_AND_TYPE, name, descriptor), 1, o -> {
+				o.writeShort(nameIndex);
+				o.writeShort(descriptorIndex);
+			});
+			return entry(Arrays.asList(tag, owner, name, descriptor), 1, o -> {
+				o.writeShort(ownerClass);
+				o.writeShort(nameAndType);
+			});
+		}
+		
+		private int entry(final List<Object> key, final int width, final EntryWriter writer) {
+			final Integer known = this.indexes.get(key);
+			if(known != null) {
+				return known;
+			}
+			try {
+				this.out.writeByte((Integer) key.get(0));
+				writer.write(this.out);
+			} catch(IOException e) {
+				throw new IllegalArgumentException("cannot write the constant "+key.get(1)+" ("+e.getMessage()+")", e);
+			}
+			final int index = this.next;
+			this.next += width;
+			if(this.next > 0xffff) {
+				throw new IllegalArgumentException("too many constants");
+			}
+			this.indexes.put(key, index);
+			return index;
+		}
+		
+		private void write(final DataOutputStream classOut) throws IOException {
+			classOut.writeShort(this.next);
+			classOut.write(this.bytes.toByteArray());
+		}
+	}
+	
+	@FunctionalInterface
+	private interface EntryWriter {
+		
+		void write(final DataOutputStream out) throws IOException;
+	}
+
+}
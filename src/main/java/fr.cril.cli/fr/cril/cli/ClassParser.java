@@ -1,6 +1,10 @@
 package fr.cril.cli;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 
 /*-
  * #%L
@@ -31,7 +35,9 @@ import java.lang.reflect.Field;
 
 import fr.cril.cli.utils.EClassAnnotation;
 import fr.cril.cli.utils.EFieldAnnotation;
+import fr.cril.cli.utils.EHelpFormat;
 import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionUsagePrinter;
 
 /**
  * The class used to parse a class instance, looking for the CLI annotations.
@@ -44,9 +50,15 @@ public class ClassParser<T> {
 	
 	private final Class<T> cl;
 	
-	private OptionMap optMap;
+	private volatile OptionMap optMap;
+	
+	private volatile OptionMap lastBuilt;
 	
 	private boolean allowShortNamesMerging = true;
+	
+	private BooleanVocabulary booleanVocabulary = null;
+	
+	private volatile CompiledParser compiledParser;
 
 	/**
 	 * Builds a parser given the class under consideration.
@@ -61,6 +73,7 @@ public class ClassParser<T> {
 	 * Launches the parsing process.
 	 * 
 	 * An {@link OptionMap} describing the options set by annotations is returned.
+	 * The option map is built at the first call and reused by the next ones, until the configuration of this parser changes.
 	 * 
 	 * In case errors are detected in the definition of the options, a {@link CliOptionDefinitionException} is thrown.
 	 * 
@@ -68,20 +81,51 @@ public class ClassParser<T> {
 	 * @throws CliOptionDefinitionException in case errors are detected in the definition of the options
 	 */
 	OptionMap parse() throws CliOptionDefinitionException {
-		this.optMap = new OptionMap();
-		this.optMap.allowShortNamesMerging(this.allowShortNamesMerging);
+		final OptionMap built = this.optMap;
+		return built != null ? built : build();
+	}
+	
+	private synchronized OptionMap build() throws CliOptionDefinitionException {
+		if(this.optMap != null) {
+			return this.optMap;
+		}
+		final OptionMap map = new OptionMap();
+		map.allowShortNamesMerging(this.allowShortNamesMerging);
+		map.setBooleanVocabulary(this.booleanVocabulary);
 		for(final Annotation annotation: this.cl.getAnnotations()) {
 			final Class<? extends Annotation> annotationType = annotation.annotationType();
 			if(!EClassAnnotation.hasForClass(annotationType)) {
 				continue;
 			}
-			EClassAnnotation.forClass(annotationType).apply(annotation, this.optMap);
+			EClassAnnotation.forClass(annotationType).apply(annotation, map);
 		}
 		for(final Field f : this.cl.getDeclaredFields()) {
-			parseField(this.optMap, f);
+			parseField(map, f);
+		}
+		map.sanityChecks();
+		this.optMap = map;
+		this.lastBuilt = map;
+		return map;
+	}
+	
+	/**
+	 * Returns the option map used to print the usage.
+	 * 
+	 * The map is rebuilt if the configuration of this parser has changed; in case the new configuration is invalid,
+	 * the last map which has been built is used, since the usage does not depend on the configuration.
+	 * 
+	 * @return the option map
+	 */
+	private OptionMap usageMap() {
+		try {
+			return parse();
+		} catch (CliOptionDefinitionException e) {
+			final OptionMap last = this.lastBuilt;
+			if(last == null) {
+				throw new IllegalStateException("the options of "+this.cl.getName()+" are not correctly defined", e);
+			}
+			return last;
 		}
-		this.optMap.sanityChecks();
-		return this.optMap;
 	}
 	
 	private void parseField(final OptionMap optMap, final Field field) throws CliOptionDefinitionException {
@@ -94,13 +138,93 @@ public class ClassParser<T> {
 		}
 	}
 	
+	/**
+	 * Returns the parser specialized for the options of the class, used as a fast path by {@link CliArgsParser}.
+	 * 
+	 * The parser is compiled at the first call, and is shared by the {@link CliArgsParser} instances built on this class parser
+	 * until the options (or the short names merging policy) change.
+	 * 
+	 * @param allowShortNamesMerging <code>true</code> iff short names merging is allowed
+	 * @return the specialized parser
+	 * @throws CliOptionDefinitionException in case errors are detected in the definition of the options
+	 */
+	CompiledParser compile(final boolean allowShortNamesMerging) throws CliOptionDefinitionException {
+		final OptionMap map = parse();
+		final CompiledParser compiled = this.compiledParser;
+		if(compiled != null && compiled.isFor(map.getSchema(), allowShortNamesMerging)) {
+			return compiled;
+		}
+		final CompiledParser built = new CompiledParser(map, allowShortNamesMerging, this.cl);
+		this.compiledParser = built;
+		return built;
+	}
+	
+	/**
+	 * Returns the class under consideration.
+	 * 
+	 * @return the class
+	 */
+	Class<T> getOptionClass() {
+		return this.cl;
+	}
+	
 	/**
 	 * Prints the option list and their description into the provided {@link PrintWriter}.
 	 * 
+	 * If the usage has been rendered at build time by the {@link HelpGenerator}, the rendering is read from the resources;
+	 * otherwise, it is computed from the annotations.
+	 * 
 	 * @param out the {@link PrintWriter}
 	 */
 	public void printOptionUsage(final PrintWriter out) {
-		this.optMap.printOptionUsage(out);
+		try(final InputStream prerendered = this.cl.getResourceAsStream("/"+EHelpFormat.TEXT.resourceName(this.cl))) {
+			if(prerendered != null) {
+				new InputStreamReader(prerendered, StandardCharsets.UTF_8).transferTo(out);
+				out.flush();
+				return;
+			}
+		} catch (IOException e) {
+			// the usage is computed from the annotations
+		}
+		usageMap().printOptionUsage(out);
+	}
+	
+	/**
+	 * Prints the options which short or long name begins with the provided prefix and their description into the provided {@link PrintWriter}.
+	 * 
+	 * The comparison ignores case, and the leading hyphens of the prefix are ignored.
+	 * This method is intended to implement options like <code>--help=restart</code>.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param prefix the prefix
+	 */
+	public void printOptionUsage(final PrintWriter out, final String prefix) {
+		new OptionUsagePrinter(usageMap()).printPrefixed(out, prefix);
+	}
+	
+	/**
+	 * Prints a page of the option list and their description into the provided {@link PrintWriter}.
+	 * 
+	 * Pages are numbered from zero; nothing is printed if the page is out of range.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param page the page number
+	 * @param pageSize the number of options per page
+	 */
+	public void printOptionUsage(final PrintWriter out, final int page, final int pageSize) {
+		new OptionUsagePrinter(usageMap()).printPage(out, page, pageSize);
+	}
+	
+	/**
+	 * Prints the options which description contains the provided text into the provided {@link PrintWriter}.
+	 * 
+	 * The comparison ignores case.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param text the text to look for
+	 */
+	public void searchOptionUsage(final PrintWriter out, final String text) {
+		new OptionUsagePrinter(usageMap()).printMatching(out, text);
 	}
 	
 	/**
@@ -115,8 +239,23 @@ public class ClassParser<T> {
 	 * 
 	 * @param allow <code>true</code> to allow
 	 */
-	void allowShortNamesMerging(final boolean allow) {
+	synchronized void allowShortNamesMerging(final boolean allow) {
+		if(allow != this.allowShortNamesMerging) {
+			this.optMap = null;
+		}
 		this.allowShortNamesMerging = allow;
 	}
+	
+	/**
+	 * Sets the Boolean constants recognized by the options which take a Boolean argument.
+	 * 
+	 * @param vocabulary the Boolean constants, or <code>null</code> to use the ones shared by all the parsers
+	 */
+	synchronized void setBooleanVocabulary(final BooleanVocabulary vocabulary) {
+		if(vocabulary != this.booleanVocabulary) {
+			this.optMap = null;
+		}
+		this.booleanVocabulary = vocabulary;
+	}
 
 }
@@ -24,18 +24,23 @@ package fr.cril.cli;
  * #L%
  */
 
+import java.lang.invoke.MethodType;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
-import java.util.Queue;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import fr.cril.cli.utils.EFieldType;
 import fr.cril.cli.utils.Multiplicity;
 import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
 
 /**
  * The class used to parse command line arguments and make the field associations taking advantage of a {@link ClassParser}.
@@ -44,13 +49,23 @@ import fr.cril.cli.utils.OptionMap;
  */
 public class CliArgsParser<T> {
 	
+	private static final int WARM_UP_ROUND_SIZE = 1000;
+	
+	private static final int WARM_UP_STABLE_ROUNDS = 3;
+	
 	private final ClassParser<T> optParser;
 	
 	private final List<String> parameters = new ArrayList<>();
 	
-	private final List<Field> seen = new ArrayList<>();
-	
 	private boolean allowShortNamesMerging = true;
+	
+	private volatile Unparser unparser = null;
+	
+	private volatile ParseCache parseCache = null;
+	
+	private volatile ConstructorBinder constructorBinder = null;
+	
+	private volatile ConstantSpinner constantSpinner = null;
 
 	/**
 	 * Builds a new CLI arguments parser using a {@link ClassParser}.
@@ -70,6 +85,8 @@ public class CliArgsParser<T> {
 	 * 
 	 * This functions must be called prior to any other interrogation function, like {@link CliArgsParser#getParameters()}.
 	 * 
+	 * If a cache is set by {@link CliArgsParser#setParseCache(ParseCache)}, the arguments are looked up in the cache first.
+	 * 
 	 * @param obj the object on which the fields should be updated
 	 * @param argArray the CLI arguments
 	 * @throws CliUsageException if there is a error in the definition of the options (usage of the annotations)
@@ -78,97 +95,617 @@ public class CliArgsParser<T> {
 	public void parse(final T obj, final String[] argArray) throws CliUsageException, CliOptionDefinitionException {
 		final OptionMap optionMap = this.optParser.parse();
 		this.parameters.clear();
-		this.seen.clear();
-		final Queue<String> args = new LinkedList<>(Arrays.asList(argArray));
-		while(!args.isEmpty()) {
-			final String arg = args.poll();
+		final CompiledParser compiledParser = this.optParser.compile(this.allowShortNamesMerging);
+		if(this.parseCache != null) {
+			final ParsedArgs args = parse(argArray);
+			compiledParser.applyTo(args, obj);
+			this.parameters.addAll(args.getParameters());
+			return;
+		}
+		final ParsedArgs compiled = compiledParser.parse(argArray);
+		if(compiled != null) {
+			compiledParser.applyTo(compiled, obj);
+			this.parameters.addAll(compiled.getParameters());
+			return;
+		}
+		final ParseState state = new ParseState(optionMap, obj, argArray, false);
+		try {
+			parse(state);
+		} finally {
+			this.parameters.addAll(state.parameters);
+		}
+	}
+	
+	/**
+	 * Parses the CLI arguments into an immutable snapshot, without associating any value to any field.
+	 * 
+	 * All the checks made by {@link CliArgsParser#parse(Object, String[])} are made.
+	 * The snapshot can then be copied into option objects by {@link CliArgsParser#bind(ParsedArgs, Object)}.
+	 * 
+	 * This method does not modify the state of this parser, and may be called concurrently by several threads.
+	 * 
+	 * @param argArray the CLI arguments
+	 * @return the snapshot
+	 * @throws CliUsageException if the CLI arguments are invalid for the {@link ClassParser} (arguments given by the final user)
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public ParsedArgs parse(final String[] argArray) throws CliUsageException, CliOptionDefinitionException {
+		final OptionMap optionMap = this.optParser.parse();
+		final CompiledParser compiled = this.optParser.compile(this.allowShortNamesMerging);
+		final ParseCache cache = this.parseCache;
+		if(cache != null) {
+			return cache.get(optionMap.getSchema(), argArray, () -> parseSnapshot(optionMap, compiled, argArray));
+		}
+		return parseSnapshot(optionMap, compiled, argArray);
+	}
+	
+	private ParsedArgs parseSnapshot(final OptionMap optionMap, final CompiledParser compiled, final String[] argArray) throws CliUsageException {
+		final ParsedArgs fast = compiled.parse(argArray);
+		if(fast != null) {
+			return fast;
+		}
+		final ParsedArgs.Builder state = new ParsedArgs.Builder(optionMap, argArray, null, false);
+		parse(state);
+		return state.build();
+	}
+	
+	/**
+	 * Sets the cache used to skip the parsing of CLI arguments which have already been parsed, or disables it if <code>null</code> is provided.
+	 * 
+	 * When a cache is set, {@link CliArgsParser#parse(Object, String[])} and {@link CliArgsParser#parse(String[])} look the arguments up in the cache;
+	 * on a hit, the cached snapshot is just copied into the target object. In this mode, the target object is left unchanged
+	 * if the arguments are invalid. The cache is disabled by default.
+	 * 
+	 * @param cache the cache, or <code>null</code>
+	 */
+	public void setParseCache(final ParseCache cache) {
+		this.parseCache = cache;
+	}
+	
+	/**
+	 * Parses the CLI arguments shared by several command lines into an immutable snapshot,
+	 * on top of which the arguments specific to each command line are applied by {@link CliArgsParser#parseOverrides(ParsedArgs, String[])}.
+	 * 
+	 * The checks made by {@link CliArgsParser#parse(Object, String[])} are made, except the ones related to the required options
+	 * and to the number of parameters, which are made when the overrides are applied.
+	 * 
+	 * This method does not modify the state of this parser, and may be called concurrently by several threads.
+	 * 
+	 * @param argArray the shared CLI arguments
+	 * @return the snapshot
+	 * @throws CliUsageException if the CLI arguments are invalid for the {@link ClassParser} (arguments given by the final user)
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public ParsedArgs parseBase(final String[] argArray) throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs.Builder state = new ParsedArgs.Builder(this.optParser.parse(), argArray, null, true);
+		parse(state);
+		return state.build();
+	}
+	
+	/**
+	 * Applies override CLI arguments to a base snapshot, and returns the resulting snapshot.
+	 * 
+	 * Only the tokens of the overrides are converted: the values of the options given by the overrides replace the ones of the base,
+	 * and the other values of the base are kept. If the overrides contain parameters, they replace the ones of the base;
+	 * otherwise, the parameters of the base are kept. The required options and the number of parameters are checked on the result.
+	 * 
+	 * This method does not modify the state of this parser, and may be called concurrently by several threads.
+	 * 
+	 * @param base the base snapshot, built by this parser
+	 * @param overrides the override CLI arguments
+	 * @return the resulting snapshot
+	 * @throws CliUsageException if the override CLI arguments are invalid for the {@link ClassParser}, or if the result does not pass the checks
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public ParsedArgs parseOverrides(final ParsedArgs base, final String[] overrides) throws CliUsageException, CliOptionDefinitionException {
+		if(base == null) {
+			throw new IllegalArgumentException();
+		}
+		final ParsedArgs.Builder state = new ParsedArgs.Builder(this.optParser.parse(), overrides, base, false);
+		parse(state);
+		return state.build();
+	}
+	
+	/**
+	 * Copies a snapshot into an object, as {@link CliArgsParser#parse(Object, String[])} would do with the arguments of the snapshot.
+	 * 
+	 * The fields which are not given a value by the snapshot are left unchanged. The parameters returned by {@link CliArgsParser#getParameters()}
+	 * are updated to the ones of the snapshot.
+	 * 
+	 * @param args the snapshot, built by this parser
+	 * @param obj the object on which the fields should be updated
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public void bind(final ParsedArgs args, final T obj) throws CliOptionDefinitionException {
+		if(args.schema() != this.optParser.parse().getSchema()) {
+			throw new IllegalArgumentException("the snapshot was not built with the same options");
+		}
+		this.optParser.compile(this.allowShortNamesMerging).applyTo(args, obj);
+		this.parameters.clear();
+		this.parameters.addAll(args.getParameters());
+	}
+	
+	/**
+	 * Parses the CLI arguments and builds a new option object through its constructor, allowing the options and parameters to be <code>final</code> fields.
+	 * 
+	 * The constructor is the canonical constructor for records, and the one annotated by {@link fr.cril.cli.annotations.OptionsConstructor} for other classes;
+	 * see {@link CliArgsParser#construct(ParsedArgs, Object)}.
+	 * 
+	 * @param argArray the CLI arguments
+	 * @return the new object
+	 * @throws CliUsageException if the CLI arguments are invalid for the {@link ClassParser} (arguments given by the final user)
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options, or if the class has no suitable constructor
+	 */
+	public T construct(final String[] argArray) throws CliUsageException, CliOptionDefinitionException {
+		return construct(parse(argArray), null);
+	}
+	
+	/**
+	 * Builds a new option object from a snapshot, through its constructor.
+	 * 
+	 * The constructor is the canonical constructor for records, and the one annotated by {@link fr.cril.cli.annotations.OptionsConstructor} for other classes;
+	 * each of its parameters must be related to an option or parameter field. The values which are not given by the snapshot are read from
+	 * <code>defaults</code> if it is not <code>null</code>, and are set to <code>0</code>, <code>false</code> or <code>null</code> otherwise.
+	 * 
+	 * The constructor is adapted into a {@link java.lang.invoke.MethodHandle} once; each call gathers the values in two arrays
+	 * (one for the primitive values, one for the references) and invokes it, without boxing the primitive values.
+	 * 
+	 * @param args the snapshot, built by this parser
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the new object
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options, or if the class has no suitable constructor
+	 */
+	public T construct(final ParsedArgs args, final T defaults) throws CliOptionDefinitionException {
+		final OptionSchema schema = this.optParser.parse().getSchema();
+		if(args.schema() != schema) {
+			throw new IllegalArgumentException("the snapshot was not built with the same options");
+		}
+		ConstructorBinder binder = this.constructorBinder;
+		if(binder == null || !binder.isFor(schema)) {
+			binder = new ConstructorBinder(this.optParser.getOptionClass(), schema);
+			this.constructorBinder = binder;
+		}
+		return this.optParser.getOptionClass().cast(binder.construct(args, defaults));
+	}
+	
+	/**
+	 * Builds an object holding the values of a snapshot as constants, which the JIT compiler can fold into the code reading them.
+	 * 
+	 * The object implements an accessor interface, given by the user. Each abstract method of the interface must take no parameter,
+	 * and is related to the option or parameter field which name is the one of the method; its return type must be the type of the field,
+	 * which must be <code>boolean</code>, <code>int</code>, <code>long</code>, one of their wrapper classes or {@link String}.
+	 * The values which are not given by the snapshot are read from <code>defaults</code> if it is not <code>null</code>,
+	 * and are set to <code>0</code>, <code>false</code> or <code>null</code> otherwise.
+	 * 
+	 * Each call defines a new class, which methods return the values through constant instructions.
+	 * When the object is stored in a <code>static final</code> field (or when the calls are otherwise inlined),
+	 * the branches which depend on the options are removed from the compiled code.
+	 * On Java 15 and later, the classes are hidden classes, which can be unloaded; on Java 11 and 14,
+	 * they live as long as this library is loaded, so this method is intended to be called once per run rather than in a loop.
+	 * 
+	 * @param <I> the type of the accessor interface
+	 * @param args the snapshot, built by this parser
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @param accessor the accessor interface
+	 * @return the object implementing the interface
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public <I> I constants(final ParsedArgs args, final T defaults, final Class<I> accessor) throws CliOptionDefinitionException {
+		final OptionSchema schema = this.optParser.parse().getSchema();
+		if(args.schema() != schema) {
+			throw new IllegalArgumentException("the snapshot was not built with the same options");
+		}
+		ConstantSpinner spinner = this.constantSpinner;
+		if(spinner == null || !spinner.isFor(schema, accessor)) {
+			spinner = new ConstantSpinner(this.optParser.getOptionClass(), schema, accessor);
+			this.constantSpinner = spinner;
+		}
+		return accessor.cast(spinner.spin(args, defaults));
+	}
+	
+	/**
+	 * Captures the default values of the option and parameter fields, read from a prototype object.
+	 * 
+	 * The snapshot is intended to be built once, and used to restore the default values of the objects which are reused as parsing targets
+	 * (see {@link OptionDefaults#reset(Object)}).
+	 * 
+	 * @param prototype the object giving the default values
+	 * @return the default values
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public OptionDefaults<T> defaults(final T prototype) throws CliOptionDefinitionException {
+		if(prototype == null) {
+			throw new IllegalArgumentException("null prototype provided");
+		}
+		return new OptionDefaults<>(this.optParser.parse().getSchema(), prototype);
+	}
+	
+	/**
+	 * Builds a pool of option objects, used as parsing targets instead of fresh objects.
+	 * 
+	 * The default values restored on the released objects are read from an object built by the factory at this time (see {@link CliArgsParser#defaults(Object)}).
+	 * 
+	 * @param factory the factory of (fresh) option objects
+	 * @param capacity the maximal number of idle objects, typically the number of threads which parse arguments at the same time
+	 * @return the pool
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public OptionPool<T> pool(final Supplier<T> factory, final int capacity) throws CliOptionDefinitionException {
+		return new OptionPool<>(factory, defaults(factory.get()), capacity);
+	}
+	
+	/**
+	 * Resolves the key used to read the value of an option in the {@link ParsedArgs} snapshots built by this parser.
+	 * 
+	 * The option is given by its short or long name (without leading hyphens). The type must be the one of the field of the option,
+	 * the primitive types being replaced by their wrapper classes (e.g. <code>Integer.class</code> for an <code>int</code> field).
+	 * 
+	 * @param <V> the type of the values
+	 * @param name the short or long name of the option
+	 * @param type the type of the values
+	 * @return the key
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public <V> OptionKey<V> optionKey(final String name, final Class<V> type) throws CliOptionDefinitionException {
+		final OptionMap optionMap = this.optParser.parse();
+		final Field field;
+		try {
+			field = optionMap.hasShortName(name) ? optionMap.getFieldByShortName(name) : optionMap.getFieldByLongName(name);
+		} catch(CliUsageException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+		return key(optionMap.getSchema(), field, type);
+	}
+	
+	/**
+	 * Resolves the key used to read the value of a parameter in the {@link ParsedArgs} snapshots built by this parser.
+	 * 
+	 * The parameter is given by its index, and must be related to a field; see {@link CliArgsParser#optionKey(String, Class)} for the type.
+	 * 
+	 * @param <V> the type of the values
+	 * @param index the index of the parameter
+	 * @param type the type of the values
+	 * @return the key
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public <V> OptionKey<V> paramKey(final int index, final Class<V> type) throws CliOptionDefinitionException {
+		final OptionMap optionMap = this.optParser.parse();
+		if(index < 0 || index >= optionMap.nParams() || optionMap.getParamField(index) == null) {
+			throw new IllegalArgumentException("no field for parameter "+index);
+		}
+		return key(optionMap.getSchema(), optionMap.getParamField(index), type);
+	}
+	
+	/**
+	 * Resolves the identifier of a flag (a Boolean option which takes no argument), used to read its value in the {@link FlagSet} of the snapshots
+	 * built by this parser.
+	 * 
+	 * The flag is given by its short or long name (without leading hyphens).
+	 * 
+	 * @param name the short or long name of the flag
+	 * @return the identifier of the flag
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public int flagId(final String name) throws CliOptionDefinitionException {
+		final OptionMap optionMap = this.optParser.parse();
+		final OptionSchema schema = optionMap.getSchema();
+		final int id;
+		try {
+			id = schema.id(optionMap.hasShortName(name) ? optionMap.getFieldByShortName(name) : optionMap.getFieldByLongName(name));
+		} catch(CliUsageException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+		if(!schema.isFlag(id)) {
+			throw new IllegalArgumentException(schema.name(id)+" is not a flag");
+		}
+		return id;
+	}
+	
+	private static <V> OptionKey<V> key(final OptionSchema schema, final Field field, final Class<V> type) {
+		final Class<?> fieldType = MethodType.methodType(field.getType()).wrap().returnType();
+		if(!fieldType.equals(type)) {
+			throw new IllegalArgumentException(field+": expected values of type "+fieldType.getName()+", not "+type.getName());
+		}
+		return new OptionKey<>(schema, schema.id(field), type);
+	}
+	
+	/**
+	 * Computes canonical CLI arguments which, parsed into an object initialized like <code>defaults</code>, would give the values of <code>obj</code>.
+	 * 
+	 * Only the options which value differs from the one in <code>defaults</code> are written, in a fixed order (the one of the option usage),
+	 * using their short name if they have one; they are followed by the parameters. If <code>defaults</code> is <code>null</code>,
+	 * all the options which value is not <code>null</code> (or not <code>false</code>, for flags) are written.
+	 * 
+	 * An {@link IllegalArgumentException} is thrown if a value cannot be given by CLI arguments
+	 * (e.g. a flag which is <code>false</code> when its default value is <code>true</code>).
+	 * 
+	 * @param obj the object which values are written
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the CLI arguments
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public String[] unparse(final T obj, final T defaults) throws CliOptionDefinitionException {
+		return unparser().toArgs(obj, defaults);
+	}
+	
+	/**
+	 * Writes the canonical CLI arguments given by {@link CliArgsParser#unparse(Object, Object)} into a buffer, as NUL-terminated UTF-8 strings
+	 * (the format read by the {@link CliDaemon}).
+	 * 
+	 * The option names are encoded once for all, so that this method does not build any intermediate array.
+	 * If the buffer is too small, a {@link java.nio.BufferOverflowException} is thrown and the content of the buffer is undefined.
+	 * 
+	 * @param obj the object which values are written
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @param out the buffer
+	 * @return the number of bytes written
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public int unparse(final T obj, final T defaults, final ByteBuffer out) throws CliOptionDefinitionException {
+		return unparser().write(obj, defaults, out);
+	}
+	
+	/**
+	 * Computes the canonical key of the configuration given by an object.
+	 * 
+	 * The key lists the options and parameters which value differs from the one in <code>defaults</code> (or which value is not <code>null</code>,
+	 * if <code>defaults</code> is <code>null</code>); see {@link ConfigKey}.
+	 * 
+	 * @param obj the object
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the key
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public ConfigKey configKey(final T obj, final T defaults) throws CliOptionDefinitionException {
+		final OptionSchema schema = this.optParser.parse().getSchema();
+		return ConfigKey.of(schema, id -> schema.get(id, obj), id -> defaults == null ? null : schema.get(id, defaults));
+	}
+	
+	/**
+	 * Computes the canonical key of the configuration given by a snapshot.
+	 * 
+	 * The key is the one which would be computed by {@link CliArgsParser#configKey(Object, Object)} on a copy of <code>defaults</code>
+	 * in which the snapshot is bound. If <code>defaults</code> is <code>null</code>, the key lists the values given by the snapshot.
+	 * 
+	 * @param args the snapshot, built by this parser
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the key
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public ConfigKey configKey(final ParsedArgs args, final T defaults) throws CliOptionDefinitionException {
+		final OptionSchema schema = this.optParser.parse().getSchema();
+		if(args.schema() != schema) {
+			throw new IllegalArgumentException("the snapshot was not built with the same options");
+		}
+		final IntFunction<Object> defaultValues = id -> defaults == null ? null : schema.get(id, defaults);
+		return ConfigKey.of(schema, id -> args.isPresent(id) ? args.value(id) : defaultValues.apply(id), defaultValues);
+	}
+	
+	private Unparser unparser() throws CliOptionDefinitionException {
+		final OptionMap optionMap = this.optParser.parse();
+		final Unparser current = this.unparser;
+		if(current != null && current.isFor(optionMap.getSchema())) {
+			return current;
+		}
+		final Unparser built = new Unparser(optionMap);
+		this.unparser = built;
+		return built;
+	}
+	
+	/**
+	 * Checks the CLI arguments without associating any value to any field.
+	 * 
+	 * All the checks made by {@link CliArgsParser#parse(Object, String[])} are made (option names, number of arguments, conversion of the arguments,
+	 * required options, number of parameters, conversion of the parameters), but the errors are collected into the returned report
+	 * instead of being thrown. After an unknown option or a conversion error, the checks go on with the next argument.
+	 * 
+	 * This method does not modify the state of this parser (in particular, {@link CliArgsParser#getParameters()} is not updated),
+	 * and may be called concurrently by several threads.
+	 * 
+	 * @param argArray the CLI arguments
+	 * @return the report of the errors found in the CLI arguments
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations);
+	 * errors in the CLI arguments are never thrown, but reported
+	 */
+	public ValidationReport validate(final String[] argArray) throws CliOptionDefinitionException {
+		final ParseState state = new ParseState(this.optParser.parse(), null, argArray, true);
+		try {
+			parse(state);
+		} catch(final CliUsageException e) {
+			state.errors.add(e);
+		}
+		return new ValidationReport(state.errors);
+	}
+	
+	/**
+	 * Parses a template of CLI arguments describing a parameter sweep, and returns the stream of the option objects it describes.
+	 * 
+	 * In the template, an option argument or a parameter may be a range of integers (<code>--seed 1..10</code>)
+	 * or a comma-separated list of values (<code>--mode fast,safe</code>). The stream contains one object, built by the provided factory,
+	 * for each combination of these values (the last range or list of the template varies the fastest); the fixed values are set on all the objects
+	 * (mutable values, such as {@link java.util.EnumSet} instances, are copied for each object). An option given several times takes its last value.
+	 * 
+	 * The template is parsed and checked once, by this method, with the same checks as {@link CliArgsParser#parse(Object, String[])}
+	 * (each item of a list and both bounds of a range are converted). The combinations are then computed lazily, when the stream is consumed,
+	 * and the stream can be made parallel: its spliterator splits the combinations evenly.
+	 * 
+	 * This method does not modify the state of this parser (in particular, {@link CliArgsParser#getParameters()} is not updated).
+	 * 
+	 * @param factory the supplier of the (fresh) objects on which the fields are set
+	 * @param template the template of CLI arguments
+	 * @return the stream of the option objects
+	 * @throws CliUsageException if the template is invalid for the {@link ClassParser}, or if it describes too many combinations
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public Stream<T> sweep(final Supplier<T> factory, final String[] template) throws CliUsageException, CliOptionDefinitionException {
+		final ParseState recorder = ParameterSweep.recorder(this.optParser.parse(), template);
+		parse(recorder);
+		return StreamSupport.stream(ParameterSweep.of(recorder, factory).spliterator(), false);
+	}
+	
+	/**
+	 * Warms up the parsing path, so that the first command lines given by the users are parsed by compiled code rather than by the interpreter.
+	 * 
+	 * Synthetic command lines are generated from the options: each option is given by its short and long names, the single-character flags
+	 * are merged, option arguments and parameters are sample values of the field types, and the required options are always given.
+	 * The command lines which are not valid (e.g. because of unsupported field types) are discarded.
+	 * Then, the command lines are parsed by rounds, into objects built by the factory and into snapshots, through the fast path
+	 * and through the general engine. After each round, the total compilation time of the JVM is read from the
+	 * {@link java.lang.management.CompilationMXBean}; the warm-up stops as soon as it has not changed for several rounds,
+	 * or when the maximal number of rounds is reached (or immediately after this number of rounds if the compilation time is not available).
+	 * 
+	 * The parse cache of this parser (if any) is neither used nor filled, and this parser is not modified.
+	 * 
+	 * @param factory the factory of the option objects used during the warm-up
+	 * @param maxRounds the maximal number of rounds
+	 * @return the report of the warm-up
+	 * @throws CliOptionDefinitionException if there is a error in the definition of the options (usage of the annotations)
+	 */
+	public WarmUpReport warmUp(final Supplier<T> factory, final int maxRounds) throws CliOptionDefinitionException {
+		if(maxRounds <= 0) {
+			throw new IllegalArgumentException("the number of rounds must be positive (got "+maxRounds+")");
+		}
+		final CliArgsParser<T> parser = new CliArgsParser<>(this.optParser);
+		parser.allowShortNamesMerging = this.allowShortNamesMerging;
+		final List<String[]> lines = new ArrayList<>();
+		for(final String[] line : SyntheticArgs.generate(this.optParser.parse(), this.allowShortNamesMerging)) {
+			if(parser.validate(line).isValid()) {
+				lines.add(line);
+			}
+		}
+		if(lines.isEmpty()) {
+			return new WarmUpReport(0, 0, 0, -1, false);
+		}
+		final CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+		final boolean monitored = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+		final long start = monitored ? compiler.getTotalCompilationTime() : -1;
+		long last = start;
+		int nStableRounds = 0;
+		int nRounds = 0;
+		long nParses = 0;
+		while(nRounds < maxRounds && nStableRounds < WARM_UP_STABLE_ROUNDS) {
+			for(int i=0; i<WARM_UP_ROUND_SIZE; ++i) {
+				final String[] line = lines.get(i % lines.size());
+				try {
+					parser.parse(factory.get(), line);
+					parser.parse(line);
+					parser.parseBase(line);
+				} catch(CliUsageException e) {
+					throw new IllegalStateException("a synthetic command line was rejected", e);
+				}
+			}
+			nParses += 3 * WARM_UP_ROUND_SIZE;
+			++nRounds;
+			if(monitored) {
+				final long now = compiler.getTotalCompilationTime();
+				nStableRounds = now == last ? nStableRounds + 1 : 0;
+				last = now;
+			}
+		}
+		return new WarmUpReport(lines.size(), nRounds, nParses, monitored ? last - start : -1, nStableRounds >= WARM_UP_STABLE_ROUNDS);
+	}
+	
+	private void parse(final ParseState state) throws CliUsageException {
+		while(state.hasNext()) {
+			final String arg = state.next();
 			if("--".equals(arg)) {
 				break;
 			}
-			if(arg.startsWith("--")) {
-				parseLongNamedOpt(obj, optionMap, arg, args);
-			} else if(arg.startsWith("-")) {
-				parseShortNamedOpt(obj, optionMap, arg, args);
-			} else {
-				this.parameters.add(arg);
+			try {
+				if(arg.startsWith("--")) {
+					parseLongNamedOpt(state, arg);
+				} else if(arg.startsWith("-")) {
+					parseShortNamedOpt(state, arg);
+				} else {
+					state.parameters.add(arg);
+				}
+			} catch(final CliUsageException e) {
+				state.fail(e);
 			}
 		}
-		this.parameters.addAll(args);
-		checkRequired(optionMap);
-		parseParams(obj, optionMap);
+		while(state.hasNext()) {
+			state.parameters.add(state.next());
+		}
+		state.endOfArguments();
+		if(!state.checksDeferred()) {
+			checkConstraints(state);
+		}
+		parseParams(state);
 	}
 
-	private void parseShortNamedOpt(final Object obj, final OptionMap optionMap, final String current, final Queue<String> others) throws CliUsageException {
+	private void parseShortNamedOpt(final ParseState state, final String current) throws CliUsageException {
 		final String cur = current.substring(1);
 		switch(cur.length()) {
 		case 0:
-			throw new CliUsageException("empty option: \"-\"");
+			throw new CliUsageException(EUsageError.EMPTY_OPTION);
 		case 1:
-			parseShortNamedOptAux(obj, optionMap, cur, others);
+			parseShortNamedOptAux(state, cur, false);
 			break;
 		default:
-			if(optionMap.hasShortName(cur)) {
-				parseShortNamedOptAux(obj, optionMap, cur, others);
+			if(state.optionMap.hasShortName(cur)) {
+				parseShortNamedOptAux(state, cur, false);
 				break;
 			}
 			if(this.allowShortNamesMerging) {
-				final Queue<String> emptyQueue = new LinkedList<>();
 				for(int i=0; i<cur.length(); ++i) {
 					try {
-						parseShortNamedOptAux(obj, optionMap, Character.toString(cur.charAt(i)), emptyQueue);
+						parseShortNamedOptAux(state, Character.toString(cur.charAt(i)), true);
 					} catch(CliUsageException e) {
-						throw new CliUsageException(e.getMessage()+" and no \""+cur+"\" short option");
+						throw CliUsageException.withSuggestions(EUsageError.UNKNOWN_MERGED_SHORT_OPTIONS, e, state.schema.getNameIndex().suggest(cur), cur);
 					}
 				}
 			} else {
-				throw new CliUsageException("no -\""+cur+"\" option");
+				throw CliUsageException.withSuggestions(EUsageError.UNKNOWN_MULTICHAR_SHORT_OPTION, state.schema.getNameIndex().suggest(cur), cur);
 			}
 		}
 	}
 
-	private void parseShortNamedOptAux(final Object obj, final OptionMap optionMap, final String current, final Queue<String> others) throws CliUsageException {
-		final Field field = optionMap.getFieldByShortName(current);
-		readFieldParams(obj, optionMap, field, current, others);
+	private void parseShortNamedOptAux(final ParseState state, final String current, final boolean merged) throws CliUsageException {
+		final Field field = state.optionMap.getFieldByShortName(current);
+		readFieldParams(state, field, current, merged);
 	}
 
-	private void readFieldParams(final Object obj, final OptionMap optionMap, final Field field, final String optName, final Queue<String> others) throws CliUsageException {
-		final int multiplicity = optionMap.getArgMultiplicity(field);
-		final List<String> optParams = new ArrayList<>(multiplicity);
-		for(int i=0; i<multiplicity; ++i) {
-			if(others.isEmpty()) {
-				throw new CliUsageException("not enough parameters for option \""+optName+"\" (expected "+multiplicity+")");
-			}
-			optParams.add(others.poll());
+	private void readFieldParams(final ParseState state, final Field field, final String optName, final boolean merged) throws CliUsageException {
+		final int multiplicity = state.optionMap.getArgMultiplicity(field);
+		if(merged && multiplicity > 0) {
+			throw new CliUsageException(EUsageError.NOT_ENOUGH_OPTION_ARGUMENTS, optName, multiplicity);
 		}
-		EFieldType.forClass(field.getType(), multiplicity).apply(field, obj, optParams);
-		this.seen.add(field);
+		if(state.remaining() < multiplicity) {
+			state.skipAll();
+			throw new CliUsageException(EUsageError.NOT_ENOUGH_OPTION_ARGUMENTS, optName, multiplicity);
+		}
+		state.bind(field, EFieldType.forClass(field.getType(), multiplicity), state.take(multiplicity));
 	}
 
-	private void parseLongNamedOpt(final Object obj, final OptionMap optionMap, final String current, final Queue<String> others) throws CliUsageException {
+	private void parseLongNamedOpt(final ParseState state, final String current) throws CliUsageException {
 		final String cur = current.substring(2);
-		final Field field = optionMap.getFieldByLongName(cur);
-		readFieldParams(obj, optionMap, field, cur, others);
+		final Field field = state.optionMap.getFieldByLongName(cur);
+		readFieldParams(state, field, cur, false);
 	}
 	
-	private void checkRequired(final OptionMap optionMap) throws CliUsageException {
-		final Optional<String> required = optionMap.getRequiredFields().stream().filter(f -> !this.seen.contains(f)).map(optionMap::fieldToString).reduce((a,b) -> a+", "+b);
-		if(required.isPresent()) {
-			throw new CliUsageException("the following fields have no value (although they have to): "+required.get());
+	private void checkConstraints(final ParseState state) throws CliUsageException {
+		for(final CliUsageException e : state.schema.getConstraints().check(state.presence())) {
+			state.fail(e);
 		}
 	}
 	
-	private void parseParams(final Object obj, final OptionMap optionMap) throws CliUsageException {
-		final int nAdditional = this.parameters.size();
-		final Multiplicity paramMult = optionMap.getParamMultiplicity();
-		if(nAdditional < paramMult.getMin() || nAdditional > paramMult.getMax()) {
-			throw new CliUsageException("wrong parameter count (expected "+paramMult.toHumanReadableString()+")");
+	private void parseParams(final ParseState state) throws CliUsageException {
+		final int nAdditional = state.parameters.size();
+		final Multiplicity paramMult = state.optionMap.getParamMultiplicity();
+		if(!state.checksDeferred() && (nAdditional < paramMult.getMin() || nAdditional > paramMult.getMax())) {
+			state.fail(new CliUsageException(EUsageError.WRONG_PARAMETER_COUNT, paramMult.toHumanReadableString(), nAdditional));
+			return;
 		}
-		for(int i=0; i<Math.min(nAdditional, optionMap.nParams()); ++i) {
-			final Field field = optionMap.getParamField(i);
+		for(int i=0; i<Math.min(nAdditional, state.optionMap.nParams()); ++i) {
+			final Field field = state.optionMap.getParamField(i);
 			if(field == null) {
 				continue;
 			}
-			EFieldType.forClass(field.getType(), 1).apply(field, obj, Collections.singletonList(this.parameters.get(i)));
+			try {
+				state.bind(field, EFieldType.forClass(field.getType(), 1), Collections.singletonList(state.parameters.get(i)));
+			} catch(final CliUsageException e) {
+				state.fail(e);
+			}
 		}
 	}
 	
@@ -199,7 +736,18 @@ public class CliArgsParser<T> {
 	}
 	
 	/**
-	 * Changes the set of string literals seen as Boolean constants.
+	 * Sets the Boolean constants recognized by the options which take a Boolean argument.
+	 * 
+	 * The vocabulary is part of the options compiled by the {@link ClassParser} of this parser, and thus is shared by the parsers built on it.
+	 * 
+	 * @param vocabulary the Boolean constants, or <code>null</code> to use the ones shared by all the parsers (see {@link CliArgsParser#setBooleanConstants(String[], String[])})
+	 */
+	public void setBooleanVocabulary(final BooleanVocabulary vocabulary) {
+		this.optParser.setBooleanVocabulary(vocabulary);
+	}
+	
+	/**
+	 * Changes the set of string literals seen as Boolean constants by the parsers which have no vocabulary of their own.
 	 * 
 	 * By default, the only recognized values are "true" and "false".
 	 * The new values are passed as two string arrays (the first one containing the values which stand for <code>false</code>,
@@ -210,7 +758,9 @@ public class CliArgsParser<T> {
 	 * 
 	 * @param falseValues the false values
 	 * @param trueValues the true values
+	 * @deprecated the values are shared by all the parsers of the JVM; use {@link CliArgsParser#setBooleanVocabulary(BooleanVocabulary)} instead
 	 */
+	@Deprecated
 	public static void setBooleanConstants(final String[] falseValues, final String[] trueValues) {
 		EFieldType.setBooleanConstants(falseValues, trueValues);
 	}
@@ -219,7 +769,10 @@ public class CliArgsParser<T> {
 	 * Resets the set of string literals seen as Boolean constants.
 	 * 
 	 * See {@link EFieldType#setBooleanConstants(String[], String[])}.
+	 * 
+	 * @deprecated the values are shared by all the parsers of the JVM; use {@link CliArgsParser#setBooleanVocabulary(BooleanVocabulary)} instead
 	 */
+	@Deprecated
 	public static void resetBooleanConstants() {
 		EFieldType.resetBooleanConstants();
 	}
@@ -0,0 +1,584 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A long-running process which keeps the option schemas of its entry points in memory and runs them on behalf of thin clients,
+ * avoiding a JVM startup for each invocation.
+ * 
+ * Entry points are registered by name with {@link CliDaemon#register(String, Class, Supplier, EntryPoint)}.
+ * Then, the daemon listens on a local socket (a Unix domain socket, see {@link CliDaemon#unixDomainAddress(Path)}).
+ * Each client sends the name of an entry point followed by its CLI arguments, as NUL-terminated UTF-8 strings, and then shuts down its output.
+ * The daemon parses the arguments with a {@link CliArgsParser}, runs the entry point, and answers with the output of the entry point,
+ * followed by a NUL character and the exit code as a decimal string.
+ * Usage errors are reported with the exit code {@link CliDaemon#EXIT_USAGE_ERROR}, followed by the option usage.
+ * Requests larger than {@link CliDaemon#setMaxRequestSize(int)} bytes are rejected and their connection is closed,
+ * as well as requests which are not entirely received within {@link CliDaemon#setRequestTimeout(long)} milliseconds.
+ * 
+ * Clients are served concurrently. At most {@link CliDaemon#PENDING_CLIENTS_PER_THREAD} clients per thread wait to be served;
+ * the connections of the next ones are closed at once. See {@link CliDaemonClient} for a client implementation.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class CliDaemon implements AutoCloseable {
+	
+	/** the exit code sent when the entry point ends normally without giving its own exit code */
+	public static final int EXIT_OK = 0;
+	
+	/** the exit code sent when the entry point throws an exception */
+	public static final int EXIT_FAILURE = 1;
+	
+	/** the exit code sent when the CLI arguments are invalid */
+	public static final int EXIT_USAGE_ERROR = 2;
+	
+	/** the exit code sent when the requested entry point is not registered */
+	public static final int EXIT_UNKNOWN_ENTRY_POINT = 127;
+	
+	/** the default maximal size of a request, in bytes */
+	public static final int DEFAULT_MAX_REQUEST_SIZE = 1 << 20;
+	
+	/** the default delay given to a client to send its request, in milliseconds */
+	public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 10_000;
+	
+	/** the number of clients per thread which may wait to be served */
+	public static final int PENDING_CLIENTS_PER_THREAD = 16;
+	
+	private static final String UNIX_ADDRESS_CLASS = "java.net.UnixDomainSocketAddress";
+	
+	private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10;
+	
+	private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+	
+	private static final System.Logger LOGGER = System.getLogger(CliDaemon.class.getName());
+	
+	private final Map<String, Registration<?>> entryPoints = new ConcurrentHashMap<>();
+	
+	private final ExecutorService executor;
+	
+	private final ScheduledThreadPoolExecutor timer;
+	
+	private final ParseCache parseCache;
+	
+	private final int nThreads;
+	
+	private ServerSocketChannel server = null;
+	
+	private Path socketFile = null;
+	
+	private volatile int maxRequestSize = DEFAULT_MAX_REQUEST_SIZE;
+	
+	private volatile long requestTimeout = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+	
+	/**
+	 * Builds a daemon which serves at most <code>nThreads</code> clients at the same time.
+	 * 
+	 * @param nThreads the number of threads used to serve the clients
+	 */
+	public CliDaemon(final int nThreads) {
+		this(nThreads, null);
+	}
+	
+	/**
+	 * Builds a daemon which serves at most <code>nThreads</code> clients at the same time, and caches the parsing results of recurring command lines.
+	 * 
+	 * @param nThreads the number of threads used to serve the clients
+	 * @param parseCache the cache shared by the entry points, or <code>null</code> to disable caching
+	 */
+	public CliDaemon(final int nThreads, final ParseCache parseCache) {
+		this.parseCache = parseCache;
+		this.nThreads = nThreads;
+		this.executor = new ThreadPoolExecutor(nThreads, nThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(nThreads * PENDING_CLIENTS_PER_THREAD), r -> {
+			final Thread t = new Thread(r, "cli-daemon-worker");
+			t.setDaemon(true);
+			return t;
+		});
+		this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+			final Thread t = new Thread(r, "cli-daemon-timer");
+			t.setDaemon(true);
+			return t;
+		});
+		this.timer.setRemoveOnCancelPolicy(true);
+	}
+	
+	/**
+	 * Registers an entry point.
+	 * 
+	 * The options of the class are parsed by this method, so that definition errors are detected at registration time
+	 * and the schema is kept warm for the next invocations.
+	 * 
+	 * The option objects are pooled (see {@link OptionPool}): the default values of their fields are read from an object built at registration time,
+	 * and the objects are reset and reused once the entry point returns. Thus, the entry point must not keep a reference to its option object.
+	 * 
+	 * @param <T> the type of the option objects
+	 * @param name the name of the entry point, as sent by the clients
+	 * @param cl the class which fields are annotated as options
+	 * @param factory the factory of option objects (at most one object is built for each thread of the daemon)
+	 * @param entryPoint the entry point
+	 * @throws CliOptionDefinitionException if an error is detected in the definition of the options
+	 */
+	public <T> void register(final String name, final Class<T> cl, final Supplier<T> factory, final EntryPoint<T> entryPoint) throws CliOptionDefinitionException {
+		final ClassParser<T> classParser = new ClassParser<>(cl);
+		classParser.parse();
+		final OptionPool<T> pool = new CliArgsParser<>(classParser).pool(factory, this.nThreads);
+		if(this.entryPoints.putIfAbsent(name, new Registration<>(classParser, factory, pool, entryPoint, this.parseCache)) != null) {
+			throw new IllegalArgumentException("entry point \""+name+"\" is already registered");
+		}
+	}
+	
+	/**
+	 * Warms up the parsing path of the registered entry points, typically before starting the daemon,
+	 * so that the first clients are not served by interpreted code.
+	 * 
+	 * See {@link CliArgsParser#warmUp(Supplier, int)}; the entry points themselves are not run, and the parse cache of the daemon is not filled.
+	 * 
+	 * @param maxRounds the maximal number of rounds of parsing for each entry point
+	 * @return the report of the warm-up of each entry point, by name
+	 * @throws CliOptionDefinitionException if an error is detected in the definition of the options
+	 */
+	public Map<String, WarmUpReport> warmUp(final int maxRounds) throws CliOptionDefinitionException {
+		final Map<String, WarmUpReport> reports = new TreeMap<>();
+		for(final Map.Entry<String, Registration<?>> entry : this.entryPoints.entrySet()) {
+			reports.put(entry.getKey(), entry.getValue().warmUp(maxRounds));
+		}
+		return reports;
+	}
+	
+	/**
+	 * Sets the maximal size of the requests, in bytes (default is {@link CliDaemon#DEFAULT_MAX_REQUEST_SIZE}).
+	 * 
+	 * The daemon stops reading larger requests as soon as the limit is reached, tries to send an error message and closes the connection.
+	 * 
+	 * @param maxRequestSize the maximal size of the requests
+	 */
+	public void setMaxRequestSize(final int maxRequestSize) {
+		if(maxRequestSize <= 0) {
+			throw new IllegalArgumentException("the maximal request size must be positive");
+		}
+		this.maxRequestSize = maxRequestSize;
+	}
+	
+	/**
+	 * Sets the delay given to a client to send its whole request once a thread serves it, in milliseconds
+	 * (default is {@link CliDaemon#DEFAULT_REQUEST_TIMEOUT_MILLIS}).
+	 * 
+	 * The connection of a client which exceeds this delay is closed, so that idle or slow clients cannot hold the threads of the daemon.
+	 * 
+	 * @param requestTimeout the delay, in milliseconds
+	 */
+	public void setRequestTimeout(final long requestTimeout) {
+		if(requestTimeout <= 0) {
+			throw new IllegalArgumentException("the request timeout must be positive");
+		}
+		this.requestTimeout = requestTimeout;
+	}
+	
+	/**
+	 * Starts to listen on the provided address.
+	 * 
+	 * The address is typically a Unix domain socket address built by {@link CliDaemon#unixDomainAddress(Path)};
+	 * in this case, the socket file is removed when the daemon is closed.
+	 * Loopback TCP addresses are also accepted, for Java runtimes which do not support Unix domain sockets.
+	 * 
+	 * This method returns as soon as the daemon listens; the clients are served in background threads.
+	 * 
+	 * @param address the address
+	 * @return the address on which the daemon listens (useful for TCP addresses with an ephemeral port)
+	 * @throws IOException if the daemon cannot listen on this address
+	 */
+	public synchronized SocketAddress start(final SocketAddress address) throws IOException {
+		if(this.server != null) {
+			throw new IllegalStateException("the daemon is already started");
+		}
+		final ServerSocketChannel channel = openServerChannel(address);
+		try {
+			channel.bind(address);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.server = channel;
+		if(isUnixDomainAddress(address)) {
+			this.socketFile = socketFile(address);
+		}
+		final Thread acceptor = new Thread(() -> acceptLoop(channel), "cli-daemon-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return channel.getLocalAddress();
+	}
+	
+	private void acceptLoop(final ServerSocketChannel channel) {
+		long backoff = MIN_ACCEPT_BACKOFF_MILLIS;
+		while(true) {
+			final SocketChannel client;
+			try {
+				client = channel.accept();
+			} catch (ClosedChannelException e) {
+				return;
+			} catch (IOException e) {
+				if(!channel.isOpen()) {
+					return;
+				}
+				// e.g. too many open files: retrying at once would spin until a descriptor is released
+				LOGGER.log(System.Logger.Level.WARNING, "cannot accept a client, retrying in "+backoff+" ms", e);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				backoff = Math.min(2 * backoff, MAX_ACCEPT_BACKOFF_MILLIS);
+				continue;
+			}
+			backoff = MIN_ACCEPT_BACKOFF_MILLIS;
+			try {
+				this.executor.execute(() -> serve(client));
+			} catch (RejectedExecutionException e) {
+				// too many pending clients, or the daemon is being closed
+				closeQuietly(client);
+				if(this.executor.isShutdown()) {
+					return;
+				}
+			}
+		}
+	}
+	
+	private void serve(final SocketChannel client) {
+		try(client) {
+			final List<String> request;
+			final ScheduledFuture<?> deadline = this.timer.schedule(() -> closeQuietly(client), this.requestTimeout, TimeUnit.MILLISECONDS);
+			try {
+				request = readRequest(Channels.newInputStream(client), this.maxRequestSize);
+			} finally {
+				deadline.cancel(false);
+			}
+			final ByteArrayOutputStream output = new ByteArrayOutputStream();
+			final PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			int exitCode;
+			try {
+				exitCode = request == null ? tooLarge(writer) : dispatch(request, writer);
+			} catch (RuntimeException e) {
+				writer.println("error: "+e);
+				writer.flush();
+				exitCode = EXIT_FAILURE;
+			}
+			final OutputStream out = Channels.newOutputStream(client);
+			output.write(0);
+			output.write(Integer.toString(exitCode).getBytes(StandardCharsets.US_ASCII));
+			output.writeTo(out);
+			out.flush();
+		} catch (IOException e) {
+			// the client is gone
+		}
+	}
+	
+	private int tooLarge(final PrintWriter out) {
+		out.println("request too large (more than "+this.maxRequestSize+" bytes)");
+		out.flush();
+		return EXIT_FAILURE;
+	}
+	
+	/**
+	 * Reads the NUL-separated strings of a request.
+	 * 
+	 * If the request is larger than <code>maxSize</code> bytes, the reading stops and <code>null</code> is returned.
+	 * 
+	 * @param in the input stream of the client
+	 * @param maxSize the maximal size of the request, in bytes
+	 * @return the strings, or <code>null</code> if the request is too large
+	 * @throws IOException if an error occurs while reading the request
+	 */
+	static List<String> readRequest(final InputStream in, final int maxSize) throws IOException {
+		final List<String> strings = new ArrayList<>();
+		final ByteArrayOutputStream current = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+		long size = 0;
+		int n;
+		while((n = in.read(buffer)) >= 0) {
+			size += n;
+			if(size > maxSize) {
+				return null;
+			}
+			for(int i=0; i<n; ++i) {
+				if(buffer[i] == 0) {
+					strings.add(new String(current.toByteArray(), StandardCharsets.UTF_8));
+					current.reset();
+				} else {
+					current.write(buffer[i]);
+				}
+			}
+		}
+		if(current.size() > 0) {
+			strings.add(new String(current.toByteArray(), StandardCharsets.UTF_8));
+		}
+		return strings;
+	}
+	
+	private int dispatch(final List<String> request, final PrintWriter out) {
+		try {
+			if(request.isEmpty()) {
+				out.println("no entry point provided");
+				return EXIT_UNKNOWN_ENTRY_POINT;
+			}
+			final Registration<?> registration = this.entryPoints.get(request.get(0));
+			if(registration == null) {
+				out.println("unknown entry point \""+request.get(0)+"\"");
+				return EXIT_UNKNOWN_ENTRY_POINT;
+			}
+			return registration.run(request.subList(1, request.size()).toArray(new String[0]), out);
+		} finally {
+			out.flush();
+		}
+	}
+	
+	/**
+	 * Stops listening and releases the resources of the daemon.
+	 * 
+	 * The requests which are being served are completed.
+	 * 
+	 * @throws IOException if an error occurs while closing the socket
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		final ServerSocketChannel channel = this.server;
+		this.server = null;
+		try {
+			if(channel != null) {
+				channel.close();
+			}
+		} finally {
+			this.executor.shutdown();
+			this.timer.shutdownNow();
+			if(this.socketFile != null) {
+				Files.deleteIfExists(this.socketFile);
+				this.socketFile = null;
+			}
+		}
+	}
+	
+	private static void closeQuietly(final Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the Java runtime supports Unix domain sockets (Java 16 or later).
+	 * 
+	 * @return <code>true</code> iff the Java runtime supports Unix domain sockets
+	 */
+	public static boolean isUnixDomainSocketSupported() {
+		try {
+			Class.forName(UNIX_ADDRESS_CLASS);
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Builds a Unix domain socket address given the path of the socket file.
+	 * 
+	 * An {@link UnsupportedOperationException} is thrown if the Java runtime does not support Unix domain sockets
+	 * (see {@link CliDaemon#isUnixDomainSocketSupported()}).
+	 * 
+	 * @param path the path of the socket file
+	 * @return the address
+	 */
+	public static SocketAddress unixDomainAddress(final Path path) {
+		try {
+			return (SocketAddress) Class.forName(UNIX_ADDRESS_CLASS).getMethod("of", Path.class).invoke(null, path);
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedOperationException("Unix domain sockets are not supported by this Java runtime", e);
+		}
+	}
+	
+	/**
+	 * Builds a loopback TCP address, for Java runtimes which do not support Unix domain sockets.
+	 * 
+	 * @param port the port, or 0 for an ephemeral port
+	 * @return the address
+	 */
+	public static SocketAddress loopbackAddress(final int port) {
+		return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+	}
+	
+	static boolean isUnixDomainAddress(final SocketAddress address) {
+		return address.getClass().getName().equals(UNIX_ADDRESS_CLASS);
+	}
+	
+	private static Path socketFile(final SocketAddress address) {
+		try {
+			return (Path) address.getClass().getMethod("getPath").invoke(address);
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static ServerSocketChannel openServerChannel(final SocketAddress address) throws IOException {
+		if(!isUnixDomainAddress(address)) {
+			return ServerSocketChannel.open();
+		}
+		try {
+			return (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unixProtocolFamily());
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new UnsupportedOperationException("Unix domain sockets are not supported by this Java runtime", e);
+		} catch (InvocationTargetException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	static SocketChannel openChannel(final SocketAddress address) throws IOException {
+		if(!isUnixDomainAddress(address)) {
+			return SocketChannel.open(address);
+		}
+		try {
+			final SocketChannel channel = (SocketChannel) SocketChannel.class.getMethod("open", ProtocolFamily.class).invoke(null, unixProtocolFamily());
+			channel.connect(address);
+			return channel;
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new UnsupportedOperationException("Unix domain sockets are not supported by this Java runtime", e);
+		} catch (InvocationTargetException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	private static ProtocolFamily unixProtocolFamily() {
+		return StandardProtocolFamily.valueOf("UNIX");
+	}
+	
+	/**
+	 * The interface of the entry points run by a {@link CliDaemon}.
+	 * 
+	 * @param <T> the type of the option objects
+	 */
+	@FunctionalInterface
+	public interface EntryPoint<T> {
+		
+		/**
+		 * Runs the entry point.
+		 * 
+		 * @param options the option object, which fields have been set according to the CLI arguments
+		 * @param parameters the parameters (i.e. non-option arguments) of the CLI arguments
+		 * @param out the output sent back to the client
+		 * @return the exit code sent back to the client
+		 * @throws Exception if an error occurs; the exit code is then {@link CliDaemon#EXIT_FAILURE}
+		 */
+		int run(final T options, final List<String> parameters, final PrintWriter out) throws Exception;
+	}
+	
+	private static final class Registration<T> {
+		
+		private final ClassParser<T> classParser;
+		
+		private final Supplier<T> factory;
+		
+		private final OptionPool<T> pool;
+		
+		private final EntryPoint<T> entryPoint;
+		
+		private final ParseCache parseCache;
+		
+		private Registration(final ClassParser<T> classParser, final Supplier<T> factory, final OptionPool<T> pool, final EntryPoint<T> entryPoint, final ParseCache parseCache) {
+			this.classParser = classParser;
+			this.factory = factory;
+			this.pool = pool;
+			this.entryPoint = entryPoint;
+			this.parseCache = parseCache;
+		}
+		
+		private WarmUpReport warmUp(final int maxRounds) throws CliOptionDefinitionException {
+			return new CliArgsParser<>(this.classParser).warmUp(this.factory, maxRounds);
+		}
+		
+		private int run(final String[] args, final PrintWriter out) {
+			final T options = this.pool.acquire();
+			try {
+				return run(options, args, out);
+			} finally {
+				this.pool.release(options);
+			}
+		}
+		
+		private int run(final T options, final String[] args, final PrintWriter out) {
+			final CliArgsParser<T> argsParser = new CliArgsParser<>(this.classParser);
+			argsParser.setParseCache(this.parseCache);
+			try {
+				argsParser.parse(options, args);
+			} catch (CliUsageException e) {
+				out.println("error in the CLI arguments: "+e.getMessage());
+				out.println("available options:");
+				this.classParser.printOptionUsage(out);
+				return EXIT_USAGE_ERROR;
+			} catch (CliOptionDefinitionException e) {
+				out.println("error in the CLI arguments definition: "+e.getMessage());
+				return EXIT_FAILURE;
+			}
+			try {
+				return this.entryPoint.run(options, argsParser.getParameters(), out);
+			} catch (Exception e) {
+				out.println("error: "+e);
+				return EXIT_FAILURE;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * A thin client of a {@link CliDaemon}.
+ * 
+ * It sends the name of an entry point and the CLI arguments to the daemon, writes the output of the entry point
+ * and returns its exit code.
+ * 
+ * Since the protocol is made of NUL-separated strings, any tool able to write on a Unix domain socket may be used instead
+ * (e.g. <code>printf '%s\0' solve -n 3 | nc -N -U /tmp/daemon.sock</code>).
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class CliDaemonClient {
+	
+	private CliDaemonClient() {
+		// nothing
+	}
+	
+	/**
+	 * Runs an entry point of a daemon.
+	 * 
+	 * @param address the address of the daemon
+	 * @param entryPoint the name of the entry point
+	 * @param args the CLI arguments
+	 * @param out the stream in which the output of the entry point is written
+	 * @return the exit code of the entry point
+	 * @throws IOException if an error occurs while communicating with the daemon
+	 */
+	public static int call(final SocketAddress address, final String entryPoint, final String[] args, final OutputStream out) throws IOException {
+		try(final SocketChannel channel = CliDaemon.openChannel(address)) {
+			final OutputStream request = Channels.newOutputStream(channel);
+			request.write(entryPoint.getBytes(StandardCharsets.UTF_8));
+			request.write(0);
+			for(final String arg : args) {
+				request.write(arg.getBytes(StandardCharsets.UTF_8));
+				request.write(0);
+			}
+			request.flush();
+			channel.shutdownOutput();
+			final InputStream response = Channels.newInputStream(channel);
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			response.transferTo(buffer);
+			final byte[] bytes = buffer.toByteArray();
+			int sep = bytes.length - 1;
+			while(sep >= 0 && bytes[sep] != 0) {
+				--sep;
+			}
+			if(sep < 0) {
+				throw new IOException("malformed answer from the daemon");
+			}
+			out.write(bytes, 0, sep);
+			out.flush();
+			try {
+				return Integer.parseInt(new String(bytes, sep+1, bytes.length-sep-1, StandardCharsets.US_ASCII));
+			} catch(NumberFormatException e) {
+				throw new IOException("malformed exit code from the daemon", e);
+			}
+		}
+	}
+	
+	/**
+	 * Runs an entry point of a daemon listening on a Unix domain socket, and exits with the exit code of the entry point.
+	 * 
+	 * The expected arguments are the path of the socket file, the name of the entry point and the CLI arguments.
+	 * 
+	 * @param args the arguments
+	 * @throws IOException if an error occurs while communicating with the daemon
+	 */
+	public static void main(final String[] args) throws IOException {
+		if(args.length < 2) {
+			throw new IllegalArgumentException("usage: CliDaemonClient <socket file> <entry point> [args...]");
+		}
+		final String[] cliArgs = new String[args.length-2];
+		System.arraycopy(args, 2, cliArgs, 0, cliArgs.length);
+		System.exit(call(CliDaemon.unixDomainAddress(Paths.get(args[0])), args[1], cliArgs, System.out));
+	}
+
+}
@@ -24,22 +24,155 @@ package fr.cril.cli;
  * #L%
  */
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * An exception thrown while an issue is discovered in the <b>parsing</b> of the command line arguments.
  * 
+ * The exception carries an error code ({@link EUsageError}) and the arguments describing the error;
+ * the human-readable message is only built when {@link CliUsageException#getMessage()} is called.
+ * 
+ * Capturing the stack trace of these exceptions may be disabled with {@link CliUsageException#setStackTraceCapture(boolean)},
+ * which makes the rejection of invalid command lines much cheaper.
+ * 
  * @author Emmanuel Lonca - lonca@cril.fr
  */
 public class CliUsageException extends Exception {
 
-	private static final long serialVersionUID = 1L;
+	private static final long serialVersionUID = 3L;
+	
+	private static volatile boolean captureStackTrace = true;
+	
+	private final EUsageError error;
+	
+	private final Object[] args;
+	
+	private final String[] suggestions;
+	
+	private String message = null;
 	
 	/**
 	 * Builds a new exception given its reason.
 	 * 
+	 * The error code of such exceptions is {@link EUsageError#OTHER}.
+	 * 
 	 * @param reason the reason
 	 */
 	public CliUsageException(final String reason) {
-		super(reason);
+		this(EUsageError.OTHER, null, reason);
+	}
+	
+	/**
+	 * Builds a new exception given its error code and the arguments describing the error.
+	 * 
+	 * See {@link EUsageError} for the arguments expected by each error code.
+	 * 
+	 * @param error the error code
+	 * @param args the arguments
+	 */
+	public CliUsageException(final EUsageError error, final Object... args) {
+		this(error, null, args);
+	}
+	
+	/**
+	 * Builds a new exception given its error code, its cause and the arguments describing the error.
+	 * 
+	 * See {@link EUsageError} for the arguments expected by each error code.
+	 * 
+	 * @param error the error code
+	 * @param cause the cause
+	 * @param args the arguments
+	 */
+	public CliUsageException(final EUsageError error, final CliUsageException cause, final Object... args) {
+		this(error, cause, new String[0], args);
+	}
+	
+	private CliUsageException(final EUsageError error, final CliUsageException cause, final String[] suggestions, final Object[] args) {
+		super(null, cause, true, captureStackTrace);
+		this.error = error;
+		this.args = args;
+		this.suggestions = suggestions;
+	}
+	
+	/**
+	 * Builds a new exception given its error code, suggestions to fix the error (e.g. the option names close to an unknown one)
+	 * and the arguments describing the error.
+	 * 
+	 * The suggestions are appended to the message, if any.
+	 * 
+	 * @param error the error code
+	 * @param suggestions the suggestions
+	 * @param args the arguments
+	 * @return the exception
+	 */
+	public static CliUsageException withSuggestions(final EUsageError error, final List<String> suggestions, final Object... args) {
+		return new CliUsageException(error, null, suggestions.toArray(new String[0]), args);
+	}
+	
+	/**
+	 * Builds a new exception given its error code, its cause, suggestions to fix the error and the arguments describing the error.
+	 * 
+	 * See {@link CliUsageException#withSuggestions(EUsageError, List, Object...)}.
+	 * 
+	 * @param error the error code
+	 * @param cause the cause
+	 * @param suggestions the suggestions
+	 * @param args the arguments
+	 * @return the exception
+	 */
+	public static CliUsageException withSuggestions(final EUsageError error, final CliUsageException cause, final List<String> suggestions, final Object... args) {
+		return new CliUsageException(error, cause, suggestions.toArray(new String[0]), args);
+	}
+	
+	/**
+	 * Returns the error code of this exception.
+	 * 
+	 * @return the error code
+	 */
+	public EUsageError getError() {
+		return this.error;
+	}
+	
+	/**
+	 * Returns the arguments describing the error (see {@link EUsageError}).
+	 * 
+	 * @return the arguments
+	 */
+	public Object[] getArguments() {
+		return this.args.clone();
+	}
+	
+	/**
+	 * Returns the suggestions to fix the error (e.g. the option names close to an unknown one), the most relevant first.
+	 * 
+	 * @return the suggestions, possibly empty
+	 */
+	public List<String> getSuggestions() {
+		return Collections.unmodifiableList(Arrays.asList(this.suggestions));
+	}
+	
+	@Override
+	public String getMessage() {
+		if(this.message == null) {
+			final String msg = this.error.format(this.args, getCause());
+			this.message = this.suggestions.length == 0 ? msg : msg+" (did you mean "+String.join(" or ", this.suggestions)+"?)";
+		}
+		return this.message;
+	}
+	
+	/**
+	 * Sets whether the stack trace is captured when a {@link CliUsageException} is built.
+	 * 
+	 * The default is <code>true</code>.
+	 * Disabling it is useful when a lot of invalid command lines are expected, since capturing the stack trace is the main cost of an exception.
+	 * This setting applies to the whole JVM.
+	 * 
+	 * @param capture <code>true</code> to capture the stack traces
+	 */
+	public static void setStackTraceCapture(final boolean capture) {
+		captureStackTrace = capture;
 	}
 
 }
@@ -0,0 +1,468 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.cril.cli.utils.DecimalParser;
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.EnumConverter;
+import fr.cril.cli.utils.Multiplicity;
+import fr.cril.cli.utils.OptionConstraints;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+import fr.cril.cli.utils.ValueRange;
+
+/**
+ * A parser specialized for an {@link OptionMap}, used as a fast path by {@link CliArgsParser}.
+ * 
+ * When the runtime provides hidden classes, a class dedicated to the options is spun when the parser is built (see {@link ParserSpinner}):
+ * the option names are looked up by a <code>tableswitch</code> on the single-character short names and by a <code>lookupswitch</code> on the hash code
+ * of the other names, and the values are stored in the fields by <code>putfield</code> instructions.
+ * Otherwise, the option names are compiled into lookup tables: an array indexed by the character for the single-character
+ * short names, and open addressing hash tables for the other names, probed directly on the characters of the arguments (without extracting substrings);
+ * the fields are then set through the setters of the {@link OptionSchema}.
+ * The conversion of each option is given by a precomputed kind, so that integer values are converted in place and stored, as the other primitive values,
+ * in the <code>long</code> slots of a {@link ParsedArgs} snapshot.
+ * 
+ * The fast path only handles valid arguments: as soon as an argument cannot be handled (an unknown option, a value which cannot be converted or is out of its range,
+ * a violated option constraint, a wrong number of parameters, a type which is not supported by {@link EFieldType}),
+ * {@link CompiledParser#parse(String[])} returns <code>null</code> and the arguments are handed to the interpretive engine,
+ * which builds the error (or the result) as it always does. Since the fast path sets no field, this rerun has the same effects as a single run
+ * of the interpretive engine.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class CompiledParser {
+	
+	private static final byte UNSUPPORTED = 0;
+	
+	private static final byte FLAG = 1;
+	
+	private static final byte BOOLEAN_ARG = 2;
+	
+	private static final byte STRING = 3;
+	
+	private static final byte INT = 4;
+	
+	private static final byte LONG = 5;
+	
+	private static final byte ENUM = 6;
+	
+	private static final byte QUANTITY = 7;
+	
+	private static final byte DOUBLE = 8;
+	
+	private static final byte FLOAT = 9;
+	
+	private static final int ASCII_SIZE = 128;
+	
+	private final OptionSchema schema;
+	
+	private final boolean allowShortNamesMerging;
+	
+	private final int[] asciiShortNames = new int[ASCII_SIZE];
+	
+	private final NameTable shortNames;
+	
+	private final NameTable longNames;
+	
+	private final int[] arities;
+	
+	private final byte[] kinds;
+	
+	private final int[] slots;
+	
+	private final EnumConverter[] enumConverters;
+	
+	private final EUnit[] units;
+	
+	private final ValueRange[] ranges;
+	
+	private final OptionConstraints constraints;
+	
+	private final int[] params;
+	
+	private final int minParams;
+	
+	private final int maxParams;
+	
+	private final ParserSpinner spun;
+	
+	/**
+	 * Compiles the parser related to an {@link OptionMap}.
+	 * 
+	 * @param optionMap the options
+	 * @param allowShortNamesMerging <code>true</code> iff short names merging is allowed
+	 * @param optionClass the class which fields are annotated as options, or <code>null</code> to only use lookup tables
+	 */
+	CompiledParser(final OptionMap optionMap, final boolean allowShortNamesMerging, final Class<?> optionClass) {
+		this.schema = optionMap.getSchema();
+		this.allowShortNamesMerging = allowShortNamesMerging;
+		final int size = this.schema.size();
+		this.arities = new int[size];
+		this.kinds = new byte[size];
+		this.slots = new int[size];
+		this.enumConverters = new EnumConverter[size];
+		this.units = new EUnit[size];
+		this.ranges = new ValueRange[size];
+		Arrays.fill(this.asciiShortNames, -1);
+		final Map<String, Integer> shorts = new HashMap<>();
+		final Map<String, Integer> longs = new HashMap<>();
+		for(int id=0; id<size; ++id) {
+			final Field field = this.schema.field(id);
+			this.arities[id] = id < this.schema.nOptions() ? optionMap.getArgMultiplicity(field) : 1;
+			this.kinds[id] = kindOf(this.schema.type(id));
+			this.slots[id] = this.schema.slot(id);
+			if(this.kinds[id] == ENUM) {
+				this.enumConverters[id] = optionMap.getEnumConverter(field);
+			}
+			this.ranges[id] = optionMap.getRange(field);
+			if(this.kinds[id] == LONG && optionMap.getUnit(field) != null) {
+				this.kinds[id] = QUANTITY;
+				this.units[id] = optionMap.getUnit(field);
+			}
+			if(id >= this.schema.nOptions()) {
+				continue;
+			}
+			final String shortName = optionMap.getShortName(field);
+			if(shortName != null) {
+				shorts.put(shortName, id);
+				if(shortName.length() == 1 && shortName.charAt(0) < ASCII_SIZE) {
+					this.asciiShortNames[shortName.charAt(0)] = id;
+				}
+			}
+			final String longName = optionMap.getLongName(field);
+			if(longName != null) {
+				longs.put(longName, id);
+			}
+		}
+		this.shortNames = new NameTable(shorts);
+		this.longNames = new NameTable(longs);
+		this.spun = optionClass == null ? null : ParserSpinner.spin(optionClass, this.schema, shorts, longs);
+		this.constraints = this.schema.getConstraints();
+		this.params = new int[optionMap.nParams()];
+		for(int i=0; i<this.params.length; ++i) {
+			final Field field = optionMap.getParamField(i);
+			this.params[i] = field == null ? -1 : this.schema.id(field);
+		}
+		final Multiplicity paramMult = optionMap.getParamMultiplicity();
+		this.minParams = paramMult.getMin();
+		this.maxParams = paramMult.getMax();
+	}
+	
+	private static byte kindOf(final EFieldType type) {
+		if(type == null) {
+			return UNSUPPORTED;
+		}
+		switch(type) {
+		case BOOLEAN:
+		case BOOL:
+			return FLAG;
+		case BOOLEAN_ARG:
+		case BOOL_ARG:
+			return BOOLEAN_ARG;
+		case STRING:
+			return STRING;
+		case INTEGER:
+		case INT:
+			return INT;
+		case LONG:
+		case LG:
+			return LONG;
+		case DOUBLE:
+		case DBL:
+			return DOUBLE;
+		case FLOAT:
+		case FLT:
+			return FLOAT;
+		case ENUM:
+		case ENUM_SET:
+			return ENUM;
+		default:
+			return UNSUPPORTED;
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this parser was compiled for the provided schema and short names merging policy.
+	 * 
+	 * @param schema the schema
+	 * @param allowShortNamesMerging <code>true</code> iff short names merging is allowed
+	 * @return <code>true</code> iff this parser was compiled for the schema and the policy
+	 */
+	boolean isFor(final OptionSchema schema, final boolean allowShortNamesMerging) {
+		return this.schema == schema && this.allowShortNamesMerging == allowShortNamesMerging;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff a class dedicated to the options has been spun for this parser.
+	 * 
+	 * @return <code>true</code> iff a class has been spun
+	 */
+	boolean isSpun() {
+		return this.spun != null;
+	}
+	
+	/**
+	 * Copies a snapshot built with the schema of this parser into an object, as {@link ParsedArgs#applyTo(Object)} does.
+	 * 
+	 * @param args the snapshot
+	 * @param obj the object
+	 */
+	void applyTo(final ParsedArgs args, final Object obj) {
+		if(this.spun == null) {
+			args.applyTo(obj);
+		} else {
+			this.spun.apply(args, obj);
+		}
+	}
+	
+	/**
+	 * Parses the CLI arguments into a snapshot, or returns <code>null</code> if they must be handed to the interpretive engine.
+	 * 
+	 * @param args the CLI arguments
+	 * @return the snapshot, or <code>null</code>
+	 */
+	ParsedArgs parse(final String[] args) {
+		final long[] primitives = new long[this.schema.nPrimitiveSlots()];
+		final Object[] references = new Object[this.schema.nReferenceSlots()];
+		final BitSet present = new BitSet(this.schema.size());
+		final long[] flags = new long[this.schema.nFlagWords()];
+		final List<String> parameters = new ArrayList<>();
+		int next = 0;
+		while(next < args.length) {
+			final String arg = args[next++];
+			final int length = arg.length();
+			if(length == 0 || arg.charAt(0) != '-') {
+				parameters.add(arg);
+				continue;
+			}
+			final int id;
+			if(length == 1) {
+				return null;
+			} else if(arg.charAt(1) == '-') {
+				if(length == 2) {
+					break;
+				}
+				id = longName(arg, 2, length);
+			} else if(length == 2) {
+				id = shortChar(arg.charAt(1));
+			} else {
+				final int shortId = shortName(arg, 1, length);
+				if(shortId < 0 && length > 2 && this.allowShortNamesMerging) {
+					if(!storeMerged(arg, primitives, present, flags)) {
+						return null;
+					}
+					continue;
+				}
+				id = shortId;
+			}
+			if(id < 0) {
+				return null;
+			}
+			final int arity = this.arities[id];
+			if(arity > 1 || args.length - next < arity || !store(id, arity == 0 ? null : args[next], primitives, references, present, flags)) {
+				return null;
+			}
+			next += arity;
+		}
+		while(next < args.length) {
+			parameters.add(args[next++]);
+		}
+		if(!this.constraints.isSatisfied(present.toLongArray())) {
+			return null;
+		}
+		final int nParams = parameters.size();
+		if(nParams < this.minParams || nParams > this.maxParams) {
+			return null;
+		}
+		for(int i=0; i<Math.min(nParams, this.params.length); ++i) {
+			final int id = this.params[i];
+			if(id >= 0 && !store(id, parameters.get(i), primitives, references, present, flags)) {
+				return null;
+			}
+		}
+		return new ParsedArgs(this.schema, primitives, references, present, flags, parameters, true);
+	}
+	
+	private boolean storeMerged(final String arg, final long[] primitives, final BitSet present, final long[] flags) {
+		for(int i=1; i<arg.length(); ++i) {
+			final int id = shortChar(arg.charAt(i));
+			if(id < 0 || this.arities[id] != 0 || !store(id, null, primitives, null, present, flags)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private int shortChar(final char c) {
+		if(this.spun != null) {
+			return this.spun.shortChar(c);
+		}
+		return c < ASCII_SIZE ? this.asciiShortNames[c] : this.shortNames.find(String.valueOf(c), 0, 1, c);
+	}
+	
+	private int shortName(final String arg, final int from, final int to) {
+		final int hash = NameTable.hash(arg, from, to);
+		return this.spun == null ? this.shortNames.find(arg, from, to, hash) : this.spun.shortName(arg, from, to, hash);
+	}
+	
+	private int longName(final String arg, final int from, final int to) {
+		final int hash = NameTable.hash(arg, from, to);
+		return this.spun == null ? this.longNames.find(arg, from, to, hash) : this.spun.longName(arg, from, to, hash);
+	}
+	
+	private boolean store(final int id, final String token, final long[] primitives, final Object[] references, final BitSet present, final long[] flags) {
+		final int slot = this.slots[id];
+		switch(this.kinds[id]) {
+		case FLAG:
+			primitives[slot] = 1L;
+			flags[id >>> 6] |= 1L << id;
+			break;
+		case BOOLEAN_ARG:
+			final Boolean value = this.schema.getBooleanVocabulary().lookup(token);
+			if(value == null) {
+				return false;
+			}
+			primitives[slot] = value ? 1L : 0L;
+			break;
+		case STRING:
+			references[slot] = token;
+			break;
+		case INT:
+			try {
+				primitives[slot] = Integer.parseInt(token);
+			} catch(NumberFormatException e) {
+				return false;
+			}
+			break;
+		case LONG:
+			try {
+				primitives[slot] = Long.parseLong(token);
+			} catch(NumberFormatException e) {
+				return false;
+			}
+			break;
+		case DOUBLE:
+			try {
+				primitives[slot] = Double.doubleToRawLongBits(DecimalParser.parseDouble(token, 0, token.length()));
+			} catch(CliUsageException e) {
+				return false;
+			}
+			break;
+		case FLOAT:
+			try {
+				primitives[slot] = Double.doubleToRawLongBits(DecimalParser.parseFloat(token, 0, token.length()));
+			} catch(CliUsageException e) {
+				return false;
+			}
+			break;
+		case QUANTITY:
+			try {
+				primitives[slot] = this.units[id].parse(token);
+			} catch(CliUsageException e) {
+				return false;
+			}
+			break;
+		case ENUM:
+			try {
+				references[slot] = this.enumConverters[id].convert(token);
+			} catch(CliUsageException e) {
+				return false;
+			}
+			break;
+		default:
+			return false;
+		}
+		final ValueRange range = this.ranges[id];
+		if(range != null && !(this.kinds[id] == DOUBLE || this.kinds[id] == FLOAT ? range.contains(Double.longBitsToDouble(primitives[slot])) : range.contains(primitives[slot]))) {
+			return false;
+		}
+		present.set(id);
+		return true;
+	}
+	
+	/**
+	 * An open addressing hash table mapping names to identifiers, which is probed with a region of a string.
+	 */
+	private static final class NameTable {
+		
+		private final String[] names;
+		
+		private final int[] hashes;
+		
+		private final int[] ids;
+		
+		private final int mask;
+		
+		private NameTable(final Map<String, Integer> entries) {
+			final int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2) << 1;
+			this.names = new String[capacity];
+			this.hashes = new int[capacity];
+			this.ids = new int[capacity];
+			this.mask = capacity - 1;
+			entries.forEach((name, id) -> {
+				final int hash = name.hashCode();
+				int pos = spread(hash) & this.mask;
+				while(this.names[pos] != null) {
+					pos = (pos + 1) & this.mask;
+				}
+				this.names[pos] = name;
+				this.hashes[pos] = hash;
+				this.ids[pos] = id;
+			});
+		}
+		
+		private static int spread(final int hash) {
+			return hash ^ (hash >>> 16);
+		}
+		
+		private static int hash(final String str, final int from, final int to) {
+			int hash = 0;
+			for(int i=from; i<to; ++i) {
+				hash = 31 * hash + str.charAt(i);
+			}
+			return hash;
+		}
+		
+		private int find(final String str, final int from, final int to, final int hash) {
+			final int length = to - from;
+			for(int pos = spread(hash) & this.mask; this.names[pos] != null; pos = (pos + 1) & this.mask) {
+				if(this.hashes[pos] == hash && this.names[pos].length() == length && str.regionMatches(from, this.names[pos], 0, length)) {
+					return this.ids[pos];
+				}
+			}
+			return -1;
+		}
+	}
+
+}
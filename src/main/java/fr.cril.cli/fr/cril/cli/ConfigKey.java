@@ -0,0 +1,304 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * A canonical key identifying a configuration (i.e. the values of the options and parameters of an object), used to deduplicate configurations
+ * or to cache results.
+ * 
+ * The key is a compact byte array listing, in the order of the identifiers given by the {@link OptionSchema}, the options and parameters
+ * which value differs from a default one. Thus, it does not depend on the order in which the options were given, nor on the name
+ * (short or long) used to give them, and an option explicitly set to its default value is not distinguishable from an absent option.
+ * A stable 128-bit hash (MurmurHash3, x64 variant) of the byte array is computed when the key is built.
+ * 
+ * Keys are built by {@link CliArgsParser#configKey(Object, Object)} and {@link CliArgsParser#configKey(ParsedArgs, Object)}.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class ConfigKey {
+	
+	private static final long C1 = 0x87c37b91114253d5L;
+	
+	private static final long C2 = 0x4cf5ad432745937fL;
+	
+	private final OptionSchema schema;
+	
+	private final byte[] bytes;
+	
+	private final long hashHigh;
+	
+	private final long hashLow;
+	
+	private ConfigKey(final OptionSchema schema, final byte[] bytes) {
+		this.schema = schema;
+		this.bytes = bytes;
+		final long[] hash = hash128(bytes);
+		this.hashLow = hash[0];
+		this.hashHigh = hash[1];
+	}
+	
+	/**
+	 * Builds the key of a configuration.
+	 * 
+	 * @param schema the schema
+	 * @param values a function giving the value of each identifier
+	 * @param defaults a function giving the default value of each identifier
+	 * @return the key
+	 */
+	static ConfigKey of(final OptionSchema schema, final IntFunction<Object> values, final IntFunction<Object> defaults) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(int id=0; id<schema.size(); ++id) {
+			final Object value = values.apply(id);
+			if(Objects.equals(value, defaults.apply(id))) {
+				continue;
+			}
+			writeVarInt(out, id);
+			if(value == null) {
+				writeVarInt(out, 0);
+				continue;
+			}
+			final byte[] encoded = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+			writeVarInt(out, encoded.length + 1);
+			out.write(encoded, 0, encoded.length);
+		}
+		return new ConfigKey(schema, out.toByteArray());
+	}
+	
+	private static void writeVarInt(final ByteArrayOutputStream out, final int value) {
+		int v = value;
+		while((v & ~0x7f) != 0) {
+			out.write((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		out.write(v);
+	}
+	
+	/**
+	 * Returns a copy of the bytes of this key.
+	 * 
+	 * @return the bytes of this key
+	 */
+	public byte[] toByteArray() {
+		return this.bytes.clone();
+	}
+	
+	/**
+	 * Returns the 64 high bits of the 128-bit hash of this key.
+	 * 
+	 * @return the 64 high bits of the hash
+	 */
+	public long getHashHigh() {
+		return this.hashHigh;
+	}
+	
+	/**
+	 * Returns the 64 low bits of the 128-bit hash of this key.
+	 * 
+	 * @return the 64 low bits of the hash
+	 */
+	public long getHashLow() {
+		return this.hashLow;
+	}
+	
+	/**
+	 * Returns the 128-bit hash of this key as a 32-character hexadecimal string (high bits first).
+	 * 
+	 * @return the hexadecimal hash
+	 */
+	public String toHexString() {
+		return String.format("%016x%016x", this.hashHigh, this.hashLow);
+	}
+	
+	/**
+	 * Computes the set of identifiers (in the {@link OptionSchema}) of the options and parameters which values differ between this key and another one.
+	 * 
+	 * Both keys must have been built by parsers sharing the same options.
+	 * The computation walks the two byte arrays once, without decoding the values.
+	 * 
+	 * @param other the other key
+	 * @return the identifiers of the differing options and parameters
+	 */
+	public BitSet diff(final ConfigKey other) {
+		if(other.schema != this.schema) {
+			throw new IllegalArgumentException("the keys were not built with the same options");
+		}
+		final BitSet result = new BitSet();
+		final byte[] a = this.bytes;
+		final byte[] b = other.bytes;
+		int i = 0;
+		int j = 0;
+		final int[] cursor = new int[1];
+		while(i < a.length || j < b.length) {
+			final int idA = i < a.length ? readVarInt(a, i, cursor) : Integer.MAX_VALUE;
+			final int valA = i < a.length ? cursor[0] : i;
+			final int idB = j < b.length ? readVarInt(b, j, cursor) : Integer.MAX_VALUE;
+			final int valB = j < b.length ? cursor[0] : j;
+			if(idA < idB) {
+				result.set(idA);
+				i = skipValue(a, valA, cursor);
+			} else if(idB < idA) {
+				result.set(idB);
+				j = skipValue(b, valB, cursor);
+			} else {
+				final int endA = skipValue(a, valA, cursor);
+				final int endB = skipValue(b, valB, cursor);
+				if(!Arrays.equals(a, valA, endA, b, valB, endB)) {
+					result.set(idA);
+				}
+				i = endA;
+				j = endB;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the names of the options and parameters given by their identifiers, e.g. the ones returned by {@link ConfigKey#diff(ConfigKey)}.
+	 * 
+	 * @param ids the identifiers
+	 * @return the names
+	 */
+	public List<String> names(final BitSet ids) {
+		return ids.stream().mapToObj(this.schema::name).collect(Collectors.toList());
+	}
+	
+	private static int readVarInt(final byte[] bytes, final int from, final int[] next) {
+		int value = 0;
+		int shift = 0;
+		int i = from;
+		byte b;
+		do {
+			b = bytes[i++];
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while((b & 0x80) != 0);
+		next[0] = i;
+		return value;
+	}
+	
+	private static int skipValue(final byte[] bytes, final int from, final int[] next) {
+		final int len = readVarInt(bytes, from, next);
+		return next[0] + Math.max(0, len - 1);
+	}
+	
+	/**
+	 * Computes the 128-bit MurmurHash3 (x64 variant, seed 0) of a byte array.
+	 * 
+	 * @param data the bytes
+	 * @return the low and high 64 bits of the hash
+	 */
+	static long[] hash128(final byte[] data) {
+		long h1 = 0;
+		long h2 = 0;
+		final int nBlocks = data.length >>> 4;
+		for(int i=0; i<nBlocks; ++i) {
+			final long k1 = getLongLE(data, i << 4, 8);
+			final long k2 = getLongLE(data, (i << 4) + 8, 8);
+			h1 ^= mixK1(k1);
+			h1 = Long.rotateLeft(h1, 27) + h2;
+			h1 = h1 * 5 + 0x52dce729;
+			h2 ^= mixK2(k2);
+			h2 = Long.rotateLeft(h2, 31) + h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		final int tail = nBlocks << 4;
+		final int rem = data.length & 15;
+		if(rem > 8) {
+			h2 ^= mixK2(getLongLE(data, tail + 8, rem - 8));
+		}
+		if(rem > 0) {
+			h1 ^= mixK1(getLongLE(data, tail, Math.min(rem, 8)));
+		}
+		h1 ^= data.length;
+		h2 ^= data.length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		return new long[] {h1, h2};
+	}
+	
+	private static long getLongLE(final byte[] data, final int from, final int len) {
+		long value = 0;
+		for(int i=len-1; i>=0; --i) {
+			value = (value << 8) | (data[from+i] & 0xffL);
+		}
+		return value;
+	}
+	
+	private static long mixK1(final long k) {
+		return Long.rotateLeft(k * C1, 31) * C2;
+	}
+	
+	private static long mixK2(final long k) {
+		return Long.rotateLeft(k * C2, 33) * C1;
+	}
+	
+	private static long fmix(final long k) {
+		long h = k;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+	@Override
+	public int hashCode() {
+		return (int) this.hashLow;
+	}
+	
+	@Override
+	public boolean equals(final Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof ConfigKey)) {
+			return false;
+		}
+		final ConfigKey other = (ConfigKey) obj;
+		return this.hashLow == other.hashLow && this.hashHigh == other.hashHigh && Arrays.equals(this.bytes, other.bytes);
+	}
+	
+	@Override
+	public String toString() {
+		return toHexString();
+	}
+
+}
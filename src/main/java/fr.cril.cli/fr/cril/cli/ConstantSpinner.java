@@ -0,0 +1,228 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static fr.cril.cli.ClassFileWriter.ACONST_NULL;
+import static fr.cril.cli.ClassFileWriter.ALOAD_0;
+import static fr.cril.cli.ClassFileWriter.ARETURN;
+import static fr.cril.cli.ClassFileWriter.INVOKESPECIAL;
+import static fr.cril.cli.ClassFileWriter.INVOKESTATIC;
+import static fr.cril.cli.ClassFileWriter.IRETURN;
+import static fr.cril.cli.ClassFileWriter.LCONST_0;
+import static fr.cril.cli.ClassFileWriter.LDC2_W;
+import static fr.cril.cli.ClassFileWriter.LDC_W;
+import static fr.cril.cli.ClassFileWriter.LRETURN;
+import static fr.cril.cli.ClassFileWriter.RETURN;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.cril.cli.ClassFileWriter.Code;
+import fr.cril.cli.ClassFileWriter.ConstantPool;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * Spins classes implementing an accessor interface, which methods return the values of options as constants.
+ * 
+ * Each method of the interface is related to the option or parameter field of the same name, and must have the same return type;
+ * the supported types are <code>boolean</code>, <code>int</code>, <code>long</code>, their wrapper classes and {@link String}.
+ * The values are written in the bytecode of the methods (as <code>ldc</code> and <code>iconst</code> instructions), so that once a call
+ * is inlined, the JIT sees the value as a constant and removes the branches depending on it.
+ * 
+ * The classes are written and defined by a {@link ClassFileWriter}: they are hidden classes when the runtime provides them (Java 15 and later),
+ * so that they can be unloaded when their instances are no longer reachable; on the Java 11 baseline, they live as long as the class loader of this library.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class ConstantSpinner {
+	
+	private static final String CLASS_NAME_PREFIX = ConstantSpinner.class.getPackageName().replace('.', '/')+"/OptionConstants$";
+	
+	private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+	
+	private final OptionSchema schema;
+	
+	private final Class<?> accessor;
+	
+	private final Method[] methods;
+	
+	private final int[] ids;
+	
+	/**
+	 * Builds the spinner related to an accessor interface.
+	 * 
+	 * @param optionClass the class which fields are annotated as options
+	 * @param schema the schema of the options defined in the class
+	 * @param accessor the accessor interface
+	 */
+	ConstantSpinner(final Class<?> optionClass, final OptionSchema schema, final Class<?> accessor) {
+		if(!accessor.isInterface()) {
+			throw new IllegalArgumentException(accessor+" is not an interface");
+		}
+		final Lookup lookup = MethodHandles.lookup();
+		lookup.lookupClass().getModule().addReads(accessor.getModule());
+		try {
+			lookup.accessClass(accessor);
+		} catch(IllegalAccessException e) {
+			throw new IllegalArgumentException(accessor+" is not accessible ("+e.getMessage()+")", e);
+		}
+		this.schema = schema;
+		this.accessor = accessor;
+		this.methods = Arrays.stream(accessor.getMethods()).filter(m -> Modifier.isAbstract(m.getModifiers())).toArray(Method[]::new);
+		this.ids = new int[this.methods.length];
+		for(int i=0; i<this.methods.length; ++i) {
+			final Method method = this.methods[i];
+			if(method.getParameterCount() > 0) {
+				throw new IllegalArgumentException(method+": accessor methods must not take parameters");
+			}
+			final Field field;
+			try {
+				field = optionClass.getDeclaredField(method.getName());
+			} catch(NoSuchFieldException e) {
+				throw new IllegalArgumentException(method+": no field \""+method.getName()+"\" in "+optionClass, e);
+			}
+			this.ids[i] = schema.id(field);
+			if(this.ids[i] < 0) {
+				throw new IllegalArgumentException(method+": field \""+field.getName()+"\" is neither an option nor a parameter");
+			}
+			if(!field.getType().equals(method.getReturnType())) {
+				throw new IllegalArgumentException(method+": the return type does not match the one of field \""+field.getName()+"\"");
+			}
+			if(!isSupported(field.getType())) {
+				throw new IllegalArgumentException(method+": values of type "+field.getType().getName()+" cannot be held as constants");
+			}
+		}
+	}
+	
+	private static boolean isSupported(final Class<?> type) {
+		return type.equals(String.class) || Arrays.asList(boolean.class, int.class, long.class).contains(MethodType.methodType(type).unwrap().returnType());
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this spinner was built for the provided schema and accessor interface.
+	 * 
+	 * @param schema the schema
+	 * @param accessor the accessor interface
+	 * @return <code>true</code> iff this spinner was built for the schema and the interface
+	 */
+	boolean isFor(final OptionSchema schema, final Class<?> accessor) {
+		return this.schema == schema && this.accessor == accessor;
+	}
+	
+	/**
+	 * Spins a new class holding the values of a snapshot, and returns its single instance.
+	 * 
+	 * The values of the options and parameters which are not given by the snapshot are read from a defaults object;
+	 * if no such object is provided, they are set to <code>0</code>, <code>false</code> or <code>null</code>.
+	 * 
+	 * @param args the snapshot
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the instance of the new class
+	 */
+	Object spin(final ParsedArgs args, final Object defaults) {
+		final Object[] values = new Object[this.ids.length];
+		for(int i=0; i<this.ids.length; ++i) {
+			final int id = this.ids[i];
+			if(args.isPresent(id)) {
+				values[i] = args.value(id);
+			} else if(defaults != null) {
+				values[i] = this.schema.get(id, defaults);
+			}
+		}
+		final byte[] bytes = classBytes(CLASS_NAME_PREFIX+CLASS_COUNTER.incrementAndGet(), values);
+		try {
+			final Lookup lookup = ClassFileWriter.define(MethodHandles.lookup(), bytes, false);
+			return lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private byte[] classBytes(final String className, final Object[] values) {
+		final ClassFileWriter writer = new ClassFileWriter(Modifier.PUBLIC | Modifier.FINAL | ClassFileWriter.ACC_SUPER, className,
+				"java/lang/Object", this.accessor.getName().replace('.', '/'));
+		final ConstantPool pool = writer.constants();
+		final int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+		writer.method(Modifier.PUBLIC, "<init>", "()V", 1, 1, new Code().op(ALOAD_0).indexed(INVOKESPECIAL, objectInit).op(RETURN));
+		for(int i=0; i<this.methods.length; ++i) {
+			final Code code = new Code();
+			final int stack = loadConstant(pool, this.methods[i].getReturnType(), values[i], code);
+			code.op(returnOpcode(this.methods[i].getReturnType()));
+			writer.method(Modifier.PUBLIC | Modifier.FINAL, this.methods[i].getName(),
+					MethodType.methodType(this.methods[i].getReturnType()).toMethodDescriptorString(), stack, 1, code);
+		}
+		return writer.toByteArray();
+	}
+	
+	private static int loadConstant(final ConstantPool pool, final Class<?> type, final Object value, final Code code) {
+		if(type.equals(String.class)) {
+			if(value == null) {
+				code.op(ACONST_NULL);
+			} else {
+				code.indexed(LDC_W, pool.string((String) value));
+			}
+			return 1;
+		}
+		final Class<?> primitive = MethodType.methodType(type).unwrap().returnType();
+		if(!type.isPrimitive() && value == null) {
+			code.op(ACONST_NULL);
+			return 1;
+		}
+		final int stack;
+		if(primitive.equals(long.class)) {
+			final long l = value == null ? 0L : (Long) value;
+			if(l == 0L || l == 1L) {
+				code.op(LCONST_0 + (int) l);
+			} else {
+				code.indexed(LDC2_W, pool.longConstant(l));
+			}
+			stack = 2;
+		} else {
+			code.pushInt(pool, value == null ? 0 : primitive.equals(boolean.class) ? ((Boolean) value ? 1 : 0) : (Integer) value);
+			stack = 1;
+		}
+		if(!type.isPrimitive()) {
+			final String wrapper = type.getName().replace('.', '/');
+			code.indexed(INVOKESTATIC, pool.methodRef(wrapper, "valueOf", MethodType.methodType(type, primitive).toMethodDescriptorString()));
+		}
+		return stack;
+	}
+	
+	private static int returnOpcode(final Class<?> type) {
+		if(type.equals(long.class)) {
+			return LRETURN;
+		}
+		return type.isPrimitive() ? IRETURN : ARETURN;
+	}
+
+}
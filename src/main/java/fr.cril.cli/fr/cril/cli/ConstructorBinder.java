@@ -0,0 +1,258 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.cril.cli.annotations.OptionsConstructor;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * Builds option objects in a single constructor call, so that the options and parameters can be <code>final</code> fields (or record components).
+ * 
+ * The constructor is the canonical constructor for records, and the constructor annotated by {@link OptionsConstructor} for other classes.
+ * Records are detected reflectively, so that this class runs on the Java 11 baseline.
+ * 
+ * The constructor is adapted once into a {@link MethodHandle} taking a <code>long[]</code> (the values of the primitive parameters)
+ * and an <code>Object[]</code> (the other ones); the values of a snapshot are gathered into these two arrays,
+ * and the object is built without boxing the primitive values.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class ConstructorBinder {
+	
+	private static final MethodType BUILDER_TYPE = MethodType.methodType(Object.class, long[].class, Object[].class);
+	
+	private static final MethodHandle LONG_BITS_TO_DOUBLE;
+	
+	static {
+		try {
+			LONG_BITS_TO_DOUBLE = MethodHandles.lookup().findStatic(Double.class, "longBitsToDouble", MethodType.methodType(double.class, long.class));
+		} catch(NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private final OptionSchema schema;
+	
+	private final int[] ids;
+	
+	private final boolean[] primitive;
+	
+	private final int[] slots;
+	
+	private final int nPrimitives;
+	
+	private final MethodHandle builder;
+	
+	/**
+	 * Builds the binder related to a class.
+	 * 
+	 * @param cl the class
+	 * @param schema the schema of the options defined in the class
+	 * @throws CliOptionDefinitionException if the class has no suitable constructor, or if a constructor parameter is not related to an option or parameter field
+	 */
+	ConstructorBinder(final Class<?> cl, final OptionSchema schema) throws CliOptionDefinitionException {
+		this.schema = schema;
+		final Constructor<?> constructor;
+		final String[] names;
+		final List<String> components = recordComponents(cl);
+		if(components != null) {
+			names = components.toArray(new String[0]);
+			final Class<?>[] types = new Class<?>[names.length];
+			for(int i=0; i<names.length; ++i) {
+				types[i] = declaredField(cl, names[i]).getType();
+			}
+			constructor = canonicalConstructor(cl, types);
+		} else {
+			constructor = annotatedConstructor(cl);
+			names = fieldNames(constructor);
+		}
+		final Class<?>[] types = constructor.getParameterTypes();
+		if(names.length != types.length) {
+			throw new CliOptionDefinitionException(constructor+": "+names.length+" field names given for "+types.length+" parameters");
+		}
+		this.ids = new int[types.length];
+		this.primitive = new boolean[types.length];
+		this.slots = new int[types.length];
+		int nPrim = 0;
+		int nRef = 0;
+		for(int i=0; i<types.length; ++i) {
+			final Field field = declaredField(cl, names[i]);
+			this.ids[i] = schema.id(field);
+			if(this.ids[i] < 0) {
+				throw new CliOptionDefinitionException(constructor+": field \""+names[i]+"\" is neither an option nor a parameter");
+			}
+			if(!field.getType().equals(types[i])) {
+				throw new CliOptionDefinitionException(constructor+": the type of parameter "+i+" does not match the one of field \""+names[i]+"\"");
+			}
+			this.primitive[i] = types[i].isPrimitive() && schema.isPrimitive(this.ids[i]);
+			this.slots[i] = this.primitive[i] ? nPrim++ : nRef++;
+		}
+		this.nPrimitives = nPrim;
+		this.builder = adapt(constructor, this.primitive, this.slots);
+	}
+	
+	private static List<String> recordComponents(final Class<?> cl) {
+		try {
+			final Method isRecord = Class.class.getMethod("isRecord");
+			if(!((Boolean) isRecord.invoke(cl))) {
+				return null;
+			}
+			final Object components = Class.class.getMethod("getRecordComponents").invoke(cl);
+			final List<String> names = new ArrayList<>();
+			for(int i=0; i<Array.getLength(components); ++i) {
+				final Object component = Array.get(components, i);
+				names.add((String) component.getClass().getMethod("getName").invoke(component));
+			}
+			return names;
+		} catch(NoSuchMethodException e) {
+			return null;
+		} catch(IllegalAccessException | InvocationTargetException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static Constructor<?> canonicalConstructor(final Class<?> cl, final Class<?>[] types) throws CliOptionDefinitionException {
+		try {
+			return cl.getDeclaredConstructor(types);
+		} catch(NoSuchMethodException e) {
+			throw new CliOptionDefinitionException(cl+": no canonical constructor");
+		}
+	}
+	
+	private static Constructor<?> annotatedConstructor(final Class<?> cl) throws CliOptionDefinitionException {
+		final Constructor<?>[] annotated = Arrays.stream(cl.getDeclaredConstructors()).filter(c -> c.isAnnotationPresent(OptionsConstructor.class)).toArray(Constructor<?>[]::new);
+		if(annotated.length == 0) {
+			throw new CliOptionDefinitionException(cl+": not a record, and no constructor annotated by @"+OptionsConstructor.class.getSimpleName());
+		}
+		if(annotated.length > 1) {
+			throw new CliOptionDefinitionException(cl+": multiple constructors annotated by @"+OptionsConstructor.class.getSimpleName());
+		}
+		return annotated[0];
+	}
+	
+	private static String[] fieldNames(final Constructor<?> constructor) throws CliOptionDefinitionException {
+		final String[] names = constructor.getAnnotation(OptionsConstructor.class).value();
+		if(names.length > 0 || constructor.getParameterCount() == 0) {
+			return names;
+		}
+		final Parameter[] parameters = constructor.getParameters();
+		if(!parameters[0].isNamePresent()) {
+			throw new CliOptionDefinitionException(constructor+": field names must be given by the annotation, or the class must be compiled with -parameters");
+		}
+		return Arrays.stream(parameters).map(Parameter::getName).toArray(String[]::new);
+	}
+	
+	private static Field declaredField(final Class<?> cl, final String name) throws CliOptionDefinitionException {
+		try {
+			return cl.getDeclaredField(name);
+		} catch(NoSuchFieldException e) {
+			throw new CliOptionDefinitionException(cl+": no field \""+name+"\"");
+		}
+	}
+	
+	private static MethodHandle adapt(final Constructor<?> constructor, final boolean[] primitive, final int[] slots) throws CliOptionDefinitionException {
+		MethodHandle handle;
+		try {
+			constructor.setAccessible(true);
+			handle = MethodHandles.lookup().unreflectConstructor(constructor);
+		} catch(RuntimeException | IllegalAccessException e) {
+			throw new CliOptionDefinitionException(constructor+": constructor not accessible ("+e.getMessage()+")");
+		}
+		final Class<?>[] types = constructor.getParameterTypes();
+		final MethodHandle[] filters = new MethodHandle[types.length];
+		final int[] reorder = new int[types.length];
+		for(int i=0; i<types.length; ++i) {
+			MethodHandle getter = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(primitive[i] ? long[].class : Object[].class), 1, slots[i]);
+			if(primitive[i] && (types[i] == double.class || types[i] == float.class)) {
+				getter = MethodHandles.filterReturnValue(getter, LONG_BITS_TO_DOUBLE);
+			}
+			filters[i] = MethodHandles.explicitCastArguments(getter, MethodType.methodType(types[i], primitive[i] ? long[].class : Object[].class));
+			reorder[i] = primitive[i] ? 0 : 1;
+		}
+		handle = MethodHandles.filterArguments(handle, 0, filters);
+		return MethodHandles.permuteArguments(handle.asType(handle.type().changeReturnType(Object.class)), BUILDER_TYPE, reorder);
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this binder was built for the provided schema.
+	 * 
+	 * @param schema the schema
+	 * @return <code>true</code> iff this binder was built for the schema
+	 */
+	boolean isFor(final OptionSchema schema) {
+		return this.schema == schema;
+	}
+	
+	/**
+	 * Builds an object from a snapshot.
+	 * 
+	 * The values of the options and parameters which are not given by the snapshot are read from a defaults object;
+	 * if no such object is provided, they are set to <code>0</code>, <code>false</code> or <code>null</code>.
+	 * 
+	 * @param args the snapshot
+	 * @param defaults the object giving the default values, or <code>null</code>
+	 * @return the new object
+	 */
+	Object construct(final ParsedArgs args, final Object defaults) {
+		final long[] primitives = new long[this.nPrimitives];
+		final Object[] references = new Object[this.ids.length - this.nPrimitives];
+		for(int i=0; i<this.ids.length; ++i) {
+			final int id = this.ids[i];
+			final boolean present = args.isPresent(id);
+			if(this.primitive[i]) {
+				if(present) {
+					primitives[this.slots[i]] = args.primitiveValue(id);
+				} else if(defaults != null) {
+					primitives[this.slots[i]] = this.schema.encode(id, this.schema.get(id, defaults));
+				}
+			} else if(present) {
+				references[this.slots[i]] = args.value(id);
+			} else if(defaults != null) {
+				references[this.slots[i]] = this.schema.copy(id, this.schema.get(id, defaults));
+			}
+		}
+		try {
+			return this.builder.invokeExact(primitives, references);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
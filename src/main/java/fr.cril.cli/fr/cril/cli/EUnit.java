@@ -0,0 +1,171 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+/**
+ * An enumeration of the units in which <code>long</code> (or {@link Long}) option values may be expressed, when the CLI tokens carry unit suffixes.
+ * 
+ * A field is given a unit with the {@link fr.cril.cli.annotations.Unit} annotation; its value is then expressed in this unit.
+ * Sizes accept a number followed by an optional binary multiple (<code>512M</code>, <code>2G</code>, <code>64KiB</code>, <code>4096B</code>);
+ * the multiples are powers of 1024 and ignore case.
+ * Durations accept a sequence of numbers followed by decreasing units among <code>d</code>, <code>h</code>, <code>m</code>, <code>s</code>,
+ * <code>ms</code>, <code>us</code> and <code>ns</code> (<code>30s</code>, <code>1h30m</code>).
+ * A number without suffix is expressed in the unit of the field.
+ * 
+ * The tokens are read in a single pass over their characters, without building intermediate strings or boxing values,
+ * and the overflows are detected.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public enum EUnit {
+	
+	/** sizes, expressed in bytes */
+	BYTES(true, 1L),
+	
+	/** durations, expressed in nanoseconds */
+	NANOSECONDS(false, 1L),
+	
+	/** durations, expressed in microseconds */
+	MICROSECONDS(false, 1_000L),
+	
+	/** durations, expressed in milliseconds */
+	MILLISECONDS(false, 1_000_000L),
+	
+	/** durations, expressed in seconds */
+	SECONDS(false, 1_000_000_000L),
+	
+	/** durations, expressed in minutes */
+	MINUTES(false, 60_000_000_000L),
+	
+	/** durations, expressed in hours */
+	HOURS(false, 3_600_000_000_000L),
+	
+	/** durations, expressed in days */
+	DAYS(false, 86_400_000_000_000L);
+	
+	private static final String[] SIZE_SUFFIXES = {"b", "k", "kb", "kib", "m", "mb", "mib", "g", "gb", "gib", "t", "tb", "tib", "p", "pb", "pib"};
+	
+	private static final long[] SIZE_FACTORS = {1L, 1L << 10, 1L << 10, 1L << 10, 1L << 20, 1L << 20, 1L << 20, 1L << 30, 1L << 30, 1L << 30, 1L << 40, 1L << 40, 1L << 40, 1L << 50, 1L << 50, 1L << 50};
+	
+	private static final String[] DURATION_SUFFIXES = {"d", "h", "m", "s", "ms", "us", "ns"};
+	
+	private static final long[] DURATION_FACTORS = {86_400_000_000_000L, 3_600_000_000_000L, 60_000_000_000L, 1_000_000_000L, 1_000_000L, 1_000L, 1L};
+	
+	private final boolean size;
+	
+	private final long factor;
+	
+	private EUnit(final boolean size, final long factor) {
+		this.size = size;
+		this.factor = factor;
+	}
+	
+	/**
+	 * Returns <code>true</code> if this unit is a size unit, <code>false</code> if it is a duration unit.
+	 * 
+	 * @return <code>true</code> if this unit is a size unit
+	 */
+	public boolean isSize() {
+		return this.size;
+	}
+	
+	/**
+	 * Returns a short description of the expected tokens, displayed in the option usage.
+	 * 
+	 * @return the description
+	 */
+	public String describe() {
+		return this.size ? "size, e.g. 512M or 2G" : "duration, e.g. 30s or 1h30m";
+	}
+	
+	/**
+	 * Converts a token into a value expressed in this unit.
+	 * 
+	 * @param token the token
+	 * @return the value
+	 * @throws CliUsageException if the token is not a valid quantity, if it is not a whole number of this unit, or if the value overflows
+	 */
+	public long parse(final String token) throws CliUsageException {
+		final String[] suffixes = this.size ? SIZE_SUFFIXES : DURATION_SUFFIXES;
+		final long[] factors = this.size ? SIZE_FACTORS : DURATION_FACTORS;
+		final int len = token.length();
+		long whole = 0;
+		long sub = 0;
+		long lastFactor = Long.MAX_VALUE;
+		int i = 0;
+		try {
+			while(i < len) {
+				final int start = i;
+				long n = 0;
+				while(i < len && token.charAt(i) >= '0' && token.charAt(i) <= '9') {
+					n = Math.addExact(Math.multiplyExact(n, 10L), token.charAt(i) - '0');
+					++i;
+				}
+				final int digitsEnd = i;
+				while(i < len && (token.charAt(i) < '0' || token.charAt(i) > '9')) {
+					++i;
+				}
+				final long suffixFactor;
+				if(digitsEnd == i) {
+					if(start != 0 || i != len) {
+						throw invalid(token);
+					}
+					suffixFactor = this.factor;
+				} else {
+					suffixFactor = suffixFactor(token, digitsEnd, i, suffixes, factors);
+				}
+				if(digitsEnd == start || suffixFactor >= lastFactor || (this.size && start != 0)) {
+					throw invalid(token);
+				}
+				lastFactor = suffixFactor;
+				if(suffixFactor % this.factor == 0) {
+					whole = Math.addExact(whole, Math.multiplyExact(n, suffixFactor / this.factor));
+				} else {
+					sub = Math.addExact(sub, Math.multiplyExact(n, suffixFactor));
+				}
+			}
+			if(len == 0 || sub % this.factor != 0) {
+				throw invalid(token);
+			}
+			return Math.addExact(whole, sub / this.factor);
+		} catch(final ArithmeticException e) {
+			throw new CliUsageException(EUsageError.QUANTITY_OVERFLOW, token, name().toLowerCase());
+		}
+	}
+	
+	private long suffixFactor(final String token, final int from, final int to, final String[] suffixes, final long[] factors) throws CliUsageException {
+		for(int i=0; i<suffixes.length; ++i) {
+			if(suffixes[i].length() == to - from && token.regionMatches(this.size, from, suffixes[i], 0, to - from)) {
+				return factors[i];
+			}
+		}
+		throw invalid(token);
+	}
+	
+	private CliUsageException invalid(final String token) {
+		return new CliUsageException(EUsageError.NOT_A_QUANTITY, token, describe());
+	}
+
+}
@@ -0,0 +1,141 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * An enumeration of the errors which can be detected while parsing command line arguments.
+ * 
+ * Each constant is associated to the arguments which describe the error (option name, expected arity, offending token, ...)
+ * and knows how to build a human-readable message from them.
+ * See {@link CliUsageException#getError()} and {@link CliUsageException#getArguments()}.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public enum EUsageError {
+	
+	/** a free-form error; the only argument is the message */
+	OTHER((a, c) -> String.valueOf(a[0])),
+	
+	/** a lonely hyphen was found; no arguments */
+	EMPTY_OPTION((a, c) -> "empty option: \"-\""),
+	
+	/** no option has this short name; the argument is the short name */
+	UNKNOWN_SHORT_OPTION((a, c) -> "no short option \"-"+a[0]+"\""),
+	
+	/** no option has this long name; the argument is the long name */
+	UNKNOWN_LONG_OPTION((a, c) -> "no field linked to long option \""+a[0]+"\""),
+	
+	/** a multi-character short name is unknown, and short names merging is disabled; the argument is the short name */
+	UNKNOWN_MULTICHAR_SHORT_OPTION((a, c) -> "no -\""+a[0]+"\" option"),
+	
+	/** a multi-character short name is unknown, and one of its characters is not a valid merged option; the argument is the short name, the cause is the error related to the character */
+	UNKNOWN_MERGED_SHORT_OPTIONS((a, c) -> c.getMessage()+" and no \""+a[0]+"\" short option"),
+	
+	/** the command line ends before all the arguments of an option are given; the arguments are the option name and the expected arity */
+	NOT_ENOUGH_OPTION_ARGUMENTS((a, c) -> "not enough parameters for option \""+a[0]+"\" (expected "+a[1]+")"),
+	
+	/** some required options are missing; the argument is the list of the missing options */
+	MISSING_REQUIRED_OPTIONS((a, c) -> "the following fields have no value (although they have to): "+join(a[0])),
+	
+	/** none of the options of an "exactly one" group is given; the argument is the list of the options of the group */
+	MISSING_ONE_OF((a, c) -> "one of the following options must be given: "+join(a[0])),
+	
+	/** several options of an "exactly one" or "at most one" group are given; the argument is the list of the given options of the group */
+	MUTUALLY_EXCLUSIVE_OPTIONS((a, c) -> "the following options cannot be given together: "+join(a[0])),
+	
+	/** an option is given without the options it requires; the arguments are the option and the list of the missing options */
+	MISSING_REQUIRED_BY((a, c) -> "option "+a[0]+" requires the following options: "+join(a[1])),
+	
+	/** an option is given with options it conflicts with; the arguments are the option and the list of the conflicting options */
+	CONFLICTING_OPTIONS((a, c) -> "option "+a[0]+" cannot be given with the following options: "+join(a[1])),
+	
+	/** the number of parameters does not match the allowed multiplicity; the arguments are the multiplicity and the number of parameters */
+	WRONG_PARAMETER_COUNT((a, c) -> "wrong parameter count (expected "+a[0]+")"),
+	
+	/** a token cannot be converted to a Boolean value; the argument is the token */
+	NOT_A_BOOLEAN((a, c) -> "\""+a[0]+"\" cannot be converted to Boolean"),
+	
+	/** a token cannot be converted to an integer value; the argument is the token */
+	NOT_AN_INTEGER((a, c) -> "expected an integer, found \""+a[0]+"\""),
+	
+	/** a token cannot be converted to a floating-point value; the arguments are the token and the position of the first unexpected character */
+	NOT_A_NUMBER((a, c) -> "expected a number, found \""+a[0]+"\" (unexpected "+((Integer) a[1] < ((String) a[0]).length() ? "character at position "+a[1] : "end")+")"),
+	
+	/** a converted value does not lie in the range allowed for an option (or parameter); the arguments are the option name, the token and the bounds (<code>null</code> if unbounded) */
+	OUT_OF_RANGE((a, c) -> "the value \""+a[1]+"\" of "+a[0]+" must be "+bounds(a[2], a[3])),
+	
+	/** a token is not a valid size or duration, or is not a whole number of the unit of the field; the arguments are the token and a description of the expected tokens */
+	NOT_A_QUANTITY((a, c) -> "\""+a[0]+"\" is not a valid "+a[1]),
+	
+	/** a size or duration cannot be represented in the unit of the field; the arguments are the token and the unit */
+	QUANTITY_OVERFLOW((a, c) -> "\""+a[0]+"\" is too large to be expressed in "+a[1]),
+	
+	/** a token is not the name of a constant of an enumeration; the arguments are the token and the list of the constant names */
+	NOT_AN_ENUM_CONSTANT((a, c) -> "\""+a[0]+"\" is not one of: "+join(a[1])),
+	
+	/** a token is a prefix shared by several constant names of an enumeration; the arguments are the token and the list of these names */
+	AMBIGUOUS_ENUM_PREFIX((a, c) -> "\""+a[0]+"\" is ambiguous, it may be one of: "+join(a[1])),
+	
+	/** a parameter sweep would produce too many combinations; the argument is the sweep value (range or list) which makes the count overflow */
+	SWEEP_TOO_LARGE((a, c) -> "too many combinations in the parameter sweep (at value \""+a[0]+"\")");
+	
+	private final MessageFormatter formatter;
+	
+	private EUsageError(final MessageFormatter formatter) {
+		this.formatter = formatter;
+	}
+	
+	/**
+	 * Builds the human-readable message related to this error.
+	 * 
+	 * @param args the arguments of the error
+	 * @param cause the cause of the error, or <code>null</code> if none
+	 * @return the message
+	 */
+	String format(final Object[] args, final Throwable cause) {
+		return this.formatter.format(args, cause);
+	}
+	
+	private static String bounds(final Object min, final Object max) {
+		if(min == null) {
+			return "at most "+max;
+		}
+		return max == null ? "at least "+min : "between "+min+" and "+max;
+	}
+	
+	private static String join(final Object list) {
+		return ((List<?>) list).stream().map(String::valueOf).collect(Collectors.joining(", "));
+	}
+	
+	@FunctionalInterface
+	private interface MessageFormatter {
+		
+		String format(final Object[] args, final Throwable cause);
+	}
+
+}
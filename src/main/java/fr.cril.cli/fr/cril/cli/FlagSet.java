@@ -0,0 +1,111 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * The flags (Boolean options which take no argument) given in CLI arguments, packed in <code>long</code> words.
+ * 
+ * Flags are indexed by the dense identifiers of the options (see {@link CliArgsParser#flagId(String)}): the flag of identifier <code>id</code>
+ * is the bit <code>id % 64</code> of the word <code>id / 64</code>. Reading a flag is a single mask test, without any boxing.
+ * Flag sets are obtained from the snapshots by {@link ParsedArgs#getFlags()}; they are immutable, and may be shared between threads.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class FlagSet {
+	
+	private final OptionSchema schema;
+	
+	private final long[] words;
+	
+	FlagSet(final OptionSchema schema, final long[] words) {
+		this.schema = schema;
+		this.words = words;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the flag of the provided identifier is set.
+	 * 
+	 * @param id the identifier of the flag
+	 * @return <code>true</code> iff the flag is set
+	 */
+	public boolean isSet(final int id) {
+		if(id < 0 || id >= this.schema.nOptions()) {
+			throw new IllegalArgumentException("no option of identifier "+id);
+		}
+		return (this.words[id >>> 6] & (1L << id)) != 0;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the flag related to the provided key is set.
+	 * 
+	 * @param key the key of the flag, resolved by {@link CliArgsParser#optionKey(String, Class)}
+	 * @return <code>true</code> iff the flag is set
+	 */
+	public boolean isSet(final OptionKey<Boolean> key) {
+		if(key.schema != this.schema) {
+			throw new IllegalArgumentException("the key was not resolved by a parser sharing the options of this flag set");
+		}
+		return isSet(key.id);
+	}
+	
+	/**
+	 * Returns the number of flags which are set.
+	 * 
+	 * @return the number of flags which are set
+	 */
+	public int cardinality() {
+		int n = 0;
+		for(final long word : this.words) {
+			n += Long.bitCount(word);
+		}
+		return n;
+	}
+	
+	/**
+	 * Returns a copy of the words in which the flags are packed.
+	 * 
+	 * @return the words
+	 */
+	public long[] toLongArray() {
+		return Arrays.copyOf(this.words, this.words.length);
+	}
+	
+	@Override
+	public String toString() {
+		final StringJoiner joiner = new StringJoiner(", ", "{", "}");
+		for(int w=0; w<this.words.length; ++w) {
+			for(long word = this.words[w]; word != 0; word &= word - 1) {
+				joiner.add(this.schema.name(w * Long.SIZE + Long.numberOfTrailingZeros(word)));
+			}
+		}
+		return joiner.toString();
+	}
+
+}
@@ -0,0 +1,96 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import fr.cril.cli.utils.EHelpFormat;
+import fr.cril.cli.utils.OptionMap;
+
+/**
+ * A build-time tool used to render the option usage of a class into resources.
+ * 
+ * For each format given by {@link EHelpFormat}, a file named <code>META-INF/jigsaw-cli/&lt;class name&gt;.&lt;ext&gt;</code>
+ * is written in an output directory (typically the class output directory of the build, so that the files are packaged into the jar).
+ * When the plain text rendering is present in the class path, {@link ClassParser#printOptionUsage(PrintWriter)} prints it
+ * instead of computing the usage.
+ * 
+ * The generator can be invoked through its {@link HelpGenerator#main(String[])} method, e.g. by the <code>exec-maven-plugin</code>
+ * during the <code>process-classes</code> phase.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class HelpGenerator {
+
+	private HelpGenerator() {
+		// nothing
+	}
+
+	/**
+	 * Renders the option usage of a class in all the formats given by {@link EHelpFormat}.
+	 * 
+	 * @param cl the class which fields are annotated as options
+	 * @param outputDir the directory in which the resources are written
+	 * @param programName the name of the program, displayed by the formats which need it
+	 * @throws CliOptionDefinitionException if an error is detected in the definition of the options
+	 * @throws IOException if an error occurs while writing the resources
+	 */
+	public static void generate(final Class<?> cl, final Path outputDir, final String programName) throws CliOptionDefinitionException, IOException {
+		final OptionMap options = new ClassParser<>(cl).parse();
+		for(final EHelpFormat format : EHelpFormat.values()) {
+			final Path file = outputDir.resolve(format.resourceName(cl));
+			Files.createDirectories(file.getParent());
+			try(final Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+				format.write(options, programName, new PrintWriter(writer));
+			}
+		}
+	}
+
+	/**
+	 * Renders the option usage of a class in all the formats given by {@link EHelpFormat}.
+	 * 
+	 * The expected arguments are the fully qualified name of the class, the output directory, and optionally the program name
+	 * (the simple name of the class is used as a default).
+	 * 
+	 * @param args the arguments
+	 * @throws ClassNotFoundException if the class cannot be found
+	 * @throws CliOptionDefinitionException if an error is detected in the definition of the options
+	 * @throws IOException if an error occurs while writing the resources
+	 */
+	public static void main(final String[] args) throws ClassNotFoundException, CliOptionDefinitionException, IOException {
+		if(args.length < 2 || args.length > 3) {
+			throw new IllegalArgumentException("usage: HelpGenerator <option class> <output directory> [program name]");
+		}
+		final Class<?> cl = Class.forName(args[0], false, Thread.currentThread().getContextClassLoader());
+		generate(cl, Paths.get(args[1]), args.length == 3 ? args[2] : cl.getSimpleName());
+	}
+
+}
@@ -0,0 +1,191 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import fr.cril.cli.annotations.LazyConverter;
+
+/**
+ * A memoized holder of a value which is computed on its first access, used as the type of the option fields which values are expensive to get.
+ * 
+ * The holders come in two kinds:
+ * <ul>
+ * <li>the default ones, built by {@link Lazy#byDefault(Supplier)} (typically in field initializers), which supplier is called only if the value is read;
+ * thus, the default value of an option given in the CLI arguments is never computed;</li>
+ * <li>the ones built from a CLI token by the parsers (see {@link Lazy#fromToken(String, Converter)}), which conversion is made on the first access.
+ * The conversion is given by the {@link LazyConverter} annotation of the field; fields without this annotation must hold {@link String}, {@link Boolean},
+ * {@link Integer} or {@link Long} values, which conversions are cheap, and thus are made during the parsing so that errors are reported there.</li>
+ * </ul>
+ * 
+ * The value is computed at most once, even if several threads read it at the same time. If the computation fails, the failure is memoized too,
+ * and each access throws an {@link IllegalArgumentException} caused by it.
+ * 
+ * Two holders are equal iff they are built from the same token, or are both default holders; thus, equality reflects the CLI arguments,
+ * so that comparing configurations (e.g. in {@link CliArgsParser#unparse(Object, Object)}) does not compute any value.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ * @param <V> the type of the value
+ */
+public final class Lazy<V> implements Supplier<V> {
+	
+	private final String token;
+	
+	private Converter<? extends V> converter;
+	
+	private V value;
+	
+	private Exception failure;
+	
+	private volatile boolean computed = false;
+	
+	private Lazy(final String token, final Converter<? extends V> converter) {
+		this.token = token;
+		this.converter = converter;
+	}
+	
+	/**
+	 * Builds a default holder, which value is given by a supplier called on the first access.
+	 * 
+	 * @param <V> the type of the value
+	 * @param supplier the supplier
+	 * @return the holder
+	 */
+	public static <V> Lazy<V> byDefault(final Supplier<? extends V> supplier) {
+		if(supplier == null) {
+			throw new IllegalArgumentException("null supplier provided");
+		}
+		return new Lazy<>(null, t -> supplier.get());
+	}
+	
+	/**
+	 * Builds a holder which value is the conversion of a CLI token, made on the first access.
+	 * 
+	 * @param <V> the type of the value
+	 * @param token the token
+	 * @param converter the conversion
+	 * @return the holder
+	 */
+	public static <V> Lazy<V> fromToken(final String token, final Converter<? extends V> converter) {
+		if(token == null || converter == null) {
+			throw new IllegalArgumentException("null token or converter provided");
+		}
+		return new Lazy<>(token, converter);
+	}
+	
+	/**
+	 * Returns the value, computing it if this is the first access.
+	 * 
+	 * @return the value
+	 * @throws IllegalArgumentException if the computation of the value fails
+	 */
+	@Override
+	public V get() {
+		if(!this.computed) {
+			compute();
+		}
+		if(this.failure != null) {
+			throw new IllegalArgumentException(this.token == null ? "cannot compute the default value" : "cannot convert \""+this.token+"\"", this.failure);
+		}
+		return this.value;
+	}
+	
+	private synchronized void compute() {
+		if(this.computed) {
+			return;
+		}
+		try {
+			this.value = this.converter.convert(this.token);
+		} catch(final Exception e) {
+			this.failure = e;
+		}
+		this.converter = null;
+		this.computed = true;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the value has already been computed (or its computation has failed).
+	 * 
+	 * @return <code>true</code> iff the value has already been computed
+	 */
+	public boolean isComputed() {
+		return this.computed;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this holder is a default one, i.e. was not built from a CLI token.
+	 * 
+	 * @return <code>true</code> iff this holder is a default one
+	 */
+	public boolean isDefault() {
+		return this.token == null;
+	}
+	
+	/**
+	 * Returns the CLI token this holder was built from, or <code>null</code> for a default holder.
+	 * 
+	 * @return the token
+	 */
+	public String getToken() {
+		return this.token;
+	}
+	
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof Lazy && Objects.equals(this.token, ((Lazy<?>) obj).token);
+	}
+	
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(this.token);
+	}
+	
+	@Override
+	public String toString() {
+		return this.token == null ? "<default>" : this.token;
+	}
+	
+	/**
+	 * A conversion from a CLI token to a value, declared on option fields by the {@link LazyConverter} annotation.
+	 * 
+	 * Implementations must have a public constructor without parameters.
+	 * 
+	 * @param <V> the type of the value
+	 */
+	@FunctionalInterface
+	public interface Converter<V> {
+		
+		/**
+		 * Converts a token into a value.
+		 * 
+		 * @param token the token
+		 * @return the value
+		 * @throws Exception if the token cannot be converted
+		 */
+		V convert(final String token) throws Exception;
+	}
+
+}
@@ -0,0 +1,106 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Arrays;
+
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * A snapshot of the default values of the option and parameter fields of a class, used to restore them on objects which are reused.
+ * 
+ * The values are read once, from a prototype object, and stored as given by the {@link OptionSchema}: the Boolean and integer values
+ * in an array of <code>long</code> values, the other ones in an array of references. {@link OptionDefaults#reset(Object)} then
+ * writes all the fields back in a loop over precomputed identifiers, without boxing the primitive values.
+ * Only the option and parameter fields are restored; the other fields of the objects are left unchanged.
+ * Mutable default values (see {@link OptionSchema#copy(int, Object)}) are copied when they are read and each time they are restored,
+ * so that neither the prototype nor the reset objects share them.
+ * 
+ * Snapshots are built by {@link CliArgsParser#defaults(Object)}. This class is immutable, and thus thread-safe.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ * @param <T> the type of the option objects
+ */
+public final class OptionDefaults<T> {
+	
+	private final OptionSchema schema;
+	
+	private final int[] primitiveIds;
+	
+	private final long[] primitives;
+	
+	private final int[] referenceIds;
+	
+	private final Object[] references;
+	
+	/**
+	 * Reads the default values of the fields from a prototype object.
+	 * 
+	 * The primitive identifiers which default value is <code>null</code> (i.e. fields of a wrapper class) are handled as references.
+	 * 
+	 * @param schema the schema
+	 * @param prototype the prototype
+	 */
+	OptionDefaults(final OptionSchema schema, final T prototype) {
+		this.schema = schema;
+		final int[] primitiveIds = new int[schema.size()];
+		final long[] primitives = new long[schema.size()];
+		final int[] referenceIds = new int[schema.size()];
+		final Object[] references = new Object[schema.size()];
+		int nPrimitives = 0;
+		int nReferences = 0;
+		for(int id=0; id<schema.size(); ++id) {
+			final Object value = schema.get(id, prototype);
+			if(schema.isPrimitive(id) && value != null) {
+				primitiveIds[nPrimitives] = id;
+				primitives[nPrimitives++] = schema.encode(id, value);
+			} else {
+				referenceIds[nReferences] = id;
+				references[nReferences++] = schema.copy(id, value);
+			}
+		}
+		this.primitiveIds = Arrays.copyOf(primitiveIds, nPrimitives);
+		this.primitives = Arrays.copyOf(primitives, nPrimitives);
+		this.referenceIds = Arrays.copyOf(referenceIds, nReferences);
+		this.references = Arrays.copyOf(references, nReferences);
+	}
+	
+	/**
+	 * Restores the default values of all the option and parameter fields of an object.
+	 * 
+	 * @param obj the object
+	 * @return the object
+	 */
+	public T reset(final T obj) {
+		for(int i=0; i<this.primitiveIds.length; ++i) {
+			this.schema.setLong(this.primitiveIds[i], obj, this.primitives[i]);
+		}
+		for(int i=0; i<this.referenceIds.length; ++i) {
+			this.schema.set(this.referenceIds[i], obj, this.schema.copy(this.referenceIds[i], this.references[i]));
+		}
+		return obj;
+	}
+
+}
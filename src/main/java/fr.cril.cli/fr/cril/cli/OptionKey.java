@@ -0,0 +1,81 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * A typed handle used to read the value of an option (or a parameter) in a {@link ParsedArgs} snapshot.
+ * 
+ * Keys are resolved once, by {@link CliArgsParser#optionKey(String, Class)} or {@link CliArgsParser#paramKey(int, Class)};
+ * they hold the position of the value in the snapshots, so that reading a value is a mere array access.
+ * A key can be used with all the snapshots built by parsers sharing the same options, and may be shared between threads.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class OptionKey<V> {
+	
+	final OptionSchema schema;
+	
+	final int id;
+	
+	final int slot;
+	
+	final boolean primitive;
+	
+	final Class<V> type;
+	
+	OptionKey(final OptionSchema schema, final int id, final Class<V> type) {
+		this.schema = schema;
+		this.id = id;
+		this.slot = schema.slot(id);
+		this.primitive = schema.isPrimitive(id);
+		this.type = type;
+	}
+	
+	/**
+	 * Returns the type of the values related to this key.
+	 * 
+	 * @return the type of the values
+	 */
+	public Class<V> getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Returns the name of the option (or parameter) related to this key.
+	 * 
+	 * @return the name of the option
+	 */
+	public String getName() {
+		return this.schema.name(this.id);
+	}
+	
+	@Override
+	public String toString() {
+		return "OptionKey["+getName()+": "+this.type.getSimpleName()+"]";
+	}
+
+}
@@ -0,0 +1,126 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of option objects, used as parsing targets by long-lived processes so that the objects are reused instead of being built for each job.
+ * 
+ * Objects are taken by {@link OptionPool#acquire()}, and given back by {@link OptionPool#release(Object)} once they are not used anymore;
+ * the release restores the default values of their option and parameter fields (see {@link OptionDefaults}), so that acquired objects
+ * are always in the state of fresh objects. When the pool is empty, a new object is built by the factory; when it is full, released objects are dropped.
+ * Thus, once the pool holds as many objects as the number of jobs which run at the same time, no object is built anymore.
+ * 
+ * Pools are built by {@link CliArgsParser#pool(Supplier, int)}. This class is thread-safe.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ * @param <T> the type of the option objects
+ */
+public final class OptionPool<T> {
+	
+	private final Supplier<T> factory;
+	
+	private final OptionDefaults<T> defaults;
+	
+	private final Object[] free;
+	
+	private int nFree = 0;
+	
+	private long nCreated = 0;
+	
+	/**
+	 * Builds a pool holding at most <code>capacity</code> idle objects.
+	 * 
+	 * @param factory the factory of (fresh) option objects
+	 * @param defaults the default values restored on the released objects
+	 * @param capacity the maximal number of idle objects
+	 */
+	OptionPool(final Supplier<T> factory, final OptionDefaults<T> defaults, final int capacity) {
+		if(capacity < 0) {
+			throw new IllegalArgumentException("negative capacity: "+capacity);
+		}
+		this.factory = factory;
+		this.defaults = defaults;
+		this.free = new Object[capacity];
+	}
+	
+	/**
+	 * Takes an object from the pool, or builds a new one if the pool is empty.
+	 * 
+	 * @return the object, which option and parameter fields have their default values
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		synchronized(this) {
+			if(this.nFree > 0) {
+				final Object obj = this.free[--this.nFree];
+				this.free[this.nFree] = null;
+				return (T) obj;
+			}
+			++this.nCreated;
+		}
+		return this.factory.get();
+	}
+	
+	/**
+	 * Gives an object back to the pool.
+	 * 
+	 * The default values of the option and parameter fields are restored before the object is made available again;
+	 * the object must not be used by the caller after this call.
+	 * 
+	 * @param obj the object
+	 */
+	public void release(final T obj) {
+		if(obj == null) {
+			throw new IllegalArgumentException("null object provided");
+		}
+		this.defaults.reset(obj);
+		synchronized(this) {
+			if(this.nFree < this.free.length) {
+				this.free[this.nFree++] = obj;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of objects built by the factory for this pool so far.
+	 * 
+	 * @return the number of objects built by the factory
+	 */
+	public synchronized long created() {
+		return this.nCreated;
+	}
+	
+	/**
+	 * Returns the number of idle objects in the pool.
+	 * 
+	 * @return the number of idle objects
+	 */
+	public synchronized int idle() {
+		return this.nFree;
+	}
+
+}
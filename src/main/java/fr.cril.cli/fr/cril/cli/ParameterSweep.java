@@ -0,0 +1,382 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * A parameter sweep, i.e. the set of option objects described by a template of CLI arguments in which some values are ranges or lists.
+ * 
+ * A value of the template is a range if it is made of two integers separated by two dots (<code>1..10</code>, <code>10..1</code>),
+ * and a list if it contains commas (<code>a,b,c</code>). Each range or list is an axis of the sweep;
+ * the sweep is the cartesian product of its axes, ordered such that the last axis of the template varies the fastest.
+ * 
+ * The template is parsed and checked once, when the sweep is built: the fixed values and the list items are converted at this time,
+ * and so are the bounds of the ranges. Mutable values (see {@link OptionSchema#copy(int, Object)}) are copied for each object.
+ * As when arguments are parsed, an option given several times in the template takes its last value (an earlier range or list is not an axis). The combinations are never materialized: the i-th object is computed from the digits of i
+ * in the mixed radix given by the sizes of the axes, so that the {@link Spliterator} of the sweep can split its index range evenly.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class ParameterSweep<T> {
+	
+	private static final Pattern RANGE = Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)");
+	
+	private final OptionSchema schema;
+	
+	private final Binding[] bindings;
+	
+	private final int[] axisIndexes;
+	
+	private final Axis[] axes;
+	
+	private final long size;
+	
+	private final Supplier<T> factory;
+	
+	private ParameterSweep(final Recorder recorder, final Supplier<T> factory) {
+		this.schema = recorder.schema;
+		this.bindings = recorder.bindings.toArray(new Binding[0]);
+		this.axisIndexes = new int[this.bindings.length];
+		final List<Axis> axes = new ArrayList<>();
+		for(int i=0; i<this.bindings.length; ++i) {
+			this.axisIndexes[i] = this.bindings[i].axis == null ? -1 : axes.size();
+			if(this.bindings[i].axis != null) {
+				axes.add(this.bindings[i].axis);
+			}
+		}
+		this.axes = axes.toArray(new Axis[0]);
+		this.size = recorder.size;
+		this.factory = factory;
+	}
+	
+	/**
+	 * Returns a state which records the bindings and the axes found while the template is parsed.
+	 * 
+	 * @param optionMap the options
+	 * @param template the template
+	 * @return the state
+	 */
+	static ParseState recorder(final OptionMap optionMap, final String[] template) {
+		return new Recorder(optionMap, template);
+	}
+	
+	/**
+	 * Builds the sweep recorded by a state returned by {@link ParameterSweep#recorder(OptionMap, String[])}.
+	 * 
+	 * @param <T> the type of the option objects
+	 * @param recorder the state used to parse the template
+	 * @param factory the supplier of the (fresh) option objects
+	 * @return the sweep
+	 */
+	static <T> ParameterSweep<T> of(final ParseState recorder, final Supplier<T> factory) {
+		return new ParameterSweep<>((Recorder) recorder, factory);
+	}
+	
+	/**
+	 * Returns the number of objects in this sweep.
+	 * 
+	 * @return the number of objects
+	 */
+	long size() {
+		return this.size;
+	}
+	
+	/**
+	 * Returns a {@link Spliterator} over the objects of this sweep.
+	 * 
+	 * @return the spliterator
+	 */
+	Spliterator<T> spliterator() {
+		return new SweepSpliterator(0, this.size);
+	}
+	
+	private T build(final long[] digits) {
+		final T obj = this.factory.get();
+		for(int i=0; i<this.bindings.length; ++i) {
+			final Binding binding = this.bindings[i];
+			final int axis = this.axisIndexes[i];
+			this.schema.set(binding.id, obj, this.schema.copy(binding.id, axis < 0 ? binding.value : this.axes[axis].value(digits[axis])));
+		}
+		return obj;
+	}
+	
+	private final class SweepSpliterator implements Spliterator<T> {
+		
+		private long from;
+		
+		private final long to;
+		
+		private long[] digits = null;
+		
+		private SweepSpliterator(final long from, final long to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public boolean tryAdvance(final Consumer<? super T> action) {
+			if(this.from >= this.to) {
+				return false;
+			}
+			action.accept(next());
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(final Consumer<? super T> action) {
+			while(this.from < this.to) {
+				action.accept(next());
+			}
+		}
+		
+		private T next() {
+			if(this.digits == null) {
+				this.digits = decode(this.from);
+			} else {
+				increment();
+			}
+			++this.from;
+			return build(this.digits);
+		}
+		
+		private long[] decode(final long index) {
+			final long[] d = new long[axes.length];
+			long rem = index;
+			for(int i=d.length-1; i>=0; --i) {
+				d[i] = rem % axes[i].size;
+				rem /= axes[i].size;
+			}
+			return d;
+		}
+		
+		private void increment() {
+			for(int i=this.digits.length-1; i>=0; --i) {
+				if(++this.digits[i] < axes[i].size) {
+					return;
+				}
+				this.digits[i] = 0;
+			}
+		}
+		
+		@Override
+		public Spliterator<T> trySplit() {
+			final long remaining = this.to - this.from;
+			if(remaining < 2) {
+				return null;
+			}
+			final long mid = this.from + (remaining >>> 1);
+			final SweepSpliterator prefix = new SweepSpliterator(this.from, mid);
+			this.from = mid;
+			this.digits = null;
+			return prefix;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return this.to - this.from;
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+	
+	private static final class Binding {
+		
+		private final int id;
+		
+		private final Axis axis;
+		
+		private final Object value;
+		
+		private Binding(final int id, final Axis axis, final Object value) {
+			this.id = id;
+			this.axis = axis;
+			this.value = value;
+		}
+	}
+	
+	private abstract static class Axis {
+		
+		protected final long size;
+		
+		protected Axis(final long size) {
+			this.size = size;
+		}
+		
+		abstract Object value(final long digit);
+	}
+	
+	private static final class ListAxis extends Axis {
+		
+		private final Object[] values;
+		
+		private ListAxis(final Object[] values) {
+			super(values.length);
+			this.values = values;
+		}
+		
+		@Override
+		Object value(final long digit) {
+			return this.values[(int) digit];
+		}
+	}
+	
+	private static final class RangeAxis extends Axis {
+		
+		private final long first;
+		
+		private final long step;
+		
+		private final EFieldType type;
+		
+		private RangeAxis(final long first, final long last, final EFieldType type) {
+			super(Math.abs(last - first) + 1);
+			this.first = first;
+			this.step = last < first ? -1 : 1;
+			this.type = type;
+		}
+		
+		@Override
+		Object value(final long digit) {
+			final long v = this.first + this.step * digit;
+			switch(this.type) {
+			case INT:
+			case INTEGER:
+				return Integer.valueOf((int) v);
+			case LONG:
+			case LG:
+				return Long.valueOf(v);
+			default:
+				try {
+					return this.type.convert(Collections.singletonList(Long.toString(v)));
+				} catch (CliUsageException e) {
+					throw new IllegalArgumentException(e);
+				}
+			}
+		}
+	}
+	
+	private static final class Recorder extends ParseState {
+		
+		private final List<Binding> bindings = new ArrayList<>();
+		
+		private long size = 1;
+		
+		private Recorder(final OptionMap optionMap, final String[] template) {
+			super(optionMap, null, template, false);
+		}
+		
+		@Override
+		void bind(final Field field, final EFieldType type, final List<String> tokens) throws CliUsageException {
+			this.seen.add(field);
+			final int id = this.schema.id(field);
+			if(tokens.size() != 1) {
+				replace(new Binding(id, null, convert(field, type, tokens)));
+				return;
+			}
+			final String token = tokens.get(0);
+			final Axis axis = type == EFieldType.LAZY || type == EFieldType.ENUM_SET ? null : toAxis(field, type, token);
+			if(axis == null) {
+				replace(new Binding(id, null, convert(field, type, tokens)));
+				return;
+			}
+			removeBinding(id);
+			if(axis.size > Long.MAX_VALUE / this.size) {
+				throw new CliUsageException(EUsageError.SWEEP_TOO_LARGE, token);
+			}
+			this.size *= axis.size;
+			this.bindings.add(new Binding(id, axis, null));
+		}
+		
+		private void replace(final Binding binding) {
+			removeBinding(binding.id);
+			this.bindings.add(binding);
+		}
+		
+		private void removeBinding(final int id) {
+			for(int i=0; i<this.bindings.size(); ++i) {
+				final Binding binding = this.bindings.get(i);
+				if(binding.id == id) {
+					if(binding.axis != null) {
+						this.size /= binding.axis.size;
+					}
+					this.bindings.remove(i);
+					return;
+				}
+			}
+		}
+		
+		private Axis toAxis(final Field field, final EFieldType type, final String token) throws CliUsageException {
+			if(token.indexOf(',') >= 0) {
+				final String[] items = token.split(",", -1);
+				final Object[] values = new Object[items.length];
+				for(int i=0; i<items.length; ++i) {
+					values[i] = convert(field, type, Collections.singletonList(items[i]));
+				}
+				return new ListAxis(values);
+			}
+			final Matcher matcher = RANGE.matcher(token);
+			if(!matcher.matches()) {
+				return null;
+			}
+			final long first;
+			final long last;
+			try {
+				first = Long.parseLong(matcher.group(1));
+				last = Long.parseLong(matcher.group(2));
+			} catch(NumberFormatException e) {
+				throw new CliUsageException(EUsageError.NOT_AN_INTEGER, token);
+			}
+			final long span;
+			try {
+				span = Math.subtractExact(last, first);
+			} catch(ArithmeticException e) {
+				throw new CliUsageException(EUsageError.SWEEP_TOO_LARGE, token);
+			}
+			if(span == Long.MIN_VALUE || Math.abs(span) == Long.MAX_VALUE) {
+				throw new CliUsageException(EUsageError.SWEEP_TOO_LARGE, token);
+			}
+			convert(field, type, Collections.singletonList(matcher.group(1)));
+			convert(field, type, Collections.singletonList(matcher.group(2)));
+			return new RangeAxis(first, last, type);
+		}
+	}
+	
+}
@@ -0,0 +1,237 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * A bounded cache of parsing results, for long-lived processes in which the same command lines are parsed again and again.
+ * 
+ * The cache maps CLI arguments to the immutable {@link ParsedArgs} snapshots they are parsed into; it is enabled on a parser by
+ * {@link CliArgsParser#setParseCache(ParseCache)}, and may be shared by several parsers (even if they do not share the same options).
+ * On a hit, the tokenization and the conversions are skipped: the snapshot is just copied into the target object
+ * (its mutable values, such as {@link java.util.EnumSet} instances, are copied too, so that the objects filled from a same entry share nothing).
+ * Command lines which cannot be parsed are not cached.
+ * 
+ * Arguments are looked up by a hash computed over their characters, and compared exactly on a hit.
+ * When the cache is full (in number of entries, or in total number of characters of the cached arguments), the least recently used entries are evicted.
+ * 
+ * This class is thread-safe.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class ParseCache {
+	
+	private final int maxEntries;
+	
+	private final long maxChars;
+	
+	private final LinkedHashMap<Key, ParsedArgs> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private long chars = 0;
+	
+	private long hits = 0;
+	
+	private long misses = 0;
+	
+	private long evictions = 0;
+	
+	/**
+	 * Builds a cache holding at most <code>maxEntries</code> command lines.
+	 * 
+	 * @param maxEntries the maximal number of entries
+	 */
+	public ParseCache(final int maxEntries) {
+		this(maxEntries, Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Builds a cache holding at most <code>maxEntries</code> command lines, which total number of characters is at most <code>maxChars</code>.
+	 * 
+	 * Command lines longer than <code>maxChars</code> are never cached.
+	 * 
+	 * @param maxEntries the maximal number of entries
+	 * @param maxChars the maximal number of characters
+	 */
+	public ParseCache(final int maxEntries, final long maxChars) {
+		if(maxEntries <= 0 || maxChars <= 0) {
+			throw new IllegalArgumentException("cache limits must be positive (got "+maxEntries+" entries and "+maxChars+" characters)");
+		}
+		this.maxEntries = maxEntries;
+		this.maxChars = maxChars;
+	}
+	
+	/**
+	 * Returns the snapshot related to some CLI arguments, parsing them on a miss.
+	 * 
+	 * The parsing is made outside of the lock of the cache.
+	 * 
+	 * @param schema the schema of the options
+	 * @param args the CLI arguments
+	 * @param parser the function used to parse the arguments on a miss
+	 * @return the snapshot
+	 * @throws CliUsageException if the arguments cannot be parsed
+	 */
+	ParsedArgs get(final OptionSchema schema, final String[] args, final Parser parser) throws CliUsageException {
+		final Key lookup = new Key(schema, args);
+		synchronized(this) {
+			final ParsedArgs cached = this.entries.get(lookup);
+			if(cached != null) {
+				++this.hits;
+				return cached;
+			}
+			++this.misses;
+		}
+		final ParsedArgs parsed = parser.parse();
+		if(lookup.chars <= this.maxChars) {
+			put(new Key(schema, args.clone(), lookup.hash, lookup.chars), parsed);
+		}
+		return parsed;
+	}
+	
+	private synchronized void put(final Key key, final ParsedArgs parsed) {
+		if(this.entries.put(key, parsed) == null) {
+			this.chars += key.chars;
+		}
+		final Iterator<Key> it = this.entries.keySet().iterator();
+		while(this.entries.size() > this.maxEntries || this.chars > this.maxChars) {
+			final Key eldest = it.next();
+			it.remove();
+			this.chars -= eldest.chars;
+			++this.evictions;
+		}
+	}
+	
+	/**
+	 * Returns the number of entries in this cache.
+	 * 
+	 * @return the number of entries
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+	
+	/**
+	 * Returns the number of lookups which found their arguments in this cache.
+	 * 
+	 * @return the number of hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+	
+	/**
+	 * Returns the number of lookups which did not find their arguments in this cache.
+	 * 
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+	
+	/**
+	 * Returns the number of entries evicted from this cache to respect its limits.
+	 * 
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+	
+	/**
+	 * Removes all the entries of this cache. The counters are not reset.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+		this.chars = 0;
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "ParseCache[size="+this.entries.size()+", hits="+this.hits+", misses="+this.misses+", evictions="+this.evictions+"]";
+	}
+	
+	/**
+	 * The function used to parse arguments on a miss.
+	 */
+	@FunctionalInterface
+	interface Parser {
+		
+		ParsedArgs parse() throws CliUsageException;
+	}
+	
+	private static final class Key {
+		
+		private final OptionSchema schema;
+		
+		private final String[] args;
+		
+		private final int hash;
+		
+		private final long chars;
+		
+		private Key(final OptionSchema schema, final String[] args) {
+			this.schema = schema;
+			this.args = args;
+			int h = System.identityHashCode(schema);
+			long n = 0;
+			for(final String arg : args) {
+				for(int i=0; i<arg.length(); ++i) {
+					h = 31 * h + arg.charAt(i);
+				}
+				h *= 31;
+				n += arg.length();
+			}
+			this.hash = h;
+			this.chars = n;
+		}
+		
+		private Key(final OptionSchema schema, final String[] args, final int hash, final long chars) {
+			this.schema = schema;
+			this.args = args;
+			this.hash = hash;
+			this.chars = chars;
+		}
+		
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+		
+		@Override
+		public boolean equals(final Object obj) {
+			if(!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.hash == other.hash && this.schema == other.schema && Arrays.equals(this.args, other.args);
+		}
+	}
+
+}
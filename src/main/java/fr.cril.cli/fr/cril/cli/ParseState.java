@@ -0,0 +1,199 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.OptionConstraints;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+import fr.cril.cli.utils.ValueRange;
+
+/**
+ * The state of a single parsing process, so that the {@link CliArgsParser} itself holds no state during the process.
+ * 
+ * The tokens related to an option (or a parameter) are handed to {@link ParseState#bind(Field, EFieldType, List)},
+ * which converts and associates them to the field of the target object (if any) through {@link ParseState#assign(Field, Object)};
+ * subclasses may override these methods to record the tokens or the values instead.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+class ParseState {
+	
+	final OptionMap optionMap;
+	
+	final OptionSchema schema;
+	
+	private final Object target;
+	
+	private final String[] args;
+	
+	private int next = 0;
+	
+	final List<String> parameters = new ArrayList<>();
+	
+	final Set<Field> seen = new HashSet<>();
+	
+	final List<CliUsageException> errors;
+	
+	/**
+	 * Builds a new parsing state.
+	 * 
+	 * @param optionMap the options
+	 * @param target the object which fields are set, or <code>null</code> if no field must be set
+	 * @param args the CLI arguments
+	 * @param collectErrors <code>true</code> if the errors must be collected instead of being thrown
+	 */
+	ParseState(final OptionMap optionMap, final Object target, final String[] args, final boolean collectErrors) {
+		this.optionMap = optionMap;
+		this.schema = optionMap.getSchema();
+		this.target = target;
+		this.args = args;
+		this.errors = collectErrors ? new ArrayList<>() : null;
+	}
+	
+	boolean hasNext() {
+		return this.next < this.args.length;
+	}
+	
+	String next() {
+		return this.args[this.next++];
+	}
+	
+	int remaining() {
+		return this.args.length - this.next;
+	}
+	
+	List<String> take(final int n) {
+		final List<String> taken = Arrays.asList(this.args).subList(this.next, this.next + n);
+		this.next += n;
+		return taken;
+	}
+	
+	void skipAll() {
+		this.next = this.args.length;
+	}
+	
+	/**
+	 * Handles the tokens related to an option or a parameter.
+	 * 
+	 * @param field the field of the option or the parameter
+	 * @param type the type used to convert the tokens
+	 * @param tokens the tokens
+	 * @throws CliUsageException if the tokens cannot be converted
+	 */
+	void bind(final Field field, final EFieldType type, final List<String> tokens) throws CliUsageException {
+		assign(field, convert(field, type, tokens));
+	}
+	
+	/**
+	 * Converts the tokens related to an option or a parameter; the conversion of the {@link EFieldType#LAZY}, {@link EFieldType#ENUM} and {@link EFieldType#ENUM_SET} values,
+	 * and of the <code>long</code> values which have a unit, is given by the field.
+	 * The value is then checked against the range of the field, if any.
+	 * 
+	 * @param field the field of the option or the parameter
+	 * @param type the type used to convert the tokens
+	 * @param tokens the tokens
+	 * @return the value
+	 * @throws CliUsageException if the tokens cannot be converted, or if the value is out of the range of the field
+	 */
+	Object convert(final Field field, final EFieldType type, final List<String> tokens) throws CliUsageException {
+		final Object value = convertUnchecked(field, type, tokens);
+		final ValueRange range = this.optionMap.getRange(field);
+		if(range != null) {
+			range.check(this.schema.name(this.schema.id(field)), tokens.get(0), (Number) value);
+		}
+		return value;
+	}
+	
+	private Object convertUnchecked(final Field field, final EFieldType type, final List<String> tokens) throws CliUsageException {
+		switch(type) {
+		case LAZY:
+			return this.optionMap.convertLazy(field, tokens.get(0));
+		case ENUM:
+		case ENUM_SET:
+			return type.convert(tokens, this.schema.getBooleanVocabulary(), this.optionMap.getEnumConverter(field));
+		case LONG:
+		case LG:
+			final EUnit unit = this.optionMap.getUnit(field);
+			return unit == null ? type.convert(tokens, this.schema.getBooleanVocabulary()) : unit.parse(tokens.get(0));
+		default:
+			return type.convert(tokens, this.schema.getBooleanVocabulary());
+		}
+	}
+	
+	void assign(final Field field, final Object value) {
+		if(this.target != null) {
+			this.schema.set(this.schema.id(field), this.target, value);
+		}
+		this.seen.add(field);
+	}
+	
+	/**
+	 * Returns the options given so far, as words of bits indexed by the identifiers of the schema (see {@link OptionConstraints}).
+	 * 
+	 * @return the options given so far
+	 */
+	long[] presence() {
+		final long[] words = new long[this.schema.nFlagWords()];
+		for(final Field field : this.seen) {
+			final int id = this.schema.id(field);
+			if(id < this.schema.nOptions()) {
+				words[id / Long.SIZE] |= 1L << id;
+			}
+		}
+		return words;
+	}
+	
+	/**
+	 * Called once all the arguments have been read, before the required options and the parameters are checked.
+	 */
+	void endOfArguments() {
+		// nothing
+	}
+	
+	/**
+	 * Returns <code>true</code> if the checks of the required options and of the number of parameters must not be made.
+	 * 
+	 * @return <code>true</code> if these checks must not be made
+	 */
+	boolean checksDeferred() {
+		return false;
+	}
+	
+	void fail(final CliUsageException e) throws CliUsageException {
+		if(this.errors == null) {
+			throw e;
+		}
+		this.errors.add(e);
+	}
+
+}
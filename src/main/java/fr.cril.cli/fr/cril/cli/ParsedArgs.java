@@ -0,0 +1,378 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * An immutable snapshot of parsed CLI arguments: the converted values of the options and parameters given in the arguments,
+ * and the list of the parameters.
+ * 
+ * Snapshots are built by {@link CliArgsParser#parse(String[])}, {@link CliArgsParser#parseBase(String[])}
+ * and {@link CliArgsParser#parseOverrides(ParsedArgs, String[])}, and are copied into option objects by {@link CliArgsParser#bind(ParsedArgs, Object)}.
+ * Values are stored in the slots given by the {@link OptionSchema} of the options: Boolean and integer values in an array of <code>long</code> values,
+ * the other ones in an array of references, and the presence of each option in a bit set. Thus, copying a snapshot into an object
+ * does not involve any reflective lookup, and the values can be read through {@link OptionKey} handles
+ * (see {@link CliArgsParser#optionKey(String, Class)}) without any map lookup.
+ * 
+ * Since they are immutable, snapshots may be shared between threads; the mutable values they hold ({@link java.util.EnumSet} instances)
+ * are copied each time they are handed out.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class ParsedArgs {
+	
+	private final OptionSchema schema;
+	
+	private final long[] primitives;
+	
+	private final Object[] references;
+	
+	private final BitSet present;
+	
+	private final long[] flags;
+	
+	private final List<String> parameters;
+	
+	private final boolean checked;
+	
+	private ParsedArgs(final Builder builder) {
+		this(builder.schema, builder.primitives, builder.references, builder.present, builder.flags, builder.parameters, !builder.checksDeferred());
+	}
+	
+	/**
+	 * Builds a snapshot from its values; the arrays and the bit set are not copied.
+	 * 
+	 * @param schema the schema of the options
+	 * @param primitives the values stored as <code>long</code> values
+	 * @param references the other values
+	 * @param present the presence flags
+	 * @param flags the flags set to <code>true</code>, packed as described by {@link OptionSchema#isFlag(int)}
+	 * @param parameters the parameters
+	 * @param checked <code>true</code> iff the required options and the number of parameters have been checked
+	 */
+	ParsedArgs(final OptionSchema schema, final long[] primitives, final Object[] references, final BitSet present, final long[] flags, final List<String> parameters, final boolean checked) {
+		this.schema = schema;
+		this.primitives = primitives;
+		this.references = references;
+		this.present = present;
+		this.flags = flags;
+		this.parameters = Collections.unmodifiableList(new ArrayList<>(parameters));
+		this.checked = checked;
+	}
+	
+	/**
+	 * Returns the list of the parameters (i.e. non-option arguments in the CLI arguments).
+	 * 
+	 * @return the list of the parameters
+	 */
+	public List<String> getParameters() {
+		return this.parameters;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the required options and the number of parameters have been checked.
+	 * 
+	 * This is not the case of the snapshots returned by {@link CliArgsParser#parseBase(String[])}.
+	 * 
+	 * @return <code>true</code> iff all the checks have been made
+	 */
+	public boolean isChecked() {
+		return this.checked;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the option (or parameter) related to a key is given a value by this snapshot.
+	 * 
+	 * @param key the key
+	 * @return <code>true</code> iff the option is given a value
+	 */
+	public boolean isPresent(final OptionKey<?> key) {
+		return this.present.get(check(key).id);
+	}
+	
+	/**
+	 * Returns the value given to the option (or parameter) related to a key, or <code>null</code> if it is given no value by this snapshot.
+	 * 
+	 * @param <V> the type of the value
+	 * @param key the key
+	 * @return the value, or <code>null</code>
+	 */
+	public <V> V get(final OptionKey<V> key) {
+		if(!this.present.get(check(key).id)) {
+			return null;
+		}
+		return key.type.cast(key.primitive ? this.schema.decode(key.id, this.primitives[key.slot]) : this.schema.copy(key.id, this.references[key.slot]));
+	}
+	
+	/**
+	 * Returns the value given to the option (or parameter) related to a key, or the provided default value if it is given no value by this snapshot.
+	 * 
+	 * @param <V> the type of the value
+	 * @param key the key
+	 * @param defaultValue the default value
+	 * @return the value, or the default value
+	 */
+	public <V> V get(final OptionKey<V> key, final V defaultValue) {
+		final V value = get(key);
+		return value == null ? defaultValue : value;
+	}
+	
+	/**
+	 * Returns the value given to an integer option (or parameter), without boxing it.
+	 * 
+	 * @param key the key of the option
+	 * @param defaultValue the value returned if the option is given no value by this snapshot
+	 * @return the value, or the default value
+	 */
+	public int getInt(final OptionKey<Integer> key, final int defaultValue) {
+		return this.present.get(check(key).id) ? (int) this.primitives[key.slot] : defaultValue;
+	}
+	
+	/**
+	 * Returns the value given to a long integer option (or parameter), without boxing it.
+	 * 
+	 * @param key the key of the option
+	 * @param defaultValue the value returned if the option is given no value by this snapshot
+	 * @return the value, or the default value
+	 */
+	public long getLong(final OptionKey<Long> key, final long defaultValue) {
+		return this.present.get(check(key).id) ? this.primitives[key.slot] : defaultValue;
+	}
+	
+	/**
+	 * Returns the value given to a floating-point option (or parameter), without boxing it.
+	 * 
+	 * @param key the key of the option
+	 * @param defaultValue the value returned if the option is given no value by this snapshot
+	 * @return the value, or the default value
+	 */
+	public double getDouble(final OptionKey<Double> key, final double defaultValue) {
+		return this.present.get(check(key).id) ? Double.longBitsToDouble(this.primitives[key.slot]) : defaultValue;
+	}
+	
+	/**
+	 * Returns the value given to a Boolean option (or parameter), without boxing it.
+	 * 
+	 * @param key the key of the option
+	 * @param defaultValue the value returned if the option is given no value by this snapshot
+	 * @return the value, or the default value
+	 */
+	public boolean getBoolean(final OptionKey<Boolean> key, final boolean defaultValue) {
+		return this.present.get(check(key).id) ? this.primitives[key.slot] != 0 : defaultValue;
+	}
+	
+	/**
+	 * Returns the flags (Boolean options which take no argument) given in the arguments, packed in <code>long</code> words.
+	 * 
+	 * @return the flags
+	 */
+	public FlagSet getFlags() {
+		return new FlagSet(this.schema, this.flags);
+	}
+	
+	private <V> OptionKey<V> check(final OptionKey<V> key) {
+		if(key.schema != this.schema) {
+			throw new IllegalArgumentException("the key was not resolved by a parser sharing the options of this snapshot");
+		}
+		return key;
+	}
+	
+	/**
+	 * Copies the values of this snapshot into an object. The fields which are not given a value by this snapshot are left unchanged.
+	 * 
+	 * Mutable values are copied (see {@link OptionSchema#copy(int, Object)}), so that the object never shares them with this snapshot.
+	 * 
+	 * @param obj the object
+	 */
+	void applyTo(final Object obj) {
+		for(int id = this.present.nextSetBit(0); id >= 0; id = this.present.nextSetBit(id+1)) {
+			applyTo(obj, id);
+		}
+	}
+	
+	/**
+	 * Copies the value of an identifier given by this snapshot into an object.
+	 * 
+	 * @param obj the object
+	 * @param id the identifier, which must be present in this snapshot
+	 */
+	void applyTo(final Object obj, final int id) {
+		if(this.schema.isPrimitive(id)) {
+			this.schema.setLong(id, obj, this.primitives[this.schema.slot(id)]);
+		} else {
+			this.schema.set(id, obj, this.schema.copy(id, this.references[this.schema.slot(id)]));
+		}
+	}
+	
+	OptionSchema schema() {
+		return this.schema;
+	}
+	
+	boolean isPresent(final int id) {
+		return this.present.get(id);
+	}
+	
+	long[] primitiveSlots() {
+		return this.primitives;
+	}
+	
+	Object[] referenceSlots() {
+		return this.references;
+	}
+	
+	BitSet presentIds() {
+		return this.present;
+	}
+	
+	long primitiveValue(final int id) {
+		return this.primitives[this.schema.slot(id)];
+	}
+	
+	Object value(final int id) {
+		final int slot = this.schema.slot(id);
+		return this.schema.isPrimitive(id) ? this.schema.decode(id, this.primitives[slot]) : this.schema.copy(id, this.references[slot]);
+	}
+	
+	/**
+	 * The parsing state used to build a snapshot, optionally on top of a base snapshot.
+	 * 
+	 * The values and the presence flags of the base are copied; the options given in the arguments override them.
+	 * If parameters are given in the arguments, they replace the ones of the base; otherwise, the base parameters are kept (and not converted again).
+	 */
+	static final class Builder extends ParseState {
+		
+		private final ParsedArgs base;
+		
+		private final boolean deferChecks;
+		
+		private final long[] primitives;
+		
+		private final Object[] references;
+		
+		private final BitSet present;
+		
+		private final long[] flags;
+		
+		private boolean inheritedParameters = false;
+		
+		/**
+		 * Builds a new state.
+		 * 
+		 * @param optionMap the options
+		 * @param args the CLI arguments
+		 * @param base the base snapshot, or <code>null</code> if none
+		 * @param deferChecks <code>true</code> if the required options and the number of parameters must not be checked
+		 */
+		Builder(final OptionMap optionMap, final String[] args, final ParsedArgs base, final boolean deferChecks) {
+			super(optionMap, null, args, false);
+			this.base = base;
+			this.deferChecks = deferChecks;
+			if(base == null) {
+				this.primitives = new long[this.schema.nPrimitiveSlots()];
+				this.references = new Object[this.schema.nReferenceSlots()];
+				this.present = new BitSet(this.schema.size());
+				this.flags = new long[this.schema.nFlagWords()];
+				return;
+			}
+			if(base.schema != this.schema) {
+				throw new IllegalArgumentException("the base snapshot was not built with the same options");
+			}
+			this.primitives = base.primitives.clone();
+			this.references = base.references.clone();
+			this.present = (BitSet) base.present.clone();
+			this.flags = base.flags.clone();
+			for(int id = this.present.nextSetBit(0); id >= 0; id = this.present.nextSetBit(id+1)) {
+				this.seen.add(this.schema.field(id));
+			}
+		}
+		
+		@Override
+		void bind(final Field field, final EFieldType type, final List<String> tokens) throws CliUsageException {
+			if(this.inheritedParameters && this.schema.id(field) >= this.schema.nOptions()) {
+				this.seen.add(field);
+				return;
+			}
+			super.bind(field, type, tokens);
+		}
+		
+		@Override
+		void assign(final Field field, final Object value) {
+			final int id = this.schema.id(field);
+			if(this.schema.isPrimitive(id)) {
+				this.primitives[this.schema.slot(id)] = this.schema.encode(id, value);
+			} else {
+				this.references[this.schema.slot(id)] = value;
+			}
+			if(this.schema.isFlag(id)) {
+				this.flags[id >>> 6] |= 1L << id;
+			}
+			this.present.set(id);
+			this.seen.add(field);
+		}
+		
+		@Override
+		void endOfArguments() {
+			if(this.base == null) {
+				return;
+			}
+			if(this.parameters.isEmpty()) {
+				this.parameters.addAll(this.base.parameters);
+				this.inheritedParameters = true;
+				return;
+			}
+			for(int id=this.schema.nOptions(); id<this.schema.size(); ++id) {
+				if(!this.schema.isPrimitive(id)) {
+					this.references[this.schema.slot(id)] = null;
+				}
+				this.present.clear(id);
+				this.seen.remove(this.schema.field(id));
+			}
+		}
+		
+		@Override
+		long[] presence() {
+			return this.present.get(0, this.schema.nOptions()).toLongArray();
+		}
+		
+		@Override
+		boolean checksDeferred() {
+			return this.deferChecks;
+		}
+		
+		ParsedArgs build() {
+			return new ParsedArgs(this);
+		}
+	}
+
+}
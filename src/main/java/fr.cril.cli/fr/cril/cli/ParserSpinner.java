@@ -0,0 +1,375 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static fr.cril.cli.ClassFileWriter.AALOAD;
+import static fr.cril.cli.ClassFileWriter.ALOAD_0;
+import static fr.cril.cli.ClassFileWriter.ALOAD_1;
+import static fr.cril.cli.ClassFileWriter.ALOAD_2;
+import static fr.cril.cli.ClassFileWriter.ALOAD_3;
+import static fr.cril.cli.ClassFileWriter.CHECKCAST;
+import static fr.cril.cli.ClassFileWriter.D2F;
+import static fr.cril.cli.ClassFileWriter.ICONST_0;
+import static fr.cril.cli.ClassFileWriter.ICONST_M1;
+import static fr.cril.cli.ClassFileWriter.IFEQ;
+import static fr.cril.cli.ClassFileWriter.IF_ICMPNE;
+import static fr.cril.cli.ClassFileWriter.ILOAD_0;
+import static fr.cril.cli.ClassFileWriter.ILOAD_1;
+import static fr.cril.cli.ClassFileWriter.ILOAD_2;
+import static fr.cril.cli.ClassFileWriter.ILOAD_3;
+import static fr.cril.cli.ClassFileWriter.INVOKESTATIC;
+import static fr.cril.cli.ClassFileWriter.INVOKEVIRTUAL;
+import static fr.cril.cli.ClassFileWriter.IRETURN;
+import static fr.cril.cli.ClassFileWriter.ISUB;
+import static fr.cril.cli.ClassFileWriter.L2I;
+import static fr.cril.cli.ClassFileWriter.LALOAD;
+import static fr.cril.cli.ClassFileWriter.LDC_W;
+import static fr.cril.cli.ClassFileWriter.PUTFIELD;
+import static fr.cril.cli.ClassFileWriter.RETURN;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import fr.cril.cli.ClassFileWriter.Code;
+import fr.cril.cli.ClassFileWriter.ConstantPool;
+import fr.cril.cli.ClassFileWriter.Label;
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * Spins the class specialized for the options of a class, used by {@link CompiledParser} when the runtime provides hidden classes.
+ * 
+ * The spun class has only static methods:
+ * <ul>
+ * <li><code>shortChar(int)</code> maps the single-character short names to their identifiers with a <code>tableswitch</code>
+ * (a <code>lookupswitch</code> if the characters are sparse);</li>
+ * <li><code>shortName(String, int, int, int)</code> and <code>longName(String, int, int, int)</code> map a region of an argument to the identifier
+ * of the name it holds, with a <code>lookupswitch</code> on the hash code of the region followed by a comparison of the candidate names;</li>
+ * <li><code>apply(Object, long[], Object[], BitSet)</code> copies the values of a {@link ParsedArgs} snapshot into an object
+ * with a <code>putfield</code> instruction per field.</li>
+ * </ul>
+ * 
+ * When the option class can be accessed with full privileges (see {@link MethodHandles#privateLookupIn(Class, Lookup)}), the class is a member of its nest,
+ * and writes its fields directly; the fields it cannot write (<code>final</code> fields, fields declared outside the nest, fields which type is not accessible)
+ * are set through the {@link OptionSchema}. Otherwise, the class is defined in this package, and all the fields are set through the schema.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class ParserSpinner {
+	
+	private static final String NAME_SWITCH_DESCRIPTOR = "(Ljava/lang/String;III)I";
+	
+	private static final String APPLY_DESCRIPTOR = "(Ljava/lang/Object;[J[Ljava/lang/Object;Ljava/util/BitSet;)V";
+	
+	private static final int FULL_PRIVILEGE = Lookup.PRIVATE | Lookup.MODULE;
+	
+	private final MethodHandle shortChar;
+	
+	private final MethodHandle shortName;
+	
+	private final MethodHandle longName;
+	
+	private final MethodHandle apply;
+	
+	private final int[] indirectIds;
+	
+	private ParserSpinner(final Lookup lookup, final int[] indirectIds) throws NoSuchMethodException, IllegalAccessException {
+		final Class<?> cl = lookup.lookupClass();
+		this.shortChar = lookup.findStatic(cl, "shortChar", MethodType.methodType(int.class, int.class));
+		final MethodType nameSwitchType = MethodType.methodType(int.class, String.class, int.class, int.class, int.class);
+		this.shortName = lookup.findStatic(cl, "shortName", nameSwitchType);
+		this.longName = lookup.findStatic(cl, "longName", nameSwitchType);
+		this.apply = lookup.findStatic(cl, "apply", MethodType.methodType(void.class, Object.class, long[].class, Object[].class, BitSet.class));
+		this.indirectIds = indirectIds;
+	}
+	
+	/**
+	 * Spins the class specialized for the options of a class, or returns <code>null</code> if the runtime does not provide hidden classes
+	 * (or if the class cannot be defined).
+	 * 
+	 * @param optionClass the class which fields are annotated as options
+	 * @param schema the schema of the options
+	 * @param shortNames the short names of the options, mapped to their identifiers
+	 * @param longNames the long names of the options, mapped to their identifiers
+	 * @return the spinner holding the methods of the spun class, or <code>null</code>
+	 */
+	static ParserSpinner spin(final Class<?> optionClass, final OptionSchema schema, final Map<String, Integer> shortNames, final Map<String, Integer> longNames) {
+		if(!ClassFileWriter.hasHiddenClasses()) {
+			return null;
+		}
+		final Lookup nestLookup = nestLookup(optionClass);
+		final Lookup lookup = nestLookup == null ? MethodHandles.lookup() : nestLookup;
+		final String packageName = lookup.lookupClass().getPackageName();
+		final ClassFileWriter writer = new ClassFileWriter(Modifier.FINAL | ClassFileWriter.ACC_SUPER,
+				(packageName.isEmpty() ? "" : packageName.replace('.', '/')+"/")+"OptionParser", "java/lang/Object");
+		final ConstantPool pool = writer.constants();
+		final int access = Modifier.STATIC;
+		writer.method(access, "shortChar", "(I)I", 1, 1, charSwitch(pool, shortNames));
+		writer.method(access, "shortName", NAME_SWITCH_DESCRIPTOR, 5, 4, nameSwitch(pool, shortNames));
+		writer.method(access, "longName", NAME_SWITCH_DESCRIPTOR, 5, 4, nameSwitch(pool, longNames));
+		final List<Integer> indirectIds = new ArrayList<>();
+		writer.method(access, "apply", APPLY_DESCRIPTOR, 4, 4, applyCode(pool, schema, nestLookup == null ? null : optionClass, indirectIds));
+		try {
+			return new ParserSpinner(ClassFileWriter.define(lookup, writer.toByteArray(), nestLookup != null),
+					indirectIds.stream().mapToInt(Integer::intValue).toArray());
+		} catch(IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+			return null;
+		}
+	}
+	
+	private static Lookup nestLookup(final Class<?> optionClass) {
+		try {
+			MethodHandles.lookup().lookupClass().getModule().addReads(optionClass.getModule());
+			final Lookup lookup = MethodHandles.privateLookupIn(optionClass, MethodHandles.lookup());
+			return (lookup.lookupModes() & FULL_PRIVILEGE) == FULL_PRIVILEGE ? lookup : null;
+		} catch(IllegalAccessException | RuntimeException e) {
+			return null;
+		}
+	}
+	
+	private static Code charSwitch(final ConstantPool pool, final Map<String, Integer> names) {
+		final TreeMap<Integer, Integer> chars = new TreeMap<>();
+		names.forEach((name, id) -> {
+			if(name.length() == 1) {
+				chars.put((int) name.charAt(0), id);
+			}
+		});
+		final Code code = new Code();
+		if(chars.isEmpty()) {
+			return code.op(ICONST_M1).op(IRETURN);
+		}
+		final Label miss = new Label();
+		final Label[] labels = chars.values().stream().map(id -> new Label()).toArray(Label[]::new);
+		final int low = chars.firstKey();
+		final int high = chars.lastKey();
+		code.op(ILOAD_0);
+		if(high - low < 2 * chars.size() + 8) {
+			final Label[] targets = new Label[high - low + 1];
+			for(int c=low; c<=high; ++c) {
+				targets[c - low] = chars.containsKey(c) ? labels[chars.headMap(c).size()] : miss;
+			}
+			code.tableSwitch(low, miss, targets);
+		} else {
+			code.lookupSwitch(chars.keySet().stream().mapToInt(Integer::intValue).toArray(), miss, labels);
+		}
+		int i = 0;
+		for(final int id : chars.values()) {
+			code.bind(labels[i++]).pushInt(pool, id).op(IRETURN);
+		}
+		return code.bind(miss).op(ICONST_M1).op(IRETURN);
+	}
+	
+	private static Code nameSwitch(final ConstantPool pool, final Map<String, Integer> names) {
+		final Code code = new Code();
+		if(names.isEmpty()) {
+			return code.op(ICONST_M1).op(IRETURN);
+		}
+		final TreeMap<Integer, List<String>> byHash = new TreeMap<>();
+		new TreeMap<>(names).keySet().forEach(name -> byHash.computeIfAbsent(name.hashCode(), h -> new ArrayList<>()).add(name));
+		final Label miss = new Label();
+		final Label[] labels = byHash.values().stream().map(l -> new Label()).toArray(Label[]::new);
+		code.op(ILOAD_3).lookupSwitch(byHash.keySet().stream().mapToInt(Integer::intValue).toArray(), miss, labels);
+		final int regionMatches = pool.methodRef("java/lang/String", "regionMatches", "(ILjava/lang/String;II)Z");
+		int i = 0;
+		for(final List<String> candidates : byHash.values()) {
+			code.bind(labels[i++]);
+			for(int j=0; j<candidates.size(); ++j) {
+				final String name = candidates.get(j);
+				final Label next = j == candidates.size() - 1 ? miss : new Label();
+				code.op(ILOAD_2).op(ILOAD_1).op(ISUB).pushInt(pool, name.length()).jump(IF_ICMPNE, next);
+				code.op(ALOAD_0).op(ILOAD_1).indexed(LDC_W, pool.string(name)).op(ICONST_0).pushInt(pool, name.length())
+					.indexed(INVOKEVIRTUAL, regionMatches).jump(IFEQ, next);
+				code.pushInt(pool, names.get(name)).op(IRETURN);
+				if(next != miss) {
+					code.bind(next);
+				}
+			}
+		}
+		return code.bind(miss).op(ICONST_M1).op(IRETURN);
+	}
+	
+	private static Code applyCode(final ConstantPool pool, final OptionSchema schema, final Class<?> nestClass, final List<Integer> indirectIds) {
+		final Code code = new Code();
+		final int bitSetGet = pool.methodRef("java/util/BitSet", "get", "(I)Z");
+		for(int id=0; id<schema.size(); ++id) {
+			final Field field = schema.field(id);
+			if(nestClass == null || !isWritable(field, nestClass)) {
+				indirectIds.add(id);
+				continue;
+			}
+			final String owner = internalName(field.getDeclaringClass());
+			final Class<?> type = field.getType();
+			final Label skip = new Label();
+			code.op(ALOAD_3).pushInt(pool, id).indexed(INVOKEVIRTUAL, bitSetGet).jump(IFEQ, skip);
+			code.op(ALOAD_0).indexed(CHECKCAST, pool.classRef(owner));
+			if(schema.isPrimitive(id)) {
+				code.op(ALOAD_1).pushInt(pool, schema.slot(id)).op(LALOAD);
+				decode(pool, type, code);
+			} else {
+				code.op(ALOAD_2).pushInt(pool, schema.slot(id)).op(AALOAD).indexed(CHECKCAST, pool.classRef(internalName(type)));
+				if(schema.type(id) == EFieldType.ENUM_SET) {
+					code.indexed(INVOKEVIRTUAL, pool.methodRef("java/util/EnumSet", "clone", "()Ljava/util/EnumSet;"));
+				}
+			}
+			code.indexed(PUTFIELD, pool.fieldRef(owner, field.getName(), descriptor(type)));
+			code.bind(skip);
+		}
+		return code.op(RETURN);
+	}
+	
+	private static boolean isWritable(final Field field, final Class<?> nestClass) {
+		final int modifiers = field.getModifiers();
+		if(Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.getDeclaringClass().getNestHost() != nestClass.getNestHost()) {
+			return false;
+		}
+		final Class<?> type = field.getType();
+		if(type.isPrimitive()) {
+			return true;
+		}
+		if(type.isArray()) {
+			return false;
+		}
+		if(type.getPackageName().equals(nestClass.getPackageName()) && type.getClassLoader() == nestClass.getClassLoader()) {
+			return true;
+		}
+		if(type.getModule() != Object.class.getModule() || !type.getModule().isExported(type.getPackageName())) {
+			return false;
+		}
+		for(Class<?> cl = type; cl != null; cl = cl.getDeclaringClass()) {
+			if(!Modifier.isPublic(cl.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static void decode(final ConstantPool pool, final Class<?> type, final Code code) {
+		final Class<?> primitive = MethodType.methodType(type).unwrap().returnType();
+		if(primitive == boolean.class || primitive == int.class) {
+			code.op(L2I);
+		} else if(primitive == double.class || primitive == float.class) {
+			code.indexed(INVOKESTATIC, pool.methodRef("java/lang/Double", "longBitsToDouble", "(J)D"));
+			if(primitive == float.class) {
+				code.op(D2F);
+			}
+		}
+		if(!type.isPrimitive()) {
+			code.indexed(INVOKESTATIC, pool.methodRef(internalName(type), "valueOf", "("+descriptor(primitive)+")"+descriptor(type)));
+		}
+	}
+	
+	private static String internalName(final Class<?> cl) {
+		return cl.getName().replace('.', '/');
+	}
+	
+	private static String descriptor(final Class<?> cl) {
+		final String methodDescriptor = MethodType.methodType(cl).toMethodDescriptorString();
+		return methodDescriptor.substring(methodDescriptor.indexOf(')') + 1);
+	}
+	
+	/**
+	 * Returns the identifier of an option given by the single character of its short name, or <code>-1</code> if there is no such option.
+	 * 
+	 * @param c the character
+	 * @return the identifier, or <code>-1</code>
+	 */
+	int shortChar(final char c) {
+		try {
+			return (int) this.shortChar.invokeExact((int) c);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Returns the identifier of an option given by its short name held by a region of an argument, or <code>-1</code> if there is no such option.
+	 * 
+	 * @param str the argument
+	 * @param from the index of the first character of the name
+	 * @param to the index following the last character of the name
+	 * @param hash the hash code of the name, as given by {@link String#hashCode()}
+	 * @return the identifier, or <code>-1</code>
+	 */
+	int shortName(final String str, final int from, final int to, final int hash) {
+		return find(this.shortName, str, from, to, hash);
+	}
+	
+	/**
+	 * Returns the identifier of an option given by its long name held by a region of an argument, or <code>-1</code> if there is no such option.
+	 * 
+	 * @param str the argument
+	 * @param from the index of the first character of the name
+	 * @param to the index following the last character of the name
+	 * @param hash the hash code of the name, as given by {@link String#hashCode()}
+	 * @return the identifier, or <code>-1</code>
+	 */
+	int longName(final String str, final int from, final int to, final int hash) {
+		return find(this.longName, str, from, to, hash);
+	}
+	
+	private static int find(final MethodHandle nameSwitch, final String str, final int from, final int to, final int hash) {
+		try {
+			return (int) nameSwitch.invokeExact(str, from, to, hash);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Copies the values of a snapshot into an object; the fields which are not given a value by the snapshot are left unchanged.
+	 * 
+	 * @param args the snapshot, built with the schema of this spinner
+	 * @param obj the object
+	 */
+	void apply(final ParsedArgs args, final Object obj) {
+		try {
+			this.apply.invokeExact(obj, args.primitiveSlots(), args.referenceSlots(), args.presentIds());
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalStateException(e);
+		}
+		for(final int id : this.indirectIds) {
+			if(args.isPresent(id)) {
+				args.applyTo(obj, id);
+			}
+		}
+	}
+
+}
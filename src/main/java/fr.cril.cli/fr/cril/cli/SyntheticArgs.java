@@ -0,0 +1,163 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.Multiplicity;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * Generates synthetic CLI arguments covering the options of an {@link OptionMap}, used to warm up the parsing path.
+ * 
+ * The generated command lines contain the required options and the minimal number of parameters, plus:
+ * each option given by its short name and by its long name, all the single-character flags merged in a single argument (if merging is allowed),
+ * and all the options at once with additional parameters. The option arguments and the parameters are sample values of the type of their fields.
+ * The generation does not check the command lines; they are checked by the caller.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class SyntheticArgs {
+	
+	private static final int MAX_ADDITIONAL_PARAMS = 2;
+	
+	private final OptionMap optionMap;
+	
+	private final OptionSchema schema;
+	
+	private SyntheticArgs(final OptionMap optionMap) {
+		this.optionMap = optionMap;
+		this.schema = optionMap.getSchema();
+	}
+	
+	/**
+	 * Generates the command lines related to some options.
+	 * 
+	 * @param optionMap the options
+	 * @param allowShortNamesMerging <code>true</code> iff short names merging is allowed
+	 * @return the command lines
+	 */
+	static List<String[]> generate(final OptionMap optionMap, final boolean allowShortNamesMerging) {
+		return new SyntheticArgs(optionMap).generate(allowShortNamesMerging);
+	}
+	
+	private List<String[]> generate(final boolean allowShortNamesMerging) {
+		final List<String[]> lines = new ArrayList<>();
+		final Multiplicity paramMult = this.optionMap.getParamMultiplicity();
+		final int minParams = paramMult.getMin();
+		final int maxParams = (int) Math.min(paramMult.getMax(), (long) minParams + MAX_ADDITIONAL_PARAMS);
+		lines.add(line(-1, false, new ArrayList<>(), minParams));
+		final StringBuilder merged = new StringBuilder("-");
+		final List<String> all = new ArrayList<>();
+		for(int id=0; id<this.schema.nOptions(); ++id) {
+			if(this.schema.type(id) == null) {
+				continue;
+			}
+			final Field field = this.schema.field(id);
+			final String shortName = this.optionMap.getShortName(field);
+			if(shortName != null) {
+				lines.add(line(id, true, new ArrayList<>(), minParams));
+				if(shortName.length() == 1 && this.optionMap.getArgMultiplicity(field) == 0) {
+					merged.append(shortName);
+				}
+			}
+			if(this.optionMap.getLongName(field) != null) {
+				lines.add(line(id, false, new ArrayList<>(), minParams));
+			}
+			all.addAll(option(id, shortName == null, id));
+		}
+		if(allowShortNamesMerging && merged.length() > 2) {
+			lines.add(line(-1, false, new ArrayList<>(Arrays.asList(merged.toString())), minParams));
+		}
+		lines.add(line(-1, false, all, maxParams));
+		return lines;
+	}
+	
+	private String[] line(final int id, final boolean shortName, final List<String> tokens, final int nParams) {
+		if(id >= 0) {
+			tokens.addAll(option(id, !shortName, 0));
+		}
+		for(final Field field : this.optionMap.getRequiredFields()) {
+			final int required = this.schema.id(field);
+			if(required != id && this.schema.type(required) != null) {
+				tokens.addAll(option(required, this.optionMap.getLongName(field) != null, 0));
+			}
+		}
+		for(int i=0; i<nParams; ++i) {
+			final Field field = i < this.optionMap.nParams() ? this.optionMap.getParamField(i) : null;
+			tokens.add(field == null ? "param"+i : sample(this.schema.id(field), i));
+		}
+		return tokens.toArray(new String[0]);
+	}
+	
+	private List<String> option(final int id, final boolean longName, final int variant) {
+		final Field field = this.schema.field(id);
+		final List<String> tokens = new ArrayList<>();
+		tokens.add(longName ? "--"+this.optionMap.getLongName(field) : "-"+this.optionMap.getShortName(field));
+		if(this.optionMap.getArgMultiplicity(field) > 0) {
+			tokens.add(sample(id, variant));
+		}
+		return tokens;
+	}
+	
+	private String sample(final int id, final int variant) {
+		EFieldType type = this.schema.type(id);
+		if(type == EFieldType.LAZY) {
+			type = this.optionMap.getLazyValueType(this.schema.field(id));
+		}
+		if(type == null) {
+			return "value";
+		}
+		switch(type) {
+		case BOOLEAN_ARG:
+		case BOOL_ARG:
+			return type.format(variant % 2 == 0, this.schema.getBooleanVocabulary());
+		case INTEGER:
+		case INT:
+			return type.format(variant + 1);
+		case LONG:
+		case LG:
+			return type.format((1L << 33) + variant);
+		case DOUBLE:
+		case DBL:
+			return type.format(variant + 0.5);
+		case FLOAT:
+		case FLT:
+			return type.format(variant + 0.5f);
+		case ENUM:
+		case ENUM_SET:
+			final Enum<?>[] constants = this.optionMap.getEnumConverter(this.schema.field(id)).constants();
+			return constants.length == 0 ? "" : constants[variant % constants.length].name();
+		default:
+			return "value"+variant;
+		}
+	}
+
+}
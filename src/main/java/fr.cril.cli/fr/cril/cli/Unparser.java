@@ -0,0 +1,220 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import fr.cril.cli.utils.EFieldType;
+import fr.cril.cli.utils.OptionMap;
+import fr.cril.cli.utils.OptionSchema;
+
+/**
+ * The reverse of the parsing process: computes the canonical CLI arguments which would set the fields of an object to their current values.
+ * 
+ * The options are written in the order of their identifiers in the {@link OptionSchema}, using their short name if they have one
+ * (their long name otherwise); only the options which value differs from the one of a defaults object are written.
+ * The parameters follow the options, preceded by <code>--</code> if one of them begins with a hyphen.
+ * 
+ * The option names are encoded once, when the unparser is built, so that the arguments can be written to a {@link ByteBuffer}
+ * as NUL-terminated UTF-8 strings (the format read by the {@link CliDaemon}) without building any intermediate array.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+final class Unparser {
+	
+	private static final String END_OF_OPTIONS = "--";
+	
+	private final OptionSchema schema;
+	
+	private final String[] names;
+	
+	private final byte[][] encodedNames;
+	
+	private final int[] positional;
+	
+	/**
+	 * Builds the unparser related to the options defined in an {@link OptionMap}.
+	 * 
+	 * @param options the options
+	 */
+	Unparser(final OptionMap options) {
+		this.schema = options.getSchema();
+		this.names = new String[this.schema.nOptions()];
+		this.encodedNames = new byte[this.names.length][];
+		for(int id=0; id<this.names.length; ++id) {
+			final String shortName = options.getShortName(this.schema.field(id));
+			this.names[id] = shortName != null ? "-"+shortName : "--"+options.getLongName(this.schema.field(id));
+			final byte[] name = this.names[id].getBytes(StandardCharsets.UTF_8);
+			this.encodedNames[id] = new byte[name.length+1];
+			System.arraycopy(name, 0, this.encodedNames[id], 0, name.length);
+		}
+		this.positional = new int[options.nParams()];
+		for(int i=0; i<this.positional.length; ++i) {
+			final int id = this.schema.id(options.getParamField(i));
+			this.positional[i] = id;
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this unparser was built for the provided schema.
+	 * 
+	 * @param schema the schema
+	 * @return <code>true</code> iff this unparser was built for the schema
+	 */
+	boolean isFor(final OptionSchema schema) {
+		return this.schema == schema;
+	}
+	
+	/**
+	 * Computes the canonical CLI arguments related to an object.
+	 * 
+	 * @param obj the object
+	 * @param defaults the object giving the default values, or <code>null</code> to write all the non-null values
+	 * @return the CLI arguments
+	 */
+	String[] toArgs(final Object obj, final Object defaults) {
+		final List<String> args = new ArrayList<>();
+		emit(obj, defaults, new TokenSink() {
+			
+			@Override
+			public void name(final int id) {
+				args.add(Unparser.this.names[id]);
+			}
+			
+			@Override
+			public void value(final String token) {
+				args.add(token);
+			}
+		});
+		return args.toArray(new String[0]);
+	}
+	
+	/**
+	 * Writes the canonical CLI arguments related to an object into a buffer, as NUL-terminated UTF-8 strings.
+	 * 
+	 * If the buffer is too small, a {@link java.nio.BufferOverflowException} is thrown and the content of the buffer is undefined.
+	 * 
+	 * @param obj the object
+	 * @param defaults the object giving the default values, or <code>null</code> to write all the non-null values
+	 * @param out the buffer
+	 * @return the number of bytes written
+	 */
+	int write(final Object obj, final Object defaults, final ByteBuffer out) {
+		final int start = out.position();
+		emit(obj, defaults, new TokenSink() {
+			
+			@Override
+			public void name(final int id) {
+				out.put(Unparser.this.encodedNames[id]);
+			}
+			
+			@Override
+			public void value(final String token) {
+				for(int i=0; i<token.length(); ++i) {
+					final char c = token.charAt(i);
+					if(c == 0) {
+						throw new IllegalArgumentException("NUL character in \""+token+"\"");
+					}
+					if(c >= 0x80) {
+						out.put(token.substring(i).getBytes(StandardCharsets.UTF_8));
+						break;
+					}
+					out.put((byte) c);
+				}
+				out.put((byte) 0);
+			}
+		});
+		return out.position() - start;
+	}
+	
+	private void emit(final Object obj, final Object defaults, final TokenSink sink) {
+		for(int id=0; id<this.names.length; ++id) {
+			final Object value = this.schema.get(id, obj);
+			final Object defaultValue = defaults == null ? null : this.schema.get(id, defaults);
+			if(Objects.equals(value, defaultValue)) {
+				continue;
+			}
+			final EFieldType type = typeOf(id);
+			if(type.getMultiplicity() == 0) {
+				if(Boolean.TRUE.equals(value)) {
+					sink.name(id);
+				} else if(Boolean.TRUE.equals(defaultValue)) {
+					throw new IllegalArgumentException(this.schema.field(id)+": a flag cannot be set to "+value);
+				}
+				continue;
+			}
+			if(value == null) {
+				throw new IllegalArgumentException(this.schema.field(id)+": an option cannot be set to null");
+			}
+			sink.name(id);
+			sink.value(type.format(value, this.schema.getBooleanVocabulary()));
+		}
+		emitParams(obj, sink);
+	}
+	
+	private void emitParams(final Object obj, final TokenSink sink) {
+		int nParams = this.positional.length;
+		while(nParams > 0 && (this.positional[nParams-1] < 0 || this.schema.get(this.positional[nParams-1], obj) == null)) {
+			--nParams;
+		}
+		final String[] tokens = new String[nParams];
+		boolean hyphen = false;
+		for(int i=0; i<nParams; ++i) {
+			final int id = this.positional[i];
+			final Object value = id < 0 ? null : this.schema.get(id, obj);
+			if(value == null) {
+				throw new IllegalArgumentException("parameter "+i+" has no value, but is followed by other parameters");
+			}
+			tokens[i] = typeOf(id).format(value, this.schema.getBooleanVocabulary());
+			hyphen |= tokens[i].startsWith("-");
+		}
+		if(hyphen) {
+			sink.value(END_OF_OPTIONS);
+		}
+		for(final String token : tokens) {
+			sink.value(token);
+		}
+	}
+	
+	private EFieldType typeOf(final int id) {
+		final EFieldType type = this.schema.type(id);
+		if(type == null) {
+			throw new IllegalArgumentException("no enum constant for class "+this.schema.field(id).getType());
+		}
+		return type;
+	}
+	
+	private interface TokenSink {
+		
+		void name(final int id);
+		
+		void value(final String token);
+	}
+
+}
@@ -0,0 +1,83 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The result of the validation of CLI arguments by {@link CliArgsParser#validate(String[])}.
+ * 
+ * It contains the list of the errors found in the arguments, in the order they were detected.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class ValidationReport {
+	
+	private final List<CliUsageException> errors;
+	
+	/**
+	 * Builds a report given the errors found in CLI arguments.
+	 * 
+	 * @param errors the errors
+	 */
+	ValidationReport(final List<CliUsageException> errors) {
+		this.errors = Collections.unmodifiableList(errors);
+	}
+	
+	/**
+	 * Returns <code>true</code> iff no error was found in the CLI arguments.
+	 * 
+	 * @return <code>true</code> iff no error was found
+	 */
+	public boolean isValid() {
+		return this.errors.isEmpty();
+	}
+	
+	/**
+	 * Returns the errors found in the CLI arguments.
+	 * 
+	 * @return the errors
+	 */
+	public List<CliUsageException> getErrors() {
+		return this.errors;
+	}
+	
+	/**
+	 * Returns the error codes of the errors found in the CLI arguments.
+	 * 
+	 * @return the error codes
+	 */
+	public List<EUsageError> getErrorCodes() {
+		return this.errors.stream().map(CliUsageException::getError).collect(Collectors.toList());
+	}
+	
+	@Override
+	public String toString() {
+		return isValid() ? "valid" : this.errors.stream().map(e -> e.getError()+": "+e.getMessage()).collect(Collectors.joining("\n"));
+	}
+
+}
@@ -0,0 +1,110 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+/**
+ * The result of a warm-up of the parsing path by {@link CliArgsParser#warmUp(java.util.function.Supplier, int)}.
+ * 
+ * The progress of the JIT compiler is observed through the total compilation time given by the {@link java.lang.management.CompilationMXBean}:
+ * the warm-up is considered as stable when this time did not change during several consecutive rounds of parsing.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class WarmUpReport {
+	
+	private final int nCommandLines;
+	
+	private final int nRounds;
+	
+	private final long nParses;
+	
+	private final long compilationTime;
+	
+	private final boolean stable;
+	
+	WarmUpReport(final int nCommandLines, final int nRounds, final long nParses, final long compilationTime, final boolean stable) {
+		this.nCommandLines = nCommandLines;
+		this.nRounds = nRounds;
+		this.nParses = nParses;
+		this.compilationTime = compilationTime;
+		this.stable = stable;
+	}
+	
+	/**
+	 * Returns the number of distinct synthetic command lines used to warm up the parser.
+	 * 
+	 * @return the number of command lines
+	 */
+	public int getCommandLineCount() {
+		return this.nCommandLines;
+	}
+	
+	/**
+	 * Returns the number of rounds of parsing made during the warm-up.
+	 * 
+	 * @return the number of rounds
+	 */
+	public int getRoundCount() {
+		return this.nRounds;
+	}
+	
+	/**
+	 * Returns the number of command lines parsed during the warm-up.
+	 * 
+	 * @return the number of parses
+	 */
+	public long getParseCount() {
+		return this.nParses;
+	}
+	
+	/**
+	 * Returns the time spent by the JIT compiler during the warm-up, in milliseconds,
+	 * or <code>-1</code> if the runtime does not support the monitoring of the compilation time.
+	 * 
+	 * The compilation time is the one of the whole JVM, so it includes the compilations triggered by the other threads.
+	 * 
+	 * @return the compilation time, or <code>-1</code>
+	 */
+	public long getCompilationTime() {
+		return this.compilationTime;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the warm-up stopped because the compilation time was stable, rather than because the maximal number of rounds was reached.
+	 * 
+	 * @return <code>true</code> iff the compilation time was stable
+	 */
+	public boolean isStable() {
+		return this.stable;
+	}
+	
+	@Override
+	public String toString() {
+		return this.nParses+" parses of "+this.nCommandLines+" command lines in "+this.nRounds+" rounds, "
+				+(this.compilationTime < 0 ? "compilation time unknown" : this.compilationTime+" ms of compilation")
+				+(this.stable ? " (stable)" : "");
+	}
+
+}
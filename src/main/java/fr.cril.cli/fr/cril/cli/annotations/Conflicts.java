@@ -0,0 +1,74 @@
+package fr.cril.cli.annotations;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation used to declare that an option conflicts with other ones: if it is given in the CLI arguments, none of the other ones may be given.
+ * 
+ * Options are given by their short or long names (without leading hyphens).
+ * The annotation is repeatable, so that a class can declare several such constraints.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(TYPE)
+@Repeatable(Conflicts.List.class)
+public @interface Conflicts {
+	
+	/**
+	 * Returns the name of the option which triggers the constraint.
+	 * 
+	 * @return the name of the option
+	 */
+	String option();
+	
+	/**
+	 * Returns the names of the options which cannot be given with the triggering option.
+	 * 
+	 * @return the names of the options
+	 */
+	String[] value();
+	
+	/**
+	 * The container of repeated {@link Conflicts} annotations.
+	 */
+	@Documented
+	@Retention(RUNTIME)
+	@Target(TYPE)
+	@interface List {
+		
+		Conflicts[] value();
+	}
+
+}
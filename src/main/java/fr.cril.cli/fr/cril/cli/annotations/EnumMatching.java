@@ -0,0 +1,65 @@
+package fr.cril.cli.annotations;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.EnumSet;
+
+/**
+ * An annotation used to relax the way the CLI token of an option (or parameter) which field type is an enumeration or an {@link EnumSet}
+ * is matched against the names of the constants.
+ * 
+ * Without this annotation, the names must match exactly.
+ * With it, the case of the token may differ from the one of the names, and the token may be a prefix shared by no other name
+ * (e.g. <code>@EnumMatching private ERestart restart</code> accepts <code>--restart lu</code> for <code>ERestart.LUBY</code>).
+ * An exact match is always preferred to a match ignoring case, which is preferred to a prefix.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface EnumMatching {
+	
+	/**
+	 * Returns <code>true</code> iff the case of the token may differ from the one of the names.
+	 * 
+	 * @return <code>true</code> iff the case is ignored
+	 */
+	boolean ignoreCase() default true;
+	
+	/**
+	 * Returns <code>true</code> iff the token may be a prefix of a single name.
+	 * 
+	 * @return <code>true</code> iff unique prefixes are accepted
+	 */
+	boolean uniquePrefix() default true;
+
+}
@@ -0,0 +1,57 @@
+package fr.cril.cli.annotations;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import fr.cril.cli.Lazy;
+
+/**
+ * An annotation used to give the conversion of the CLI token of an option (or parameter) which field type is {@link Lazy}.
+ * 
+ * The conversion is made on the first access to the value of the field, rather than during the parsing
+ * (e.g. <code>@LazyConverter(TuningFileReader.class) private Lazy&lt;Tuning&gt; tuning</code>).
+ * The converter class must have a public constructor without parameters; it is instantiated once, when the options are defined.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface LazyConverter {
+	
+	/**
+	 * Returns the class of the converter.
+	 * 
+	 * @return the class of the converter
+	 */
+	Class<? extends Lazy.Converter<?>> value();
+
+}
@@ -0,0 +1,62 @@
+package fr.cril.cli.annotations;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+/**
+ * An annotation used to restrict the values of a numeric option (or parameter) to an inclusive range
+ * (e.g. <code>@Range(min = "1", max = "256") private int threads</code>, or <code>@Range(min = "0") private long seed</code>).
+ * 
+ * The bounds are written as CLI arguments of the field (a field with a unit accepts <code>@Range(max = "4G")</code>);
+ * an empty bound means that the range is unbounded on this side.
+ * The values are checked as soon as they are converted, before any field is set.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface Range {
+	
+	/**
+	 * Returns the lower bound of the range, or an empty string if there is none.
+	 * 
+	 * @return the lower bound
+	 */
+	String min() default "";
+	
+	/**
+	 * Returns the upper bound of the range, or an empty string if there is none.
+	 * 
+	 * @return the upper bound
+	 */
+	String max() default "";
+
+}
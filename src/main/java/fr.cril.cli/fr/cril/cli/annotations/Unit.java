@@ -0,0 +1,56 @@
+package fr.cril.cli.annotations;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import fr.cril.cli.EUnit;
+
+/**
+ * An annotation used to give the unit of an option (or parameter) which field type is <code>long</code> or {@link Long},
+ * so that its CLI token may carry unit suffixes (e.g. <code>@Unit(EUnit.BYTES) private long memory</code> accepts <code>--memory 2G</code>,
+ * and <code>@Unit(EUnit.MILLISECONDS) private long timeout</code> accepts <code>--timeout 1h30m</code>).
+ * 
+ * See {@link EUnit} for the accepted suffixes.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface Unit {
+	
+	/**
+	 * Returns the unit in which the field value is expressed.
+	 * 
+	 * @return the unit
+	 */
+	EUnit value();
+
+}
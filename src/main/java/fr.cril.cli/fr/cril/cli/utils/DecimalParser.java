@@ -0,0 +1,177 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUsageError;
+
+/**
+ * A parser of decimal floating-point numbers which reads a region of a string in place.
+ * 
+ * The accepted syntax is an optional sign, digits with an optional decimal point, and an optional exponent
+ * (<code>0.95</code>, <code>-1.5e-3</code>, <code>2E10</code>), as well as <code>NaN</code> and <code>Infinity</code>.
+ * Unlike {@link Double#parseDouble(String)}, surrounding whitespace, hexadecimal numbers and type suffixes (<code>1d</code>, <code>1f</code>) are rejected.
+ * 
+ * The digits are accumulated in a <code>long</code> value while the region is scanned, so that no string is built.
+ * When the significand and the power of ten are both exactly representable (which is the case of the usual option values),
+ * a single multiplication or division gives the correctly rounded result; otherwise, the region is handed to {@link Double#parseDouble(String)}
+ * (resp. {@link Float#parseFloat(String)}).
+ * A malformed number is reported with the position of the first unexpected character.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class DecimalParser {
+	
+	private static final double[] DOUBLE_POWERS = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+	
+	private static final long MAX_EXACT_DOUBLE = 1L << 53;
+	
+	private static final long MAX_EXACT_FLOAT = 1L << 24;
+	
+	private static final int MAX_DIGITS = 18;
+	
+	private static final int MAX_EXPONENT = 100_000;
+	
+	private DecimalParser() {
+		// nothing
+	}
+	
+	/**
+	 * Parses a region of a string as a <code>double</code> value.
+	 * 
+	 * @param str the string
+	 * @param from the index of the first character of the region
+	 * @param to the index following the last character of the region
+	 * @return the value
+	 * @throws CliUsageException if the region is not a well-formed number
+	 */
+	public static double parseDouble(final String str, final int from, final int to) throws CliUsageException {
+		return parse(str, from, to, false);
+	}
+	
+	/**
+	 * Parses a region of a string as a <code>float</code> value.
+	 * 
+	 * @param str the string
+	 * @param from the index of the first character of the region
+	 * @param to the index following the last character of the region
+	 * @return the value
+	 * @throws CliUsageException if the region is not a well-formed number
+	 */
+	public static float parseFloat(final String str, final int from, final int to) throws CliUsageException {
+		return (float) parse(str, from, to, true);
+	}
+	
+	private static double parse(final String str, final int from, final int to, final boolean toFloat) throws CliUsageException {
+		int i = from;
+		boolean negative = false;
+		if(i < to && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+			negative = str.charAt(i) == '-';
+			++i;
+		}
+		if(matches(str, i, to, "NaN")) {
+			return Double.NaN;
+		}
+		if(matches(str, i, to, "Infinity")) {
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		}
+		long significand = 0;
+		int nDigits = 0;
+		int exponent = 0;
+		boolean exact = true;
+		boolean anyDigit = false;
+		boolean point = false;
+		for(; i < to; ++i) {
+			final char c = str.charAt(i);
+			if(c == '.' && !point) {
+				point = true;
+				continue;
+			}
+			if(c < '0' || c > '9') {
+				break;
+			}
+			anyDigit = true;
+			if(significand == 0 && c == '0') {
+				exponent -= point ? 1 : 0;
+			} else if(nDigits < MAX_DIGITS) {
+				significand = significand * 10 + (c - '0');
+				++nDigits;
+				exponent -= point ? 1 : 0;
+			} else {
+				exact &= c == '0';
+				exponent += point ? 0 : 1;
+			}
+		}
+		if(!anyDigit) {
+			throw malformed(str, from, to, i);
+		}
+		if(i < to && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+			++i;
+			boolean negativeExp = false;
+			if(i < to && (str.charAt(i) == '+' || str.charAt(i) == '-')) {
+				negativeExp = str.charAt(i) == '-';
+				++i;
+			}
+			final int expStart = i;
+			int exp = 0;
+			for(; i < to && str.charAt(i) >= '0' && str.charAt(i) <= '9'; ++i) {
+				exp = Math.min(MAX_EXPONENT, exp * 10 + (str.charAt(i) - '0'));
+			}
+			if(i == expStart) {
+				throw malformed(str, from, to, i);
+			}
+			exponent += negativeExp ? -exp : exp;
+		}
+		if(i != to) {
+			throw malformed(str, from, to, i);
+		}
+		if(significand == 0) {
+			return negative ? -0.0 : 0.0;
+		}
+		if(exact && toFloat && significand <= MAX_EXACT_FLOAT && Math.abs(exponent) < FLOAT_POWERS.length) {
+			final float value = exponent < 0 ? significand / FLOAT_POWERS[-exponent] : significand * FLOAT_POWERS[exponent];
+			return negative ? -value : value;
+		}
+		if(exact && !toFloat && significand <= MAX_EXACT_DOUBLE && Math.abs(exponent) < DOUBLE_POWERS.length) {
+			final double value = exponent < 0 ? significand / DOUBLE_POWERS[-exponent] : significand * DOUBLE_POWERS[exponent];
+			return negative ? -value : value;
+		}
+		final String region = str.substring(from, to);
+		return toFloat ? Float.parseFloat(region) : Double.parseDouble(region);
+	}
+	
+	private static boolean matches(final String str, final int from, final int to, final String word) {
+		return to - from == word.length() && str.startsWith(word, from);
+	}
+	
+	private static CliUsageException malformed(final String str, final int from, final int to, final int position) {
+		return new CliUsageException(EUsageError.NOT_A_NUMBER, str.substring(from, to), position - from);
+	}
+
+}
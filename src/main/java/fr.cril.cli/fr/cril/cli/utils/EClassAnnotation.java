@@ -28,7 +28,11 @@ import java.lang.annotation.Annotation;
 import java.util.Arrays;
 
 import fr.cril.cli.CliOptionDefinitionException;
+import fr.cril.cli.annotations.AtMostOne;
+import fr.cril.cli.annotations.Conflicts;
+import fr.cril.cli.annotations.ExactlyOne;
 import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Requires;
 
 /**
  * An enumeration of all supported annotations related to classes used to define CLI arguments.
@@ -45,7 +49,31 @@ import fr.cril.cli.annotations.Params;
 public enum EClassAnnotation {
 	
 	/** enumeration constant related to options short names */
-	PARAMS(Params.class, (a, o) -> o.setParamMultiplicity(((Params) a).value()));
+	PARAMS(Params.class, (a, o) -> o.setParamMultiplicity(((Params) a).value())),
+	
+	/** enumeration constant related to groups of options among which exactly one must be given */
+	EXACTLY_ONE(ExactlyOne.class, (a, o) -> o.addGroupConstraint(EGroupConstraint.EXACTLY_ONE, null, ((ExactlyOne) a).value())),
+	
+	/** enumeration constant related to repeated {@link ExactlyOne} annotations */
+	EXACTLY_ONE_LIST(ExactlyOne.List.class, (a, o) -> applyAll(((ExactlyOne.List) a).value(), o)),
+	
+	/** enumeration constant related to groups of options among which at most one may be given */
+	AT_MOST_ONE(AtMostOne.class, (a, o) -> o.addGroupConstraint(EGroupConstraint.AT_MOST_ONE, null, ((AtMostOne) a).value())),
+	
+	/** enumeration constant related to repeated {@link AtMostOne} annotations */
+	AT_MOST_ONE_LIST(AtMostOne.List.class, (a, o) -> applyAll(((AtMostOne.List) a).value(), o)),
+	
+	/** enumeration constant related to options which require other ones */
+	REQUIRES(Requires.class, (a, o) -> o.addGroupConstraint(EGroupConstraint.REQUIRES, ((Requires) a).option(), ((Requires) a).value())),
+	
+	/** enumeration constant related to repeated {@link Requires} annotations */
+	REQUIRES_LIST(Requires.List.class, (a, o) -> applyAll(((Requires.List) a).value(), o)),
+	
+	/** enumeration constant related to options which conflict with other ones */
+	CONFLICTS(Conflicts.class, (a, o) -> o.addGroupConstraint(EGroupConstraint.CONFLICTS, ((Conflicts) a).option(), ((Conflicts) a).value())),
+	
+	/** enumeration constant related to repeated {@link Conflicts} annotations */
+	CONFLICTS_LIST(Conflicts.List.class, (a, o) -> applyAll(((Conflicts.List) a).value(), o));
 	
 	private final Class<? extends Annotation> annotationCl;
 	
@@ -98,6 +126,12 @@ public enum EClassAnnotation {
 		this.applier.apply(annotation, options);
 	}
 	
+	private static void applyAll(final Annotation[] annotations, final OptionMap options) throws CliOptionDefinitionException {
+		for(final Annotation annotation : annotations) {
+			forClass(annotation.annotationType()).apply(annotation, options);
+		}
+	}
+	
 	@FunctionalInterface
 	private interface OptionAnnotationApplier {
 		
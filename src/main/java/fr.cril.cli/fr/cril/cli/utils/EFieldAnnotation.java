@@ -31,10 +31,14 @@ import java.util.Arrays;
 import fr.cril.cli.CliOptionDefinitionException;
 import fr.cril.cli.annotations.Args;
 import fr.cril.cli.annotations.Description;
+import fr.cril.cli.annotations.EnumMatching;
+import fr.cril.cli.annotations.LazyConverter;
 import fr.cril.cli.annotations.LongName;
 import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Range;
 import fr.cril.cli.annotations.Required;
 import fr.cril.cli.annotations.ShortName;
+import fr.cril.cli.annotations.Unit;
 
 /**
  * An enumeration of all supported annotations related to fields used to define CLI arguments.
@@ -66,7 +70,19 @@ public enum EFieldAnnotation {
 	PARAM(Param.class, (f, a, o) -> o.setParam(f, ((Param) a).value())),
 	
 	/** enumeration constant related to parameters (non option arguments) */
-	DESCRIPTION(Description.class, (f, a, o) -> o.setDescription(f, ((Description) a).value()));
+	DESCRIPTION(Description.class, (f, a, o) -> o.setDescription(f, ((Description) a).value())),
+	
+	/** enumeration constant related to the conversions of lazy values */
+	LAZY_CONVERTER(LazyConverter.class, (f, a, o) -> o.setLazyConverter(f, ((LazyConverter) a).value())),
+	
+	/** enumeration constant related to the matching of enumeration constants */
+	ENUM_MATCHING(EnumMatching.class, (f, a, o) -> o.setEnumMatching(f, ((EnumMatching) a).ignoreCase(), ((EnumMatching) a).uniquePrefix())),
+	
+	/** enumeration constant related to the units of sizes and durations */
+	UNIT(Unit.class, (f, a, o) -> o.setUnit(f, ((Unit) a).value())),
+	
+	/** enumeration constant related to the ranges of numeric values */
+	RANGE(Range.class, (f, a, o) -> o.setRange(f, ((Range) a).min(), ((Range) a).max()));
 	
 	private final Class<? extends Annotation> annotationCl;
 	
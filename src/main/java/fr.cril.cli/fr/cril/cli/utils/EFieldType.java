@@ -25,11 +25,15 @@ package fr.cril.cli.utils;
  */
 
 import java.lang.reflect.Field;
-import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.stream.Collectors;
 
+import fr.cril.cli.BooleanVocabulary;
+import fr.cril.cli.CliOptionDefinitionException;
 import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUsageError;
+import fr.cril.cli.Lazy;
 
 /**
  * An enumeration used to cast string values according to a field type,
@@ -40,55 +44,74 @@ import fr.cril.cli.CliUsageException;
 public enum EFieldType {
 	
 	/** handles the {@link Boolean} class; always sets the value of the flag to <code>true</code> */
-	BOOLEAN(Boolean.class, 0, EFieldType::applyBool),
+	BOOLEAN(Boolean.class, 0, EFieldType::convertBool, null),
 	
 	/** handles the <code>boolean</code> primitive type; always sets the value of the flag to <code>true</code> */
-	BOOL(boolean.class, 0, EFieldType::applyBool),
+	BOOL(boolean.class, 0, EFieldType::convertBool, null),
 	
-	/** handles the {@link Boolean} class; sets the value according to a string parameter (see {@link EFieldType#setBooleanConstants(String[], String[])}) */
-	BOOLEAN_ARG(Boolean.class, 1, EFieldType::applyBoolArg),
+	/** handles the {@link Boolean} class; sets the value according to a string parameter (see {@link BooleanVocabulary}) */
+	BOOLEAN_ARG(Boolean.class, 1, EFieldType::convertBoolArg, EFieldType::formatBoolArg),
 	
-	/** handles the <code>boolean</code> primitive type; sets the value according to a string parameter (see {@link EFieldType#setBooleanConstants(String[], String[])}) */
-	BOOL_ARG(boolean.class, 1, EFieldType::applyBoolArg),
+	/** handles the <code>boolean</code> primitive type; sets the value according to a string parameter (see {@link BooleanVocabulary}) */
+	BOOL_ARG(boolean.class, 1, EFieldType::convertBoolArg, EFieldType::formatBoolArg),
 	
 	/** handles the {@link String} type; just copy the first parameter */
-	STRING(String.class, 1, EFieldType::applyString),
+	STRING(String.class, 1, EFieldType::convertString, (v, b) -> String.valueOf(v)),
 	
 	/** handles the {@link Integer} class; casts the first parameter using {@link Integer#parseInt(String)} */
-	INTEGER(Integer.class, 1, EFieldType::applyInt),
+	INTEGER(Integer.class, 1, EFieldType::convertInt, (v, b) -> String.valueOf(v)),
 	
 	/** handles the <code>int</code> primitive type; casts the first parameter using {@link Integer#parseInt(String)} */
-	INT(int.class, 1, EFieldType::applyInt),
+	INT(int.class, 1, EFieldType::convertInt, (v, b) -> String.valueOf(v)),
 	
 	/** handles the {@link Long} class; casts the first parameter using {@link Long#parseLong(String)} */
-	LONG(Long.class, 1, EFieldType::applyLong),
+	LONG(Long.class, 1, EFieldType::convertLong, (v, b) -> String.valueOf(v)),
 	
 	/** handles the <code>long</code> primitive type; casts the first parameter using {@link Long#parseLong(String)} */
-	LG(long.class, 1, EFieldType::applyLong);
+	LG(long.class, 1, EFieldType::convertLong, (v, b) -> String.valueOf(v)),
 	
-	private final Class<?> cl;
+	/** handles the {@link Double} class; casts the first parameter using {@link DecimalParser#parseDouble(String, int, int)} */
+	DOUBLE(Double.class, 1, EFieldType::convertDouble, (v, b) -> String.valueOf(v)),
 	
-	private final int multiplicity;
+	/** handles the <code>double</code> primitive type; casts the first parameter using {@link DecimalParser#parseDouble(String, int, int)} */
+	DBL(double.class, 1, EFieldType::convertDouble, (v, b) -> String.valueOf(v)),
+	
+	/** handles the {@link Float} class; casts the first parameter using {@link DecimalParser#parseFloat(String, int, int)} */
+	FLOAT(Float.class, 1, EFieldType::convertFloat, (v, b) -> String.valueOf(v)),
 	
-	private final OptParamApplier applier;
+	/** handles the <code>float</code> primitive type; casts the first parameter using {@link DecimalParser#parseFloat(String, int, int)} */
+	FLT(float.class, 1, EFieldType::convertFloat, (v, b) -> String.valueOf(v)),
 	
-	private static final String[] DEFAULT_BOOL_FALSE_STR = {"false"};
+	/** handles the {@link Lazy} class; the conversion of the first parameter depends on the field (see {@link OptionMap#convertLazy(Field, String)}), and this constant only keeps it as a string */
+	LAZY(Lazy.class, 1, EFieldType::convertLazy, (v, b) -> ((Lazy<?>) v).isDefault() ? String.valueOf(((Lazy<?>) v).get()) : ((Lazy<?>) v).getToken()),
 	
-	private static String[] boolFalseStr = DEFAULT_BOOL_FALSE_STR;
+	/** handles the enumerations; the first parameter is converted by an {@link EnumConverter} (see {@link EFieldType#convert(List, BooleanVocabulary, EnumConverter)}), and the value is formatted by the name of the constant */
+	ENUM(Enum.class, 1, EFieldType::convertEnum, (v, b) -> ((Enum<?>) v).name()),
 	
-	private static final String[] DEFAULT_BOOL_TRUE_STR = {"true"};
+	/** handles the {@link EnumSet} class; the comma-separated list given as first parameter is converted by an {@link EnumConverter} (see {@link EFieldType#convert(List, BooleanVocabulary, EnumConverter)}) */
+	ENUM_SET(EnumSet.class, 1, EFieldType::convertEnum, (v, b) -> ((EnumSet<?>) v).stream().map(Enum::name).collect(Collectors.joining(",")));
 	
-	private static String[] boolTrueStr = DEFAULT_BOOL_TRUE_STR;
+	private final Class<?> cl;
+	
+	private final int multiplicity;
+	
+	private final OptParamConverter converter;
+	
+	private final OptParamFormatter formatter;
+	
+	private static volatile BooleanVocabulary booleanVocabulary = BooleanVocabulary.DEFAULT;
 
-	private EFieldType(final Class<?> cl, final int multiplicity, final OptParamApplier applier) {
+	private EFieldType(final Class<?> cl, final int multiplicity, final OptParamConverter converter, final OptParamFormatter formatter) {
 		this.cl = cl;
 		this.multiplicity = multiplicity;
-		this.applier = applier;
+		this.converter = converter;
+		this.formatter = formatter;
 	}
 	
 	/**
 	 * Retrieves the {@link EFieldType} constant corresponding to the provided field class and the multiplicity.
 	 * 
+	 * All the enumerations are handled by {@link EFieldType#ENUM}.
 	 * If no such {@link EFieldType} constant exists, an {@link IllegalArgumentException} is thrown.
 	 * 
 	 * @param cl the field class
@@ -97,7 +120,7 @@ public enum EFieldType {
 	 */
 	public static EFieldType forClass(final Class<?> cl, final int multiplicity) {
 		for(final EFieldType type : EFieldType.values()) {
-			if(type.cl.equals(cl) && type.multiplicity == multiplicity) {
+			if((type.cl.equals(cl) || type == ENUM && cl.isEnum()) && type.multiplicity == multiplicity) {
 				return type;
 			}
 		}
@@ -120,53 +143,169 @@ public enum EFieldType {
 	 * <li>for a multiplicity of 1, the field value is set according to the string value (by default, "true" and "false" are accepted).</li>
 	 * </ul>
 	 * 
+	 * The enumeration constants (or sets of constants) are matched exactly against the names of the constants of the field type.
+	 * 
 	 * @param field the field which value must to set
 	 * @param obj the object which the field value is to set
 	 * @param params the list of string parameters
 	 * @throws CliUsageException if the string values are incorrect for this enumeration constant
 	 */
 	public void apply(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		this.applier.apply(field, obj, params);
+		if(this != ENUM && this != ENUM_SET) {
+			assign(field, obj, convert(params));
+			return;
+		}
+		try {
+			assign(field, obj, convert(params, null, EnumConverter.forField(field, false, false)));
+		} catch(CliOptionDefinitionException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
 	}
 	
-	private static void applyBool(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		apply(field, obj, computeValue(new Multiplicity(0), l -> Boolean.TRUE, params));
+	/**
+	 * Given a list of string parameters, computes the corresponding value without associating it to any field.
+	 * 
+	 * The same checks than in {@link EFieldType#apply(Field, Object, List)} are made.
+	 * Since the values of {@link EFieldType#ENUM} and {@link EFieldType#ENUM_SET} depend on the enumeration,
+	 * they must be converted by {@link EFieldType#convert(List, BooleanVocabulary, EnumConverter)}; an {@link IllegalStateException} is thrown otherwise.
+	 * 
+	 * @param params the list of string parameters
+	 * @return the value
+	 * @throws CliUsageException if the string values are incorrect for this enumeration constant
+	 */
+	public Object convert(final List<String> params) throws CliUsageException {
+		return this.converter.convert(params, booleanVocabulary);
 	}
 	
-	private static void applyBoolArg(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		apply(field, obj, computeValue(new Multiplicity(1), l -> {
-			if(Arrays.stream(boolFalseStr).anyMatch(l.get(0)::equals)) {
-				return Boolean.FALSE;
-			}
-			if(Arrays.stream(boolTrueStr).anyMatch(l.get(0)::equals)) {
-				return Boolean.TRUE;
+	/**
+	 * Given a list of string parameters, computes the corresponding value, using the provided vocabulary for the Boolean constants.
+	 * 
+	 * See {@link EFieldType#convert(List)}.
+	 * 
+	 * @param params the list of string parameters
+	 * @param vocabulary the Boolean constants, or <code>null</code> to use the ones given by {@link EFieldType#setBooleanConstants(String[], String[])}
+	 * @return the value
+	 * @throws CliUsageException if the string values are incorrect for this enumeration constant
+	 */
+	public Object convert(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return this.converter.convert(params, vocabulary == null ? booleanVocabulary : vocabulary);
+	}
+	
+	/**
+	 * Given a list of string parameters, computes the corresponding value, using the provided vocabulary for the Boolean constants
+	 * and the provided converter for the enumeration constants.
+	 * 
+	 * See {@link EFieldType#convert(List)}. The converter is required by {@link EFieldType#ENUM} and {@link EFieldType#ENUM_SET}, and ignored by the other constants.
+	 * 
+	 * @param params the list of string parameters
+	 * @param vocabulary the Boolean constants, or <code>null</code> to use the ones given by {@link EFieldType#setBooleanConstants(String[], String[])}
+	 * @param enumConverter the converter of the enumeration constants
+	 * @return the value
+	 * @throws CliUsageException if the string values are incorrect for this enumeration constant
+	 */
+	public Object convert(final List<String> params, final BooleanVocabulary vocabulary, final EnumConverter enumConverter) throws CliUsageException {
+		if(this != ENUM && this != ENUM_SET) {
+			return convert(params, vocabulary);
+		}
+		if(enumConverter == null || enumConverter.isSet() != (this == ENUM_SET)) {
+			throw new IllegalArgumentException(this+" values require a converter of "+(this == ENUM_SET ? "sets of " : "")+"enumeration constants");
+		}
+		return computeValue(new Multiplicity(1), l -> enumConverter.convert(l.get(0)), params);
+	}
+	
+	/**
+	 * Returns the multiplicity (number of string parameters) handled by this enumeration constant.
+	 * 
+	 * @return the multiplicity
+	 */
+	public int getMultiplicity() {
+		return this.multiplicity;
+	}
+	
+	/**
+	 * Computes the string parameter which would be converted into the provided value; this is the reverse operation of {@link EFieldType#convert(List)}.
+	 * 
+	 * This method can only be called on constants which multiplicity is 1; otherwise, an {@link IllegalStateException} is thrown.
+	 * 
+	 * @param value the value
+	 * @return the string parameter
+	 */
+	public String format(final Object value) {
+		return format(value, null);
+	}
+	
+	/**
+	 * Computes the string parameter which would be converted into the provided value, using the provided vocabulary for the Boolean constants.
+	 * 
+	 * See {@link EFieldType#format(Object)}.
+	 * 
+	 * @param value the value
+	 * @param vocabulary the Boolean constants, or <code>null</code> to use the ones given by {@link EFieldType#setBooleanConstants(String[], String[])}
+	 * @return the string parameter
+	 */
+	public String format(final Object value, final BooleanVocabulary vocabulary) {
+		if(this.formatter == null) {
+			throw new IllegalStateException(this+" values are not given by a string parameter");
+		}
+		return this.formatter.format(value, vocabulary == null ? booleanVocabulary : vocabulary);
+	}
+	
+	private static String formatBoolArg(final Object value, final BooleanVocabulary vocabulary) {
+		return vocabulary.format((Boolean) value);
+	}
+	
+	private static Object convertBool(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(0), l -> Boolean.TRUE, params);
+	}
+	
+	private static Object convertBoolArg(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> {
+			final Boolean value = vocabulary.lookup(l.get(0));
+			if(value == null) {
+				throw new CliUsageException(EUsageError.NOT_A_BOOLEAN, l.get(0));
 			}
-			throw new CliUsageException("\""+l.get(0)+"\" cannot be converted to Boolean");
-		}, params));
+			return value;
+		}, params);
+	}
+	
+	private static Object convertString(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> l.get(0), params);
+	}
+	
+	private static Object convertLazy(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> Lazy.fromToken(l.get(0), t -> t), params);
 	}
 	
-	private static void applyString(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		apply(field, obj, computeValue(new Multiplicity(1), l -> l.get(0), params));
+	private static Object convertEnum(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		throw new IllegalStateException("the conversion of enumeration constants requires a converter (see convert(List, BooleanVocabulary, EnumConverter))");
 	}
 	
-	private static void applyInt(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		apply(field, obj, computeValue(new Multiplicity(1), l -> {
+	private static Object convertInt(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> {
 			try {
 				return Integer.parseInt(l.get(0));
 			} catch (NumberFormatException e) {
-				throw new CliUsageException("expected an integer, found \""+params.get(0)+"\"");
+				throw new CliUsageException(EUsageError.NOT_AN_INTEGER, l.get(0));
 			}
-		}, params));
+		}, params);
 	}
 	
-	private static void applyLong(final Field field, final Object obj, final List<String> params) throws CliUsageException {
-		apply(field, obj, computeValue(new Multiplicity(1), l -> {
+	private static Object convertLong(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> {
 			try {
 				return Long.parseLong(l.get(0));
 			} catch (NumberFormatException e) {
-				throw new CliUsageException("expected an integer, found \""+params.get(0)+"\"");
+				throw new CliUsageException(EUsageError.NOT_AN_INTEGER, l.get(0));
 			}
-		}, params));
+		}, params);
+	}
+	
+	private static Object convertDouble(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> DecimalParser.parseDouble(l.get(0), 0, l.get(0).length()), params);
+	}
+	
+	private static Object convertFloat(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException {
+		return computeValue(new Multiplicity(1), l -> DecimalParser.parseFloat(l.get(0), 0, l.get(0).length()), params);
 	}
 	
 	private static Object computeValue(final Multiplicity expectedMultiplicity, final OptParamComputer valueComputer, final List<String> params) throws CliUsageException {
@@ -176,7 +315,14 @@ public enum EFieldType {
 		return valueComputer.compute(params);
 	}
 	
-	private static void apply(final Field field, final Object obj, final Object value) {
+	/**
+	 * Associates an already computed value to a field.
+	 * 
+	 * @param field the field which value must to set
+	 * @param obj the object which the field value is to set
+	 * @param value the value
+	 */
+	public static void assign(final Field field, final Object obj, final Object value) {
 		final boolean canAccess = field.canAccess(obj);
 		field.setAccessible(true);
 		try {
@@ -188,7 +334,7 @@ public enum EFieldType {
 	}
 	
 	/**
-	 * Changes the set of string literals seen as Boolean constants.
+	 * Changes the set of string literals seen as Boolean constants by the parsers which have no vocabulary of their own.
 	 * 
 	 * By default, the only recognized values are "true" and "false".
 	 * The new values are passed as two string arrays (the first one containing the values which stand for <code>false</code>,
@@ -197,36 +343,48 @@ public enum EFieldType {
 	 * Both arrays must be non null, contain at least one string, and strings must be non-null and nonempty.
 	 * No string can be shared by the two arrays.
 	 * 
+	 * The values are shared by all the parsers of the JVM: the vocabulary is replaced as a whole, so that concurrent parsers see either the old or the new one.
+	 * 
 	 * @param falseValues the false values
 	 * @param trueValues the true values
+	 * @deprecated the vocabulary should be given to each parser (see {@link BooleanVocabulary})
 	 */
+	@Deprecated
 	public static void setBooleanConstants(final String[] falseValues, final String[] trueValues) {
-		if(
-			falseValues == null || trueValues == null || falseValues.length == 0 || trueValues.length == 0 ||
-			Arrays.stream(falseValues).anyMatch(Objects::isNull) || Arrays.stream(trueValues).anyMatch(Objects::isNull) ||
-			Arrays.stream(falseValues).anyMatch(String::isEmpty) || Arrays.stream(trueValues).anyMatch(String::isEmpty) ||
-			Arrays.stream(falseValues).anyMatch(f -> Arrays.stream(trueValues).anyMatch(f::equals))
-		) {
-			throw new IllegalArgumentException("unexpected values provided as Boolean constants (got \""+Arrays.toString(falseValues)+"\" and \""+Arrays.toString(trueValues)+"\")");
-		}
-		EFieldType.boolFalseStr = Arrays.copyOf(falseValues, falseValues.length);
-		EFieldType.boolTrueStr = Arrays.copyOf(trueValues, falseValues.length);
+		booleanVocabulary = BooleanVocabulary.of(falseValues, trueValues, false);
+	}
+	
+	/**
+	 * Returns the Boolean constants used by the parsers which have no vocabulary of their own (see {@link EFieldType#setBooleanConstants(String[], String[])}).
+	 * 
+	 * @return the Boolean constants
+	 */
+	public static BooleanVocabulary getBooleanVocabulary() {
+		return booleanVocabulary;
 	}
 	
 	/**
 	 * Resets the set of string literals seen as Boolean constants.
 	 * 
 	 * See {@link EFieldType#setBooleanConstants(String[], String[])}.
+	 * 
+	 * @deprecated the vocabulary should be given to each parser (see {@link BooleanVocabulary})
 	 */
+	@Deprecated
 	public static void resetBooleanConstants() {
-		boolFalseStr = DEFAULT_BOOL_FALSE_STR;
-		boolTrueStr = DEFAULT_BOOL_TRUE_STR;
+		booleanVocabulary = BooleanVocabulary.DEFAULT;
+	}
+	
+	@FunctionalInterface
+	private interface OptParamConverter {
+		
+		Object convert(final List<String> params, final BooleanVocabulary vocabulary) throws CliUsageException;
 	}
 	
 	@FunctionalInterface
-	private interface OptParamApplier {
+	private interface OptParamFormatter {
 		
-		void apply(final Field field, final Object obj, final List<String> params) throws CliUsageException;
+		String format(final Object value, final BooleanVocabulary vocabulary);
 	}
 	
 	@FunctionalInterface
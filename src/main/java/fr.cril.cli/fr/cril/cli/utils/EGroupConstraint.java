@@ -0,0 +1,167 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUsageError;
+
+/**
+ * An enumeration of the constraints which can be declared over groups of options.
+ * 
+ * Constraints are declared by the class annotations {@link fr.cril.cli.annotations.ExactlyOne}, {@link fr.cril.cli.annotations.AtMostOne},
+ * {@link fr.cril.cli.annotations.Requires} and {@link fr.cril.cli.annotations.Conflicts}, and compiled into {@link OptionConstraints}.
+ * Some constraints are triggered by an option (they only apply if this option is given); the other ones always apply.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public enum EGroupConstraint {
+	
+	/** exactly one of the options of the group must be given */
+	EXACTLY_ONE(false, (t, g, p) -> countCommon(g, p) != 1, (t, g, p, s) -> countCommon(g, p) == 0
+			? new CliUsageException(EUsageError.MISSING_ONE_OF, names(s, g, null, false))
+			: new CliUsageException(EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, names(s, g, p, false))),
+	
+	/** at most one of the options of the group may be given */
+	AT_MOST_ONE(false, (t, g, p) -> countCommon(g, p) > 1,
+			(t, g, p, s) -> new CliUsageException(EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, names(s, g, p, false))),
+	
+	/** if the triggering option is given, all the options of the group must be given */
+	REQUIRES(true, (t, g, p) -> countCommon(t, p) != 0 && countMissing(g, p) != 0,
+			(t, g, p, s) -> new CliUsageException(EUsageError.MISSING_REQUIRED_BY, names(s, t, null, false).get(0), names(s, g, p, true))),
+	
+	/** if the triggering option is given, none of the options of the group may be given */
+	CONFLICTS(true, (t, g, p) -> countCommon(t, p) != 0 && countCommon(g, p) != 0,
+			(t, g, p, s) -> new CliUsageException(EUsageError.CONFLICTING_OPTIONS, names(s, t, null, false).get(0), names(s, g, p, false)));
+	
+	private final boolean triggered;
+	
+	private final ViolationPredicate predicate;
+	
+	private final ErrorBuilder errorBuilder;
+	
+	private EGroupConstraint(final boolean triggered, final ViolationPredicate predicate, final ErrorBuilder errorBuilder) {
+		this.triggered = triggered;
+		this.predicate = predicate;
+		this.errorBuilder = errorBuilder;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff this constraint is triggered by an option.
+	 * 
+	 * @return <code>true</code> iff this constraint is triggered by an option
+	 */
+	public boolean isTriggered() {
+		return this.triggered;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the constraint is violated by the options given in CLI arguments.
+	 * 
+	 * All the sets of options are given as words of bits indexed by the identifiers of the {@link OptionSchema};
+	 * the words of <code>present</code> which are beyond its length are considered as zero.
+	 * 
+	 * @param trigger the triggering option, or <code>null</code> for the constraints which are not triggered
+	 * @param group the options of the group
+	 * @param present the options given in the arguments
+	 * @return <code>true</code> iff the constraint is violated
+	 */
+	boolean isViolated(final long[] trigger, final long[] group, final long[] present) {
+		return this.predicate.isViolated(trigger, group, present);
+	}
+	
+	/**
+	 * Builds the error related to a violation of this constraint.
+	 * 
+	 * See {@link EGroupConstraint#isViolated(long[], long[], long[])} for the meaning of the parameters.
+	 * 
+	 * @param trigger the triggering option, or <code>null</code> for the constraints which are not triggered
+	 * @param group the options of the group
+	 * @param present the options given in the arguments
+	 * @param constraints the constraints this one belongs to, used to name the options in the error
+	 * @return the error
+	 */
+	CliUsageException error(final long[] trigger, final long[] group, final long[] present, final OptionConstraints constraints) {
+		return this.errorBuilder.build(trigger, group, present, constraints);
+	}
+	
+	private static long word(final long[] words, final int index) {
+		return index < words.length ? words[index] : 0L;
+	}
+	
+	private static int countCommon(final long[] set, final long[] present) {
+		int n = 0;
+		for(int i=0; i<set.length; ++i) {
+			n += Long.bitCount(set[i] & word(present, i));
+		}
+		return n;
+	}
+	
+	private static int countMissing(final long[] set, final long[] present) {
+		int n = 0;
+		for(int i=0; i<set.length; ++i) {
+			n += Long.bitCount(set[i] & ~word(present, i));
+		}
+		return n;
+	}
+	
+	/**
+	 * Returns the names of the options of a set, optionally restricted to the ones which are given (or missing) in the arguments.
+	 * 
+	 * @param constraints the constraints, used to name the options
+	 * @param set the set of options
+	 * @param present the options given in the arguments, or <code>null</code> to get all the options of the set
+	 * @param missing <code>true</code> to get the options which are not given, <code>false</code> to get the ones which are given
+	 * @return the names of the options
+	 */
+	static List<String> names(final OptionConstraints constraints, final long[] set, final long[] present, final boolean missing) {
+		final List<String> names = new ArrayList<>();
+		for(int i=0; i<set.length; ++i) {
+			long w = set[i];
+			if(present != null) {
+				w &= missing ? ~word(present, i) : word(present, i);
+			}
+			for(; w != 0; w &= w - 1) {
+				names.add(constraints.optionName(i * Long.SIZE + Long.numberOfTrailingZeros(w)));
+			}
+		}
+		return names;
+	}
+	
+	@FunctionalInterface
+	private interface ViolationPredicate {
+		
+		boolean isViolated(final long[] trigger, final long[] group, final long[] present);
+	}
+	
+	@FunctionalInterface
+	private interface ErrorBuilder {
+		
+		CliUsageException build(final long[] trigger, final long[] group, final long[] present, final OptionConstraints constraints);
+	}
+
+}
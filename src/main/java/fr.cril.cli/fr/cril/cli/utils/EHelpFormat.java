@@ -0,0 +1,194 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * An enumeration of the formats in which the option usage can be rendered.
+ * 
+ * Each format writes the options of an {@link OptionMap}, in the order given by its {@link OptionHelpIndex}.
+ * The renderings are intended to be generated at build time (see <code>fr.cril.cli.HelpGenerator</code>) and shipped as resources.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public enum EHelpFormat {
+
+	/** plain text, as printed by {@link OptionUsagePrinter#print(PrintWriter)} */
+	TEXT("txt", (o, p, out) -> new OptionUsagePrinter(o).print(out)),
+
+	/** a man page (roff format, section 1) */
+	MAN("1", EHelpFormat::writeMan),
+
+	/** a Markdown table */
+	MARKDOWN("md", EHelpFormat::writeMarkdown),
+
+	/** a JSON document describing the options */
+	JSON("json", EHelpFormat::writeJson);
+
+	/** the directory of the resources in which the renderings are stored */
+	public static final String RESOURCE_DIR = "META-INF/jigsaw-cli";
+
+	private final String extension;
+
+	private final HelpWriter writer;
+
+	private EHelpFormat(final String extension, final HelpWriter writer) {
+		this.extension = extension;
+		this.writer = writer;
+	}
+
+	/**
+	 * Returns the name of the resource in which the rendering related to an option class is stored.
+	 * 
+	 * The name is relative to the root of the class path (it has no leading slash).
+	 * 
+	 * @param optionClass the class which fields are annotated as options
+	 * @return the name of the resource
+	 */
+	public String resourceName(final Class<?> optionClass) {
+		return RESOURCE_DIR+"/"+optionClass.getName()+"."+this.extension;
+	}
+
+	/**
+	 * Writes the options in this format.
+	 * 
+	 * @param options the options
+	 * @param programName the name of the program, displayed by the formats which need it
+	 * @param out the {@link PrintWriter} in which the options are written
+	 */
+	public void write(final OptionMap options, final String programName, final PrintWriter out) {
+		this.writer.write(options, programName, out);
+		out.flush();
+	}
+
+	private static void writeMan(final OptionMap options, final String programName, final PrintWriter out) {
+		final OptionHelpIndex index = options.getHelpIndex();
+		out.print(".TH "+roffEscape(programName.toUpperCase())+" 1\n");
+		out.print(".SH NAME\n"+roffEscape(programName)+"\n");
+		out.print(".SH SYNOPSIS\n.B "+roffEscape(programName)+"\n[\\fIOPTIONS\\fR]");
+		final Multiplicity params = options.getParamMultiplicity();
+		if(params.getMax() > 0) {
+			out.print(" \\fIPARAMETERS\\fR ("+params.toHumanReadableString()+")");
+		}
+		out.print('\n');
+		if(index.size() == 0) {
+			return;
+		}
+		out.print(".SH OPTIONS\n");
+		for(final int row : index.allRows()) {
+			out.print(".TP\n");
+			final String names = Arrays.stream(new String[] {index.cell(row, OptionHelpIndex.SHORT_OPT_COL), index.cell(row, OptionHelpIndex.LONG_OPT_COL)})
+					.filter(s -> s != null).map(s -> "\\fB"+roffEscape(s)+"\\fR").collect(Collectors.joining(", "));
+			out.print(names);
+			final String args = index.cell(row, OptionHelpIndex.ARGS_COL);
+			if(args != null) {
+				out.print(" \\fI"+roffEscape(args)+"\\fR");
+			}
+			out.print('\n');
+			out.print(roffEscape(index.cell(row, OptionHelpIndex.DESCR_COL))+"\n");
+		}
+	}
+
+	private static String roffEscape(final String str) {
+		final String escaped = str.replace("\\", "\\e").replace("-", "\\-");
+		return escaped.startsWith(".") || escaped.startsWith("'") ? "\\&"+escaped : escaped;
+	}
+
+	private static void writeMarkdown(final OptionMap options, final String programName, final PrintWriter out) {
+		final OptionHelpIndex index = options.getHelpIndex();
+		out.print("| Short name | Long name | Arguments | Description |\n");
+		out.print("|------------|-----------|-----------|-------------|\n");
+		for(final int row : index.allRows()) {
+			out.print('|');
+			for(final int col : new int[] {OptionHelpIndex.SHORT_OPT_COL, OptionHelpIndex.LONG_OPT_COL, OptionHelpIndex.ARGS_COL}) {
+				final String cell = index.cell(row, col);
+				out.print(cell == null ? " " : " `"+cell+"` ");
+				out.print('|');
+			}
+			final String descr = index.cell(row, OptionHelpIndex.DESCR_COL);
+			out.print(descr.isEmpty() ? " |\n" : " "+descr.replace("|", "\\|")+" |\n");
+		}
+	}
+
+	private static void writeJson(final OptionMap options, final String programName, final PrintWriter out) {
+		final OptionHelpIndex index = options.getHelpIndex();
+		out.print("{\n  \"program\": "+jsonString(programName)+",\n");
+		final Multiplicity params = options.getParamMultiplicity();
+		out.print("  \"parameters\": {\"min\": "+params.getMin()+", \"max\": "+(params.getMax() == Integer.MAX_VALUE ? "null" : params.getMax())+"},\n");
+		out.print("  \"options\": [");
+		for(final int row : index.allRows()) {
+			final Field field = index.field(row);
+			out.print(row == 0 ? "\n" : ",\n");
+			out.print("    {\"short\": "+jsonString(options.getShortName(field)));
+			out.print(", \"long\": "+jsonString(options.getLongName(field)));
+			out.print(", \"args\": ["+Arrays.stream(options.getArgNames(field)).map(EHelpFormat::jsonString).collect(Collectors.joining(", "))+"]");
+			out.print(", \"required\": "+options.isRequired(field));
+			out.print(", \"description\": "+jsonString(options.getDescription(field))+"}");
+		}
+		out.print(index.size() == 0 ? "]\n}\n" : "\n  ]\n}\n");
+	}
+
+	private static String jsonString(final String str) {
+		if(str == null) {
+			return "null";
+		}
+		final StringBuilder sb = new StringBuilder(str.length()+2).append('"');
+		for(int i=0; i<str.length(); ++i) {
+			final char c = str.charAt(i);
+			switch(c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if(c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	@FunctionalInterface
+	private interface HelpWriter {
+
+		void write(final OptionMap options, final String programName, final PrintWriter out);
+	}
+
+}
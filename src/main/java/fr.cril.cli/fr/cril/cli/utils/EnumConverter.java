@@ -0,0 +1,291 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.cril.cli.CliOptionDefinitionException;
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUsageError;
+
+/**
+ * The conversion of CLI tokens into the constants of an enumeration (or into sets of such constants, given as comma-separated lists).
+ * 
+ * The constants are looked up by name in tables built once per enumeration and shared by all the converters of this enumeration:
+ * open addressing hash tables (one matching the names exactly, one ignoring case) probed with regions of the tokens,
+ * and the names sorted in both orders, in which unique prefixes are looked up by binary search.
+ * Thus, the elements of a list are converted without building any intermediate string.
+ * 
+ * An exact match is always preferred; if the converter ignores case, a match ignoring case is tried next,
+ * and if it allows unique prefixes, a name which is the only one to begin with the token is accepted last.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class EnumConverter {
+	
+	private static final ClassValue<Table> TABLES = new ClassValue<Table>() {
+		
+		@Override
+		protected Table computeValue(final Class<?> type) {
+			return new Table((Enum<?>[]) type.getEnumConstants());
+		}
+	};
+	
+	private final Class<?> enumCl;
+	
+	private final Table table;
+	
+	private final boolean set;
+	
+	private final boolean ignoreCase;
+	
+	private final boolean uniquePrefix;
+	
+	/**
+	 * Builds a converter.
+	 * 
+	 * @param enumCl the enumeration
+	 * @param set <code>true</code> if the tokens are comma-separated lists converted into {@link EnumSet} instances, <code>false</code> if they are single constants
+	 * @param ignoreCase <code>true</code> iff the case of the tokens may differ from the one of the names
+	 * @param uniquePrefix <code>true</code> iff the tokens may be prefixes of a single name
+	 */
+	public EnumConverter(final Class<?> enumCl, final boolean set, final boolean ignoreCase, final boolean uniquePrefix) {
+		if(enumCl == null || !enumCl.isEnum()) {
+			throw new IllegalArgumentException(enumCl+" is not an enumeration");
+		}
+		this.enumCl = enumCl;
+		this.table = TABLES.get(enumCl);
+		this.set = set;
+		this.ignoreCase = ignoreCase;
+		this.uniquePrefix = uniquePrefix;
+	}
+	
+	/**
+	 * Builds the converter of a field which type is an enumeration or an {@link EnumSet}.
+	 * 
+	 * @param field the field
+	 * @param ignoreCase <code>true</code> iff the case of the tokens may differ from the one of the names
+	 * @param uniquePrefix <code>true</code> iff the tokens may be prefixes of a single name
+	 * @return the converter
+	 * @throws CliOptionDefinitionException if the field type is neither an enumeration nor an {@link EnumSet} of a known enumeration
+	 */
+	static EnumConverter forField(final Field field, final boolean ignoreCase, final boolean uniquePrefix) throws CliOptionDefinitionException {
+		if(field.getType().isEnum()) {
+			return new EnumConverter(field.getType(), false, ignoreCase, uniquePrefix);
+		}
+		if(field.getType() != EnumSet.class) {
+			throw new CliOptionDefinitionException(field+": the field type is neither an enumeration nor "+EnumSet.class.getSimpleName());
+		}
+		final Type generic = field.getGenericType();
+		if(!(generic instanceof ParameterizedType) || !(((ParameterizedType) generic).getActualTypeArguments()[0] instanceof Class)) {
+			throw new CliOptionDefinitionException(field+": the enumeration of type "+generic.getTypeName()+" cannot be determined");
+		}
+		return new EnumConverter((Class<?>) ((ParameterizedType) generic).getActualTypeArguments()[0], true, ignoreCase, uniquePrefix);
+	}
+	
+	/**
+	 * Converts a token into a constant, or into a set of constants.
+	 * 
+	 * For sets, the empty token stands for the empty set.
+	 * 
+	 * @param token the token
+	 * @return the constant or the set of constants
+	 * @throws CliUsageException if a name is unknown or is an ambiguous prefix
+	 */
+	public Object convert(final String token) throws CliUsageException {
+		if(!this.set) {
+			return lookup(token, 0, token.length());
+		}
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		final EnumSet<?> result = EnumSet.noneOf((Class) this.enumCl);
+		if(token.isEmpty()) {
+			return result;
+		}
+		int from = 0;
+		while(true) {
+			final int comma = token.indexOf(',', from);
+			final int to = comma < 0 ? token.length() : comma;
+			addTo(result, lookup(token, from, to));
+			if(comma < 0) {
+				return result;
+			}
+			from = comma + 1;
+		}
+	}
+	
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static void addTo(final EnumSet set, final Enum constant) {
+		set.add(constant);
+	}
+	
+	/**
+	 * Returns the constants of the enumeration, in the order of their declaration.
+	 * 
+	 * @return the constants
+	 */
+	public Enum<?>[] constants() {
+		return this.table.constants.clone();
+	}
+	
+	/**
+	 * Returns <code>true</code> if the tokens are converted into sets of constants.
+	 * 
+	 * @return <code>true</code> if the tokens are converted into sets of constants
+	 */
+	public boolean isSet() {
+		return this.set;
+	}
+	
+	private Enum<?> lookup(final String token, final int from, final int to) throws CliUsageException {
+		Enum<?> constant = this.table.find(token, from, to, false);
+		if(constant == null && this.ignoreCase) {
+			constant = this.table.find(token, from, to, true);
+		}
+		if(constant != null) {
+			return constant;
+		}
+		if(this.uniquePrefix && to > from) {
+			final Enum<?>[] sorted = this.ignoreCase ? this.table.foldedSorted : this.table.sorted;
+			final int first = this.table.lowerBound(sorted, token, from, to, this.ignoreCase);
+			int last = first;
+			while(last < sorted.length && sorted[last].name().regionMatches(this.ignoreCase, 0, token, from, to - from)) {
+				++last;
+			}
+			if(last - first == 1) {
+				return sorted[first];
+			}
+			if(last - first > 1) {
+				throw new CliUsageException(EUsageError.AMBIGUOUS_ENUM_PREFIX, token.substring(from, to),
+						Arrays.stream(sorted, first, last).map(Enum::name).collect(Collectors.toList()));
+			}
+		}
+		final List<String> names = new ArrayList<>();
+		for(final Enum<?> c : this.table.constants) {
+			names.add(c.name());
+		}
+		throw new CliUsageException(EUsageError.NOT_AN_ENUM_CONSTANT, token.substring(from, to), names);
+	}
+	
+	private static final class Table {
+		
+		private final Enum<?>[] constants;
+		
+		private final Enum<?>[] exact;
+		
+		private final Enum<?>[] folded;
+		
+		private final int mask;
+		
+		private final Enum<?>[] sorted;
+		
+		private final Enum<?>[] foldedSorted;
+		
+		private Table(final Enum<?>[] constants) {
+			this.constants = constants;
+			final int capacity = Integer.highestOneBit(Math.max(2, constants.length) * 2 - 1) << 1;
+			this.exact = new Enum<?>[capacity];
+			this.folded = new Enum<?>[capacity];
+			this.mask = capacity - 1;
+			for(final Enum<?> constant : constants) {
+				insert(this.exact, constant, false);
+				insert(this.folded, constant, true);
+			}
+			this.sorted = constants.clone();
+			Arrays.sort(this.sorted, (a, b) -> a.name().compareTo(b.name()));
+			this.foldedSorted = constants.clone();
+			Arrays.sort(this.foldedSorted, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(a.name(), b.name()));
+		}
+		
+		private void insert(final Enum<?>[] slots, final Enum<?> constant, final boolean fold) {
+			final String name = constant.name();
+			int i = hash(name, 0, name.length(), fold) & this.mask;
+			while(slots[i] != null) {
+				if(slots[i].name().regionMatches(fold, 0, name, 0, name.length()) && slots[i].name().length() == name.length()) {
+					return;
+				}
+				i = (i + 1) & this.mask;
+			}
+			slots[i] = constant;
+		}
+		
+		private Enum<?> find(final String token, final int from, final int to, final boolean fold) {
+			final Enum<?>[] slots = fold ? this.folded : this.exact;
+			final int len = to - from;
+			for(int i = hash(token, from, to, fold) & this.mask; slots[i] != null; i = (i + 1) & this.mask) {
+				final String name = slots[i].name();
+				if(name.length() == len && name.regionMatches(fold, 0, token, from, len)) {
+					return slots[i];
+				}
+			}
+			return null;
+		}
+		
+		private int lowerBound(final Enum<?>[] names, final String token, final int from, final int to, final boolean fold) {
+			int low = 0;
+			int high = names.length;
+			while(low < high) {
+				final int mid = (low + high) >>> 1;
+				if(compare(names[mid].name(), token, from, to, fold) < 0) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+		
+		private static int compare(final String name, final String token, final int from, final int to, final boolean fold) {
+			final int len = Math.min(name.length(), to - from);
+			for(int i=0; i<len; ++i) {
+				final char c1 = fold ? fold(name.charAt(i)) : name.charAt(i);
+				final char c2 = fold ? fold(token.charAt(from + i)) : token.charAt(from + i);
+				if(c1 != c2) {
+					return c1 - c2;
+				}
+			}
+			return name.length() - (to - from);
+		}
+		
+		private static int hash(final String str, final int from, final int to, final boolean fold) {
+			int h = 0;
+			for(int i=from; i<to; ++i) {
+				h = 31 * h + (fold ? fold(str.charAt(i)) : str.charAt(i));
+			}
+			return h ^ (h >>> 16);
+		}
+		
+		private static char fold(final char c) {
+			return Character.toLowerCase(Character.toUpperCase(c));
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A metric index of option names, used to suggest the names which are the closest to an unknown one.
+ * 
+ * The names are stored in a BK-tree for the Levenshtein distance: each node keeps its children by their distance to it,
+ * so that, thanks to the triangle inequality, a query only visits the subtrees which may contain names within the search radius.
+ * The radius shrinks as soon as enough candidates are found, so that the cost of a query depends on the number of names close to it
+ * rather than on the number of names of the index.
+ * 
+ * Each name is associated to the text displayed in the suggestions (e.g. <code>--threads</code> for the long name <code>threads</code>).
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class NameIndex {
+	
+	/** the default maximal number of suggestions */
+	public static final int DEFAULT_SUGGESTIONS = 3;
+	
+	private static final int MAX_DEFAULT_DISTANCE = 2;
+	
+	private final String[] names;
+	
+	private final String[] displays;
+	
+	private final int[] firstChild;
+	
+	private final int[] nextSibling;
+	
+	private final int[] parentDistance;
+	
+	private final int maxLength;
+	
+	/**
+	 * Builds the index of a list of names.
+	 * 
+	 * @param names the names
+	 * @param displays the texts displayed for the names, in the same order
+	 */
+	public NameIndex(final List<String> names, final List<String> displays) {
+		if(names.size() != displays.size()) {
+			throw new IllegalArgumentException("the numbers of names and displayed texts differ");
+		}
+		this.names = names.toArray(new String[0]);
+		this.displays = displays.toArray(new String[0]);
+		this.firstChild = new int[this.names.length];
+		this.nextSibling = new int[this.names.length];
+		this.parentDistance = new int[this.names.length];
+		Arrays.fill(this.firstChild, -1);
+		Arrays.fill(this.nextSibling, -1);
+		this.maxLength = Arrays.stream(this.names).mapToInt(String::length).max().orElse(0);
+		final int[][] rows = new int[2][this.maxLength + 1];
+		for(int i=1; i<this.names.length; ++i) {
+			insert(i, rows);
+		}
+	}
+	
+	private void insert(final int node, final int[][] rows) {
+		int current = 0;
+		while(true) {
+			final int d = distance(this.names[node], this.names[current], rows);
+			int child = this.firstChild[current];
+			int last = -1;
+			while(child >= 0 && this.parentDistance[child] != d) {
+				last = child;
+				child = this.nextSibling[child];
+			}
+			if(child < 0) {
+				this.parentDistance[node] = d;
+				if(last < 0) {
+					this.firstChild[current] = node;
+				} else {
+					this.nextSibling[last] = node;
+				}
+				return;
+			}
+			current = child;
+		}
+	}
+	
+	/**
+	 * Returns the number of names in this index.
+	 * 
+	 * @return the number of names
+	 */
+	public int size() {
+		return this.names.length;
+	}
+	
+	/**
+	 * Returns the texts displayed for the names closest to a query, with the default number of suggestions and a maximal distance
+	 * depending on the length of the query (no suggestion for one or two characters, up to one edit for five characters, two edits beyond).
+	 * 
+	 * @param query the query
+	 * @return the suggestions, the closest first
+	 */
+	public List<String> suggest(final String query) {
+		return nearest(query, DEFAULT_SUGGESTIONS, Math.min(MAX_DEFAULT_DISTANCE, query.length() / 3));
+	}
+	
+	/**
+	 * Returns the texts displayed for the (at most) <code>k</code> names closest to a query, among the names within a maximal distance.
+	 * 
+	 * The names are sorted by increasing distance, then by displayed text; an exact match (distance zero) is returned as well.
+	 * 
+	 * @param query the query
+	 * @param k the maximal number of names
+	 * @param maxDistance the maximal Levenshtein distance between the query and the names
+	 * @return the texts displayed for the closest names
+	 */
+	public List<String> nearest(final String query, final int k, final int maxDistance) {
+		if(k <= 0 || maxDistance < 0 || this.names.length == 0) {
+			return new ArrayList<>();
+		}
+		final int[][] rows = new int[2][Math.max(query.length(), this.maxLength) + 1];
+		final int[] best = new int[k];
+		final int[] bestDistances = new int[k];
+		int nBest = 0;
+		int radius = maxDistance;
+		final int[] stack = new int[this.names.length];
+		int top = 0;
+		stack[top++] = 0;
+		while(top > 0) {
+			final int node = stack[--top];
+			final int d = distance(query, this.names[node], rows);
+			if(d <= radius) {
+				nBest = offer(node, d, best, bestDistances, nBest);
+				if(nBest == k) {
+					radius = bestDistances[k - 1];
+				}
+			}
+			for(int child = this.firstChild[node]; child >= 0; child = this.nextSibling[child]) {
+				if(Math.abs(this.parentDistance[child] - d) <= radius) {
+					stack[top++] = child;
+				}
+			}
+		}
+		final List<String> result = new ArrayList<>(nBest);
+		for(int i=0; i<nBest; ++i) {
+			result.add(this.displays[best[i]]);
+		}
+		return result;
+	}
+	
+	private int offer(final int node, final int d, final int[] best, final int[] bestDistances, final int nBest) {
+		int pos = nBest;
+		while(pos > 0 && (bestDistances[pos - 1] > d || (bestDistances[pos - 1] == d && this.displays[best[pos - 1]].compareTo(this.displays[node]) > 0))) {
+			--pos;
+		}
+		if(pos == best.length) {
+			return nBest;
+		}
+		final int kept = Math.min(nBest, best.length - 1);
+		System.arraycopy(best, pos, best, pos + 1, kept - pos);
+		System.arraycopy(bestDistances, pos, bestDistances, pos + 1, kept - pos);
+		best[pos] = node;
+		bestDistances[pos] = d;
+		return kept + 1;
+	}
+	
+	private static int distance(final String a, final String b, final int[][] rows) {
+		int[] previous = rows[0];
+		int[] current = rows[1];
+		for(int j=0; j<=b.length(); ++j) {
+			previous[j] = j;
+		}
+		for(int i=1; i<=a.length(); ++i) {
+			current[0] = i;
+			final char c = a.charAt(i - 1);
+			for(int j=1; j<=b.length(); ++j) {
+				final int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			final int[] tmp = previous;
+			previous = current;
+			current = tmp;
+		}
+		return previous[b.length()];
+	}
+
+}
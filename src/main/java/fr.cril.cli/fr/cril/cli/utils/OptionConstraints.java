@@ -0,0 +1,150 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUsageError;
+
+/**
+ * The constraints over the presence of the options defined in an {@link OptionMap}: the required options and the group constraints
+ * (see {@link EGroupConstraint}), compiled into bit masks over the identifiers of an {@link OptionSchema}.
+ * 
+ * The options given in CLI arguments are represented by words of bits, the option of identifier <code>id</code> being the bit <code>id % 64</code>
+ * of the word <code>id / 64</code>; checking all the constraints is a sequence of word operations, which does not depend on the number of given options.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class OptionConstraints {
+	
+	private final OptionSchema schema;
+	
+	private final long[] required;
+	
+	private final EGroupConstraint[] types;
+	
+	private final long[][] triggers;
+	
+	private final long[][] groups;
+	
+	/**
+	 * Compiles the constraints of an {@link OptionMap}.
+	 * 
+	 * The group constraints are taken into account only if their options have been resolved by {@link OptionMap#sanityChecks()}.
+	 * 
+	 * @param options the options
+	 * @param schema the schema of the options
+	 */
+	OptionConstraints(final OptionMap options, final OptionSchema schema) {
+		this.schema = schema;
+		final int nWords = (schema.nOptions() + Long.SIZE - 1) / Long.SIZE;
+		this.required = mask(schema, nWords, options.getRequiredFields().toArray(new Field[0]));
+		final List<OptionMap.GroupConstraint> constraints = options.getGroupConstraints().stream().filter(c -> c.group != null).collect(Collectors.toList());
+		this.types = new EGroupConstraint[constraints.size()];
+		this.triggers = new long[constraints.size()][];
+		this.groups = new long[constraints.size()][];
+		for(int i=0; i<this.types.length; ++i) {
+			final OptionMap.GroupConstraint constraint = constraints.get(i);
+			this.types[i] = constraint.type;
+			this.triggers[i] = constraint.trigger == null ? null : mask(schema, nWords, constraint.trigger);
+			this.groups[i] = mask(schema, nWords, constraint.group);
+		}
+	}
+	
+	private static long[] mask(final OptionSchema schema, final int nWords, final Field... fields) {
+		final long[] words = new long[nWords];
+		for(final Field field : fields) {
+			final int id = schema.id(field);
+			words[id / Long.SIZE] |= 1L << id;
+		}
+		return words;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff all the constraints are satisfied by the provided options.
+	 * 
+	 * @param present the options given in the arguments; the words beyond the length of the array are considered as zero
+	 * @return <code>true</code> iff all the constraints are satisfied
+	 */
+	public boolean isSatisfied(final long[] present) {
+		return missingRequired(present) == 0 && firstViolation(present, 0) < 0;
+	}
+	
+	/**
+	 * Checks all the constraints against the provided options, and returns the errors related to the violated ones.
+	 * 
+	 * The missing required options are reported first (in a single error), then the violated group constraints, in the order of their declaration.
+	 * 
+	 * @param present the options given in the arguments; the words beyond the length of the array are considered as zero
+	 * @return the errors, which list is empty if all the constraints are satisfied
+	 */
+	public List<CliUsageException> check(final long[] present) {
+		List<CliUsageException> errors = Collections.emptyList();
+		if(missingRequired(present) != 0) {
+			errors = new ArrayList<>();
+			errors.add(new CliUsageException(EUsageError.MISSING_REQUIRED_OPTIONS, EGroupConstraint.names(this, this.required, present, true)));
+		}
+		for(int i = firstViolation(present, 0); i >= 0; i = firstViolation(present, i+1)) {
+			if(errors.isEmpty()) {
+				errors = new ArrayList<>();
+			}
+			errors.add(this.types[i].error(this.triggers[i], this.groups[i], present, this));
+		}
+		return errors;
+	}
+	
+	/**
+	 * Returns the string describing an option in the errors (see {@link OptionSchema#name(int)}).
+	 * 
+	 * @param id the identifier of the option
+	 * @return the string describing the option
+	 */
+	String optionName(final int id) {
+		return this.schema.name(id);
+	}
+	
+	private int missingRequired(final long[] present) {
+		int n = 0;
+		for(int i=0; i<this.required.length; ++i) {
+			n += Long.bitCount(this.required[i] & ~(i < present.length ? present[i] : 0L));
+		}
+		return n;
+	}
+	
+	private int firstViolation(final long[] present, final int from) {
+		for(int i=from; i<this.types.length; ++i) {
+			if(this.types[i].isViolated(this.triggers[i], this.groups[i], present)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,322 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import fr.cril.cli.EUnit;
+
+/**
+ * An index of the options defined in an {@link OptionMap}, used to display their usage.
+ * 
+ * The index is built once for an option map: the rows (one per option) are computed and sorted
+ * according to precomputed collation keys, and the column widths are computed at this time.
+ * Queries (name prefixes, description substrings, pages) return row indexes in the sorted order,
+ * and their cost depends on the number of rows they return rather than on the number of options.
+ * 
+ * Rows are sorted by the short name of the option if it has one (by its long name otherwise), ignoring case first.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class OptionHelpIndex {
+
+	static final int SHORT_OPT_COL = 0;
+
+	static final int LONG_OPT_COL = 1;
+
+	static final int ARGS_COL = 2;
+
+	static final int DESCR_COL = 3;
+
+	private static final int TRIGRAM_SIZE = 3;
+
+	private final Field[] fields;
+	
+	private final String[][] rows;
+
+	private final int[] allRows;
+
+	private final int maxShortOptSize;
+
+	private final int maxLongOptSize;
+
+	private final int maxArgOptSize;
+
+	private final String[] sortedNames;
+
+	private final int[] sortedNameRows;
+
+	private final String[] searchableDescriptions;
+
+	private Map<Long, int[]> trigrams = null;
+
+	/**
+	 * Builds the index of the options defined in an {@link OptionMap}.
+	 * 
+	 * @param options the options
+	 */
+	public OptionHelpIndex(final OptionMap options) {
+		final List<Field> fields = options.namedFields();
+		final String[] keys = new String[fields.size()];
+		final String[] ignCaseKeys = new String[fields.size()];
+		for(int i=0; i<keys.length; ++i) {
+			final Field f = fields.get(i);
+			final String shortName = options.getShortName(f);
+			keys[i] = shortName == null ? options.getLongName(f) : shortName;
+			ignCaseKeys[i] = keys[i].toLowerCase();
+		}
+		final Comparator<Integer> cmp = Comparator.<Integer, String>comparing(i -> ignCaseKeys[i]).thenComparing(i -> keys[i]);
+		final List<Field> sortedFields = IntStream.range(0, keys.length).boxed().sorted(cmp).map(fields::get).collect(Collectors.toList());
+		this.fields = sortedFields.toArray(new Field[0]);
+		this.rows = buildRows(options, sortedFields);
+		this.allRows = IntStream.range(0, this.rows.length).toArray();
+		this.maxShortOptSize = maxColumnSize(SHORT_OPT_COL);
+		this.maxLongOptSize = maxColumnSize(LONG_OPT_COL);
+		this.maxArgOptSize = maxColumnSize(ARGS_COL);
+		final List<String> names = new ArrayList<>();
+		final List<Integer> nameRows = new ArrayList<>();
+		for(int i=0; i<sortedFields.size(); ++i) {
+			final Field f = sortedFields.get(i);
+			addName(names, nameRows, options.getShortName(f), i);
+			addName(names, nameRows, options.getLongName(f), i);
+		}
+		final Integer[] nameOrder = IntStream.range(0, names.size()).boxed().sorted(Comparator.comparing(names::get)).toArray(Integer[]::new);
+		this.sortedNames = Arrays.stream(nameOrder).map(names::get).toArray(String[]::new);
+		this.sortedNameRows = Arrays.stream(nameOrder).mapToInt(nameRows::get).toArray();
+		this.searchableDescriptions = Arrays.stream(this.rows).map(r -> r[DESCR_COL].toLowerCase()).toArray(String[]::new);
+	}
+
+	private static void addName(final List<String> names, final List<Integer> nameRows, final String name, final int row) {
+		if(name != null) {
+			names.add(name.toLowerCase());
+			nameRows.add(row);
+		}
+	}
+
+	private static String[][] buildRows(final OptionMap options, final List<Field> fields) {
+		final String[][] matrix = new String[fields.size()][4];
+		for(int i=0; i<fields.size(); ++i) {
+			final Field f = fields.get(i);
+			final String shortOpt = options.getShortName(f);
+			if(shortOpt != null) {
+				matrix[i][SHORT_OPT_COL] = "-"+shortOpt;
+			}
+			final String longOpt = options.getLongName(f);
+			if(longOpt != null) {
+				matrix[i][LONG_OPT_COL] = "--"+longOpt;
+			}
+			final String[] argNames = options.getArgNames(f);
+			if(argNames.length > 0) {
+				matrix[i][ARGS_COL] = Arrays.stream(argNames).map(s -> "<"+s+">").collect(Collectors.joining(" "));
+			}
+			String descr = options.getDescription(f);
+			final EUnit unit = options.getUnit(f);
+			if(unit != null) {
+				descr = descr.isEmpty() ? "["+unit.describe()+"]" : descr + " ["+unit.describe()+"]";
+			}
+			final ValueRange range = options.getRange(f);
+			if(range != null) {
+				descr = descr.isEmpty() ? "["+range+"]" : descr + " ["+range+"]";
+			}
+			if(options.isRequired(f)) {
+				descr = descr.isEmpty() ? "[required]" : descr + " [required]";
+			}
+			matrix[i][DESCR_COL] = descr;
+		}
+		return matrix;
+	}
+
+	private int maxColumnSize(final int col) {
+		return Arrays.stream(this.rows).map(r -> r[col]).filter(s -> s != null).mapToInt(String::length).max().orElse(0);
+	}
+
+	/**
+	 * Returns the number of rows (i.e. options) in this index.
+	 * 
+	 * @return the number of rows
+	 */
+	public int size() {
+		return this.rows.length;
+	}
+
+	/**
+	 * Returns the indexes of the rows related to options which short or long name begins with the provided prefix.
+	 * 
+	 * The comparison ignores case, and leading hyphens of the prefix are ignored (<code>--res</code> is equivalent to <code>res</code>).
+	 * The indexes are returned in the order of the rows.
+	 * 
+	 * @param prefix the prefix
+	 * @return the indexes of the matching rows
+	 */
+	public int[] withPrefix(final String prefix) {
+		if(prefix == null) {
+			throw new IllegalArgumentException();
+		}
+		int start = 0;
+		while(start < prefix.length() && prefix.charAt(start) == '-') {
+			++start;
+		}
+		final String key = prefix.substring(start).toLowerCase();
+		int low = 0;
+		int high = this.sortedNames.length;
+		while(low < high) {
+			final int mid = (low + high) >>> 1;
+			if(this.sortedNames[mid].compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int end = low;
+		while(end < this.sortedNames.length && this.sortedNames[end].startsWith(key)) {
+			++end;
+		}
+		return Arrays.stream(this.sortedNameRows, low, end).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Returns the indexes of the rows which description contains the provided text.
+	 * 
+	 * The comparison ignores case.
+	 * The indexes are returned in the order of the rows.
+	 * 
+	 * Texts of at least three characters are looked up in a trigram index built the first time this method is called,
+	 * so that only the descriptions sharing the rarest trigram of the text are checked.
+	 * 
+	 * @param text the text to look for
+	 * @return the indexes of the matching rows
+	 */
+	public int[] matching(final String text) {
+		if(text == null) {
+			throw new IllegalArgumentException();
+		}
+		final String key = text.toLowerCase();
+		if(key.length() < TRIGRAM_SIZE) {
+			return IntStream.range(0, this.rows.length).filter(i -> this.searchableDescriptions[i].contains(key)).toArray();
+		}
+		final Map<Long, int[]> index = trigramIndex();
+		int[] candidates = null;
+		for(int i=0; i<=key.length()-TRIGRAM_SIZE; ++i) {
+			final int[] posting = index.get(trigram(key, i));
+			if(posting == null) {
+				return new int[0];
+			}
+			if(candidates == null || posting.length < candidates.length) {
+				candidates = posting;
+			}
+		}
+		return Arrays.stream(candidates).filter(i -> this.searchableDescriptions[i].contains(key)).toArray();
+	}
+
+	private synchronized Map<Long, int[]> trigramIndex() {
+		if(this.trigrams == null) {
+			final Map<Long, List<Integer>> lists = new HashMap<>();
+			for(int row=0; row<this.searchableDescriptions.length; ++row) {
+				final String descr = this.searchableDescriptions[row];
+				for(int i=0; i<=descr.length()-TRIGRAM_SIZE; ++i) {
+					final List<Integer> posting = lists.computeIfAbsent(trigram(descr, i), k -> new ArrayList<>());
+					if(posting.isEmpty() || posting.get(posting.size()-1) != row) {
+						posting.add(row);
+					}
+				}
+			}
+			final Map<Long, int[]> index = new HashMap<>();
+			lists.forEach((k, v) -> index.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+			this.trigrams = index;
+		}
+		return this.trigrams;
+	}
+
+	private static long trigram(final String str, final int from) {
+		return ((long) str.charAt(from) << 32) | ((long) str.charAt(from+1) << 16) | str.charAt(from+2);
+	}
+
+	/**
+	 * Returns the indexes of the rows displayed on a page, given the full list of rows to display.
+	 * 
+	 * Pages are numbered from zero. An empty array is returned if the page is out of range.
+	 * 
+	 * @param selectedRows the rows to display
+	 * @param page the page number
+	 * @param pageSize the number of rows per page
+	 * @return the indexes of the rows displayed on the page
+	 */
+	public static int[] page(final int[] selectedRows, final int page, final int pageSize) {
+		if(page < 0 || pageSize <= 0) {
+			throw new IllegalArgumentException("invalid page ("+page+") or page size ("+pageSize+")");
+		}
+		final long from = (long) page * pageSize;
+		if(from >= selectedRows.length) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(selectedRows, (int) from, (int) Math.min(selectedRows.length, from + pageSize));
+	}
+
+	/**
+	 * Returns the indexes of the rows displayed on a page, considering all the rows of the index.
+	 * 
+	 * See {@link OptionHelpIndex#page(int[], int, int)}.
+	 * 
+	 * @param page the page number
+	 * @param pageSize the number of rows per page
+	 * @return the indexes of the rows displayed on the page
+	 */
+	public int[] page(final int page, final int pageSize) {
+		return page(this.allRows, page, pageSize);
+	}
+
+	int[] allRows() {
+		return this.allRows;
+	}
+
+	Field field(final int row) {
+		return this.fields[row];
+	}
+	
+	String cell(final int row, final int col) {
+		return this.rows[row][col];
+	}
+
+	int getMaxShortOptSize() {
+		return this.maxShortOptSize;
+	}
+
+	int getMaxLongOptSize() {
+		return this.maxLongOptSize;
+	}
+
+	int getMaxArgOptSize() {
+		return this.maxArgOptSize;
+	}
+
+}
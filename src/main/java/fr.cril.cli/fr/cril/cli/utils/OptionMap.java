@@ -27,9 +27,13 @@ import java.io.PrintWriter;
  */
 
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,8 +43,12 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import fr.cril.cli.BooleanVocabulary;
 import fr.cril.cli.CliOptionDefinitionException;
 import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUnit;
+import fr.cril.cli.EUsageError;
+import fr.cril.cli.Lazy;
 import fr.cril.cli.annotations.Args;
 import fr.cril.cli.annotations.LongName;
 import fr.cril.cli.annotations.Required;
@@ -81,10 +89,30 @@ public class OptionMap {
 	
 	private final List<Field> parameters = new ArrayList<>();
 	
+	private final List<GroupConstraint> groupConstraints = new ArrayList<>();
+	
+	private final Map<Field, Lazy.Converter<?>> lazyConverters = new HashMap<>();
+	
+	private final Map<Field, EFieldType> lazyTypes = new HashMap<>();
+	
+	private final Map<Field, EnumConverter> enumConverters = new HashMap<>();
+	
+	private final Map<Field, EUnit> units = new HashMap<>();
+	
+	private final Map<Field, String[]> rangeBounds = new HashMap<>();
+	
+	private final Map<Field, ValueRange> ranges = new HashMap<>();
+	
 	private static final Multiplicity DEFAULT_PARAM_MULTIPLICITY = new Multiplicity(0);
 	
 	private boolean allowShortNamesMerging = true;
 	
+	private BooleanVocabulary booleanVocabulary = null;
+	
+	private OptionHelpIndex helpIndex = null;
+	
+	private OptionSchema schema = null;
+	
 	/**
 	 * Associates a short name to a field.
 	 * 
@@ -110,6 +138,7 @@ public class OptionMap {
 		}
 		this.shortOpts.put(shortName, field);
 		this.revShortOpts.put(field, shortName);
+		invalidateIndexes();
 	}
 	
 	/**
@@ -119,7 +148,7 @@ public class OptionMap {
 	 * 
 	 * @param shortName a short name
 	 * @return the field associated to the short name
-	 * @throws CliUsageException if no field is associated to this short name
+	 * @throws CliUsageException if no field is associated to this short name (the exception suggests the closest names, see {@link OptionSchema#getNameIndex()})
 	 */
 	public Field getFieldByShortName(final String shortName) throws CliUsageException {
 		if(shortName == null) {
@@ -127,7 +156,7 @@ public class OptionMap {
 		}
 		final Field f = this.shortOpts.get(shortName);
 		if(f == null) {
-			throw new CliUsageException("no short option \"-"+shortName+"\"");
+			throw CliUsageException.withSuggestions(EUsageError.UNKNOWN_SHORT_OPTION, getSchema().getNameIndex().suggest(shortName), shortName);
 		}
 		return f;
 	}
@@ -153,7 +182,7 @@ public class OptionMap {
 	 * @param f the field
 	 * @return the field's short name, or <code>null</code> is none
 	 */
-	String getShortName(final Field f) {
+	public String getShortName(final Field f) {
 		return this.revShortOpts.get(f);
 	}
 	
@@ -165,7 +194,7 @@ public class OptionMap {
 	 * @param f the field
 	 * @return the field's long name, or <code>null</code> is none
 	 */
-	String getLongName(final Field f) {
+	public String getLongName(final Field f) {
 		return this.revLongOpts.get(f);
 	}
 	
@@ -194,6 +223,7 @@ public class OptionMap {
 		}
 		this.longOpts.put(longName, field);
 		this.revLongOpts.put(field, longName);
+		invalidateIndexes();
 	}
 
 	private void checkOptionName(final String name) throws CliOptionDefinitionException {
@@ -216,7 +246,7 @@ public class OptionMap {
 	 * 
 	 * @param longName a long name
 	 * @return the field associated to the long name
-	 * @throws CliUsageException if no field is associated to this long name
+	 * @throws CliUsageException if no field is associated to this long name (the exception suggests the closest names, see {@link OptionSchema#getNameIndex()})
 	 */
 	public Field getFieldByLongName(final String longName) throws CliUsageException {
 		if(longName == null) {
@@ -224,7 +254,7 @@ public class OptionMap {
 		}
 		final Field f = this.longOpts.get(longName);
 		if(f == null) {
-			throw new CliUsageException("no field linked to long option \""+longName+"\"");
+			throw CliUsageException.withSuggestions(EUsageError.UNKNOWN_LONG_OPTION, getSchema().getNameIndex().suggest(longName), longName);
 		}
 		return f;
 	}
@@ -285,6 +315,7 @@ public class OptionMap {
 			}
 			this.argNames.put(field, names);
 		}
+		invalidateIndexes();
 	}
 	
 	/**
@@ -333,6 +364,7 @@ public class OptionMap {
 			throw new CliOptionDefinitionException(field+": multiple occurrences of the required flag");
 		}
 		this.required.put(field, value);
+		invalidateIndexes();
 	}
 	
 	private void checkNullField(final Field field) {
@@ -402,6 +434,85 @@ public class OptionMap {
 				}
 			}
 		}
+		for(final Field field : Stream.concat(namedFields().stream(), this.parameters.stream()).filter(f -> f != null && f.getType() == Lazy.class).collect(Collectors.toList())) {
+			if(this.lazyConverters.containsKey(field)) {
+				continue;
+			}
+			final EFieldType valueType = getLazyValueType(field);
+			if(valueType == null) {
+				throw new CliOptionDefinitionException(field+": lazy values of type "+field.getGenericType().getTypeName()+" require a converter");
+			}
+			this.lazyTypes.put(field, valueType);
+		}
+		for(final Map.Entry<Field, String[]> entry : this.rangeBounds.entrySet()) {
+			final Field field = entry.getKey();
+			try {
+				this.ranges.put(field, new ValueRange(EFieldType.forClass(field.getType(), 1), this.units.get(field), entry.getValue()[0], entry.getValue()[1]));
+			} catch(final CliOptionDefinitionException e) {
+				throw new CliOptionDefinitionException(field+": "+e.getMessage());
+			}
+		}
+		for(final Field field : Stream.concat(namedFields().stream(), this.parameters.stream()).filter(f -> f != null && (f.getType().isEnum() || f.getType() == EnumSet.class)).collect(Collectors.toList())) {
+			if(!this.enumConverters.containsKey(field)) {
+				this.enumConverters.put(field, buildEnumConverter(field, false, false));
+			}
+		}
+		for(final GroupConstraint constraint : this.groupConstraints) {
+			constraint.trigger = constraint.option == null ? null : resolveConstrainedOption(constraint, constraint.option);
+			final Field[] group = new Field[constraint.names.length];
+			for(int i=0; i<group.length; ++i) {
+				group[i] = resolveConstrainedOption(constraint, constraint.names[i]);
+			}
+			constraint.group = group;
+		}
+		invalidateIndexes();
+	}
+	
+	private Field resolveConstrainedOption(final GroupConstraint constraint, final String name) throws CliOptionDefinitionException {
+		final Field field = this.shortOpts.containsKey(name) ? this.shortOpts.get(name) : this.longOpts.get(name);
+		if(field == null) {
+			throw new CliOptionDefinitionException(constraint+": no option named \""+name+"\"");
+		}
+		return field;
+	}
+	
+	/**
+	 * Declares a constraint over a group of options (see {@link EGroupConstraint}).
+	 * 
+	 * Options are given by their short or long names (without leading hyphens); the triggering option must be given iff the constraint is triggered
+	 * (see {@link EGroupConstraint#isTriggered()}).
+	 * Since the constraints may be declared before the options, the names are resolved by {@link OptionMap#sanityChecks()},
+	 * which throws a {@link CliOptionDefinitionException} if one of them is unknown.
+	 * 
+	 * @param type the type of the constraint
+	 * @param option the name of the triggering option, or <code>null</code> for the constraints which are not triggered
+	 * @param names the names of the options of the group
+	 * @throws CliOptionDefinitionException if the group is empty, or if the presence of the triggering option does not match the type of the constraint
+	 */
+	public void addGroupConstraint(final EGroupConstraint type, final String option, final String[] names) throws CliOptionDefinitionException {
+		if(type == null || names == null) {
+			throw new IllegalArgumentException("null constraint type or option names provided");
+		}
+		final GroupConstraint constraint = new GroupConstraint(type, option, names.clone());
+		if(names.length == 0) {
+			throw new CliOptionDefinitionException(constraint+": empty group of options");
+		}
+		if(type.isTriggered() != (option != null)) {
+			throw new CliOptionDefinitionException(constraint+": "+(type.isTriggered() ? "missing" : "unexpected")+" triggering option");
+		}
+		this.groupConstraints.add(constraint);
+		invalidateIndexes();
+	}
+	
+	/**
+	 * Returns the group constraints, in the order of their declaration.
+	 * 
+	 * The options of the constraints are resolved only after a call to {@link OptionMap#sanityChecks()}.
+	 * 
+	 * @return the group constraints
+	 */
+	List<GroupConstraint> getGroupConstraints() {
+		return Collections.unmodifiableList(this.groupConstraints);
 	}
 	
 	private Optional<String> unnamedIn(final Collection<Field> fields) {
@@ -461,6 +572,7 @@ public class OptionMap {
 			throw new CliOptionDefinitionException(field+": parameter index already in use (by "+this.parameters.get(paramIndex)+")");
 		}
 		this.parameters.set(paramIndex, field);
+		invalidateIndexes();
 	}
 	
 	/**
@@ -543,6 +655,7 @@ public class OptionMap {
 			throw new CliOptionDefinitionException(field+": multiple definition of the description");
 		}
 		this.descriptions.put(field, description);
+		invalidateIndexes();
 	}
 	
 	/**
@@ -559,6 +672,199 @@ public class OptionMap {
 		return descr == null ? DEFAULT_DESCRIPTION : descr;
 	}
 	
+	/**
+	 * Sets the conversion of the CLI token of an option (or parameter) which field type is {@link Lazy}.
+	 * 
+	 * The converter class is instantiated by this method, using its constructor without parameters.
+	 * A same field cannot be associated a converter twice.
+	 * 
+	 * @param field the field
+	 * @param converterCl the class of the converter
+	 * @throws CliOptionDefinitionException if the field is not a {@link Lazy} one, if a converter is associated twice to it, or if the converter cannot be instantiated
+	 */
+	public void setLazyConverter(final Field field, final Class<? extends Lazy.Converter<?>> converterCl) throws CliOptionDefinitionException {
+		checkNullField(field);
+		if(field.getType() != Lazy.class) {
+			throw new CliOptionDefinitionException(field+": a converter is given to a field which type is not "+Lazy.class.getSimpleName());
+		}
+		if(this.lazyConverters.containsKey(field)) {
+			throw new CliOptionDefinitionException(field+": multiple definition of the converter");
+		}
+		try {
+			this.lazyConverters.put(field, converterCl.getConstructor().newInstance());
+		} catch(final ReflectiveOperationException e) {
+			throw new CliOptionDefinitionException(field+": cannot instantiate the converter "+converterCl.getName()+" ("+e+")");
+		}
+	}
+	
+	/**
+	 * Returns the type of the values held by a {@link Lazy} field without converter, i.e. the {@link EFieldType} handling its type argument
+	 * (e.g. {@link EFieldType#INTEGER} for a <code>Lazy&lt;Integer&gt;</code> field).
+	 * 
+	 * @param field the field
+	 * @return the type of the values, or <code>null</code> if the field has a converter or if its type argument is not supported
+	 */
+	public EFieldType getLazyValueType(final Field field) {
+		checkNullField(field);
+		if(field.getType() != Lazy.class || this.lazyConverters.containsKey(field)) {
+			return null;
+		}
+		final EFieldType type = this.lazyTypes.get(field);
+		if(type != null) {
+			return type;
+		}
+		final Type generic = field.getGenericType();
+		if(!(generic instanceof ParameterizedType) || !(((ParameterizedType) generic).getActualTypeArguments()[0] instanceof Class)) {
+			return null;
+		}
+		final Class<?> valueCl = (Class<?>) ((ParameterizedType) generic).getActualTypeArguments()[0];
+		try {
+			final EFieldType valueType = EFieldType.forClass(valueCl, 1);
+			return valueType == EFieldType.LAZY || valueType == EFieldType.ENUM || valueType == EFieldType.ENUM_SET ? null : valueType;
+		} catch(final IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Builds the {@link Lazy} holder related to the CLI token of a {@link Lazy} field.
+	 * 
+	 * If the field has a converter (see {@link OptionMap#setLazyConverter(Field, Class)}), the conversion is deferred to the first access to the value.
+	 * Otherwise, the token is converted by this method according to the type argument of the field (see {@link OptionMap#getLazyValueType(Field)}),
+	 * so that a {@link CliUsageException} is thrown if it is invalid; Boolean tokens are read with the vocabulary of the schema
+	 * (see {@link OptionSchema#getBooleanVocabulary()}).
+	 * 
+	 * @param field the field
+	 * @param token the CLI token
+	 * @return the holder
+	 * @throws CliUsageException if the token cannot be converted
+	 */
+	public Lazy<?> convertLazy(final Field field, final String token) throws CliUsageException {
+		final Lazy.Converter<?> converter = this.lazyConverters.get(field);
+		if(converter != null) {
+			return Lazy.fromToken(token, converter);
+		}
+		final EFieldType type = getLazyValueType(field);
+		if(type == null) {
+			throw new IllegalArgumentException(field+": no conversion for the lazy values of this field");
+		}
+		final Object value = type.convert(Collections.singletonList(token), getSchema().getBooleanVocabulary());
+		return Lazy.fromToken(token, t -> value);
+	}
+	
+	/**
+	 * Sets the way the CLI token of an option (or parameter) which field type is an enumeration or an {@link EnumSet} is matched against the names of the constants.
+	 * 
+	 * By default, the names must match exactly.
+	 * A same field cannot be associated a matching twice.
+	 * 
+	 * @param field the field
+	 * @param ignoreCase <code>true</code> iff the case of the token may differ from the one of the names
+	 * @param uniquePrefix <code>true</code> iff the token may be a prefix of a single name
+	 * @throws CliOptionDefinitionException if the field type is neither an enumeration nor an {@link EnumSet}, or if a matching is associated twice to it
+	 */
+	public void setEnumMatching(final Field field, final boolean ignoreCase, final boolean uniquePrefix) throws CliOptionDefinitionException {
+		checkNullField(field);
+		if(this.enumConverters.containsKey(field)) {
+			throw new CliOptionDefinitionException(field+": multiple definition of the enumeration matching");
+		}
+		this.enumConverters.put(field, buildEnumConverter(field, ignoreCase, uniquePrefix));
+	}
+	
+	/**
+	 * Returns the converter of the CLI token of an option (or parameter) which field type is an enumeration or an {@link EnumSet}.
+	 * 
+	 * @param field the field
+	 * @return the converter
+	 * @throws IllegalArgumentException if the field type is neither an enumeration nor an {@link EnumSet} of a known enumeration
+	 */
+	public EnumConverter getEnumConverter(final Field field) {
+		checkNullField(field);
+		final EnumConverter converter = this.enumConverters.get(field);
+		if(converter != null) {
+			return converter;
+		}
+		try {
+			return buildEnumConverter(field, false, false);
+		} catch(final CliOptionDefinitionException e) {
+			throw new IllegalArgumentException(e.getMessage(), e);
+		}
+	}
+	
+	private static EnumConverter buildEnumConverter(final Field field, final boolean ignoreCase, final boolean uniquePrefix) throws CliOptionDefinitionException {
+		return EnumConverter.forField(field, ignoreCase, uniquePrefix);
+	}
+	
+	/**
+	 * Sets the unit of an option (or parameter) which field type is <code>long</code> or {@link Long}, so that its CLI token may carry unit suffixes.
+	 * 
+	 * A same field cannot be associated a unit twice.
+	 * 
+	 * @param field the field
+	 * @param unit the unit
+	 * @throws CliOptionDefinitionException if the field type is neither <code>long</code> nor {@link Long}, or if a unit is associated twice to it
+	 */
+	public void setUnit(final Field field, final EUnit unit) throws CliOptionDefinitionException {
+		checkNullField(field);
+		if(field.getType() != long.class && field.getType() != Long.class) {
+			throw new CliOptionDefinitionException(field+": a unit is given to a field which type is neither long nor "+Long.class.getSimpleName());
+		}
+		if(this.units.containsKey(field)) {
+			throw new CliOptionDefinitionException(field+": multiple definition of the unit");
+		}
+		this.units.put(field, unit);
+		invalidateIndexes();
+	}
+	
+	/**
+	 * Returns the unit of an option (or parameter).
+	 * 
+	 * @param field the field
+	 * @return the unit, or <code>null</code> if the field has no unit
+	 */
+	public EUnit getUnit(final Field field) {
+		checkNullField(field);
+		return this.units.get(field);
+	}
+	
+	/**
+	 * Sets the range of the values allowed for an option (or parameter) which field type is numeric
+	 * (<code>int</code>, <code>long</code>, <code>double</code>, <code>float</code> or their wrapper classes).
+	 * 
+	 * The bounds are CLI arguments of the field, converted when the options are checked (see {@link OptionMap#sanityChecks()});
+	 * an empty bound means that the range is unbounded on this side.
+	 * A same field cannot be associated a range twice.
+	 * 
+	 * @param field the field
+	 * @param min the lower bound (inclusive), or an empty string
+	 * @param max the upper bound (inclusive), or an empty string
+	 * @throws CliOptionDefinitionException if the field type is not numeric, or if a range is associated twice to it
+	 */
+	public void setRange(final Field field, final String min, final String max) throws CliOptionDefinitionException {
+		checkNullField(field);
+		if(!Arrays.asList(int.class, Integer.class, long.class, Long.class, double.class, Double.class, float.class, Float.class).contains(field.getType())) {
+			throw new CliOptionDefinitionException(field+": a range is given to a field which type is not numeric");
+		}
+		if(this.rangeBounds.containsKey(field)) {
+			throw new CliOptionDefinitionException(field+": multiple definition of the range");
+		}
+		this.rangeBounds.put(field, new String[] {min, max});
+		invalidateIndexes();
+	}
+	
+	/**
+	 * Returns the range of the values allowed for an option (or parameter).
+	 * 
+	 * The ranges are built by {@link OptionMap#sanityChecks()}; before that, this method returns <code>null</code>.
+	 * 
+	 * @param field the field
+	 * @return the range, or <code>null</code> if the field has none
+	 */
+	public ValueRange getRange(final Field field) {
+		checkNullField(field);
+		return this.ranges.get(field);
+	}
+	
 	/**
 	 * Prints the option list and their description into the provided {@link PrintWriter}.
 	 * 
@@ -569,6 +875,39 @@ public class OptionMap {
 		printer.print(out);
 	}
 	
+	/**
+	 * Returns the {@link OptionHelpIndex} of the options, used to print their usage.
+	 * 
+	 * The index is built the first time this method is called, and is rebuilt only if the options are modified afterwards.
+	 * 
+	 * @return the help index
+	 */
+	public synchronized OptionHelpIndex getHelpIndex() {
+		if(this.helpIndex == null) {
+			this.helpIndex = new OptionHelpIndex(this);
+		}
+		return this.helpIndex;
+	}
+	
+	/**
+	 * Returns the {@link OptionSchema} of the options, which gives a dense identifier to each option and parameter field.
+	 * 
+	 * The schema is built the first time this method is called, and is rebuilt only if the options are modified afterwards.
+	 * 
+	 * @return the schema
+	 */
+	public synchronized OptionSchema getSchema() {
+		if(this.schema == null) {
+			this.schema = new OptionSchema(this);
+		}
+		return this.schema;
+	}
+	
+	private synchronized void invalidateIndexes() {
+		this.helpIndex = null;
+		this.schema = null;
+	}
+	
 	/**
 	 * Computes the list of fields that have a name (short or long).
 	 * Duplicates are removed.
@@ -594,5 +933,53 @@ public class OptionMap {
 	public void allowShortNamesMerging(final boolean allow) {
 		this.allowShortNamesMerging = allow;
 	}
+	
+	/**
+	 * Sets the Boolean constants recognized by the options which take a Boolean argument.
+	 * 
+	 * The default is <code>null</code>, which means the constants given by {@link EFieldType#setBooleanConstants(String[], String[])} are used.
+	 * 
+	 * @param vocabulary the Boolean constants, or <code>null</code>
+	 */
+	public void setBooleanVocabulary(final BooleanVocabulary vocabulary) {
+		this.booleanVocabulary = vocabulary;
+		invalidateIndexes();
+	}
+	
+	/**
+	 * Returns the Boolean constants set by {@link OptionMap#setBooleanVocabulary(BooleanVocabulary)}.
+	 * 
+	 * @return the Boolean constants, or <code>null</code> if none was set
+	 */
+	public BooleanVocabulary getBooleanVocabulary() {
+		return this.booleanVocabulary;
+	}
+
+	/**
+	 * A constraint over a group of options, as declared by {@link OptionMap#addGroupConstraint(EGroupConstraint, String, String[])}.
+	 */
+	static final class GroupConstraint {
+		
+		final EGroupConstraint type;
+		
+		final String option;
+		
+		final String[] names;
+		
+		Field trigger;
+		
+		Field[] group;
+		
+		private GroupConstraint(final EGroupConstraint type, final String option, final String[] names) {
+			this.type = type;
+			this.option = option;
+			this.names = names;
+		}
+		
+		@Override
+		public String toString() {
+			return this.type+(this.option == null ? "" : "("+this.option+")")+Arrays.toString(this.names);
+		}
+	}
 
 }
@@ -0,0 +1,533 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fr.cril.cli.BooleanVocabulary;
+
+/**
+ * A compiled view of the options and parameters defined in an {@link OptionMap}, in which each field is given a dense identifier.
+ * 
+ * Identifiers range from <code>0</code> to {@link OptionSchema#size()} (exclusive): the options come first, in the order of the rows
+ * of the {@link OptionHelpIndex}, then the parameters, in the order of their indexes.
+ * For each identifier, the schema holds the field, its {@link EFieldType} and the {@link MethodHandle}s used to set and get the field,
+ * so that values can be associated to fields (and read from them) without any reflective lookup.
+ * 
+ * The values of the Boolean, integer and floating-point fields (primitive or not) can be stored as <code>long</code> values (see {@link OptionSchema#encode(int, Object)});
+ * the schema gives each identifier a slot, either in an array of <code>long</code> values or in an array of references (see {@link OptionSchema#slot(int)}),
+ * and provides setters which take the <code>long</code> values without boxing them.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public class OptionSchema {
+	
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+	
+	private static final MethodHandle LONG_BITS_TO_DOUBLE;
+	
+	static {
+		try {
+			LONG_BITS_TO_DOUBLE = MethodHandles.lookup().findStatic(Double.class, "longBitsToDouble", MethodType.methodType(double.class, long.class));
+		} catch(NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private final Field[] fields;
+	
+	private final EFieldType[] types;
+	
+	private final MethodHandle[] setters;
+	
+	private final MethodHandle[] getters;
+	
+	private final String[] names;
+	
+	private final Class<?>[] primitives;
+	
+	private final MethodHandle[] longSetters;
+	
+	private final int[] slots;
+	
+	private int nPrimitiveSlots = 0;
+	
+	private int nReferenceSlots = 0;
+	
+	private final int nOptions;
+	
+	private final Map<Field, Integer> ids = new HashMap<>();
+	
+	private final OptionConstraints constraints;
+	
+	private final BooleanVocabulary booleanVocabulary;
+	
+	private final List<String> optionNames = new ArrayList<>();
+	
+	private final List<String> optionNameDisplays = new ArrayList<>();
+	
+	private volatile NameIndex nameIndex = null;
+	
+	/**
+	 * Builds the schema of the options defined in an {@link OptionMap}.
+	 * 
+	 * @param options the options
+	 */
+	public OptionSchema(final OptionMap options) {
+		final OptionHelpIndex index = options.getHelpIndex();
+		final List<Field> all = new ArrayList<>();
+		for(final int row : index.allRows()) {
+			all.add(index.field(row));
+		}
+		this.nOptions = all.size();
+		for(int i=0; i<options.nParams(); ++i) {
+			final Field param = options.getParamField(i);
+			if(param != null) {
+				all.add(param);
+			}
+		}
+		this.fields = all.toArray(new Field[0]);
+		this.types = new EFieldType[this.fields.length];
+		this.setters = new MethodHandle[this.fields.length];
+		this.getters = new MethodHandle[this.fields.length];
+		this.names = new String[this.fields.length];
+		this.primitives = new Class<?>[this.fields.length];
+		this.longSetters = new MethodHandle[this.fields.length];
+		this.slots = new int[this.fields.length];
+		for(int i=0; i<this.fields.length; ++i) {
+			final Field field = this.fields[i];
+			this.ids.put(field, i);
+			this.types[i] = typeOf(field, i < this.nOptions ? options.getArgMultiplicity(field) : 1);
+			final Lookup lookup = lookupFor(field);
+			this.setters[i] = setterOf(lookup, field);
+			this.getters[i] = getterOf(lookup, field);
+			this.names[i] = i < this.nOptions ? options.fieldToString(field) : "parameter "+field.getName();
+			if(i < this.nOptions) {
+				addOptionName(options.getShortName(field), "-");
+				addOptionName(options.getLongName(field), "--");
+			}
+			this.primitives[i] = this.types[i] == null ? null : primitiveOf(field.getType());
+			if(this.primitives[i] != null) {
+				this.longSetters[i] = longSetterOf(lookup, field, this.primitives[i]);
+				this.slots[i] = this.nPrimitiveSlots++;
+			} else {
+				this.slots[i] = this.nReferenceSlots++;
+			}
+		}
+		this.constraints = new OptionConstraints(options, this);
+		this.booleanVocabulary = options.getBooleanVocabulary();
+	}
+	
+	private void addOptionName(final String name, final String prefix) {
+		if(name != null) {
+			this.optionNames.add(name);
+			this.optionNameDisplays.add(prefix+name);
+		}
+	}
+	
+	private static Class<?> primitiveOf(final Class<?> cl) {
+		if(cl == boolean.class || cl == Boolean.class) {
+			return boolean.class;
+		}
+		if(cl == int.class || cl == Integer.class) {
+			return int.class;
+		}
+		if(cl == long.class || cl == Long.class) {
+			return long.class;
+		}
+		if(cl == double.class || cl == Double.class) {
+			return double.class;
+		}
+		if(cl == float.class || cl == Float.class) {
+			return float.class;
+		}
+		return null;
+	}
+	
+	private static MethodHandle longSetterOf(final Lookup lookup, final Field field, final Class<?> primitive) {
+		try {
+			MethodHandle setter = lookup.unreflectSetter(field)
+					.asType(MethodType.methodType(void.class, field.getDeclaringClass(), primitive));
+			if(primitive == double.class || primitive == float.class) {
+				setter = MethodHandles.filterArguments(MethodHandles.explicitCastArguments(setter,
+						MethodType.methodType(void.class, field.getDeclaringClass(), double.class)), 1, LONG_BITS_TO_DOUBLE);
+			}
+			return MethodHandles.explicitCastArguments(setter, LONG_SETTER_TYPE);
+		} catch(RuntimeException | IllegalAccessException e) {
+			return null;
+		}
+	}
+	
+	private static EFieldType typeOf(final Field field, final int multiplicity) {
+		try {
+			return EFieldType.forClass(field.getType(), multiplicity);
+		} catch(IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns a lookup which has private access to the class declaring the field, so that the field handles can be built
+	 * without changing the accessibility of the field (which is shared with the users of the {@link OptionMap}).
+	 * 
+	 * @param field the field
+	 * @return the lookup, or the lookup of this class if private access is not granted
+	 */
+	private static Lookup lookupFor(final Field field) {
+		final Class<?> owner = field.getDeclaringClass();
+		try {
+			OptionSchema.class.getModule().addReads(owner.getModule());
+			return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+		} catch(RuntimeException | IllegalAccessException e) {
+			return MethodHandles.lookup();
+		}
+	}
+	
+	private static MethodHandle setterOf(final Lookup lookup, final Field field) {
+		try {
+			return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+		} catch(RuntimeException | IllegalAccessException e) {
+			try {
+				return MethodHandles.insertArguments(MethodHandles.lookup().findStatic(EFieldType.class, "assign",
+						MethodType.methodType(void.class, Field.class, Object.class, Object.class)), 0, field);
+			} catch (NoSuchMethodException | IllegalAccessException e2) {
+				throw new IllegalStateException(e2);
+			}
+		}
+	}
+	
+	private static MethodHandle getterOf(final Lookup lookup, final Field field) {
+		try {
+			return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+		} catch(RuntimeException | IllegalAccessException e) {
+			try {
+				return MethodHandles.insertArguments(MethodHandles.lookup().findStatic(OptionSchema.class, "read",
+						MethodType.methodType(Object.class, Field.class, Object.class)), 0, field);
+			} catch (NoSuchMethodException | IllegalAccessException e2) {
+				throw new IllegalStateException(e2);
+			}
+		}
+	}
+	
+	private static Object read(final Field field, final Object obj) {
+		final boolean canAccess = field.canAccess(obj);
+		field.setAccessible(true);
+		try {
+			return field.get(obj);
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			throw new IllegalArgumentException(e);
+		} finally {
+			field.setAccessible(canAccess);
+		}
+	}
+	
+	/**
+	 * Returns the number of identifiers (i.e. options and parameter fields) in this schema.
+	 * 
+	 * @return the number of identifiers
+	 */
+	public int size() {
+		return this.fields.length;
+	}
+	
+	/**
+	 * Returns the number of options in this schema; their identifiers come before the ones of the parameters.
+	 * 
+	 * @return the number of options
+	 */
+	public int nOptions() {
+		return this.nOptions;
+	}
+	
+	/**
+	 * Returns the identifier of a field, or <code>-1</code> if the field is neither an option nor a parameter.
+	 * 
+	 * @param field the field
+	 * @return the identifier of the field
+	 */
+	public int id(final Field field) {
+		final Integer id = this.ids.get(field);
+		return id == null ? -1 : id;
+	}
+	
+	/**
+	 * Returns the field related to an identifier.
+	 * 
+	 * @param id the identifier
+	 * @return the field
+	 */
+	public Field field(final int id) {
+		return this.fields[id];
+	}
+	
+	/**
+	 * Returns a human-readable name of the option or parameter related to an identifier.
+	 * 
+	 * @param id the identifier
+	 * @return the name
+	 */
+	public String name(final int id) {
+		return this.names[id];
+	}
+	
+	/**
+	 * Returns the {@link EFieldType} used to convert the values of the field related to an identifier,
+	 * or <code>null</code> if the type of the field is not handled.
+	 * 
+	 * @param id the identifier
+	 * @return the type
+	 */
+	public EFieldType type(final int id) {
+		return this.types[id];
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the identifier is related to a flag, i.e. a Boolean option which takes no argument.
+	 * 
+	 * The identifiers of the flags are lower than {@link OptionSchema#nOptions()}; the presence of the flags can be packed
+	 * in {@link OptionSchema#nFlagWords()} <code>long</code> words, the flag of identifier <code>id</code> being the bit <code>id % 64</code>
+	 * of the word <code>id / 64</code>.
+	 * 
+	 * @param id the identifier
+	 * @return <code>true</code> iff the identifier is related to a flag
+	 */
+	public boolean isFlag(final int id) {
+		return this.types[id] == EFieldType.BOOL || this.types[id] == EFieldType.BOOLEAN;
+	}
+	
+	/**
+	 * Returns the number of <code>long</code> words needed to pack the flags (see {@link OptionSchema#isFlag(int)}).
+	 * 
+	 * @return the number of words
+	 */
+	public int nFlagWords() {
+		return (this.nOptions + Long.SIZE - 1) / Long.SIZE;
+	}
+	
+	/**
+	 * Returns the constraints over the presence of the options (required options and group constraints), compiled over the identifiers of this schema.
+	 * 
+	 * @return the constraints
+	 */
+	public OptionConstraints getConstraints() {
+		return this.constraints;
+	}
+	
+	/**
+	 * Returns the index of the short and long names of the options, used to suggest names close to unknown ones
+	 * (the suggestions are displayed with their leading hyphens).
+	 * 
+	 * The index is built the first time this method is called.
+	 * 
+	 * @return the name index
+	 */
+	public NameIndex getNameIndex() {
+		NameIndex index = this.nameIndex;
+		if(index == null) {
+			synchronized(this) {
+				index = this.nameIndex;
+				if(index == null) {
+					index = new NameIndex(this.optionNames, this.optionNameDisplays);
+					this.nameIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the Boolean constants recognized by the options which take a Boolean argument.
+	 * 
+	 * These are the ones given by the {@link OptionMap} if any, and the ones shared by all the parsers (see {@link EFieldType#getBooleanVocabulary()}) otherwise.
+	 * 
+	 * @return the Boolean constants
+	 */
+	public BooleanVocabulary getBooleanVocabulary() {
+		return this.booleanVocabulary == null ? EFieldType.getBooleanVocabulary() : this.booleanVocabulary;
+	}
+	
+	/**
+	 * Sets the value of the field related to an identifier.
+	 * 
+	 * @param id the identifier
+	 * @param obj the object which field is set
+	 * @param value the value
+	 */
+	public void set(final int id, final Object obj, final Object value) {
+		try {
+			this.setters[id].invokeExact(obj, value);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+	/**
+	 * Returns a value of the field related to an identifier which can be handed to an object without being shared with its holder.
+	 * 
+	 * Mutable values (the {@link EnumSet} instances of the {@link EFieldType#ENUM_SET} fields) are copied; the other ones are returned as is.
+	 * 
+	 * @param id the identifier
+	 * @param value the value, possibly <code>null</code>
+	 * @return the value or its copy
+	 */
+	public Object copy(final int id, final Object value) {
+		return this.types[id] == EFieldType.ENUM_SET && value != null ? ((EnumSet<?>) value).clone() : value;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff the values of the field related to an identifier are stored as <code>long</code> values.
+	 * 
+	 * @param id the identifier
+	 * @return <code>true</code> iff the values are stored as <code>long</code> values
+	 */
+	public boolean isPrimitive(final int id) {
+		return this.primitives[id] != null;
+	}
+	
+	/**
+	 * Returns the slot of an identifier, i.e. its index in the array of <code>long</code> values if {@link OptionSchema#isPrimitive(int)} holds,
+	 * or its index in the array of references otherwise.
+	 * 
+	 * @param id the identifier
+	 * @return the slot
+	 */
+	public int slot(final int id) {
+		return this.slots[id];
+	}
+	
+	/**
+	 * Returns the number of slots in the array of <code>long</code> values.
+	 * 
+	 * @return the number of primitive slots
+	 */
+	public int nPrimitiveSlots() {
+		return this.nPrimitiveSlots;
+	}
+	
+	/**
+	 * Returns the number of slots in the array of references.
+	 * 
+	 * @return the number of reference slots
+	 */
+	public int nReferenceSlots() {
+		return this.nReferenceSlots;
+	}
+	
+	/**
+	 * Encodes the (non-null) value of a primitive identifier as a <code>long</code> value (<code>0</code> or <code>1</code> for Boolean values,
+	 * the bits of the <code>double</code> value given by {@link Double#doubleToRawLongBits(double)} for floating-point values).
+	 * 
+	 * @param id the identifier
+	 * @param value the value
+	 * @return the encoded value
+	 */
+	public long encode(final int id, final Object value) {
+		if(this.primitives[id] == boolean.class) {
+			return ((Boolean) value) ? 1L : 0L;
+		}
+		if(this.primitives[id] == double.class || this.primitives[id] == float.class) {
+			return Double.doubleToRawLongBits(((Number) value).doubleValue());
+		}
+		return ((Number) value).longValue();
+	}
+	
+	/**
+	 * Decodes the value of a primitive identifier encoded by {@link OptionSchema#encode(int, Object)}.
+	 * 
+	 * @param id the identifier
+	 * @param value the encoded value
+	 * @return the value
+	 */
+	public Object decode(final int id, final long value) {
+		if(this.primitives[id] == boolean.class) {
+			return value != 0;
+		}
+		if(this.primitives[id] == int.class) {
+			return (int) value;
+		}
+		if(this.primitives[id] == double.class) {
+			return Double.longBitsToDouble(value);
+		}
+		if(this.primitives[id] == float.class) {
+			return (float) Double.longBitsToDouble(value);
+		}
+		return value;
+	}
+	
+	/**
+	 * Sets the value of the field related to a primitive identifier, given its encoded value.
+	 * 
+	 * @param id the identifier
+	 * @param obj the object which field is set
+	 * @param value the encoded value
+	 */
+	public void setLong(final int id, final Object obj, final long value) {
+		final MethodHandle setter = this.longSetters[id];
+		if(setter == null) {
+			set(id, obj, decode(id, value));
+			return;
+		}
+		try {
+			setter.invokeExact(obj, value);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+	
+	/**
+	 * Gets the value of the field related to an identifier.
+	 * 
+	 * @param id the identifier
+	 * @param obj the object which field is read
+	 * @return the value
+	 */
+	public Object get(final int id, final Object obj) {
+		try {
+			return (Object) this.getters[id].invokeExact(obj);
+		} catch(RuntimeException | Error e) {
+			throw e;
+		} catch(Throwable e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
@@ -1,13 +1,6 @@
 package fr.cril.cli.utils;
 
 import java.io.PrintWriter;
-import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /*-
  * #%L
@@ -36,6 +29,9 @@ import java.util.stream.IntStream;
 /**
  * A class used to display the available options to the final user.
  * 
+ * The rows to display are taken from the {@link OptionHelpIndex} of the options,
+ * which allows to display only the options matching a name prefix, a description substring or a page.
+ * 
  * @author Emmanuel Lonca - lonca@cril.fr
  */
 public class OptionUsagePrinter {
@@ -57,74 +53,93 @@ public class OptionUsagePrinter {
 	 * @param out the {@link PrintWriter}
 	 */
 	public void print(final PrintWriter out) {
-		final List<Field> fields = this.options.namedFields().stream().sorted((f1, f2) -> {
-			final String short1 = this.options.getShortName(f1);
-			final String name1 = short1 == null ? this.options.getLongName(f1) : short1;
-			final String short2 = this.options.getShortName(f2);
-			final String name2 = short2 == null ? this.options.getLongName(f2) : short2;
-			final int ignCaseCmp = name1.toLowerCase().compareTo(name2.toLowerCase());
-			return ignCaseCmp == 0 ? name1.compareTo(name2) : ignCaseCmp;
-		}).collect(Collectors.toList());
-		final String[][] matrix = buildWordMatrix(fields);
-		printMatrix(out, fields, matrix);
-		out.flush();
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		print(out, index, index.allRows());
 	}
-
-	private String[][] buildWordMatrix(final List<Field> fields) {
-		final String[][] matrix = new String[fields.size()][4];
-		for(int i=0; i<fields.size(); ++i) {
-			final Field f = fields.get(i);
-			final String shortOpt = this.options.getShortName(f);
-			if(shortOpt != null) {
-				matrix[i][0] = "-"+shortOpt;
-			}
-			final String longOpt = this.options.getLongName(f);
-			if(longOpt != null) {
-				matrix[i][1] = "--"+longOpt;
-			}
-			final Optional<String> args = Arrays.stream(this.options.getArgNames(f)).map(s -> "<"+s+">").reduce((a,b) -> a+" "+b);
-			if(args.isPresent()) {
-				matrix[i][2] = args.get();
-			}
-			String descr = this.options.getDescription(f);
-			if(this.options.isRequired(f)) {
-				descr = descr.isEmpty() ? "[required]" : descr + " [required]";
-			}
-			matrix[i][3] = descr;
-		}
-		return matrix;
+	
+	/**
+	 * Prints the options which short or long name begins with the provided prefix into the provided {@link PrintWriter}.
+	 * 
+	 * See {@link OptionHelpIndex#withPrefix(String)}.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param prefix the prefix
+	 */
+	public void printPrefixed(final PrintWriter out, final String prefix) {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		print(out, index, index.withPrefix(prefix));
 	}
 	
-	private void printMatrix(final PrintWriter out, final List<Field> fields, final String[][] matrix) {
-		final int maxShortOptSize = IntStream.range(0, fields.size()).mapToObj(i -> matrix[i][0]).filter(Objects::nonNull).mapToInt(String::length).max().orElse(0);
-		final int maxLongOptSize = IntStream.range(0, fields.size()).mapToObj(i -> matrix[i][1]).filter(Objects::nonNull).mapToInt(String::length).max().orElse(0);
-		final int maxArgOptSize = IntStream.range(0, fields.size()).mapToObj(i -> matrix[i][2]).filter(Objects::nonNull).mapToInt(String::length).max().orElse(0);
+	/**
+	 * Prints the options which description contains the provided text into the provided {@link PrintWriter}.
+	 * 
+	 * See {@link OptionHelpIndex#matching(String)}.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param text the text to look for
+	 */
+	public void printMatching(final PrintWriter out, final String text) {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		print(out, index, index.matching(text));
+	}
+	
+	/**
+	 * Prints a page of the option list into the provided {@link PrintWriter}.
+	 * 
+	 * See {@link OptionHelpIndex#page(int, int)}.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param page the page number (starting at zero)
+	 * @param pageSize the number of options per page
+	 */
+	public void printPage(final PrintWriter out, final int page, final int pageSize) {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		print(out, index, index.page(page, pageSize));
+	}
+	
+	/**
+	 * Prints some rows of the option list into the provided {@link PrintWriter}.
+	 * 
+	 * Rows are given by their indexes in the {@link OptionHelpIndex} of the options.
+	 * Columns are aligned as if the full list was printed.
+	 * 
+	 * @param out the {@link PrintWriter}
+	 * @param rows the indexes of the rows to print
+	 */
+	public void print(final PrintWriter out, final int[] rows) {
+		print(out, this.options.getHelpIndex(), rows);
+	}
+
+	private void print(final PrintWriter out, final OptionHelpIndex index, final int[] rows) {
+		final int maxShortOptSize = index.getMaxShortOptSize();
+		final int maxLongOptSize = index.getMaxLongOptSize();
+		final int maxArgOptSize = index.getMaxArgOptSize();
 		if(maxShortOptSize != 0) {
 			if(maxLongOptSize != 0) {
-				printMatrixBothShortAndLongOpts(out, matrix, maxShortOptSize, maxLongOptSize, maxArgOptSize);
+				printRowsBothShortAndLongOpts(out, index, rows, maxShortOptSize, maxLongOptSize, maxArgOptSize);
 			} else {
-				printMatrixShortOptsOnly(out, matrix, maxShortOptSize, maxArgOptSize);
+				printRowsShortOptsOnly(out, index, rows, maxShortOptSize, maxArgOptSize);
 			}
 		} else if(maxLongOptSize != 0) {
-			printMatrixLongOptsOnly(out, matrix, maxLongOptSize, maxArgOptSize);
+			printRowsLongOptsOnly(out, index, rows, maxLongOptSize, maxArgOptSize);
 		}
 		out.flush();
 	}
 
-	private void printMatrixShortOptsOnly(final PrintWriter out, final String[][] matrix, final int maxShortOptSize, final int maxArgOptSize) {
-		for(int i=0; i<matrix.length; ++i) {
-			final String format = " %"+maxShortOptSize+"s";
-			out.printf(format, matrix[i][0]);
-			printArgs(out, matrix, i, maxArgOptSize);
-			printDescr(out, matrix, i);
+	private void printRowsShortOptsOnly(final PrintWriter out, final OptionHelpIndex index, final int[] rows, final int maxShortOptSize, final int maxArgOptSize) {
+		final String format = " %"+maxShortOptSize+"s";
+		for(final int row : rows) {
+			out.printf(format, index.cell(row, OptionHelpIndex.SHORT_OPT_COL));
+			printArgs(out, index, row, maxArgOptSize);
+			printDescr(out, index, row);
 		}
 	}
 
-	private void printArgs(final PrintWriter out, final String[][] matrix, final int fieldIndex, final int maxArgOptSize) {
-		final String args = matrix[fieldIndex][2];
+	private void printArgs(final PrintWriter out, final OptionHelpIndex index, final int row, final int maxArgOptSize) {
+		final String args = index.cell(row, OptionHelpIndex.ARGS_COL);
 		if(maxArgOptSize > 0) {
 			if(args == null) {
-				out.print(IntStream.range(0, 1+maxArgOptSize).mapToObj(i -> " ").reduce((a,b) -> a+b).orElse(""));
+				out.print(spaces(1+maxArgOptSize));
 			} else {
 				final String format = " %-"+maxArgOptSize+"s";
 				out.printf(format, args);
@@ -132,38 +147,42 @@ public class OptionUsagePrinter {
 		}
 	}
 
-	private void printDescr(final PrintWriter out, final String[][] matrix, final int fieldIndex) {
-		final String descr = matrix[fieldIndex][3];
+	private void printDescr(final PrintWriter out, final OptionHelpIndex index, final int row) {
+		final String descr = index.cell(row, OptionHelpIndex.DESCR_COL);
 		if(!descr.isEmpty()) {
 			out.printf("   %s", descr);
 		}
 		out.print('\n');
 	}
 
-	private void printMatrixLongOptsOnly(final PrintWriter out, final String[][] matrix, final int maxLongOptSize, final int maxArgOptSize) {
-		for(int i=0; i<matrix.length; ++i) {
-			final String format = " %-"+maxLongOptSize+"s";
-			out.printf(format, matrix[i][1]);
-			printArgs(out, matrix, i, maxArgOptSize);
-			printDescr(out, matrix, i);
+	private void printRowsLongOptsOnly(final PrintWriter out, final OptionHelpIndex index, final int[] rows, final int maxLongOptSize, final int maxArgOptSize) {
+		final String format = " %-"+maxLongOptSize+"s";
+		for(final int row : rows) {
+			out.printf(format, index.cell(row, OptionHelpIndex.LONG_OPT_COL));
+			printArgs(out, index, row, maxArgOptSize);
+			printDescr(out, index, row);
 		}
 	}
 
-	private void printMatrixBothShortAndLongOpts(final PrintWriter out, final String[][] matrix, final int maxShortOptSize, final int maxLongOptSize, final int maxArgOptSize) {
-		final String emptyShortOpt = IntStream.range(0, maxShortOptSize).mapToObj(i -> " ").reduce((a,b) -> a+b).orElse("");
+	private void printRowsBothShortAndLongOpts(final PrintWriter out, final OptionHelpIndex index, final int[] rows, final int maxShortOptSize, final int maxLongOptSize, final int maxArgOptSize) {
+		final String emptyShortOpt = spaces(maxShortOptSize);
 		final String shortOptFormat = "%"+maxShortOptSize+"s";
-		final String emptyLongOpt = IntStream.range(0, maxLongOptSize).mapToObj(i -> " ").reduce((a,b) -> a+b).orElse("");
+		final String emptyLongOpt = spaces(maxLongOptSize);
 		final String longOptFormat = "%-"+maxLongOptSize+"s";
-		for(int i=0; i<matrix.length; ++i) {
+		for(final int row : rows) {
 			out.print(' ');
-			final String shortOpt = matrix[i][0];
+			final String shortOpt = index.cell(row, OptionHelpIndex.SHORT_OPT_COL);
 			out.print(shortOpt == null ? emptyShortOpt : String.format(shortOptFormat, shortOpt));
-			final String longOpt = matrix[i][1];
+			final String longOpt = index.cell(row, OptionHelpIndex.LONG_OPT_COL);
 			out.print(shortOpt != null && longOpt != null ? ',' : ' ');
 			out.print(longOpt == null ? emptyLongOpt : String.format(longOptFormat, longOpt));
-			printArgs(out, matrix, i, maxArgOptSize);
-			printDescr(out, matrix, i);
+			printArgs(out, index, row, maxArgOptSize);
+			printDescr(out, index, row);
 		}
 	}
+	
+	private static String spaces(final int n) {
+		return " ".repeat(n);
+	}
 
 }
@@ -0,0 +1,129 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import java.util.Collections;
+
+import fr.cril.cli.CliOptionDefinitionException;
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.EUnit;
+import fr.cril.cli.EUsageError;
+
+/**
+ * The range of the values allowed for a numeric option (or parameter), given by an inclusive lower bound and an inclusive upper bound.
+ * 
+ * The bounds are given as CLI tokens and converted once, when the options are defined, in the same way as the arguments of the field
+ * (so that the bounds of a field with a unit may carry suffixes).
+ * They are stored as <code>long</code> values for the integer fields and as <code>double</code> values for the floating-point fields,
+ * so that the converted values can be checked without being boxed.
+ * 
+ * @author Emmanuel Lonca - lonca@cril.fr
+ */
+public final class ValueRange {
+	
+	private final boolean floating;
+	
+	private final long min;
+	
+	private final long max;
+	
+	private final double doubleMin;
+	
+	private final double doubleMax;
+	
+	private final String minText;
+	
+	private final String maxText;
+	
+	ValueRange(final EFieldType type, final EUnit unit, final String minText, final String maxText) throws CliOptionDefinitionException {
+		this.floating = type == EFieldType.DOUBLE || type == EFieldType.DBL || type == EFieldType.FLOAT || type == EFieldType.FLT;
+		this.minText = minText.isEmpty() ? null : minText;
+		this.maxText = maxText.isEmpty() ? null : maxText;
+		final Number lower = bound(type, unit, this.minText);
+		final Number upper = bound(type, unit, this.maxText);
+		this.min = lower == null ? Long.MIN_VALUE : lower.longValue();
+		this.max = upper == null ? Long.MAX_VALUE : upper.longValue();
+		this.doubleMin = lower == null ? Double.NEGATIVE_INFINITY : lower.doubleValue();
+		this.doubleMax = upper == null ? Double.POSITIVE_INFINITY : upper.doubleValue();
+		if(this.floating ? this.doubleMin > this.doubleMax : this.min > this.max) {
+			throw new CliOptionDefinitionException("empty range ["+minText+", "+maxText+"]");
+		}
+	}
+	
+	private static Number bound(final EFieldType type, final EUnit unit, final String text) throws CliOptionDefinitionException {
+		if(text == null) {
+			return null;
+		}
+		try {
+			return unit == null ? (Number) type.convert(Collections.singletonList(text)) : unit.parse(text);
+		} catch(final CliUsageException e) {
+			throw new CliOptionDefinitionException("invalid range bound \""+text+"\" ("+e.getMessage()+")");
+		}
+	}
+	
+	/**
+	 * Returns <code>true</code> iff an integer value lies in this range.
+	 * 
+	 * @param value the value
+	 * @return <code>true</code> iff the value lies in this range
+	 */
+	public boolean contains(final long value) {
+		return this.floating ? contains((double) value) : value >= this.min && value <= this.max;
+	}
+	
+	/**
+	 * Returns <code>true</code> iff a floating-point value lies in this range (<code>NaN</code> lies in no range).
+	 * 
+	 * @param value the value
+	 * @return <code>true</code> iff the value lies in this range
+	 */
+	public boolean contains(final double value) {
+		return value >= this.doubleMin && value <= this.doubleMax;
+	}
+	
+	/**
+	 * Checks that a converted value lies in this range.
+	 * 
+	 * @param option the name of the option (or parameter), reported in the error
+	 * @param token the CLI token which was converted into the value, reported in the error
+	 * @param value the value
+	 * @throws CliUsageException if the value does not lie in this range
+	 */
+	public void check(final String option, final String token, final Number value) throws CliUsageException {
+		final boolean in = value instanceof Double || value instanceof Float ? contains(value.doubleValue()) : contains(value.longValue());
+		if(!in) {
+			throw new CliUsageException(EUsageError.OUT_OF_RANGE, option, token, this.minText, this.maxText);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		if(this.minText == null) {
+			return this.maxText == null ? "" : "<= "+this.maxText;
+		}
+		return this.maxText == null ? ">= "+this.minText : this.minText+".."+this.maxText;
+	}
+
+}
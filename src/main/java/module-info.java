@@ -28,6 +28,8 @@
  */
 module fr.cril.cli {
 	
+	requires java.management;
+	
 	exports fr.cril.cli;
 	exports fr.cril.cli.annotations;
 }
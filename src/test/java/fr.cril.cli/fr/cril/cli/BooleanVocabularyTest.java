@@ -0,0 +1,145 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.ShortName;
+
+public class BooleanVocabularyTest {
+	
+	private static final BooleanVocabulary YES_NO = BooleanVocabulary.of(new String[] {"no", "off", "0"}, new String[] {"yes", "on", "1"}, true);
+	
+	public class TestClass {
+		
+		@ShortName("a")
+		@Args(1)
+		private boolean a;
+		
+		@ShortName("b")
+		@Args(1)
+		private Boolean b;
+	}
+	
+	public class LazyTestClass {
+		
+		@ShortName("x")
+		@Args(1)
+		private Lazy<Boolean> x;
+	}
+	
+	@AfterEach
+	@SuppressWarnings("deprecation")
+	public void tearDown() {
+		CliArgsParser.resetBooleanConstants();
+	}
+	
+	@Test
+	public void testLookup() {
+		assertEquals(Boolean.TRUE, YES_NO.lookup("on"));
+		assertEquals(Boolean.FALSE, YES_NO.lookup("0"));
+		assertNull(YES_NO.lookup("maybe"));
+		assertNull(YES_NO.lookup(""));
+		assertEquals(Boolean.TRUE, BooleanVocabulary.DEFAULT.lookup("true"));
+		assertNull(BooleanVocabulary.DEFAULT.lookup("TRUE"));
+	}
+	
+	@Test
+	public void testIgnoreCase() {
+		assertEquals(Boolean.TRUE, YES_NO.lookup("YES"));
+		assertEquals(Boolean.FALSE, YES_NO.lookup("Off"));
+		assertTrue(YES_NO.isIgnoreCase());
+	}
+	
+	@Test
+	public void testFormat() {
+		assertEquals("yes", YES_NO.format(true));
+		assertEquals("no", YES_NO.format(false));
+	}
+	
+	@Test
+	public void testWrongVocabularies() {
+		assertThrows(IllegalArgumentException.class, () -> BooleanVocabulary.of(new String[] {"a"}, new String[] {"a"}, false));
+		assertThrows(IllegalArgumentException.class, () -> BooleanVocabulary.of(new String[] {"a"}, new String[] {"A"}, true));
+		assertThrows(IllegalArgumentException.class, () -> BooleanVocabulary.of(new String[] {"a"}, new String[0], false));
+		assertThrows(IllegalArgumentException.class, () -> BooleanVocabulary.of(new String[] {"a"}, new String[] {null}, false));
+		assertEquals(Boolean.TRUE, BooleanVocabulary.of(new String[] {"a"}, new String[] {"A"}, false).lookup("A"));
+	}
+	
+	@Test
+	public void testPerParserVocabulary() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> custom = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		custom.setBooleanVocabulary(YES_NO);
+		final CliArgsParser<TestClass> standard = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final TestClass obj = new TestClass();
+		custom.parse(obj, new String[] {"-a", "On", "-b", "no"});
+		assertTrue(obj.a);
+		assertEquals(Boolean.FALSE, obj.b);
+		assertThrows(CliUsageException.class, () -> standard.parse(new TestClass(), new String[] {"-a", "yes"}));
+		standard.parse(obj, new String[] {"-a", "false"});
+		assertFalse(obj.a);
+		assertEquals(Boolean.TRUE, custom.parse(new String[] {"-b", "1"}).get(custom.optionKey("b", Boolean.class)));
+	}
+	
+	@Test
+	public void testPerParserVocabularyLazy() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<LazyTestClass> custom = new CliArgsParser<>(new ClassParser<>(LazyTestClass.class));
+		custom.setBooleanVocabulary(YES_NO);
+		final LazyTestClass obj = new LazyTestClass();
+		custom.parse(obj, new String[] {"-x", "yes"});
+		assertEquals(Boolean.TRUE, obj.x.get());
+		final CliArgsParser<LazyTestClass> standard = new CliArgsParser<>(new ClassParser<>(LazyTestClass.class));
+		assertThrows(CliUsageException.class, () -> standard.parse(new LazyTestClass(), new String[] {"-x", "yes"}));
+	}
+	
+	@Test
+	public void testUnparse() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		parser.setBooleanVocabulary(YES_NO);
+		final TestClass obj = new TestClass();
+		parser.parse(obj, new String[] {"-a", "ON", "-b", "off"});
+		assertArrayEquals(new String[] {"-a", "yes", "-b", "no"}, parser.unparse(obj, new TestClass()));
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testSharedConstantsKeepAllTrueValues() throws CliUsageException, CliOptionDefinitionException {
+		CliArgsParser.setBooleanConstants(new String[] {"never"}, new String[] {"always", "sometimes"});
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final TestClass obj = new TestClass();
+		parser.parse(obj, new String[] {"-a", "sometimes"});
+		assertTrue(obj.a);
+	}
+
+}
@@ -29,6 +29,7 @@ import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.ByteArrayOutputStream;
@@ -79,6 +80,48 @@ public class ClassParserTest {
 		assertEquals(" -f,--field <arg0>\n", new String(os.toByteArray()));
 	}
 	
+	@Test
+	public void testPrintOptionUsageAfterMergingChange() throws CliOptionDefinitionException {
+		final ClassParser<OptionParserTestClassOk> parser = new ClassParser<>(OptionParserTestClassOk.class);
+		parser.parse();
+		parser.allowShortNamesMerging(false);
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final PrintWriter pw = new PrintWriter(os);
+		parser.printOptionUsage(pw);
+		parser.allowShortNamesMerging(true);
+		parser.printOptionUsage(pw, "fi");
+		parser.allowShortNamesMerging(false);
+		parser.printOptionUsage(pw, 0, 10);
+		parser.allowShortNamesMerging(true);
+		parser.searchOptionUsage(pw, "nothing");
+		pw.flush();
+		assertEquals(" -f,--field <arg0>\n -f,--field <arg0>\n -f,--field <arg0>\n", new String(os.toByteArray()));
+	}
+	
+	@Test
+	public void testPrintOptionUsageInvalidMergingChange() throws CliOptionDefinitionException {
+		final ClassParser<OptionParserTestWithAmbiguity> parser = new ClassParser<>(OptionParserTestWithAmbiguity.class);
+		parser.allowShortNamesMerging(false);
+		parser.parse();
+		parser.allowShortNamesMerging(true);
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final PrintWriter pw = new PrintWriter(os);
+		parser.printOptionUsage(pw);
+		pw.flush();
+		assertEquals(3, new String(os.toByteArray()).split("\n").length);
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void testFieldsNotMadeAccessible() throws CliOptionDefinitionException, CliUsageException {
+		final ClassParser<OptionParserTestClassOk> parser = new ClassParser<>(OptionParserTestClassOk.class);
+		final OptionMap optionMap = parser.parse();
+		final OptionParserTestClassOk obj = new OptionParserTestClassOk();
+		new CliArgsParser<>(parser).parse(obj, new String[] {"-f", "v", "p"});
+		assertEquals("v", obj.field);
+		assertFalse(optionMap.getFieldByShortName("f").isAccessible());
+	}
+	
 	@Test
 	public void testShortNamesAmbiguity() {
 		final ClassParser<OptionParserTestWithAmbiguity> parser = new ClassParser<>(OptionParserTestWithAmbiguity.class);
@@ -24,11 +24,14 @@ package fr.cril.cli;
  * #L%
  */
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -186,6 +189,52 @@ public class CliArgsParserTest {
 		assertTrue(obj.multicharShortNamed);
 	}
 	
+	@Test
+	public void testErrorCodes() {
+		final TestClassOkOptions obj = new TestClassOkOptions();
+		final ClassParser<TestClassOkOptions> optParser = new ClassParser<>(TestClassOkOptions.class);
+		final CliArgsParser<TestClassOkOptions> cliParser = new CliArgsParser<>(optParser);
+		CliUsageException e = assertThrows(CliUsageException.class, () -> cliParser.parse(obj, new String[] {"-m", "foobar", "--baz"}));
+		assertEquals(EUsageError.UNKNOWN_LONG_OPTION, e.getError());
+		assertArrayEquals(new Object[] {"baz"}, e.getArguments());
+		e = assertThrows(CliUsageException.class, () -> cliParser.parse(obj, new String[] {"-m"}));
+		assertEquals(EUsageError.NOT_ENOUGH_OPTION_ARGUMENTS, e.getError());
+		assertArrayEquals(new Object[] {"m", 1}, e.getArguments());
+		assertEquals("not enough parameters for option \"m\" (expected 1)", e.getMessage());
+		e = assertThrows(CliUsageException.class, () -> cliParser.parse(obj, new String[] {"-m", "foobar", "-fx"}));
+		assertEquals(EUsageError.UNKNOWN_MERGED_SHORT_OPTIONS, e.getError());
+		assertEquals("no short option \"-x\" and no \"fx\" short option", e.getMessage());
+		e = assertThrows(CliUsageException.class, () -> cliParser.parse(obj, new String[] {"-f"}));
+		assertEquals(EUsageError.MISSING_REQUIRED_OPTIONS, e.getError());
+		assertEquals("the following fields have no value (although they have to): --mandatory (-m)", e.getMessage());
+	}
+	
+	@Test
+	public void testValidateOk() throws CliOptionDefinitionException {
+		final ClassParser<TestClassOkOptions> optParser = new ClassParser<>(TestClassOkOptions.class);
+		final CliArgsParser<TestClassOkOptions> cliParser = new CliArgsParser<>(optParser);
+		final ValidationReport report = cliParser.validate(new String[] {"-m", "foobar", "-fb", "param"});
+		assertTrue(report.isValid());
+		assertEquals(Collections.emptyList(), cliParser.getParameters());
+	}
+	
+	@Test
+	public void testValidateErrors() throws CliOptionDefinitionException {
+		final ClassParser<TestClassOkOptions> optParser = new ClassParser<>(TestClassOkOptions.class);
+		final CliArgsParser<TestClassOkOptions> cliParser = new CliArgsParser<>(optParser);
+		final ValidationReport report = cliParser.validate(new String[] {"-x", "--foo", "--baz", "p1", "p2"});
+		assertFalse(report.isValid());
+		assertEquals(Arrays.asList(EUsageError.UNKNOWN_SHORT_OPTION, EUsageError.UNKNOWN_LONG_OPTION, EUsageError.MISSING_REQUIRED_OPTIONS, EUsageError.WRONG_PARAMETER_COUNT), report.getErrorCodes());
+	}
+	
+	@Test
+	public void testValidateConversion() throws CliOptionDefinitionException {
+		final ClassParser<TestClassOkClass> optParser = new ClassParser<>(TestClassOkClass.class);
+		final CliArgsParser<TestClassOkClass> cliParser = new CliArgsParser<>(optParser);
+		assertTrue(cliParser.validate(new String[] {"a", "1"}).isValid());
+		assertEquals(Collections.singletonList(EUsageError.NOT_AN_INTEGER), cliParser.validate(new String[] {"a", "b"}).getErrorCodes());
+	}
+	
 	@Params("1..2")
 	private class TestClassOkClass {
 		
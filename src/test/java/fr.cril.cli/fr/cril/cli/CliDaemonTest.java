@@ -0,0 +1,184 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.ShortName;
+
+public class CliDaemonTest {
+	
+	@Params("0..*")
+	private class TestOptions {
+		
+		@ShortName("n")
+		@Args(1)
+		@Required
+		private int n;
+		
+		@ShortName("v")
+		private boolean verbose;
+	}
+	
+	private CliDaemon daemon;
+	
+	private SocketAddress address;
+	
+	@BeforeEach
+	public void setUp(@TempDir final Path dir) throws CliOptionDefinitionException, IOException {
+		this.daemon = new CliDaemon(4);
+		this.daemon.register("square", TestOptions.class, TestOptions::new, (o, p, out) -> {
+			out.print((o.verbose ? "square=" : "")+(o.n * o.n)+" "+p);
+			return o.n % 256;
+		});
+		final SocketAddress requested = CliDaemon.isUnixDomainSocketSupported() ? CliDaemon.unixDomainAddress(dir.resolve("daemon.sock")) : CliDaemon.loopbackAddress(0);
+		this.address = this.daemon.start(requested);
+	}
+	
+	@AfterEach
+	public void tearDown() throws IOException {
+		this.daemon.close();
+	}
+	
+	private String call(final String entryPoint, final String[] args, final int expectedExitCode) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals(expectedExitCode, CliDaemonClient.call(this.address, entryPoint, args, out));
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void testCall() throws IOException {
+		assertEquals("square=9 [a, b]", call("square", new String[] {"-v", "-n", "3", "a", "b"}, 3));
+	}
+	
+	@Test
+	public void testUsageError() throws IOException {
+		final String out = call("square", new String[] {"-n", "x"}, CliDaemon.EXIT_USAGE_ERROR);
+		assertTrue(out.startsWith("error in the CLI arguments: expected an integer, found \"x\"\n"));
+	}
+	
+	@Test
+	public void testUnknownEntryPoint() throws IOException {
+		call("cube", new String[] {}, CliDaemon.EXIT_UNKNOWN_ENTRY_POINT);
+	}
+	
+	@Test
+	public void testAlreadyRegistered() {
+		assertThrows(IllegalArgumentException.class, () -> this.daemon.register("square", TestOptions.class, TestOptions::new, (o, p, out) -> 0));
+	}
+	
+	@Test
+	public void testRequestTooLarge() throws IOException {
+		this.daemon.setMaxRequestSize(64);
+		try(final SocketChannel client = CliDaemon.openChannel(this.address)) {
+			client.write(ByteBuffer.wrap(new byte[1000]));
+			// the output is not shut down: the daemon must close the connection without waiting for the end of the request
+			assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+				try {
+					Channels.newInputStream(client).transferTo(OutputStream.nullOutputStream());
+				} catch(IOException e) {
+					// the connection may be reset
+				}
+			});
+		}
+		assertEquals("9 []", call("square", new String[] {"-n", "3"}, 3));
+	}
+	
+	@Test
+	public void testSilentClients() throws Exception {
+		this.daemon.setRequestTimeout(200);
+		final List<SocketChannel> silent = new ArrayList<>();
+		try {
+			for(int i=0; i<4; ++i) {
+				silent.add(CliDaemon.openChannel(this.address));
+			}
+			assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertEquals("9 []", call("square", new String[] {"-n", "3"}, 3)));
+		} finally {
+			for(final SocketChannel client : silent) {
+				client.close();
+			}
+		}
+	}
+	
+	@Test
+	public void testRuntimeException() throws CliOptionDefinitionException, IOException {
+		final AtomicInteger built = new AtomicInteger();
+		this.daemon.register("broken", TestOptions.class, () -> {
+			if(built.getAndIncrement() > 0) {
+				throw new IllegalStateException("no more options");
+			}
+			return new TestOptions();
+		}, (o, p, out) -> 0);
+		final String out = call("broken", new String[] {"-n", "3"}, CliDaemon.EXIT_FAILURE);
+		assertTrue(out.startsWith("error: java.lang.IllegalStateException: no more options"));
+		assertEquals("9 []", call("square", new String[] {"-n", "3"}, 3));
+	}
+	
+	@Test
+	public void testConcurrentClients() throws Exception {
+		final ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			final List<Future<String>> results = new ArrayList<>();
+			for(int i=0; i<64; ++i) {
+				final int n = i;
+				results.add(clients.submit(() -> call("square", new String[] {"-n", Integer.toString(n)}, n)));
+			}
+			for(int i=0; i<64; ++i) {
+				assertEquals((i*i)+" []", results.get(i).get());
+			}
+		} finally {
+			clients.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class CliUsageExceptionTest {
+	
+	@AfterEach
+	public void tearDown() {
+		CliUsageException.setStackTraceCapture(true);
+	}
+	
+	@Test
+	public void testLegacyReason() {
+		final CliUsageException e = new CliUsageException("foo");
+		assertEquals(EUsageError.OTHER, e.getError());
+		assertEquals("foo", e.getMessage());
+	}
+	
+	@Test
+	public void testLazyMessage() {
+		final CliUsageException e = new CliUsageException(EUsageError.NOT_AN_INTEGER, "foo");
+		final String message = e.getMessage();
+		assertEquals("expected an integer, found \"foo\"", message);
+		assertSame(message, e.getMessage());
+	}
+	
+	@Test
+	public void testStackTraceCapture() {
+		assertTrue(new CliUsageException(EUsageError.EMPTY_OPTION).getStackTrace().length > 0);
+		CliUsageException.setStackTraceCapture(false);
+		assertEquals(0, new CliUsageException(EUsageError.EMPTY_OPTION).getStackTrace().length);
+	}
+	
+	@Test
+	public void testCause() {
+		final CliUsageException cause = new CliUsageException(EUsageError.UNKNOWN_SHORT_OPTION, "x");
+		final CliUsageException e = new CliUsageException(EUsageError.UNKNOWN_MERGED_SHORT_OPTIONS, cause, "fx");
+		assertSame(cause, e.getCause());
+		assertEquals("no short option \"-x\" and no \"fx\" short option", e.getMessage());
+	}
+
+}
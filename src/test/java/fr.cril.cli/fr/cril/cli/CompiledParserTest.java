@@ -0,0 +1,271 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.ShortName;
+
+public class CompiledParserTest {
+	
+	@Params("1..2")
+	public class TestClass {
+		
+		@ShortName("a")
+		private boolean a = false;
+		
+		@ShortName("b")
+		private Boolean b = null;
+		
+		@ShortName("s")
+		@LongName("seed")
+		@Args(1)
+		private int seed = 0;
+		
+		@LongName("limit")
+		@Args(1)
+		private Long limit = null;
+		
+		@ShortName("xy")
+		@Args(1)
+		private String name = null;
+		
+		@ShortName("é")
+		@LongName("strict")
+		@Args(1)
+		private boolean strict = false;
+		
+		@LongName("pair")
+		@Args(2)
+		private String pair = null;
+		
+		@Param(0)
+		private String instance = null;
+		
+		@Param(1)
+		private Integer timeout = null;
+		
+		@Override
+		public String toString() {
+			return this.a+" "+this.b+" "+this.seed+" "+this.limit+" "+this.name+" "+this.strict+" "+this.instance+" "+this.timeout;
+		}
+	}
+	
+	public class TestClassRequired {
+		
+		@LongName("req")
+		@Required
+		private boolean req = false;
+	}
+	
+	public enum EMode {
+		FAST, SAFE
+	}
+	
+	public class TestClassTypes {
+		
+		@LongName("Aa")
+		private boolean aa = false;
+		
+		@LongName("BB")
+		@Args(1)
+		private Boolean bb = null;
+		
+		@ShortName("AaAa")
+		@Args(1)
+		private double ratio = 0;
+		
+		@ShortName("BBBB")
+		@Args(1)
+		private Float factor = null;
+		
+		@ShortName("m")
+		@Args(1)
+		private EMode mode = null;
+		
+		@ShortName("\u4e2d")
+		@Args(1)
+		private EnumSet<EMode> modes = EnumSet.noneOf(EMode.class);
+		
+		@ShortName("z")
+		@Args(1)
+		private Long size = null;
+		
+		@Override
+		public String toString() {
+			return this.aa+" "+this.bb+" "+this.ratio+" "+this.factor+" "+this.mode+" "+this.modes+" "+this.size;
+		}
+	}
+	
+	private static final List<String[]> VALID = Arrays.asList(
+			new String[] {"i"},
+			new String[] {"-a", "i", "10"},
+			new String[] {"-ab", "-s", "-3", "--limit", "12345678901", "i"},
+			new String[] {"i", "-ba", "--seed", "4", "-xy", "-name-", "--", "-5"},
+			new String[] {"-é", "true", "--strict", "false", "-s", "1", "-s", "2", "i"}
+	);
+	
+	private static final List<String[]> INVALID = Arrays.asList(
+			new String[] {},
+			new String[] {"-", "i"},
+			new String[] {"-c", "i"},
+			new String[] {"--unknown", "i"},
+			new String[] {"-as", "i"},
+			new String[] {"-s", "x", "i"},
+			new String[] {"-s"},
+			new String[] {"--strict", "maybe", "i"},
+			new String[] {"--pair", "p", "q", "i"},
+			new String[] {"i", "notAnInt"},
+			new String[] {"i", "1", "2"}
+	);
+	
+	@Test
+	public void testFastPath() throws CliUsageException, CliOptionDefinitionException {
+		final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(classParser);
+		final CompiledParser compiled = classParser.compile(true);
+		for(final String[] args : VALID) {
+			assertNotNull(compiled.parse(args), Arrays.toString(args));
+			final TestClass fast = new TestClass();
+			parser.parse(fast, args);
+			final List<String> params = parser.getParameters();
+			final TestClass interpreted = new TestClass();
+			final ParsedArgs snapshot = parser.parseOverrides(parser.parseBase(new String[] {}), args);
+			parser.bind(snapshot, interpreted);
+			assertEquals(interpreted.toString(), fast.toString(), Arrays.toString(args));
+			assertEquals(snapshot.getParameters(), params);
+			assertEquals(parser.configKey(snapshot, new TestClass()), parser.configKey(parser.parse(args), new TestClass()));
+		}
+	}
+	
+	@Test
+	public void testFallback() throws CliOptionDefinitionException {
+		final CompiledParser compiled = new ClassParser<>(TestClass.class).compile(true);
+		for(final String[] args : INVALID) {
+			assertNull(compiled.parse(args), Arrays.toString(args));
+		}
+		final CompiledParser noMerging = new ClassParser<>(TestClass.class).compile(false);
+		assertNull(noMerging.parse(new String[] {"-ab", "i"}));
+		assertNotNull(noMerging.parse(new String[] {"-xy", "n", "i"}));
+		final CompiledParser required = new ClassParser<>(TestClassRequired.class).compile(true);
+		assertNull(required.parse(new String[] {}));
+		assertNotNull(required.parse(new String[] {"--req"}));
+	}
+	
+	@Test
+	public void testShared() throws CliOptionDefinitionException {
+		final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+		final CompiledParser compiled = classParser.compile(true);
+		assertSame(compiled, classParser.compile(true));
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(classParser);
+		parser.allowShortNamesMerging(false);
+		assertNotSame(compiled, classParser.compile(false));
+	}
+
+	@Test
+	public void testSpunClass() throws CliUsageException, CliOptionDefinitionException {
+		assumeTrue(ClassFileWriter.hasHiddenClasses());
+		final ClassParser<TestClassTypes> classParser = new ClassParser<>(TestClassTypes.class);
+		final CompiledParser compiled = classParser.compile(true);
+		assertTrue(compiled.isSpun());
+		final CliArgsParser<TestClassTypes> parser = new CliArgsParser<>(classParser);
+		final String[] args = {"--Aa", "--BB", "true", "-AaAa", "0.5", "-BBBB", "1.5", "-m", "SAFE", "-\u4e2d", "FAST,SAFE", "-z", "12"};
+		assertNotNull(compiled.parse(args));
+		final TestClassTypes obj = new TestClassTypes();
+		parser.parse(obj, args);
+		assertEquals("true true 0.5 1.5 SAFE [FAST, SAFE] 12", obj.toString());
+		final TestClassTypes other = new TestClassTypes();
+		parser.parse(other, args);
+		assertNotSame(obj.modes, other.modes);
+		assertNull(compiled.parse(new String[] {"--Ab"}));
+		assertNull(compiled.parse(new String[] {"-AaBB", "1"}));
+		assertEquals("false null 0.0 2.0 null [] null", parse(parser, "-BBBB", "2"));
+		assertEquals("false false 0.0 null null [] null", parse(parser, "--BB", "false"));
+	}
+	
+	@Test
+	public void testSpunClassSameAsTables() throws CliUsageException, CliOptionDefinitionException {
+		assumeTrue(ClassFileWriter.hasHiddenClasses());
+		final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+		assertTrue(classParser.compile(true).isSpun());
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(classParser);
+		for(final String[] args : VALID) {
+			final TestClass spun = new TestClass();
+			parser.parse(spun, args);
+			final TestClass reflective = new TestClass();
+			parser.parse(args).applyTo(reflective);
+			assertEquals(reflective.toString(), spun.toString(), Arrays.toString(args));
+		}
+	}
+	
+	@Test
+	public void testLookupTables() throws CliUsageException, CliOptionDefinitionException {
+		final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+		final CompiledParser tables = new CompiledParser(classParser.parse(), true, null);
+		assertFalse(tables.isSpun());
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(classParser);
+		for(final String[] args : VALID) {
+			final TestClass obj = new TestClass();
+			tables.applyTo(tables.parse(args), obj);
+			final TestClass expected = new TestClass();
+			parser.parse(expected, args);
+			assertEquals(expected.toString(), obj.toString(), Arrays.toString(args));
+		}
+		for(final String[] args : INVALID) {
+			assertNull(tables.parse(args), Arrays.toString(args));
+		}
+		final ClassParser<TestClassTypes> typesParser = new ClassParser<>(TestClassTypes.class);
+		final CompiledParser typesTables = new CompiledParser(typesParser.parse(), true, null);
+		final TestClassTypes obj = new TestClassTypes();
+		typesTables.applyTo(typesTables.parse(new String[] {"--Aa", "--BB", "true", "-AaAa", "0.5", "-BBBB", "1.5", "-\u4e2d", "SAFE"}), obj);
+		assertEquals("true true 0.5 1.5 null [SAFE] null", obj.toString());
+		assertNull(typesTables.parse(new String[] {"--Ab"}));
+	}
+	
+	private String parse(final CliArgsParser<TestClassTypes> parser, final String... args) throws CliUsageException, CliOptionDefinitionException {
+		final TestClassTypes obj = new TestClassTypes();
+		parser.parse(obj, args);
+		return obj.toString();
+	}
+
+}
@@ -0,0 +1,122 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class ConfigKeyTest {
+	
+	@Params("0..1")
+	private class TestClassKey {
+		
+		@ShortName("a")
+		private boolean a;
+		
+		@ShortName("b")
+		private boolean b;
+		
+		@ShortName("s")
+		@LongName("seed")
+		@Args(1)
+		private int seed = 42;
+		
+		@LongName("mode")
+		@Args(1)
+		private String mode;
+		
+		@Param
+		private String instance;
+	}
+	
+	private final CliArgsParser<TestClassKey> parser = new CliArgsParser<>(new ClassParser<>(TestClassKey.class));
+	
+	private ConfigKey key(final String... args) throws CliUsageException, CliOptionDefinitionException {
+		final TestClassKey obj = new TestClassKey();
+		this.parser.parse(obj, args);
+		return this.parser.configKey(obj, new TestClassKey());
+	}
+	
+	@Test
+	public void testCanonical() throws CliUsageException, CliOptionDefinitionException {
+		final ConfigKey key = key("-a", "-b", "-s", "3", "i");
+		assertEquals(key, key("-b", "-a", "--seed", "3", "i"));
+		assertEquals(key, key("-ab", "-s", "1", "-s", "3", "i"));
+		assertEquals(key.toHexString(), key("-b", "-s", "3", "-a", "i").toHexString());
+		assertEquals(key("-a"), key("-a", "--seed", "42"));
+		assertNotEquals(key, key("-a", "-b", "-s", "3", "j"));
+		assertNotEquals(key("-a"), key("-b"));
+	}
+	
+	@Test
+	public void testSnapshot() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs args = this.parser.parse(new String[] {"--mode", "m", "-s", "42"});
+		assertEquals(key("--mode", "m"), this.parser.configKey(args, new TestClassKey()));
+		assertNotEquals(key("--mode", "m"), this.parser.configKey(args, null));
+	}
+	
+	@Test
+	public void testDiff() throws CliUsageException, CliOptionDefinitionException {
+		final ConfigKey k1 = key("-a", "-s", "3", "--mode", "x", "i");
+		final ConfigKey k2 = key("-b", "-s", "3", "--mode", "y");
+		final BitSet diff = k1.diff(k2);
+		assertEquals(diff, k2.diff(k1));
+		assertEquals(Arrays.asList("-a", "-b", "--mode", "parameter instance"), k1.names(diff));
+		assertEquals(new BitSet(), k1.diff(key("-s", "3", "--mode", "x", "-a", "i")));
+		assertEquals(Collections.singletonList("--seed (-s)"), k1.names(k1.diff(key("-a", "--mode", "x", "i"))));
+	}
+	
+	@Test
+	public void testDiffOtherParser() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassKey> other = new CliArgsParser<>(new ClassParser<>(TestClassKey.class));
+		final ConfigKey otherKey = other.configKey(new TestClassKey(), null);
+		assertThrows(IllegalArgumentException.class, () -> key().diff(otherKey));
+	}
+	
+	@Test
+	public void testHash() {
+		final long[] hash = ConfigKey.hash128("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII));
+		assertEquals(0xe34bbc7bbc071b6cL, hash[0]);
+		assertEquals(0x7a433ca9c49a9347L, hash[1]);
+		final long[] empty = ConfigKey.hash128(new byte[0]);
+		assertEquals(0L, empty[0]);
+		assertEquals(0L, empty[1]);
+	}
+
+}
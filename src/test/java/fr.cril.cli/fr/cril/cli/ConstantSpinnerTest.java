@@ -0,0 +1,145 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class ConstantSpinnerTest {
+	
+	@Params("0..1")
+	public class TestClass {
+		
+		@ShortName("luby")
+		private boolean luby = false;
+		
+		@LongName("restart-inc")
+		@Args(1)
+		private int restartInc = 100;
+		
+		@LongName("limit")
+		@Args(1)
+		private long limit = 1L << 40;
+		
+		@LongName("timeout")
+		@Args(1)
+		private Integer timeout = null;
+		
+		@LongName("seed")
+		@Args(1)
+		private Long seed = 7L;
+		
+		@Param
+		private String instance = "default.cnf";
+	}
+	
+	public interface Flags {
+		
+		boolean luby();
+		
+		int restartInc();
+		
+		long limit();
+		
+		Integer timeout();
+		
+		Long seed();
+		
+		String instance();
+		
+		default boolean fastRestarts() {
+			return luby() && restartInc() < 10;
+		}
+	}
+	
+	public interface WrongType {
+		
+		long restartInc();
+	}
+	
+	public interface WrongName {
+		
+		boolean other();
+	}
+	
+	public interface WithParameter {
+		
+		boolean luby(int i);
+	}
+	
+	@Test
+	public void testConstants() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final Flags flags = parser.constants(parser.parse(new String[] {"-luby", "--restart-inc", "-40000", "--limit", "-3", "--timeout", "70000", "i.cnf"}), null, Flags.class);
+		assertTrue(flags.luby());
+		assertEquals(-40000, flags.restartInc());
+		assertEquals(-3L, flags.limit());
+		assertEquals(70000, flags.timeout());
+		assertNull(flags.seed());
+		assertEquals("i.cnf", flags.instance());
+		assertTrue(flags.fastRestarts());
+	}
+	
+	@Test
+	public void testDefaults() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final TestClass defaults = new TestClass();
+		final Flags flags = parser.constants(parser.parse(new String[] {"-luby", "--restart-inc", "20"}), defaults, Flags.class);
+		assertEquals(1L << 40, flags.limit());
+		assertNull(flags.timeout());
+		assertEquals(7L, flags.seed());
+		assertEquals("default.cnf", flags.instance());
+		assertFalse(flags.fastRestarts());
+		final Flags other = parser.constants(parser.parse(new String[] {}), null, Flags.class);
+		assertNotSame(flags.getClass(), other.getClass());
+		assertFalse(other.luby());
+		assertEquals(0, other.restartInc());
+		assertEquals(0L, other.limit());
+		assertNull(other.instance());
+	}
+	
+	@Test
+	public void testWrongAccessor() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final ParsedArgs args = parser.parse(new String[] {});
+		assertThrows(IllegalArgumentException.class, () -> parser.constants(args, null, WrongType.class));
+		assertThrows(IllegalArgumentException.class, () -> parser.constants(args, null, WrongName.class));
+		assertThrows(IllegalArgumentException.class, () -> parser.constants(args, null, WithParameter.class));
+		assertThrows(IllegalArgumentException.class, () -> parser.constants(args, null, Object.class));
+	}
+
+}
@@ -0,0 +1,138 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.OptionsConstructor;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class ConstructorBinderTest {
+	
+	@Params("0..1")
+	private static final class TestClassFinal {
+		
+		@ShortName("v")
+		private final boolean verbose;
+		
+		@ShortName("s")
+		@Args(1)
+		private final int seed;
+		
+		@LongName("timeout")
+		@Args(1)
+		private final Long timeout;
+		
+		@LongName("limit")
+		@Args(1)
+		private final long limit;
+		
+		@Param
+		private final String instance;
+		
+		@OptionsConstructor({"instance", "seed", "verbose", "timeout", "limit"})
+		private TestClassFinal(final String instance, final int seed, final boolean verbose, final Long timeout, final long limit) {
+			this.verbose = verbose;
+			this.seed = seed;
+			this.timeout = timeout;
+			this.limit = limit;
+			this.instance = instance;
+		}
+		
+		@Override
+		public String toString() {
+			return this.verbose+" "+this.seed+" "+this.timeout+" "+this.limit+" "+this.instance;
+		}
+	}
+	
+	private static final class TestClassNoConstructor {
+		
+		@ShortName("v")
+		private final boolean verbose = false;
+	}
+	
+	private static final class TestClassWrongField {
+		
+		@ShortName("v")
+		private final boolean verbose;
+		
+		private final int other;
+		
+		@OptionsConstructor({"verbose", "other"})
+		private TestClassWrongField(final boolean verbose, final int other) {
+			this.verbose = verbose;
+			this.other = other;
+		}
+	}
+	
+	private static final class TestClassWrongCount {
+		
+		@ShortName("v")
+		private final boolean verbose;
+		
+		@OptionsConstructor({"verbose", "verbose"})
+		private TestClassWrongCount(final boolean verbose) {
+			this.verbose = verbose;
+		}
+	}
+	
+	@Test
+	public void testConstruct() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassFinal> parser = new CliArgsParser<>(new ClassParser<>(TestClassFinal.class));
+		assertEquals("true 3 10 -5 i", parser.construct(new String[] {"-v", "-s", "3", "--timeout", "10", "--limit", "-5", "i"}).toString());
+		assertEquals("false 0 null 0 null", parser.construct(new String[] {}).toString());
+	}
+	
+	@Test
+	public void testDefaults() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassFinal> parser = new CliArgsParser<>(new ClassParser<>(TestClassFinal.class));
+		final TestClassFinal defaults = new TestClassFinal("default.cnf", 42, true, 100L, 7L);
+		assertEquals("true 1 100 7 default.cnf", parser.construct(parser.parse(new String[] {"-s", "1"}), defaults).toString());
+		final ParsedArgs base = parser.parseBase(new String[] {"--timeout", "5"});
+		assertEquals("true 42 5 7 i", parser.construct(parser.parseOverrides(base, new String[] {"i"}), defaults).toString());
+	}
+	
+	@Test
+	public void testNoConstructor() {
+		final CliArgsParser<TestClassNoConstructor> parser = new CliArgsParser<>(new ClassParser<>(TestClassNoConstructor.class));
+		assertThrows(CliOptionDefinitionException.class, () -> parser.construct(new String[] {}));
+	}
+	
+	@Test
+	public void testWrongField() {
+		final CliArgsParser<TestClassWrongField> parser = new CliArgsParser<>(new ClassParser<>(TestClassWrongField.class));
+		assertThrows(CliOptionDefinitionException.class, () -> parser.construct(new String[] {}));
+		final CliArgsParser<TestClassWrongCount> parser2 = new CliArgsParser<>(new ClassParser<>(TestClassWrongCount.class));
+		assertThrows(CliOptionDefinitionException.class, () -> parser2.construct(new String[] {}));
+	}
+
+}
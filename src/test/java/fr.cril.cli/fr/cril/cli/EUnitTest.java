@@ -0,0 +1,153 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.Description;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Unit;
+
+public class EUnitTest {
+	
+	public class TestClass {
+		
+		@LongName("memory")
+		@Args(1)
+		@Unit(EUnit.BYTES)
+		private long memory = 1L << 30;
+		
+		@LongName("timeout")
+		@Args(1)
+		@Unit(EUnit.MILLISECONDS)
+		@Description("the time limit")
+		private Long timeout;
+		
+		@LongName("period")
+		@Args(1)
+		@Unit(EUnit.SECONDS)
+		private long period;
+	}
+	
+	public class WrongUnitClass {
+		
+		@LongName("size")
+		@Args(1)
+		@Unit(EUnit.BYTES)
+		private int size;
+	}
+	
+	private final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(this.classParser);
+	
+	@Test
+	public void testSizes() throws CliUsageException {
+		assertEquals(512L << 20, EUnit.BYTES.parse("512M"));
+		assertEquals(2L << 30, EUnit.BYTES.parse("2g"));
+		assertEquals(64L << 10, EUnit.BYTES.parse("64KiB"));
+		assertEquals(4096L, EUnit.BYTES.parse("4096B"));
+		assertEquals(4096L, EUnit.BYTES.parse("4096"));
+	}
+	
+	@Test
+	public void testDurations() throws CliUsageException {
+		assertEquals(30_000L, EUnit.MILLISECONDS.parse("30s"));
+		assertEquals(5_400_000L, EUnit.MILLISECONDS.parse("1h30m"));
+		assertEquals(1_500L, EUnit.MILLISECONDS.parse("1s500ms"));
+		assertEquals(250L, EUnit.MILLISECONDS.parse("250"));
+		assertEquals(2L, EUnit.SECONDS.parse("2000ms"));
+		assertEquals(90L, EUnit.MINUTES.parse("1h30m"));
+	}
+	
+	@Test
+	public void testInvalidQuantities() {
+		for(final String token : new String[] {"", "M", "12X", "1h30", "30m1h", "1m1m", "1.5G", "-1s", "1G512M", "12 s"}) {
+			final EUnit unit = token.endsWith("M") || token.endsWith("X") || token.endsWith("G") ? EUnit.BYTES : EUnit.MILLISECONDS;
+			final CliUsageException e = assertThrows(CliUsageException.class, () -> unit.parse(token), token);
+			assertEquals(EUsageError.NOT_A_QUANTITY, e.getError(), token);
+		}
+	}
+	
+	@Test
+	public void testNotAWholeNumberOfUnits() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> EUnit.SECONDS.parse("1500ms"));
+		assertEquals(EUsageError.NOT_A_QUANTITY, e.getError());
+	}
+	
+	@Test
+	public void testOverflow() {
+		assertEquals(EUsageError.QUANTITY_OVERFLOW, assertThrows(CliUsageException.class, () -> EUnit.BYTES.parse("8388608P")).getError());
+		assertEquals(EUsageError.QUANTITY_OVERFLOW, assertThrows(CliUsageException.class, () -> EUnit.NANOSECONDS.parse("200000d")).getError());
+		assertEquals(EUsageError.QUANTITY_OVERFLOW, assertThrows(CliUsageException.class, () -> EUnit.BYTES.parse("99999999999999999999")).getError());
+	}
+	
+	@Test
+	public void testParse() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--memory", "2G", "--timeout", "1h30m", "--period", "2m"});
+		assertEquals(2L << 30, obj.memory);
+		assertEquals(5_400_000L, obj.timeout);
+		assertEquals(120L, obj.period);
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"--memory", "2Q"}));
+		assertEquals(EUsageError.NOT_A_QUANTITY, e.getError());
+	}
+	
+	@Test
+	public void testUnparseRoundTrip() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--memory", "3M", "--timeout", "2s"});
+		final String[] args = this.parser.unparse(obj, new TestClass());
+		assertArrayEquals(new String[] {"--memory", Long.toString(3L << 20), "--timeout", "2000"}, args);
+		final TestClass copy = new TestClass();
+		this.parser.parse(copy, args);
+		assertEquals(obj.memory, copy.memory);
+		assertEquals(obj.timeout, copy.timeout);
+	}
+	
+	@Test
+	public void testUsage() throws CliOptionDefinitionException {
+		this.classParser.parse();
+		final StringWriter out = new StringWriter();
+		this.classParser.printOptionUsage(new PrintWriter(out));
+		assertTrue(out.toString().contains("the time limit [duration, e.g. 30s or 1h30m]"), out.toString());
+		assertTrue(out.toString().contains("[size, e.g. 512M or 2G]"), out.toString());
+	}
+	
+	@Test
+	public void testUnitOnWrongType() {
+		assertThrows(CliOptionDefinitionException.class, () -> new CliArgsParser<>(new ClassParser<>(WrongUnitClass.class)).parse(new WrongUnitClass(), new String[0]));
+	}
+
+}
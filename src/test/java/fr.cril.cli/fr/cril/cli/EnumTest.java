@@ -0,0 +1,194 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.EnumMatching;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.ShortName;
+
+public class EnumTest {
+	
+	public enum ERestart {
+		LUBY, GEOMETRIC, GLUCOSE, NONE
+	}
+	
+	public enum EStat {
+		TIME, MEMORY, CONFLICTS
+	}
+	
+	public class TestClass {
+		
+		@ShortName("r")
+		@LongName("restart")
+		@Args(1)
+		private ERestart restart = ERestart.LUBY;
+		
+		@LongName("policy")
+		@Args(1)
+		@EnumMatching
+		private ERestart policy;
+		
+		@LongName("stats")
+		@Args(1)
+		private EnumSet<EStat> stats = EnumSet.noneOf(EStat.class);
+		
+		@LongName("show")
+		@Args(1)
+		@EnumMatching(uniquePrefix = false)
+		private EnumSet<EStat> show = EnumSet.noneOf(EStat.class);
+	}
+	
+	public class WrongMatchingClass {
+		
+		@LongName("size")
+		@Args(1)
+		@EnumMatching
+		private int size;
+	}
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	
+	@Test
+	public void testExactName() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--restart", "GLUCOSE"});
+		assertEquals(ERestart.GLUCOSE, obj.restart);
+	}
+	
+	@Test
+	public void testDefaultKept() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[0]);
+		assertEquals(ERestart.LUBY, obj.restart);
+	}
+	
+	@Test
+	public void testExactMatchingIsCaseSensitive() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"-r", "luby"}));
+		assertEquals(EUsageError.NOT_AN_ENUM_CONSTANT, e.getError());
+		assertEquals("luby", e.getArguments()[0]);
+		assertEquals(names(ERestart.values()), e.getArguments()[1]);
+	}
+	
+	@Test
+	public void testIgnoreCase() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--policy", "geometric"});
+		assertEquals(ERestart.GEOMETRIC, obj.policy);
+	}
+	
+	@Test
+	public void testUniquePrefix() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--policy", "Lu"});
+		assertEquals(ERestart.LUBY, obj.policy);
+		this.parser.parse(obj, new String[] {"--policy", "n"});
+		assertEquals(ERestart.NONE, obj.policy);
+	}
+	
+	@Test
+	public void testAmbiguousPrefix() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"--policy", "g"}));
+		assertEquals(EUsageError.AMBIGUOUS_ENUM_PREFIX, e.getError());
+		assertEquals(Arrays.asList("GEOMETRIC", "GLUCOSE"), e.getArguments()[1]);
+	}
+	
+	@Test
+	public void testEnumSet() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--stats", "MEMORY,TIME", "--show", "conflicts"});
+		assertEquals(EnumSet.of(EStat.TIME, EStat.MEMORY), obj.stats);
+		assertEquals(EnumSet.of(EStat.CONFLICTS), obj.show);
+	}
+	
+	@Test
+	public void testEmptyEnumSet() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		obj.stats = EnumSet.of(EStat.TIME);
+		this.parser.parse(obj, new String[] {"--stats", ""});
+		assertEquals(EnumSet.noneOf(EStat.class), obj.stats);
+	}
+	
+	@Test
+	public void testEnumSetWrongElement() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"--stats", "TIME,,MEMORY"}));
+		assertEquals(EUsageError.NOT_AN_ENUM_CONSTANT, e.getError());
+		assertEquals("", e.getArguments()[0]);
+		final CliUsageException e2 = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"--show", "TIME,mem"}));
+		assertEquals("mem", e2.getArguments()[0]);
+	}
+	
+	@Test
+	@SuppressWarnings("rawtypes")
+	public void testBoundEnumSetsAreNotShared() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs args = this.parser.parse(new String[] {"--stats", "TIME"});
+		final TestClass first = new TestClass();
+		this.parser.bind(args, first);
+		first.stats.add(EStat.MEMORY);
+		final TestClass second = new TestClass();
+		this.parser.bind(args, second);
+		assertEquals(EnumSet.of(EStat.TIME), second.stats);
+		final OptionKey<EnumSet> key = this.parser.optionKey("stats", EnumSet.class);
+		args.get(key).add(EStat.CONFLICTS);
+		assertEquals(EnumSet.of(EStat.TIME), args.get(key));
+	}
+	
+	@Test
+	public void testUnparse() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-r", "NONE", "--stats", "TIME,CONFLICTS"});
+		final String[] args = this.parser.unparse(obj, new TestClass());
+		assertArrayEquals(new String[] {"-r", "NONE", "--stats", "TIME,CONFLICTS"}, args);
+	}
+	
+	@Test
+	public void testSweepOverConstants() throws CliUsageException, CliOptionDefinitionException {
+		final List<ERestart> restarts = this.parser.sweep(TestClass::new, new String[] {"--restart", "LUBY,NONE", "--stats", "TIME,MEMORY"})
+				.map(o -> o.restart).collect(Collectors.toList());
+		assertEquals(Arrays.asList(ERestart.LUBY, ERestart.NONE), restarts);
+	}
+	
+	@Test
+	public void testMatchingOnWrongType() {
+		assertThrows(CliOptionDefinitionException.class, () -> new CliArgsParser<>(new ClassParser<>(WrongMatchingClass.class)).parse(new WrongMatchingClass(), new String[0]));
+	}
+	
+	private static List<String> names(final Enum<?>[] constants) {
+		return Arrays.stream(constants).map(Enum::name).collect(Collectors.toList());
+	}
+
+}
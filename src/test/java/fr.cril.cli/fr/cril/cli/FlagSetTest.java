@@ -0,0 +1,290 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.ShortName;
+
+public class FlagSetTest {
+	
+	public class TestClass {
+		
+		@ShortName("a")
+		private boolean a;
+		
+		@ShortName("b")
+		private Boolean b;
+		
+		@ShortName("c")
+		private boolean c;
+		
+		@ShortName("s")
+		@Args(1)
+		private boolean strict;
+		
+		@LongName("f0")
+		private boolean f0;
+
+		@LongName("f1")
+		private boolean f1;
+
+		@LongName("f2")
+		private boolean f2;
+
+		@LongName("f3")
+		private boolean f3;
+
+		@LongName("f4")
+		private boolean f4;
+
+		@LongName("f5")
+		private boolean f5;
+
+		@LongName("f6")
+		private boolean f6;
+
+		@LongName("f7")
+		private boolean f7;
+
+		@LongName("f8")
+		private boolean f8;
+
+		@LongName("f9")
+		private boolean f9;
+
+		@LongName("f10")
+		private boolean f10;
+
+		@LongName("f11")
+		private boolean f11;
+
+		@LongName("f12")
+		private boolean f12;
+
+		@LongName("f13")
+		private boolean f13;
+
+		@LongName("f14")
+		private boolean f14;
+
+		@LongName("f15")
+		private boolean f15;
+
+		@LongName("f16")
+		private boolean f16;
+
+		@LongName("f17")
+		private boolean f17;
+
+		@LongName("f18")
+		private boolean f18;
+
+		@LongName("f19")
+		private boolean f19;
+
+		@LongName("f20")
+		private boolean f20;
+
+		@LongName("f21")
+		private boolean f21;
+
+		@LongName("f22")
+		private boolean f22;
+
+		@LongName("f23")
+		private boolean f23;
+
+		@LongName("f24")
+		private boolean f24;
+
+		@LongName("f25")
+		private boolean f25;
+
+		@LongName("f26")
+		private boolean f26;
+
+		@LongName("f27")
+		private boolean f27;
+
+		@LongName("f28")
+		private boolean f28;
+
+		@LongName("f29")
+		private boolean f29;
+
+		@LongName("f30")
+		private boolean f30;
+
+		@LongName("f31")
+		private boolean f31;
+
+		@LongName("f32")
+		private boolean f32;
+
+		@LongName("f33")
+		private boolean f33;
+
+		@LongName("f34")
+		private boolean f34;
+
+		@LongName("f35")
+		private boolean f35;
+
+		@LongName("f36")
+		private boolean f36;
+
+		@LongName("f37")
+		private boolean f37;
+
+		@LongName("f38")
+		private boolean f38;
+
+		@LongName("f39")
+		private boolean f39;
+
+		@LongName("f40")
+		private boolean f40;
+
+		@LongName("f41")
+		private boolean f41;
+
+		@LongName("f42")
+		private boolean f42;
+
+		@LongName("f43")
+		private boolean f43;
+
+		@LongName("f44")
+		private boolean f44;
+
+		@LongName("f45")
+		private boolean f45;
+
+		@LongName("f46")
+		private boolean f46;
+
+		@LongName("f47")
+		private boolean f47;
+
+		@LongName("f48")
+		private boolean f48;
+
+		@LongName("f49")
+		private boolean f49;
+
+		@LongName("f50")
+		private boolean f50;
+
+		@LongName("f51")
+		private boolean f51;
+
+		@LongName("f52")
+		private boolean f52;
+
+		@LongName("f53")
+		private boolean f53;
+
+		@LongName("f54")
+		private boolean f54;
+
+		@LongName("f55")
+		private boolean f55;
+
+		@LongName("f56")
+		private boolean f56;
+
+		@LongName("f57")
+		private boolean f57;
+
+		@LongName("f58")
+		private boolean f58;
+
+		@LongName("f59")
+		private boolean f59;
+
+		@LongName("f60")
+		private boolean f60;
+
+		@LongName("f61")
+		private boolean f61;
+
+		@LongName("f62")
+		private boolean f62;
+
+		@LongName("f63")
+		private boolean f63;
+
+		@LongName("f64")
+		private boolean f64;
+
+		@LongName("f65")
+		private boolean f65;
+	}
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	
+	@Test
+	public void testFlags() throws CliUsageException, CliOptionDefinitionException {
+		final FlagSet flags = this.parser.parse(new String[] {"-ac", "--f0", "--f65", "-s", "true"}).getFlags();
+		assertTrue(flags.isSet(this.parser.flagId("a")));
+		assertFalse(flags.isSet(this.parser.flagId("b")));
+		assertTrue(flags.isSet(this.parser.flagId("c")));
+		assertTrue(flags.isSet(this.parser.flagId("f0")));
+		assertFalse(flags.isSet(this.parser.flagId("f64")));
+		assertTrue(flags.isSet(this.parser.flagId("f65")));
+		assertTrue(flags.isSet(this.parser.optionKey("f65", Boolean.class)));
+		assertEquals(4, flags.cardinality());
+		assertEquals(2, flags.toLongArray().length);
+		assertEquals("{-a, -c, --f0, --f65}", flags.toString());
+	}
+	
+	@Test
+	public void testOverrides() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs base = this.parser.parseBase(new String[] {"-a", "--f65"});
+		final ParsedArgs args = this.parser.parseOverrides(base, new String[] {"-bc", "--f1"});
+		assertArrayEquals(this.parser.parse(new String[] {"-abc", "--f1", "--f65"}).getFlags().toLongArray(), args.getFlags().toLongArray());
+		assertEquals(2, base.getFlags().cardinality());
+	}
+	
+	@Test
+	public void testWrongIds() throws CliUsageException, CliOptionDefinitionException {
+		assertThrows(IllegalArgumentException.class, () -> this.parser.flagId("s"));
+		assertThrows(IllegalArgumentException.class, () -> this.parser.flagId("unknown"));
+		final FlagSet flags = this.parser.parse(new String[] {}).getFlags();
+		assertThrows(IllegalArgumentException.class, () -> flags.isSet(-1));
+		assertThrows(IllegalArgumentException.class, () -> flags.isSet(70));
+		assertEquals("{}", flags.toString());
+	}
+
+}
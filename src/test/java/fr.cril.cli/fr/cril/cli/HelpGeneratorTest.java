@@ -0,0 +1,96 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.Description;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.ShortName;
+import fr.cril.cli.utils.EHelpFormat;
+
+public class HelpGeneratorTest {
+	
+	private class TestOptions {
+		
+		@ShortName("r")
+		@LongName("restart")
+		@Args(value=1, names={"policy"})
+		@Description("the \"restart\" policy")
+		@Required
+		private String restart;
+		
+		@LongName("verbose")
+		private boolean verbose;
+	}
+	
+	private class PrerenderedOptions {
+		
+		@ShortName("f")
+		private boolean f;
+	}
+	
+	@Test
+	public void testGenerate(@TempDir final Path dir) throws CliOptionDefinitionException, IOException {
+		HelpGenerator.generate(TestOptions.class, dir, "solver");
+		final String text = read(dir, EHelpFormat.TEXT);
+		assertEquals(" -r,--restart <policy>   the \"restart\" policy [required]\n    --verbose         \n", text);
+		final String man = read(dir, EHelpFormat.MAN);
+		assertTrue(man.startsWith(".TH SOLVER 1\n"));
+		assertTrue(man.contains("\\fB\\-r\\fR, \\fB\\-\\-restart\\fR \\fI<policy>\\fR\n"));
+		final String md = read(dir, EHelpFormat.MARKDOWN);
+		assertTrue(md.contains("| `-r` | `--restart` | `<policy>` | the \"restart\" policy [required] |\n"));
+		assertTrue(md.contains("| | `--verbose` | | |\n"));
+		final String json = read(dir, EHelpFormat.JSON);
+		assertTrue(json.contains("{\"short\": \"r\", \"long\": \"restart\", \"args\": [\"policy\"], \"required\": true, \"description\": \"the \\\"restart\\\" policy\"}"));
+		assertTrue(json.contains("{\"short\": null, \"long\": \"verbose\", \"args\": [], \"required\": false, \"description\": \"\"}"));
+	}
+	
+	private String read(final Path dir, final EHelpFormat format) throws IOException {
+		return new String(Files.readAllBytes(dir.resolve(format.resourceName(TestOptions.class))), StandardCharsets.UTF_8);
+	}
+	
+	@Test
+	public void testPrerenderedUsage() {
+		final ClassParser<PrerenderedOptions> parser = new ClassParser<>(PrerenderedOptions.class);
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		parser.printOptionUsage(new PrintWriter(os));
+		assertEquals("pre-rendered usage\n", new String(os.toByteArray()));
+	}
+
+}
@@ -0,0 +1,201 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LazyConverter;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.ShortName;
+
+public class LazyTest {
+	
+	private static final AtomicInteger N_PROBES = new AtomicInteger();
+	
+	private static final AtomicInteger N_CONVERSIONS = new AtomicInteger();
+	
+	public static class SizeConverter implements Lazy.Converter<int[]> {
+		
+		@Override
+		public int[] convert(final String token) {
+			N_CONVERSIONS.incrementAndGet();
+			if(token.isEmpty()) {
+				throw new IllegalStateException("empty size");
+			}
+			return new int[Integer.parseInt(token)];
+		}
+	}
+	
+	public class TestClass {
+		
+		@ShortName("t")
+		@LongName("threads")
+		@Args(1)
+		private Lazy<Integer> threads = Lazy.byDefault(() -> N_PROBES.incrementAndGet() + 100);
+		
+		@LongName("buffer")
+		@Args(1)
+		@LazyConverter(SizeConverter.class)
+		private Lazy<int[]> buffer = Lazy.byDefault(() -> new int[1]);
+	}
+	
+	public class NoConverterClass {
+		
+		@LongName("buffer")
+		@Args(1)
+		private Lazy<int[]> buffer;
+	}
+	
+	public class WrongConverterClass {
+		
+		@LongName("size")
+		@Args(1)
+		@LazyConverter(SizeConverter.class)
+		private int size;
+	}
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	
+	@Test
+	public void testDefaultNotComputedWhenOverridden() throws CliUsageException, CliOptionDefinitionException {
+		final int probes = N_PROBES.get();
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-t", "4"});
+		assertEquals(4, obj.threads.get());
+		assertFalse(obj.threads.isDefault());
+		assertEquals(probes, N_PROBES.get());
+	}
+	
+	@Test
+	public void testDefaultComputedOnce() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[0]);
+		assertFalse(obj.threads.isComputed());
+		final int first = obj.threads.get();
+		assertEquals(first, obj.threads.get());
+		assertTrue(obj.threads.isComputed());
+		assertTrue(obj.threads.isDefault());
+	}
+	
+	@Test
+	public void testBuiltInConversionAtParseTime() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"-t", "four"}));
+		assertEquals(EUsageError.NOT_AN_INTEGER, e.getError());
+	}
+	
+	@Test
+	public void testDeferredConversion() throws CliUsageException, CliOptionDefinitionException {
+		final int conversions = N_CONVERSIONS.get();
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--buffer", "16"});
+		assertEquals(conversions, N_CONVERSIONS.get());
+		assertEquals(16, obj.buffer.get().length);
+		assertSame(obj.buffer.get(), obj.buffer.get());
+		assertEquals(conversions + 1, N_CONVERSIONS.get());
+	}
+	
+	@Test
+	public void testFailedConversionMemoized() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--buffer", ""});
+		final int conversions = N_CONVERSIONS.get();
+		final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, obj.buffer::get);
+		assertTrue(e.getCause() instanceof IllegalStateException);
+		assertThrows(IllegalArgumentException.class, obj.buffer::get);
+		assertEquals(conversions + 1, N_CONVERSIONS.get());
+	}
+	
+	@Test
+	public void testConcurrentAccess() throws InterruptedException {
+		final AtomicInteger calls = new AtomicInteger();
+		final Lazy<Integer> lazy = Lazy.byDefault(calls::incrementAndGet);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Thread> threads = new ArrayList<>();
+		for(int i=0; i<8; ++i) {
+			final Thread t = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				assertEquals(1, lazy.get());
+			});
+			t.start();
+			threads.add(t);
+		}
+		start.countDown();
+		for(final Thread t : threads) {
+			t.join();
+		}
+		assertEquals(1, calls.get());
+	}
+	
+	@Test
+	public void testUnparse() throws CliUsageException, CliOptionDefinitionException {
+		final int probes = N_PROBES.get();
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"--buffer", "8"});
+		assertArrayEquals(new String[] {"--buffer", "8"}, this.parser.unparse(obj, new TestClass()));
+		assertEquals(probes, N_PROBES.get());
+	}
+	
+	@Test
+	public void testEquality() {
+		assertEquals(Lazy.fromToken("1", Integer::parseInt), Lazy.fromToken("1", t -> 2));
+		assertNotEquals(Lazy.fromToken("1", Integer::parseInt), Lazy.fromToken("2", Integer::parseInt));
+		assertEquals(Lazy.byDefault(() -> 1), Lazy.byDefault(() -> 2));
+	}
+	
+	@Test
+	public void testSnapshotSharesHolder() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs args = this.parser.parse(new String[] {"--buffer", "4"});
+		final TestClass a = new TestClass();
+		final TestClass b = new TestClass();
+		this.parser.bind(args, a);
+		this.parser.bind(args, b);
+		assertSame(a.buffer.get(), b.buffer.get());
+	}
+	
+	@Test
+	public void testDefinitionErrors() {
+		assertThrows(CliOptionDefinitionException.class, () -> new ClassParser<>(NoConverterClass.class).parse());
+		assertThrows(CliOptionDefinitionException.class, () -> new ClassParser<>(WrongConverterClass.class).parse());
+	}
+
+}
@@ -0,0 +1,208 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.AtMostOne;
+import fr.cril.cli.annotations.Conflicts;
+import fr.cril.cli.annotations.ExactlyOne;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.Requires;
+import fr.cril.cli.annotations.ShortName;
+import fr.cril.cli.utils.EGroupConstraint;
+import fr.cril.cli.utils.OptionConstraints;
+import fr.cril.cli.utils.OptionMap;
+
+public class OptionConstraintsTest {
+	
+	private CliArgsParser<TestClass> parser;
+	
+	@ExactlyOne({"sat", "unsat"})
+	@AtMostOne({"fast", "safe"})
+	@Requires(option = "proof", value = "proof-file")
+	@Requires(option = "p", value = {"i", "sat"})
+	@Conflicts(option = "q", value = "v")
+	public class TestClass {
+		
+		@ShortName("i")
+		@Args(1)
+		@Required
+		private String input;
+		
+		@LongName("sat")
+		private boolean sat;
+		
+		@LongName("unsat")
+		private boolean unsat;
+		
+		@LongName("fast")
+		private boolean fast;
+		
+		@LongName("safe")
+		private boolean safe;
+		
+		@ShortName("p")
+		@LongName("proof")
+		private boolean proof;
+		
+		@LongName("proof-file")
+		@Args(1)
+		private String proofFile;
+		
+		@ShortName("q")
+		private boolean quiet;
+		
+		@ShortName("v")
+		private boolean verbose;
+	}
+	
+	@ExactlyOne({"a", "unknown"})
+	public class UnknownOptionClass {
+		
+		@ShortName("a")
+		private boolean a;
+	}
+	
+	@BeforeEach
+	public void setUp() {
+		this.parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	}
+	
+	private CliUsageException parseError(final String... args) {
+		return assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), args));
+	}
+	
+	@Test
+	public void testValid() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-i", "in", "--sat", "--proof", "--proof-file", "out", "-q"});
+		assertTrue(obj.sat);
+		assertTrue(obj.proof);
+		assertEquals("out", obj.proofFile);
+		assertTrue(this.parser.validate(new String[] {"-i", "in", "--unsat", "--safe", "-v"}).isValid());
+	}
+	
+	@Test
+	public void testMissingOneOf() {
+		final CliUsageException e = parseError("-i", "in");
+		assertEquals(EUsageError.MISSING_ONE_OF, e.getError());
+		assertEquals("one of the following options must be given: --sat, --unsat", e.getMessage());
+	}
+	
+	@Test
+	public void testExactlyOneTooMany() {
+		final CliUsageException e = parseError("-i", "in", "--unsat", "--sat");
+		assertEquals(EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, e.getError());
+		assertEquals(Arrays.asList("--sat", "--unsat"), e.getArguments()[0]);
+	}
+	
+	@Test
+	public void testAtMostOne() {
+		final CliUsageException e = parseError("-i", "in", "--sat", "--safe", "--fast");
+		assertEquals(EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, e.getError());
+		assertEquals("the following options cannot be given together: --fast, --safe", e.getMessage());
+	}
+	
+	@Test
+	public void testRequires() {
+		final CliUsageException e = parseError("-i", "in", "--unsat", "--proof");
+		assertEquals(EUsageError.MISSING_REQUIRED_BY, e.getError());
+		assertEquals("option --proof (-p) requires the following options: --proof-file", e.getMessage());
+	}
+	
+	@Test
+	public void testRepeatedRequires() throws CliOptionDefinitionException {
+		final ValidationReport report = this.parser.validate(new String[] {"-i", "in", "--unsat", "-p", "--proof-file", "out"});
+		assertEquals(Collections.singletonList(EUsageError.MISSING_REQUIRED_BY), report.getErrorCodes());
+		assertEquals(Collections.singletonList("--sat"), report.getErrors().get(0).getArguments()[1]);
+	}
+	
+	@Test
+	public void testConflicts() {
+		final CliUsageException e = parseError("-i", "in", "--sat", "-qv");
+		assertEquals(EUsageError.CONFLICTING_OPTIONS, e.getError());
+		assertEquals("option -q cannot be given with the following options: -v", e.getMessage());
+	}
+	
+	@Test
+	public void testConflictsNotTriggered() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-i", "in", "--sat", "-v"});
+		assertTrue(obj.verbose);
+	}
+	
+	@Test
+	public void testAllErrorsReported() throws CliOptionDefinitionException {
+		final ValidationReport report = this.parser.validate(new String[] {"--fast", "--safe", "-q", "-v"});
+		assertEquals(Arrays.asList(EUsageError.MISSING_REQUIRED_OPTIONS, EUsageError.MISSING_ONE_OF, EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, EUsageError.CONFLICTING_OPTIONS), report.getErrorCodes());
+	}
+	
+	@Test
+	public void testSnapshot() throws CliOptionDefinitionException {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new String[] {"-i", "in", "--sat", "--unsat"}));
+		assertEquals(EUsageError.MUTUALLY_EXCLUSIVE_OPTIONS, e.getError());
+	}
+	
+	@Test
+	public void testOverrides() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs base = this.parser.parseBase(new String[] {"--sat", "-q"});
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parseOverrides(base, new String[] {"-i", "in", "-v"}));
+		assertEquals(EUsageError.CONFLICTING_OPTIONS, e.getError());
+	}
+	
+	@Test
+	public void testUnknownOption() {
+		final CliArgsParser<UnknownOptionClass> p = new CliArgsParser<>(new ClassParser<>(UnknownOptionClass.class));
+		assertThrows(CliOptionDefinitionException.class, () -> p.parse(new UnknownOptionClass(), new String[] {"-a"}));
+	}
+	
+	@Test
+	public void testWrongTrigger() {
+		final OptionMap map = new OptionMap();
+		assertThrows(CliOptionDefinitionException.class, () -> map.addGroupConstraint(EGroupConstraint.AT_MOST_ONE, "a", new String[] {"b"}));
+		assertThrows(CliOptionDefinitionException.class, () -> map.addGroupConstraint(EGroupConstraint.REQUIRES, null, new String[] {"b"}));
+		assertThrows(CliOptionDefinitionException.class, () -> map.addGroupConstraint(EGroupConstraint.CONFLICTS, "a", new String[0]));
+	}
+	
+	@Test
+	public void testPresenceWords() throws CliOptionDefinitionException {
+		final OptionConstraints constraints = new ClassParser<>(TestClass.class).parse().getSchema().getConstraints();
+		assertArrayEquals(new EUsageError[] {EUsageError.MISSING_REQUIRED_OPTIONS, EUsageError.MISSING_ONE_OF},
+				constraints.check(new long[0]).stream().map(CliUsageException::getError).toArray());
+	}
+
+}
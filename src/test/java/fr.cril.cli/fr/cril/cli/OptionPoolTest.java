@@ -0,0 +1,191 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class OptionPoolTest {
+	
+	@Params("0..1")
+	public class TestClass {
+		
+		@ShortName("a")
+		private boolean a;
+		
+		@ShortName("b")
+		private Boolean b = Boolean.TRUE;
+		
+		@ShortName("s")
+		@LongName("seed")
+		@Args(1)
+		private int seed = 42;
+		
+		@LongName("limit")
+		@Args(1)
+		private Long limit;
+		
+		@LongName("mode")
+		@Args(1)
+		private String mode = "fast";
+		
+		@Param
+		private String instance;
+		
+		private int notAnOption = 1;
+	}
+	
+	public enum EStat {
+		TIME, MEMORY
+	}
+	
+	public class TestClassStats {
+		
+		@LongName("stats")
+		@Args(1)
+		private EnumSet<EStat> stats = EnumSet.noneOf(EStat.class);
+	}
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	
+	@Test
+	public void testReset() throws CliUsageException, CliOptionDefinitionException {
+		final OptionDefaults<TestClass> defaults = this.parser.defaults(new TestClass());
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-a", "-s", "3", "--limit", "10", "--mode", "safe", "file"});
+		obj.b = null;
+		obj.notAnOption = 2;
+		assertSame(obj, defaults.reset(obj));
+		assertFalse(obj.a);
+		assertEquals(Boolean.TRUE, obj.b);
+		assertEquals(42, obj.seed);
+		assertNull(obj.limit);
+		assertEquals("fast", obj.mode);
+		assertNull(obj.instance);
+		assertEquals(2, obj.notAnOption);
+	}
+	
+	@Test
+	public void testResetThenParse() throws CliUsageException, CliOptionDefinitionException {
+		final OptionDefaults<TestClass> defaults = this.parser.defaults(new TestClass());
+		final TestClass reused = new TestClass();
+		this.parser.parse(reused, new String[] {"-a", "--limit", "10", "file"});
+		defaults.reset(reused);
+		this.parser.parse(reused, new String[] {"-s", "7"});
+		final TestClass fresh = new TestClass();
+		this.parser.parse(fresh, new String[] {"-s", "7"});
+		assertEquals(this.parser.configKey(fresh, new TestClass()), this.parser.configKey(reused, new TestClass()));
+		assertNull(reused.limit);
+	}
+	
+	@Test
+	public void testNullPrototype() {
+		assertThrows(IllegalArgumentException.class, () -> this.parser.defaults(null));
+	}
+	
+	@Test
+	public void testPoolReuse() throws CliUsageException, CliOptionDefinitionException {
+		final OptionPool<TestClass> pool = this.parser.pool(TestClass::new, 2);
+		final TestClass first = pool.acquire();
+		for(int i=0; i<100; ++i) {
+			final TestClass obj = pool.acquire();
+			this.parser.parse(obj, new String[] {"-a", "-s", Integer.toString(i), "file"+i});
+			assertEquals(i, obj.seed);
+			pool.release(obj);
+		}
+		pool.release(first);
+		assertEquals(2, pool.created());
+		assertEquals(2, pool.idle());
+		final TestClass obj = pool.acquire();
+		assertFalse(obj.a);
+		assertEquals(42, obj.seed);
+		assertNull(obj.instance);
+	}
+	
+	@Test
+	public void testPoolCapacity() throws CliOptionDefinitionException {
+		final OptionPool<TestClass> pool = this.parser.pool(TestClass::new, 1);
+		final TestClass a = pool.acquire();
+		final TestClass b = pool.acquire();
+		pool.release(a);
+		pool.release(b);
+		assertEquals(1, pool.idle());
+		assertSame(a, pool.acquire());
+		assertEquals(2, pool.created());
+		assertEquals(0, pool.idle());
+	}
+	
+	@Test
+	public void testWrongArguments() throws CliOptionDefinitionException {
+		final OptionPool<TestClass> pool = this.parser.pool(TestClass::new, 1);
+		assertThrows(IllegalArgumentException.class, () -> pool.release(null));
+		assertThrows(IllegalArgumentException.class, () -> this.parser.pool(TestClass::new, -1));
+	}
+
+	@Test
+	public void testMutableDefaultsNotShared() throws CliOptionDefinitionException {
+		final CliArgsParser<TestClassStats> statsParser = new CliArgsParser<>(new ClassParser<>(TestClassStats.class));
+		final TestClassStats prototype = new TestClassStats();
+		final OptionDefaults<TestClassStats> defaults = statsParser.defaults(prototype);
+		final TestClassStats x = defaults.reset(new TestClassStats());
+		final TestClassStats y = defaults.reset(defaults.reset(new TestClassStats()));
+		x.stats.add(EStat.TIME);
+		assertEquals(EnumSet.noneOf(EStat.class), y.stats);
+		assertEquals(EnumSet.noneOf(EStat.class), prototype.stats);
+		assertNotSame(prototype.stats, y.stats);
+		prototype.stats.add(EStat.MEMORY);
+		assertEquals(EnumSet.noneOf(EStat.class), defaults.reset(x).stats);
+	}
+	
+	@Test
+	public void testPooledMutableDefaults() throws CliOptionDefinitionException {
+		final OptionPool<TestClassStats> pool = new CliArgsParser<>(new ClassParser<>(TestClassStats.class)).pool(TestClassStats::new, 2);
+		for(int i=0; i<2; ++i) {
+			final TestClassStats x = pool.acquire();
+			final TestClassStats y = pool.acquire();
+			pool.release(x);
+			pool.release(y);
+		}
+		final TestClassStats x = pool.acquire();
+		final TestClassStats y = pool.acquire();
+		x.stats.add(EStat.TIME);
+		assertEquals(EnumSet.noneOf(EStat.class), y.stats);
+	}
+
+}
@@ -0,0 +1,152 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class ParameterSweepTest {
+	
+	public enum EStat {
+		TIME, MEMORY
+	}
+	
+	@Params("0..1")
+	private class TestClassSweep {
+		
+		@ShortName("v")
+		private boolean verbose;
+		
+		@ShortName("s")
+		@Args(1)
+		private int seed;
+		
+		@LongName("timeout")
+		@Args(1)
+		private Long timeout;
+		
+		@LongName("mode")
+		@Args(1)
+		private String mode;
+		
+		@LongName("stats")
+		@Args(1)
+		private EnumSet<EStat> stats;
+		
+		@Param
+		private String instance;
+		
+		@Override
+		public String toString() {
+			return this.verbose+" "+this.seed+" "+this.timeout+" "+this.mode+" "+this.instance;
+		}
+	}
+	
+	private List<String> sweep(final String... template) throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassSweep> parser = new CliArgsParser<>(new ClassParser<>(TestClassSweep.class));
+		return parser.sweep(TestClassSweep::new, template).map(Object::toString).collect(Collectors.toList());
+	}
+	
+	@Test
+	public void testNoAxis() throws CliUsageException, CliOptionDefinitionException {
+		assertEquals(Arrays.asList("true 3 null null i1"), sweep("-v", "-s", "3", "i1"));
+	}
+	
+	@Test
+	public void testRangeAndList() throws CliUsageException, CliOptionDefinitionException {
+		assertEquals(Arrays.asList(
+				"false 1 10 fast null", "false 1 10 safe null",
+				"false 2 10 fast null", "false 2 10 safe null",
+				"false 3 10 fast null", "false 3 10 safe null"
+			), sweep("-s", "1..3", "--timeout", "10", "--mode", "fast,safe"));
+	}
+	
+	@Test
+	public void testDescendingRangeAndParams() throws CliUsageException, CliOptionDefinitionException {
+		assertEquals(Arrays.asList("false 0 2 null a", "false 0 2 null b", "false 0 1 null a", "false 0 1 null b"), sweep("--timeout", "2..1", "a,b"));
+	}
+	
+	@Test
+	public void testRepeatedOption() throws CliUsageException, CliOptionDefinitionException {
+		assertEquals(Arrays.asList("false 4 null fast null", "false 4 null safe null"), sweep("-s", "1..3", "--mode", "fast,safe", "-s", "4"));
+		assertEquals(Arrays.asList("false 1 null fast null", "false 2 null fast null"), sweep("-s", "4", "--mode", "fast", "-s", "1..2"));
+		assertEquals(Arrays.asList("false 0 null fast null"), sweep("--mode", "a,b,c", "--mode", "fast"));
+	}
+	
+	@Test
+	public void testFixedMutableValuesNotShared() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassSweep> parser = new CliArgsParser<>(new ClassParser<>(TestClassSweep.class));
+		final List<TestClassSweep> l = parser.sweep(TestClassSweep::new, new String[] {"--stats", "TIME", "-s", "1..2"}).collect(Collectors.toList());
+		l.get(0).stats.add(EStat.MEMORY);
+		assertEquals(EnumSet.of(EStat.TIME), l.get(1).stats);
+	}
+	
+	@Test
+	public void testRangeOnString() throws CliUsageException, CliOptionDefinitionException {
+		assertEquals(Arrays.asList("false 0 null -1 null", "false 0 null 0 null"), sweep("--mode", "-1..0"));
+	}
+	
+	@Test
+	public void testInvalidItems() {
+		assertEquals(EUsageError.NOT_AN_INTEGER, assertThrows(CliUsageException.class, () -> sweep("-s", "1,x")).getError());
+		assertEquals(EUsageError.NOT_AN_INTEGER, assertThrows(CliUsageException.class, () -> sweep("-s", "1..3000000000")).getError());
+		assertEquals(EUsageError.SWEEP_TOO_LARGE, assertThrows(CliUsageException.class, () -> sweep("--timeout", "-9223372036854775808..9223372036854775807")).getError());
+		assertEquals(EUsageError.SWEEP_TOO_LARGE, assertThrows(CliUsageException.class, () -> sweep("--timeout", "0..4294967296", "--mode", "0..4294967296")).getError());
+	}
+	
+	@Test
+	public void testSplit() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassSweep> parser = new CliArgsParser<>(new ClassParser<>(TestClassSweep.class));
+		final String[] template = new String[] {"-s", "0..9", "--timeout", "0..99"};
+		final Spliterator<TestClassSweep> spliterator = parser.sweep(TestClassSweep::new, template).spliterator();
+		assertEquals(1000, spliterator.getExactSizeIfKnown());
+		final Spliterator<TestClassSweep> prefix = spliterator.trySplit();
+		assertEquals(500, prefix.getExactSizeIfKnown());
+		assertEquals(500, spliterator.getExactSizeIfKnown());
+		spliterator.tryAdvance(o -> assertEquals("false 5 0 null null", o.toString()));
+		final Spliterator<TestClassSweep> middle = spliterator.trySplit();
+		middle.tryAdvance(o -> assertEquals("false 5 1 null null", o.toString()));
+		spliterator.tryAdvance(o -> assertEquals("false 7 50 null null", o.toString()));
+		final List<String> sequential = parser.sweep(TestClassSweep::new, template).map(Object::toString).collect(Collectors.toList());
+		final List<String> parallel = parser.sweep(TestClassSweep::new, template).parallel().map(Object::toString).collect(Collectors.toList());
+		assertEquals(sequential, parallel);
+		assertEquals(1000, parallel.stream().distinct().count());
+	}
+
+}
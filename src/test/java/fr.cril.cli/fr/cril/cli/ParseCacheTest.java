@@ -0,0 +1,173 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class ParseCacheTest {
+	
+	@Params("0..1")
+	private class TestClassCache {
+		
+		@ShortName("v")
+		private boolean verbose;
+		
+		@ShortName("s")
+		@Args(1)
+		private int seed;
+		
+		@Param
+		private String instance;
+		
+		@Override
+		public String toString() {
+			return this.verbose+" "+this.seed+" "+this.instance;
+		}
+	}
+	
+	public enum EStat {
+		TIME, MEMORY
+	}
+	
+	private class TestClassStats {
+		
+		@LongName("stats")
+		@Args(1)
+		private EnumSet<EStat> stats = EnumSet.noneOf(EStat.class);
+	}
+	
+	private final CliArgsParser<TestClassCache> parser = new CliArgsParser<>(new ClassParser<>(TestClassCache.class));
+	
+	private String parse(final String... args) throws CliUsageException, CliOptionDefinitionException {
+		final TestClassCache obj = new TestClassCache();
+		this.parser.parse(obj, args);
+		return obj.toString();
+	}
+	
+	@Test
+	public void testHitsAndMisses() throws CliUsageException, CliOptionDefinitionException {
+		final ParseCache cache = new ParseCache(10);
+		this.parser.setParseCache(cache);
+		assertEquals("true 3 i", parse("-v", "-s", "3", "i"));
+		assertEquals("true 3 i", parse("-v", "-s", "3", "i"));
+		assertEquals(Collections.singletonList("i"), this.parser.getParameters());
+		assertEquals("false 3 i", parse("-s", "3", "i"));
+		assertEquals("false 0 ab", parse("ab"));
+		assertEquals("true 0 ab", parse("-v", "ab"));
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(4, cache.size());
+		assertSame(this.parser.parse(new String[] {"-v", "-s", "3", "i"}), this.parser.parse(new String[] {"-v", "-s", "3", "i"}));
+		assertEquals(3, cache.getHits());
+	}
+	
+	@Test
+	public void testErrorsNotCached() throws CliOptionDefinitionException {
+		final ParseCache cache = new ParseCache(10);
+		this.parser.setParseCache(cache);
+		final TestClassCache obj = new TestClassCache();
+		assertThrows(CliUsageException.class, () -> this.parser.parse(obj, new String[] {"-v", "-s", "x"}));
+		assertThrows(CliUsageException.class, () -> this.parser.parse(obj, new String[] {"-v", "-s", "x"}));
+		assertEquals("false 0 null", obj.toString());
+		assertEquals(0, cache.size());
+		assertEquals(2, cache.getMisses());
+	}
+	
+	@Test
+	public void testEviction() throws CliUsageException, CliOptionDefinitionException {
+		final ParseCache cache = new ParseCache(2);
+		this.parser.setParseCache(cache);
+		parse("a");
+		parse("b");
+		parse("a");
+		parse("c");
+		assertEquals(1, cache.getEvictions());
+		parse("a");
+		assertEquals(2, cache.getHits());
+		parse("b");
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.size());
+	}
+	
+	@Test
+	public void testCharLimit() throws CliUsageException, CliOptionDefinitionException {
+		final ParseCache cache = new ParseCache(10, 4);
+		this.parser.setParseCache(cache);
+		parse("-s", "10");
+		parse("-s", "100");
+		assertEquals(1, cache.size());
+		parse("-s", "1");
+		assertEquals(1, cache.getEvictions());
+		assertEquals(1, cache.size());
+		assertThrows(IllegalArgumentException.class, () -> new ParseCache(0));
+	}
+	
+	@Test
+	public void testSharedCache() throws CliUsageException, CliOptionDefinitionException {
+		final ParseCache cache = new ParseCache(10);
+		this.parser.setParseCache(cache);
+		final CliArgsParser<TestClassCache> other = new CliArgsParser<>(new ClassParser<>(TestClassCache.class));
+		other.setParseCache(cache);
+		parse("-v");
+		final TestClassCache obj = new TestClassCache();
+		other.parse(obj, new String[] {"-v"});
+		assertEquals("true 0 null", obj.toString());
+		assertEquals(2, cache.getMisses());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testHitsDoNotShareMutableValues() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClassStats> statsParser = new CliArgsParser<>(new ClassParser<>(TestClassStats.class));
+		final ParseCache cache = new ParseCache(10);
+		statsParser.setParseCache(cache);
+		final TestClassStats first = new TestClassStats();
+		statsParser.parse(first, new String[] {"--stats", "TIME"});
+		final TestClassStats second = new TestClassStats();
+		statsParser.parse(second, new String[] {"--stats", "TIME"});
+		assertEquals(1, cache.getHits());
+		first.stats.add(EStat.MEMORY);
+		assertEquals(EnumSet.of(EStat.TIME), second.stats);
+		assertNotSame(first.stats, second.stats);
+		final TestClassStats third = new TestClassStats();
+		statsParser.parse(third, new String[] {"--stats", "TIME"});
+		assertEquals(EnumSet.of(EStat.TIME), third.stats);
+	}
+
+}
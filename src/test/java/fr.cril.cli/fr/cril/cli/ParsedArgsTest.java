@@ -0,0 +1,164 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.ShortName;
+
+public class ParsedArgsTest {
+	
+	@Params("1..1")
+	private class TestClassDelta {
+		
+		@ShortName("v")
+		private boolean verbose;
+		
+		@ShortName("s")
+		@Args(1)
+		private int seed = 42;
+		
+		@LongName("timeout")
+		@Args(1)
+		@Required
+		private Long timeout;
+		
+		@LongName("mode")
+		@Args(1)
+		private String mode;
+		
+		@Param
+		private String instance;
+		
+		@Override
+		public String toString() {
+			return this.verbose+" "+this.seed+" "+this.timeout+" "+this.mode+" "+this.instance;
+		}
+	}
+	
+	private final CliArgsParser<TestClassDelta> parser = new CliArgsParser<>(new ClassParser<>(TestClassDelta.class));
+	
+	private String bind(final ParsedArgs args) throws CliOptionDefinitionException {
+		final TestClassDelta obj = new TestClassDelta();
+		this.parser.bind(args, obj);
+		return obj.toString();
+	}
+	
+	@Test
+	public void testSnapshot() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs args = this.parser.parse(new String[] {"-v", "--timeout", "10", "i1"});
+		assertTrue(args.isChecked());
+		assertEquals(Collections.singletonList("i1"), args.getParameters());
+		assertEquals("true 42 10 null i1", bind(args));
+		assertEquals(Collections.singletonList("i1"), this.parser.getParameters());
+		assertEquals("true 42 10 null i1", bind(args));
+	}
+	
+	@Test
+	public void testSnapshotChecks() {
+		assertEquals(EUsageError.MISSING_REQUIRED_OPTIONS, assertThrows(CliUsageException.class, () -> this.parser.parse(new String[] {"i1"})).getError());
+		assertEquals(EUsageError.WRONG_PARAMETER_COUNT, assertThrows(CliUsageException.class, () -> this.parser.parse(new String[] {"--timeout", "1"})).getError());
+	}
+	
+	@Test
+	public void testOverrides() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs base = this.parser.parseBase(new String[] {"-v", "--mode", "fast", "-s", "1"});
+		assertFalse(base.isChecked());
+		final ParsedArgs job1 = this.parser.parseOverrides(base, new String[] {"--timeout", "10", "-s", "2", "i1"});
+		assertTrue(job1.isChecked());
+		assertEquals("true 2 10 fast i1", bind(job1));
+		final ParsedArgs job2 = this.parser.parseOverrides(job1, new String[] {"--mode", "safe"});
+		assertEquals("true 2 10 safe i1", bind(job2));
+		assertEquals(Arrays.asList("i1"), job2.getParameters());
+		final ParsedArgs job3 = this.parser.parseOverrides(job2, new String[] {"i2"});
+		assertEquals("true 2 10 safe i2", bind(job3));
+		assertEquals("true 1 null fast null", bind(base));
+	}
+	
+	@Test
+	public void testOverridesChecks() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs base = this.parser.parseBase(new String[] {"-v"});
+		assertEquals(EUsageError.MISSING_REQUIRED_OPTIONS, assertThrows(CliUsageException.class, () -> this.parser.parseOverrides(base, new String[] {"i1"})).getError());
+		assertEquals(EUsageError.WRONG_PARAMETER_COUNT, assertThrows(CliUsageException.class, () -> this.parser.parseOverrides(base, new String[] {"--timeout", "1"})).getError());
+		assertEquals(EUsageError.NOT_AN_INTEGER, assertThrows(CliUsageException.class, () -> this.parser.parseOverrides(base, new String[] {"--timeout", "x", "i1"})).getError());
+	}
+	
+	@Test
+	public void testOtherParser() throws CliUsageException, CliOptionDefinitionException {
+		final ParsedArgs base = this.parser.parseBase(new String[] {"-v"});
+		final CliArgsParser<TestClassDelta> other = new CliArgsParser<>(new ClassParser<>(TestClassDelta.class));
+		assertThrows(IllegalArgumentException.class, () -> other.parseOverrides(base, new String[] {"--timeout", "1", "i1"}));
+		assertThrows(IllegalArgumentException.class, () -> other.bind(base, new TestClassDelta()));
+	}
+	
+	@Test
+	public void testKeys() throws CliUsageException, CliOptionDefinitionException {
+		final OptionKey<Boolean> verbose = this.parser.optionKey("v", Boolean.class);
+		final OptionKey<Integer> seed = this.parser.optionKey("s", Integer.class);
+		final OptionKey<Long> timeout = this.parser.optionKey("timeout", Long.class);
+		final OptionKey<String> mode = this.parser.optionKey("mode", String.class);
+		final OptionKey<String> instance = this.parser.paramKey(0, String.class);
+		final ParsedArgs args = this.parser.parse(new String[] {"-s", "-7", "--timeout", "10000000000", "--mode", "m", "i1"});
+		assertFalse(args.isPresent(verbose));
+		assertEquals(null, args.get(verbose));
+		assertEquals(true, args.get(verbose, true));
+		assertTrue(args.getBoolean(verbose, true));
+		assertEquals(Integer.valueOf(-7), args.get(seed));
+		assertEquals(-7, args.getInt(seed, 42));
+		assertEquals(10000000000L, args.getLong(timeout, 0));
+		assertEquals("m", args.get(mode));
+		assertEquals("i1", args.get(instance));
+		assertEquals("--timeout", timeout.getName());
+		final ParsedArgs job = this.parser.parseOverrides(args, new String[] {"-v", "i2"});
+		assertTrue(job.getBoolean(verbose, false));
+		assertEquals("i2", job.get(instance));
+		assertEquals("i1", args.get(instance));
+	}
+	
+	@Test
+	public void testWrongKeys() throws CliUsageException, CliOptionDefinitionException {
+		assertThrows(IllegalArgumentException.class, () -> this.parser.optionKey("s", Long.class));
+		assertThrows(IllegalArgumentException.class, () -> this.parser.optionKey("unknown", String.class));
+		assertThrows(IllegalArgumentException.class, () -> this.parser.paramKey(1, String.class));
+		final CliArgsParser<TestClassDelta> other = new CliArgsParser<>(new ClassParser<>(TestClassDelta.class));
+		final OptionKey<Integer> otherSeed = other.optionKey("s", Integer.class);
+		final ParsedArgs args = this.parser.parse(new String[] {"--timeout", "1", "i1"});
+		assertThrows(IllegalArgumentException.class, () -> args.get(otherSeed));
+	}
+
+}
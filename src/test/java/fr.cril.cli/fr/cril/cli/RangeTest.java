@@ -0,0 +1,169 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Range;
+import fr.cril.cli.annotations.ShortName;
+import fr.cril.cli.annotations.Unit;
+
+public class RangeTest {
+	
+	@Params("0..1")
+	public class TestClass {
+		
+		@ShortName("t")
+		@LongName("threads")
+		@Args(1)
+		@Range(min = "1", max = "256")
+		private int threads = 1;
+		
+		@LongName("seed")
+		@Args(1)
+		@Range(min = "0")
+		private Long seed;
+		
+		@LongName("decay")
+		@Args(1)
+		@Range(min = "0", max = "1")
+		private double decay = 0.95;
+		
+		@LongName("memory")
+		@Args(1)
+		@Unit(EUnit.BYTES)
+		@Range(max = "4G")
+		private long memory;
+		
+		@Param(0)
+		@Range(max = "10")
+		private int level;
+	}
+	
+	public class WrongTypeClass {
+		
+		@LongName("name")
+		@Args(1)
+		@Range(min = "a")
+		private String name;
+	}
+	
+	public class WrongBoundClass {
+		
+		@LongName("count")
+		@Args(1)
+		@Range(min = "many")
+		private int count;
+	}
+	
+	public class EmptyRangeClass {
+		
+		@LongName("count")
+		@Args(1)
+		@Range(min = "3", max = "2")
+		private int count;
+	}
+	
+	private final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(this.classParser);
+	
+	@Test
+	public void testInRange() throws CliUsageException, CliOptionDefinitionException {
+		final TestClass obj = new TestClass();
+		this.parser.parse(obj, new String[] {"-t", "256", "--seed", "0", "--decay", "1", "--memory", "4G", "10"});
+		assertEquals(256, obj.threads);
+		assertEquals(0L, obj.seed);
+		assertEquals(1.0, obj.decay);
+		assertEquals(4L << 30, obj.memory);
+		assertEquals(10, obj.level);
+	}
+	
+	@Test
+	public void testOutOfRange() {
+		assertOutOfRange(new String[] {"-t", "0"}, "--threads (-t)", "0", "1", "256");
+		assertOutOfRange(new String[] {"--seed", "-1"}, "--seed", "-1", "0", null);
+		assertOutOfRange(new String[] {"--decay", "1.5"}, "--decay", "1.5", "0", "1");
+		assertOutOfRange(new String[] {"--decay", "NaN"}, "--decay", "NaN", "0", "1");
+		assertOutOfRange(new String[] {"--memory", "5G"}, "--memory", "5G", null, "4G");
+		assertOutOfRange(new String[] {"11"}, "parameter level", "11", null, "10");
+	}
+	
+	private void assertOutOfRange(final String[] args, final Object... arguments) {
+		final TestClass obj = new TestClass();
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(obj, args));
+		assertEquals(EUsageError.OUT_OF_RANGE, e.getError());
+		assertArrayEquals(arguments, e.getArguments());
+		assertEquals(1, obj.threads);
+		assertEquals(0.95, obj.decay);
+	}
+	
+	@Test
+	public void testMessage() {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> this.parser.parse(new TestClass(), new String[] {"-t", "300"}));
+		assertEquals("the value \"300\" of --threads (-t) must be between 1 and 256", e.getMessage());
+	}
+	
+	@Test
+	public void testSnapshot() throws CliOptionDefinitionException {
+		assertEquals(EUsageError.OUT_OF_RANGE, assertThrows(CliUsageException.class, () -> this.parser.parse(new String[] {"--seed", "-5"})).getError());
+	}
+	
+	@Test
+	public void testSweep() {
+		assertEquals(EUsageError.OUT_OF_RANGE, assertThrows(CliUsageException.class, () -> this.parser.sweep(TestClass::new, new String[] {"-t", "0..4"})).getError());
+		assertEquals(EUsageError.OUT_OF_RANGE, assertThrows(CliUsageException.class, () -> this.parser.sweep(TestClass::new, new String[] {"-t", "2,512"})).getError());
+	}
+	
+	@Test
+	public void testUsage() throws CliOptionDefinitionException {
+		this.classParser.parse();
+		final StringWriter out = new StringWriter();
+		this.classParser.printOptionUsage(new PrintWriter(out));
+		assertTrue(out.toString().contains("[1..256]"), out.toString());
+		assertTrue(out.toString().contains("[>= 0]"), out.toString());
+		assertTrue(out.toString().contains("[<= 4G]"), out.toString());
+	}
+	
+	@Test
+	public void testWrongDefinitions() {
+		assertThrows(CliOptionDefinitionException.class, () -> new ClassParser<>(WrongTypeClass.class).parse());
+		assertThrows(CliOptionDefinitionException.class, () -> new ClassParser<>(WrongBoundClass.class).parse());
+		assertThrows(CliOptionDefinitionException.class, () -> new ClassParser<>(EmptyRangeClass.class).parse());
+	}
+
+}
@@ -0,0 +1,140 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.ShortName;
+
+public class UnparserTest {
+	
+	@Params("0..2")
+	private class TestClassUnparse {
+		
+		@ShortName("v")
+		private boolean verbose;
+		
+		@LongName("quiet")
+		private boolean quiet = true;
+		
+		@ShortName("s")
+		@Args(1)
+		private int seed = 42;
+		
+		@LongName("timeout")
+		@Args(1)
+		private Long timeout;
+		
+		@LongName("mode")
+		@Args(1)
+		private String mode = "fast";
+		
+		@LongName("check")
+		@Args(1)
+		private boolean check;
+		
+		@Param(0)
+		private String instance;
+		
+		@Param(1)
+		private String output;
+		
+		@Override
+		public String toString() {
+			return this.verbose+" "+this.quiet+" "+this.seed+" "+this.timeout+" "+this.mode+" "+this.check+" "+this.instance+" "+this.output;
+		}
+	}
+	
+	private final CliArgsParser<TestClassUnparse> parser = new CliArgsParser<>(new ClassParser<>(TestClassUnparse.class));
+	
+	@Test
+	public void testDefaults() throws CliOptionDefinitionException {
+		assertArrayEquals(new String[] {}, this.parser.unparse(new TestClassUnparse(), new TestClassUnparse()));
+	}
+	
+	@Test
+	public void testRoundTrip() throws CliOptionDefinitionException, CliUsageException {
+		final TestClassUnparse obj = new TestClassUnparse();
+		obj.verbose = true;
+		obj.seed = -3;
+		obj.timeout = 100L;
+		obj.check = true;
+		obj.instance = "-i.cnf";
+		final String[] args = this.parser.unparse(obj, new TestClassUnparse());
+		assertArrayEquals(new String[] {"--check", "true", "-s", "-3", "--timeout", "100", "-v", "--", "-i.cnf"}, args);
+		final TestClassUnparse parsed = new TestClassUnparse();
+		this.parser.parse(parsed, args);
+		assertEquals(obj.toString(), parsed.toString());
+	}
+	
+	@Test
+	public void testNoDefaults() throws CliOptionDefinitionException {
+		final TestClassUnparse obj = new TestClassUnparse();
+		obj.instance = "i";
+		obj.output = "o";
+		assertArrayEquals(new String[] {"--check", "false", "--mode", "fast", "--quiet", "-s", "42", "i", "o"}, this.parser.unparse(obj, null));
+	}
+	
+	@Test
+	public void testUnexpressible() {
+		final TestClassUnparse flagOff = new TestClassUnparse();
+		flagOff.quiet = false;
+		assertThrows(IllegalArgumentException.class, () -> this.parser.unparse(flagOff, new TestClassUnparse()));
+		final TestClassUnparse nullMode = new TestClassUnparse();
+		nullMode.mode = null;
+		assertThrows(IllegalArgumentException.class, () -> this.parser.unparse(nullMode, new TestClassUnparse()));
+		final TestClassUnparse paramGap = new TestClassUnparse();
+		paramGap.output = "o";
+		assertThrows(IllegalArgumentException.class, () -> this.parser.unparse(paramGap, new TestClassUnparse()));
+	}
+	
+	@Test
+	public void testBuffer() throws CliOptionDefinitionException {
+		final TestClassUnparse obj = new TestClassUnparse();
+		obj.mode = "sûr";
+		obj.instance = "i";
+		final ByteBuffer buffer = ByteBuffer.allocate(64);
+		buffer.put((byte) 'x');
+		final int written = this.parser.unparse(obj, new TestClassUnparse(), buffer);
+		final byte[] expected = "--mode\0sûr\0i\0".getBytes(StandardCharsets.UTF_8);
+		assertEquals(expected.length, written);
+		assertArrayEquals(expected, Arrays.copyOfRange(buffer.array(), 1, 1+written));
+		buffer.clear();
+		assertEquals(written, this.parser.unparse(obj, new TestClassUnparse(), buffer));
+	}
+
+}
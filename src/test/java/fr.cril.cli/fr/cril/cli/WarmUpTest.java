@@ -0,0 +1,117 @@
+package fr.cril.cli;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+import fr.cril.cli.annotations.Required;
+import fr.cril.cli.annotations.ShortName;
+
+public class WarmUpTest {
+	
+	@Params("1..*")
+	public static class TestClass {
+		
+		@ShortName("a")
+		private boolean a = false;
+		
+		@ShortName("b")
+		@LongName("bee")
+		private Boolean b = null;
+		
+		@ShortName("s")
+		@LongName("seed")
+		@Args(1)
+		private int seed = 0;
+		
+		@LongName("limit")
+		@Args(1)
+		@Required
+		private long limit = 0;
+		
+		@LongName("strict")
+		@Args(1)
+		private boolean strict = false;
+		
+		@LongName("name")
+		@Args(1)
+		private String name = null;
+		
+		@Param(0)
+		private Integer timeout = null;
+	}
+	
+	@Test
+	public void testGenerate() throws CliOptionDefinitionException {
+		final ClassParser<TestClass> classParser = new ClassParser<>(TestClass.class);
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(classParser);
+		final List<String[]> lines = SyntheticArgs.generate(classParser.parse(), true);
+		assertEquals(11, lines.size());
+		for(final String[] line : lines) {
+			assertTrue(parser.validate(line).isValid(), Arrays.toString(line));
+			assertTrue(Arrays.asList(line).contains("--limit"), Arrays.toString(line));
+		}
+		assertTrue(lines.stream().anyMatch(l -> Arrays.asList(l).contains("-ab")));
+		assertTrue(SyntheticArgs.generate(classParser.parse(), false).stream().noneMatch(l -> Arrays.asList(l).contains("-ab")));
+		final List<String> all = Arrays.asList(lines.get(lines.size()-1));
+		assertEquals(Arrays.asList("1", "param1", "param2"), all.subList(all.size()-3, all.size()));
+		assertTrue(all.containsAll(Arrays.asList("-a", "-b", "-s", "--strict", "--name")));
+	}
+	
+	@Test
+	public void testWarmUp() throws CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final WarmUpReport report = parser.warmUp(TestClass::new, 2);
+		assertEquals(11, report.getCommandLineCount());
+		assertTrue(report.getRoundCount() >= 1 && report.getRoundCount() <= 2);
+		assertEquals(3000L * report.getRoundCount(), report.getParseCount());
+		assertTrue(parser.getParameters().isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> parser.warmUp(TestClass::new, 0));
+	}
+	
+	@Test
+	public void testDaemonWarmUp() throws CliOptionDefinitionException, IOException {
+		try(final CliDaemon daemon = new CliDaemon(1)) {
+			daemon.register("test", TestClass.class, TestClass::new, (o, p, out) -> 0);
+			final Map<String, WarmUpReport> reports = daemon.warmUp(1);
+			assertEquals(1, reports.size());
+			assertEquals(1, reports.get("test").getRoundCount());
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import fr.cril.cli.CliArgsParser;
+import fr.cril.cli.CliOptionDefinitionException;
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.ClassParser;
+import fr.cril.cli.EUsageError;
+import fr.cril.cli.ParsedArgs;
+import fr.cril.cli.annotations.Args;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.OptionsConstructor;
+import fr.cril.cli.annotations.Param;
+import fr.cril.cli.annotations.Params;
+
+public class DecimalParserTest {
+	
+	@Params("0..1")
+	public class TestClass {
+		
+		@LongName("decay")
+		@Args(1)
+		private double decay = 0.95;
+		
+		@LongName("ratio")
+		@Args(1)
+		private float ratio = 1.5f;
+		
+		@LongName("scale")
+		@Args(1)
+		private Double scale;
+		
+		@Param(0)
+		private Float factor;
+	}
+	
+	public static final class FinalClass {
+		
+		@LongName("decay")
+		@Args(1)
+		private final double decay;
+		
+		@LongName("ratio")
+		@Args(1)
+		private final float ratio;
+		
+		@OptionsConstructor({"decay", "ratio"})
+		private FinalClass(final double decay, final float ratio) {
+			this.decay = decay;
+			this.ratio = ratio;
+		}
+	}
+	
+	@ParameterizedTest
+	@ValueSource(strings = {"0", "-0", "0.95", "-1.5e-3", "2E10", "+3.25", ".5", "1.", "100", "1e22", "1e23", "4.9e-324", "1.7976931348623157e308",
+			"123456789012345678901234567890", "0.12345678901234567890123", "9007199254740993", "1e-400", "1e400", "NaN", "-Infinity", "00012.5000"})
+	public void testSameAsParseDouble(final String token) throws CliUsageException {
+		assertEquals(Double.parseDouble(token), DecimalParser.parseDouble(token, 0, token.length()), token);
+		assertEquals(Float.parseFloat(token), DecimalParser.parseFloat(token, 0, token.length()), token);
+	}
+	
+	@Test
+	public void testRandomValues() throws CliUsageException {
+		final Random random = new Random(0);
+		for(int i=0; i<10_000; ++i) {
+			final String token = BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(8)).toPlainString()+(random.nextBoolean() ? "" : "e"+(random.nextInt(40)-20));
+			assertEquals(Double.parseDouble(token), DecimalParser.parseDouble(token, 0, token.length()), token);
+			assertEquals(Float.parseFloat(token), DecimalParser.parseFloat(token, 0, token.length()), token);
+		}
+	}
+	
+	@Test
+	public void testRegion() throws CliUsageException {
+		final String arg = "--decay=0.75";
+		assertEquals(0.75, DecimalParser.parseDouble(arg, 8, arg.length()));
+	}
+	
+	@ParameterizedTest
+	@CsvSource({
+		"'', 0",
+		"-, 1",
+		"., 1",
+		"1.5.3, 3",
+		"1e, 2",
+		"1e+, 3",
+		"12x, 2",
+		"' 1', 0",
+		"1d, 1",
+		"0x1p3, 1",
+		"nan, 0",
+	})
+	public void testMalformed(final String token, final int position) {
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> DecimalParser.parseDouble(token, 0, token.length()));
+		assertEquals(EUsageError.NOT_A_NUMBER, e.getError());
+		assertEquals(token, e.getArguments()[0]);
+		assertEquals(position, e.getArguments()[1]);
+	}
+	
+	@Test
+	public void testFields() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final TestClass obj = new TestClass();
+		parser.parse(obj, new String[] {"--decay", "0.99", "--ratio", "2.5", "--scale", "1e-3", "0.5"});
+		assertEquals(0.99, obj.decay);
+		assertEquals(2.5f, obj.ratio);
+		assertEquals(1e-3, obj.scale);
+		assertEquals(0.5f, obj.factor);
+		final TestClass defaults = new TestClass();
+		parser.parse(defaults, new String[0]);
+		assertEquals(0.95, defaults.decay);
+		final CliUsageException e = assertThrows(CliUsageException.class, () -> parser.parse(new TestClass(), new String[] {"--decay", "0,99"}));
+		assertEquals(EUsageError.NOT_A_NUMBER, e.getError());
+	}
+	
+	@Test
+	public void testSnapshot() throws CliUsageException, CliOptionDefinitionException {
+		final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+		final ParsedArgs args = parser.parse(new String[] {"--decay", "-0.25", "--ratio", "0.1"});
+		assertEquals(-0.25, args.getDouble(parser.optionKey("decay", Double.class), 0));
+		assertEquals(0.1f, args.get(parser.optionKey("ratio", Float.class)));
+		final TestClass obj = new TestClass();
+		parser.bind(args, obj);
+		assertEquals(-0.25, obj.decay);
+		assertEquals(0.1f, obj.ratio);
+	}
+
+	@Test
+	public void testConstructor() throws CliUsageException, CliOptionDefinitionException {
+		final FinalClass obj = new CliArgsParser<>(new ClassParser<>(FinalClass.class)).construct(new String[] {"--decay", "0.5", "--ratio", "0.25"});
+		assertEquals(0.5, obj.decay);
+		assertEquals(0.25f, obj.ratio);
+	}
+
+}
@@ -31,6 +31,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -133,6 +134,29 @@ public class EFieldTypeTest {
 		assertEquals("foo", this.obj.s);
 	}
 	
+	@Test
+	public void testEnum() throws NoSuchFieldException, SecurityException, CliUsageException {
+		final Field f = TestClass.class.getDeclaredField("e");
+		final EFieldType type = EFieldType.forClass(f.getType(), 1);
+		assertEquals(EFieldType.ENUM, type);
+		type.apply(f, this.obj, Collections.singletonList("B"));
+		assertEquals(EColor.B, this.obj.e);
+		assertEquals(EColor.R, type.convert(Collections.singletonList("R"), null, new EnumConverter(EColor.class, false, false, false)));
+		assertThrows(CliUsageException.class, () -> type.apply(f, this.obj, Collections.singletonList("b")));
+		assertThrows(IllegalArgumentException.class, () -> type.convert(Collections.singletonList("R"), null, null));
+	}
+	
+	@Test
+	public void testEnumSet() throws NoSuchFieldException, SecurityException, CliUsageException {
+		final Field f = TestClass.class.getDeclaredField("es");
+		final EFieldType type = EFieldType.forClass(f.getType(), 1);
+		assertEquals(EFieldType.ENUM_SET, type);
+		type.apply(f, this.obj, Collections.singletonList("R,G"));
+		assertEquals(EnumSet.of(EColor.R, EColor.G), this.obj.es);
+		assertEquals(EnumSet.of(EColor.B), type.convert(Collections.singletonList("b"), null, new EnumConverter(EColor.class, true, true, false)));
+		assertThrows(IllegalArgumentException.class, () -> type.convert(Collections.singletonList("R"), null, new EnumConverter(EColor.class, false, false, false)));
+	}
+	
 	@Test
 	public void testRetrieveByUnknownClass() {
 		assertThrows(IllegalArgumentException.class, () -> EFieldType.forClass(TestClass.class, 1));
@@ -282,6 +306,14 @@ public class EFieldTypeTest {
 		private long l1 = 0l;
 		
 		private String s;
+		
+		private EColor e;
+		
+		private EnumSet<EColor> es;
+	}
+	
+	private enum EColor {
+		R, G, B;
 	}
 
 }
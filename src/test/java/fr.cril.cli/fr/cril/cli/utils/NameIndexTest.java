@@ -0,0 +1,154 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.CliArgsParser;
+import fr.cril.cli.CliUsageException;
+import fr.cril.cli.ClassParser;
+import fr.cril.cli.EUsageError;
+import fr.cril.cli.annotations.LongName;
+import fr.cril.cli.annotations.ShortName;
+
+public class NameIndexTest {
+	
+	public class TestClass {
+		
+		@ShortName("t")
+		@LongName("threads")
+		private boolean threads;
+		
+		@LongName("thread-pool")
+		private boolean threadPool;
+		
+		@LongName("verbose")
+		private boolean verbose;
+		
+		@ShortName("vrb")
+		private boolean vrb;
+	}
+	
+	private final CliArgsParser<TestClass> parser = new CliArgsParser<>(new ClassParser<>(TestClass.class));
+	
+	@Test
+	public void testSameAsScan() {
+		final Random random = new Random(0);
+		final List<String> names = new ArrayList<>();
+		for(int i=0; i<3000; ++i) {
+			names.add(randomName(random));
+		}
+		final NameIndex index = new NameIndex(names, names);
+		for(int i=0; i<200; ++i) {
+			final String query = randomName(random);
+			for(final int maxDistance : new int[] {0, 1, 2, 4}) {
+				assertEquals(scan(names, query, 3, maxDistance), index.nearest(query, 3, maxDistance), query+" "+maxDistance);
+			}
+		}
+	}
+	
+	private static String randomName(final Random random) {
+		final char[] chars = new char[3 + random.nextInt(8)];
+		for(int i=0; i<chars.length; ++i) {
+			chars[i] = (char) ('a' + random.nextInt(6));
+		}
+		return new String(chars);
+	}
+	
+	private static List<String> scan(final List<String> names, final String query, final int k, final int maxDistance) {
+		return names.stream().filter(n -> levenshtein(n, query) <= maxDistance)
+				.sorted(Comparator.<String>comparingInt(n -> levenshtein(n, query)).thenComparing(Comparator.naturalOrder()))
+				.limit(k).collect(Collectors.toList());
+	}
+	
+	private static int levenshtein(final String a, final String b) {
+		final int[][] d = new int[a.length() + 1][b.length() + 1];
+		for(int i=0; i<=a.length(); ++i) {
+			for(int j=0; j<=b.length(); ++j) {
+				d[i][j] = i == 0 ? j : j == 0 ? i : Math.min(d[i-1][j-1] + (a.charAt(i-1) == b.charAt(j-1) ? 0 : 1), Math.min(d[i-1][j], d[i][j-1]) + 1);
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+	
+	@Test
+	public void testEmptyIndex() {
+		assertEquals(Collections.emptyList(), new NameIndex(Collections.emptyList(), Collections.emptyList()).suggest("threads"));
+	}
+	
+	@Test
+	public void testSuggestionRadius() {
+		final NameIndex index = new NameIndex(Arrays.asList("ab", "abcdef"), Arrays.asList("-ab", "--abcdef"));
+		assertEquals(Collections.emptyList(), index.suggest("ac"));
+		assertEquals(Arrays.asList("--abcdef"), index.suggest("abcxef"));
+		assertEquals(Collections.emptyList(), index.suggest("axcxex"));
+	}
+	
+	@Test
+	public void testUnknownLongOption() {
+		final CliUsageException e = assertThrowsUsage(new String[] {"--thread"});
+		assertEquals(EUsageError.UNKNOWN_LONG_OPTION, e.getError());
+		assertEquals(Arrays.asList("--threads"), e.getSuggestions());
+		assertEquals("no field linked to long option \"thread\" (did you mean --threads?)", e.getMessage());
+	}
+	
+	@Test
+	public void testUnknownShortOption() {
+		final CliUsageException e = assertThrowsUsage(new String[] {"-vrbose"});
+		assertEquals(EUsageError.UNKNOWN_MERGED_SHORT_OPTIONS, e.getError());
+		assertEquals(Arrays.asList("--verbose"), e.getSuggestions());
+		assertEquals("no short option \"-v\" and no \"vrbose\" short option (did you mean --verbose?)", e.getMessage());
+	}
+	
+	@Test
+	public void testNoSuggestion() {
+		final CliUsageException e = assertThrowsUsage(new String[] {"--quiet"});
+		assertTrue(e.getSuggestions().isEmpty());
+		assertEquals("no field linked to long option \"quiet\"", e.getMessage());
+	}
+	
+	private CliUsageException assertThrowsUsage(final String[] args) {
+		try {
+			this.parser.parse(new TestClass(), args);
+		} catch(final CliUsageException e) {
+			return e;
+		} catch(final Exception e) {
+			throw new AssertionError(e);
+		}
+		throw new AssertionError("no usage error");
+	}
+
+}
@@ -0,0 +1,136 @@
+package fr.cril.cli.utils;
+
+/*-
+ * #%L
+ * Jigsaw-cli
+ * %%
+ * Copyright (C) 2019 Artois University and CNRS
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * Contributors:
+ *   *   CRIL - initial API and implementation
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import fr.cril.cli.CliOptionDefinitionException;
+
+public class OptionHelpIndexTest {
+	
+	private OptionMap options;
+	
+	private Field field;
+	
+	@SuppressWarnings("unused")
+	private Object obj2 = new Object();
+	
+	private Field field2;
+	
+	@SuppressWarnings("unused")
+	private Object obj3 = new Object();
+	
+	private Field field3;
+	
+	@BeforeEach
+	public void setUp() throws NoSuchFieldException, SecurityException, CliOptionDefinitionException {
+		this.options = new OptionMap();
+		this.field = OptionHelpIndexTest.class.getDeclaredField("options");
+		this.field2 = OptionHelpIndexTest.class.getDeclaredField("obj2");
+		this.field3 = OptionHelpIndexTest.class.getDeclaredField("obj3");
+		this.options.setShortName(this.field, "r");
+		this.options.setLongName(this.field, "restart");
+		this.options.setDescription(this.field, "the restart policy");
+		this.options.setLongName(this.field2, "restart-inc");
+		this.options.setDescription(this.field2, "the restart increment");
+		this.options.setShortName(this.field3, "s");
+		this.options.setLongName(this.field3, "seed");
+		this.options.setDescription(this.field3, "the random SEED");
+	}
+	
+	@Test
+	public void testRowOrder() {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		assertEquals(3, index.size());
+		assertEquals("-r", index.cell(0, OptionHelpIndex.SHORT_OPT_COL));
+		assertEquals("--restart-inc", index.cell(1, OptionHelpIndex.LONG_OPT_COL));
+		assertEquals("-s", index.cell(2, OptionHelpIndex.SHORT_OPT_COL));
+	}
+	
+	@Test
+	public void testPrefix() {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		assertArrayEquals(new int[] {0, 1}, index.withPrefix("rest"));
+		assertArrayEquals(new int[] {0, 1}, index.withPrefix("--REST"));
+		assertArrayEquals(new int[] {1}, index.withPrefix("restart-"));
+		assertArrayEquals(new int[] {2}, index.withPrefix("s"));
+		assertArrayEquals(new int[] {0, 1, 2}, index.withPrefix(""));
+		assertArrayEquals(new int[] {}, index.withPrefix("x"));
+	}
+	
+	@Test
+	public void testMatching() {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		assertArrayEquals(new int[] {0, 1}, index.matching("restart"));
+		assertArrayEquals(new int[] {2}, index.matching("seed"));
+		assertArrayEquals(new int[] {0, 1, 2}, index.matching("th"));
+		assertArrayEquals(new int[] {}, index.matching("policies"));
+	}
+	
+	@Test
+	public void testPage() {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		assertArrayEquals(new int[] {0, 1}, index.page(0, 2));
+		assertArrayEquals(new int[] {2}, index.page(1, 2));
+		assertArrayEquals(new int[] {}, index.page(2, 2));
+		assertThrows(IllegalArgumentException.class, () -> index.page(0, 0));
+	}
+	
+	@Test
+	public void testIndexReuse() throws CliOptionDefinitionException {
+		final OptionHelpIndex index = this.options.getHelpIndex();
+		assertSame(index, this.options.getHelpIndex());
+		this.options.setRequired(this.field, true);
+		assertNotSame(index, this.options.getHelpIndex());
+	}
+	
+	@Test
+	public void testPrintPrefixed() {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final PrintWriter pw = new PrintWriter(os);
+		new OptionUsagePrinter(this.options).printPrefixed(pw, "restart-");
+		assertEquals("    --restart-inc   the restart increment\n", new String(os.toByteArray()));
+	}
+	
+	@Test
+	public void testPrintPage() {
+		final ByteArrayOutputStream os = new ByteArrayOutputStream();
+		final PrintWriter pw = new PrintWriter(os);
+		new OptionUsagePrinter(this.options).printPage(pw, 1, 2);
+		assertEquals(" -s,--seed          the random SEED\n", new String(os.toByteArray()));
+	}
+
+}